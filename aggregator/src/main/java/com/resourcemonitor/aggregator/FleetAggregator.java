@@ -0,0 +1,119 @@
+package com.resourcemonitor.aggregator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standalone fleet aggregator: ingests snapshots from many {@code ResourceMonitor} nodes over
+ * TCP, rolls them up per service in tumbling windows and serves the rollups as JSON.
+ *
+ * Nodes send with {@code resource.monitor.fleet-enabled=true}. Usage:
+ *
+ * <pre>
+ * java -jar aggregator.jar [--host=0.0.0.0] [--ingest-port=7070] [--http-port=7071] [--window-seconds=60]
+ * </pre>
+ *
+ * The aggregator can also be embedded, e.g. with several in-process nodes for testing; see
+ * {@link FleetSimulator}.
+ */
+public class FleetAggregator implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FleetAggregator.class);
+
+    private final FleetRollups rollups;
+    private final IngestServer ingest;
+    private final QueryEndpoint query;
+    private final ScheduledExecutorService rotation;
+
+    /**
+     * Starts the ingest server, the query API and window rotation.
+     *
+     * @param host Address to bind both ports to
+     * @param ingestPort TCP port for node connections; 0 picks a free port
+     * @param httpPort HTTP port of the query API; 0 picks a free port
+     * @param windowSeconds Length of a rollup window
+     * @throws IOException if a port cannot be bound
+     */
+    public FleetAggregator(String host, int ingestPort, int httpPort, long windowSeconds) throws IOException {
+        this.rollups = new FleetRollups(TimeUnit.SECONDS.toMillis(windowSeconds), System.currentTimeMillis());
+        this.ingest = new IngestServer(rollups, host, ingestPort);
+        try {
+            this.query = new QueryEndpoint(rollups, host, httpPort);
+        } catch (IOException e) {
+            ingest.close();
+            throw e;
+        }
+        this.rotation = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "fleet-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rotation.scheduleAtFixedRate(() -> rollups.rotateIfDue(System.currentTimeMillis()), 1, 1, TimeUnit.SECONDS);
+        logger.info("Fleet aggregator ingesting on port {}, queries at http://{}:{}/services",
+            ingest.getPort(), host, query.getPort());
+    }
+
+    /**
+     * @return The TCP port nodes connect to
+     */
+    public int getIngestPort() {
+        return ingest.getPort();
+    }
+
+    /**
+     * @return The HTTP port of the query API
+     */
+    public int getHttpPort() {
+        return query.getPort();
+    }
+
+    /**
+     * @return Number of snapshots ingested since startup
+     */
+    public long getSnapshots() {
+        return rollups.getSnapshots();
+    }
+
+    @Override
+    public void close() {
+        rotation.shutdownNow();
+        query.close();
+        ingest.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        FleetAggregator aggregator = new FleetAggregator(
+            options.getOrDefault("host", "0.0.0.0"),
+            Integer.parseInt(options.getOrDefault("ingest-port", "7070")),
+            Integer.parseInt(options.getOrDefault("http-port", "7071")),
+            Long.parseLong(options.getOrDefault("window-seconds", "60")));
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            aggregator.close();
+            stopped.countDown();
+        }, "fleet-shutdown"));
+        stopped.await();
+    }
+
+    /**
+     * Parses {@code --name=value} arguments.
+     */
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
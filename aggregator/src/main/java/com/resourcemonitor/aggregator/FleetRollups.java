@@ -0,0 +1,67 @@
+package com.resourcemonitor.aggregator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All service rollups of the aggregator, in tumbling windows of a fixed length.
+ *
+ * The ingest thread updates rollups and the query threads read them; both hold this object's
+ * monitor. A snapshot is applied under a single lock acquisition, which is uncontended except
+ * while a query renders, so the lock costs far less than decoding the snapshot.
+ */
+final class FleetRollups {
+    private final Map<String, ServiceRollup> services = new HashMap<>();
+    private final long windowMillis;
+    private long windowStartMillis;
+    private long snapshots;
+
+    FleetRollups(long windowMillis, long nowMillis) {
+        this.windowMillis = windowMillis;
+        this.windowStartMillis = nowMillis;
+    }
+
+    synchronized ServiceRollup service(String name) {
+        return services.computeIfAbsent(name, ServiceRollup::new);
+    }
+
+    synchronized void countSnapshot(ServiceRollup service) {
+        service.snapshots++;
+        snapshots++;
+    }
+
+    /**
+     * Starts a new window if the current one has ended.
+     */
+    synchronized void rotateIfDue(long nowMillis) {
+        if (nowMillis - windowStartMillis < windowMillis) {
+            return;
+        }
+        for (ServiceRollup service : services.values()) {
+            service.rotate();
+        }
+        windowStartMillis = nowMillis;
+    }
+
+    synchronized List<ServiceRollup> services() {
+        return new ArrayList<>(services.values());
+    }
+
+    synchronized ServiceRollup find(String name) {
+        return services.get(name);
+    }
+
+    synchronized long getSnapshots() {
+        return snapshots;
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    synchronized long getWindowStartMillis() {
+        return windowStartMillis;
+    }
+}
@@ -0,0 +1,155 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.fleet.FleetSink;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs an in-process aggregator fed by many simulated nodes on localhost and reports the
+ * ingest rate and the CPU time of the ingest thread.
+ *
+ * Each node has its own registry shaped like a real monitor's (heap and pool gauges, CPU
+ * percentages, GC counters and per-group thread CPU) and its own {@link FleetSink}, so the
+ * whole client and server path is exercised. Usage:
+ *
+ * <pre>
+ * java -cp aggregator.jar com.resourcemonitor.aggregator.FleetSimulator \
+ *     [--nodes=300] [--services=3] [--rate=5000] [--seconds=10]
+ * </pre>
+ */
+public final class FleetSimulator {
+    private static final int THREAD_GROUPS = 40;
+
+    private FleetSimulator() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = FleetAggregator.options(args);
+        int nodeCount = Integer.parseInt(options.getOrDefault("nodes", "300"));
+        int services = Integer.parseInt(options.getOrDefault("services", "3"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "5000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+
+        try (FleetAggregator aggregator = new FleetAggregator("127.0.0.1", 0, 0, 60)) {
+            Node[] nodes = new Node[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = new Node("service-" + (i % services), "node-" + i, aggregator.getIngestPort());
+            }
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long ingestThread = ingestThreadId();
+            long cpuStart = threads.getThreadCpuTime(ingestThread);
+            long start = System.nanoTime();
+            long sent = 0;
+            long intervalNanos = 1_000_000_000L / rate;
+            long end = start + seconds * 1_000_000_000L;
+            for (long next = start; next < end; next += intervalNanos) {
+                while (System.nanoTime() < next) {
+                    Thread.onSpinWait();
+                }
+                nodes[(int) (sent % nodeCount)].send();
+                sent++;
+            }
+            long sendNanos = System.nanoTime() - start;
+            // Let the ingest thread drain what is still in flight
+            long expected = sent - nodeCount;
+            for (int i = 0; i < 50 && aggregator.getSnapshots() < expected; i++) {
+                Thread.sleep(100);
+            }
+            long ingestCpu = threads.getThreadCpuTime(ingestThread) - cpuStart;
+            long received = aggregator.getSnapshots();
+
+            System.out.printf("nodes=%d sent=%d received=%d in %.1fs (%.0f snapshots/s)%n",
+                nodeCount, sent, received, sendNanos / 1e9, received / (sendNanos / 1e9));
+            System.out.printf("ingest thread CPU %.2fs, %.1fus per snapshot, %.0f snapshots per CPU second%n",
+                ingestCpu / 1e9, ingestCpu / 1e3 / Math.max(received, 1), received / Math.max(ingestCpu / 1e9, 1e-9));
+
+            String base = "http://127.0.0.1:" + aggregator.getHttpPort();
+            System.out.println(get(base + "/services"));
+            System.out.println(get(base + "/rollup?service=service-0&metric=memory.heap.used"));
+            System.out.println(get(base + "/rollup?service=service-0&metric=gc.collections"));
+            System.out.println(get(base + "/distinct?service=service-0&metric=threads.cpu.group"));
+            for (Node node : nodes) {
+                node.sink.close();
+            }
+        }
+    }
+
+    private static long ingestThreadId() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("fleet-ingest".equals(thread.getName())) {
+                return thread.getId();
+            }
+        }
+        throw new IllegalStateException("Ingest thread not found");
+    }
+
+    private static String get(String url) throws Exception {
+        try (InputStream in = new URL(url).openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A simulated monitor: a registry, a reused snapshot and a sink.
+     */
+    private static final class Node {
+        final MetricRegistry registry = new MetricRegistry();
+        final MetricsSnapshot snapshot;
+        final FleetSink sink;
+        final int heapUsed;
+        final int heapUsage;
+        final int cpuProcess;
+        final int gcCount;
+        final int[] poolUsed = new int[3];
+        final int[] groupCpu = new int[THREAD_GROUPS];
+        final long heapBase;
+        long collections;
+
+        Node(String service, String name, int port) {
+            heapUsed = registry.longGauge("memory.heap.used", "bytes");
+            heapUsage = registry.doubleGauge("memory.heap.usage", "percent");
+            cpuProcess = registry.doubleGauge("cpu.process", "percent");
+            gcCount = registry.counter("gc.collections", "count", "gc", "G1 Young Generation");
+            String[] pools = {"G1 Eden Space", "G1 Old Gen", "G1 Survivor Space"};
+            for (int i = 0; i < pools.length; i++) {
+                poolUsed[i] = registry.longGauge("memory.pool.used", "bytes", "pool", pools[i]);
+            }
+            // Each node reports a random subset of the fleet's thread groups
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < THREAD_GROUPS; i++) {
+                groupCpu[i] = random.nextInt(4) == 0 ? -1
+                    : registry.doubleGauge("threads.cpu.group", "percent", "group", "worker-" + i + "-*");
+            }
+            snapshot = registry.newSnapshot();
+            heapBase = (200 + random.nextInt(300)) * 1024L * 1024L;
+            sink = new FleetSink(registry, "127.0.0.1", port, service, name, 256 * 1024);
+        }
+
+        void send() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            snapshot.begin(System.currentTimeMillis());
+            long used = heapBase + random.nextLong(100L * 1024 * 1024);
+            snapshot.set(heapUsed, used);
+            snapshot.set(heapUsage, used * 100.0 / (1024L * 1024 * 1024));
+            snapshot.set(cpuProcess, random.nextDouble(100));
+            collections += random.nextInt(3);
+            snapshot.set(gcCount, collections);
+            for (int id : poolUsed) {
+                snapshot.set(id, random.nextLong(used));
+            }
+            for (int id : groupCpu) {
+                if (id >= 0) {
+                    snapshot.set(id, random.nextDouble(10));
+                }
+            }
+            sink.write(snapshot);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.resourcemonitor.aggregator;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch for counting distinct values, such as thread groups or nodes, across a
+ * fleet in fixed memory.
+ *
+ * With {@value #PRECISION} bits of precision the sketch has 4096 one-byte registers and a
+ * standard error of about 1.6%. Sketches are mergeable: the union of two sets is the register-wise
+ * maximum, so per-node or per-window sketches can be combined without the original values.
+ * Callers add 64-bit hashes from {@link #hash(String)}, which are computed once per value.
+ */
+final class HyperLogLog {
+    static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Adds a hashed value.
+     * @param hash 64-bit hash of the value
+     */
+    void add(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // The sentinel bit bounds the rank when all remaining hash bits are zero
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     * @param other The sketch to merge
+     */
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    void reset() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    /**
+     * @return Estimated number of distinct values added
+     */
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, followed by the MurmurHash3 finalizer to spread the bits.
+     * @param value The value to hash
+     * @return The hash
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,186 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.fleet.FleetProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Accepts node connections and decodes their frames on a single selector thread.
+ *
+ * One thread is enough for thousands of snapshots per second: a snapshot is a few kilobytes of
+ * raw longs, and decoding it is a bitmap walk with no allocation. Each connection has its own
+ * read buffer that grows to the largest frame seen, up to {@link FleetProtocol#MAX_FRAME_BYTES}.
+ */
+final class IngestServer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(IngestServer.class);
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final FleetRollups rollups;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Binds the ingest port and starts the selector thread.
+     *
+     * @param rollups Rollups the snapshots are applied to
+     * @param host Address to bind to
+     * @param port Port to listen on; 0 picks a free port
+     * @throws IOException if the port cannot be bound
+     */
+    IngestServer(FleetRollups rollups, String host, int port) throws IOException {
+        this.rollups = rollups;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        // A whole fleet reconnects at once after an aggregator restart
+        server.bind(new InetSocketAddress(host, port), ACCEPT_BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this, "fleet-ingest");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Ingest selector failed: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        String remote = String.valueOf(channel.getRemoteAddress());
+        channel.register(selector, SelectionKey.OP_READ, new Connection(new NodeConnection(rollups, remote)));
+        logger.debug("Accepted node connection from {}", remote);
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (channel.read(connection.buffer) < 0) {
+                close(key, connection, null);
+                return;
+            }
+            decode(connection);
+        } catch (IOException | RuntimeException e) {
+            // A RuntimeException here means a truncated or corrupt frame
+            close(key, connection, e);
+        }
+    }
+
+    /**
+     * Handles every complete frame in the buffer and keeps a partial frame for the next read.
+     */
+    private static void decode(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.buffer;
+        buffer.flip();
+        while (buffer.remaining() >= FleetProtocol.FRAME_HEADER_BYTES) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 1 || length > FleetProtocol.MAX_FRAME_BYTES) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (buffer.remaining() < Integer.BYTES + length) {
+                break;
+            }
+            int frameEnd = buffer.position() + Integer.BYTES + length;
+            buffer.position(buffer.position() + Integer.BYTES);
+            byte type = buffer.get();
+            int limit = buffer.limit();
+            buffer.limit(frameEnd);
+            connection.node.onFrame(type, buffer);
+            buffer.limit(limit);
+            buffer.position(frameEnd);
+        }
+        if (buffer.remaining() >= Integer.BYTES) {
+            int needed = Integer.BYTES + buffer.getInt(buffer.position());
+            if (needed > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+                larger.put(buffer);
+                connection.buffer = larger;
+                return;
+            }
+        }
+        buffer.compact();
+    }
+
+    private void close(SelectionKey key, Connection connection, Exception cause) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closing
+        }
+        connection.node.close();
+        if (cause != null) {
+            logger.warn("Dropped node {}: {}", connection.node.describe(), cause.toString());
+        } else {
+            logger.debug("Node {} disconnected", connection.node.describe());
+        }
+    }
+
+    void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(2000);
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            server.close();
+        } catch (IOException e) {
+            logger.debug("Error closing ingest server: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Connection {
+        final NodeConnection node;
+        ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+
+        Connection(NodeConnection node) {
+            this.node = node;
+        }
+    }
+}
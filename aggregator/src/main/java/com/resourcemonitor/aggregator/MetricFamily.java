@@ -0,0 +1,35 @@
+package com.resourcemonitor.aggregator;
+
+/**
+ * All series of one metric name within a service, e.g. every {@code threads.cpu.group} series.
+ * Counts the distinct series reported per window, i.e. distinct tag combinations such as thread
+ * groups or pools, with a {@link HyperLogLog} per window.
+ */
+final class MetricFamily {
+    final String name;
+    private HyperLogLog current = new HyperLogLog();
+    private HyperLogLog previous = new HyperLogLog();
+
+    MetricFamily(String name) {
+        this.name = name;
+    }
+
+    void add(long seriesHash) {
+        current.add(seriesHash);
+    }
+
+    /**
+     * @param previousWindow true for the last completed window, false for the current one
+     * @return Estimated number of distinct series
+     */
+    long distinct(boolean previousWindow) {
+        return (previousWindow ? previous : current).estimate();
+    }
+
+    void rotate() {
+        HyperLogLog swap = previous;
+        previous = current;
+        current = swap;
+        current.reset();
+    }
+}
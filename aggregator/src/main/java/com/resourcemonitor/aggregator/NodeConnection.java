@@ -0,0 +1,169 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.fleet.FleetProtocol;
+import com.resourcemonitor.metrics.MetricDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decodes the frames of one node's connection and applies its snapshots to the rollups.
+ *
+ * The schema maps each slot id to its {@link SeriesRollup} once, so applying a snapshot is a
+ * walk over the presence bitmap with one array lookup and one histogram update per value.
+ * Counters are turned into increases against the node's previous value, so rollups stay
+ * correct when nodes restart or report at different rates.
+ */
+final class NodeConnection {
+    private static final MetricDescriptor.Kind[] KINDS = MetricDescriptor.Kind.values();
+    private static final MetricDescriptor.Type[] TYPES = MetricDescriptor.Type.values();
+
+    private final FleetRollups rollups;
+    private final String remote;
+    private ServiceRollup service;
+    private String node;
+    private long nodeHash;
+    private SeriesRollup[] slots = new SeriesRollup[0];
+    private long[] lastCounts = new long[0];
+    private boolean[] counted = new boolean[0];
+    private long[] bitmap = new long[0];
+
+    NodeConnection(FleetRollups rollups, String remote) {
+        this.rollups = rollups;
+        this.remote = remote;
+    }
+
+    /**
+     * Handles one frame.
+     *
+     * @param type The frame type
+     * @param payload The frame payload, positioned at its start and limited to its end
+     * @throws IOException if the frame is invalid; the connection should be closed
+     */
+    void onFrame(byte type, ByteBuffer payload) throws IOException {
+        if (type == FleetProtocol.HELLO) {
+            onHello(payload);
+        } else if (service == null) {
+            throw new IOException("Frame " + type + " before HELLO from " + remote);
+        } else if (type == FleetProtocol.SCHEMA) {
+            onSchema(payload);
+        } else if (type == FleetProtocol.SNAPSHOT) {
+            onSnapshot(payload);
+        }
+        // Unknown frame types are skipped, so newer nodes can talk to an older aggregator
+    }
+
+    private void onHello(ByteBuffer payload) throws IOException {
+        int version = payload.getInt();
+        if (version != FleetProtocol.VERSION) {
+            throw new IOException("Unsupported protocol version " + version + " from " + remote);
+        }
+        if (service != null) {
+            throw new IOException("Duplicate HELLO from " + remote);
+        }
+        String serviceName = FleetProtocol.getString(payload);
+        node = FleetProtocol.getString(payload);
+        nodeHash = HyperLogLog.hash(node);
+        synchronized (rollups) {
+            service = rollups.service(serviceName);
+            service.connectedNodes++;
+        }
+    }
+
+    private void onSchema(ByteBuffer payload) throws IOException {
+        int first = payload.getInt();
+        int count = payload.getInt();
+        if (first != slots.length) {
+            throw new IOException("Schema gap at slot " + first + " from " + node);
+        }
+        int end = first + count;
+        slots = Arrays.copyOf(slots, end);
+        lastCounts = Arrays.copyOf(lastCounts, end);
+        counted = Arrays.copyOf(counted, end);
+        StringBuilder key = new StringBuilder();
+        synchronized (rollups) {
+            for (int id = first; id < end; id++) {
+                MetricDescriptor.Kind kind = KINDS[payload.get()];
+                MetricDescriptor.Type type = TYPES[payload.get()];
+                String name = FleetProtocol.getString(payload);
+                String unit = FleetProtocol.getString(payload);
+                int tagCount = payload.get() & 0xFF;
+                key.setLength(0);
+                key.append(name);
+                for (int tag = 0; tag < tagCount; tag++) {
+                    key.append(tag == 0 ? '{' : ',').append(FleetProtocol.getString(payload))
+                        .append('=').append(FleetProtocol.getString(payload));
+                }
+                if (tagCount > 0) {
+                    key.append('}');
+                }
+                slots[id] = service.acquire(name, key.toString(), unit, kind, type);
+            }
+        }
+    }
+
+    private void onSnapshot(ByteBuffer payload) throws IOException {
+        payload.getLong(); // Timestamp; rollups use arrival windows
+        int slotCount = payload.getInt();
+        if (slotCount > slots.length) {
+            throw new IOException("Snapshot references undescribed slots from " + node);
+        }
+        int words = FleetProtocol.bitmapWords(slotCount);
+        if (bitmap.length < words) {
+            bitmap = new long[words];
+        }
+        for (int word = 0; word < words; word++) {
+            bitmap[word] = payload.getLong();
+        }
+        synchronized (rollups) {
+            rollups.countSnapshot(service);
+            service.nodes.add(nodeHash);
+            for (int word = 0; word < words; word++) {
+                long bits = bitmap[word];
+                while (bits != 0) {
+                    int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    apply(id, payload.getLong());
+                }
+            }
+        }
+    }
+
+    private void apply(int id, long raw) {
+        SeriesRollup series = slots[id];
+        if (series.type == MetricDescriptor.Type.COUNTER) {
+            long count = series.kind == MetricDescriptor.Kind.LONG ? raw : (long) Double.longBitsToDouble(raw);
+            // The first value only sets the baseline; a lower value means the node restarted the counter
+            if (counted[id] && count >= lastCounts[id]) {
+                series.recordIncrease(count - lastCounts[id]);
+            }
+            lastCounts[id] = count;
+            counted[id] = true;
+        } else if (series.kind == MetricDescriptor.Kind.LONG) {
+            series.recordGauge(raw);
+        } else {
+            double value = Double.longBitsToDouble(raw);
+            if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                series.recordGauge(Math.round(value * SeriesRollup.DOUBLE_SCALE));
+            }
+        }
+    }
+
+    /**
+     * Releases the node's series so that they can be evicted once their windows are empty.
+     */
+    void close() {
+        synchronized (rollups) {
+            if (service != null) {
+                service.connectedNodes--;
+            }
+            for (SeriesRollup series : slots) {
+                series.references--;
+            }
+        }
+    }
+
+    String describe() {
+        return node != null ? node + " (" + remote + ")" : remote;
+    }
+}
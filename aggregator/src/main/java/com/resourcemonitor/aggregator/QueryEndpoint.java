@@ -0,0 +1,252 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.util.LogHistogram;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * JSON query API over the rollups, served by the JDK's built-in HTTP server.
+ *
+ * <pre>
+ * GET /services                                   services with node counts and snapshot totals
+ * GET /rollup?service=S&amp;metric=M[&amp;window=previous]   per-series percentiles or counter increases
+ * GET /distinct?service=S&amp;metric=M[&amp;window=previous] estimated number of distinct series
+ * </pre>
+ *
+ * {@code metric} matches a metric name, which selects all of its series, or one exact series
+ * key such as {@code memory.pool.used{pool=G1 Old Gen}}. Without {@code window} the current,
+ * still open window is returned; {@code window=previous} returns the last completed one.
+ */
+final class QueryEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(QueryEndpoint.class);
+    private static final int THREADS = 2;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final FleetRollups rollups;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    QueryEndpoint(FleetRollups rollups, String host, int port) throws IOException {
+        this.rollups = rollups;
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newFixedThreadPool(THREADS, task -> {
+            Thread thread = new Thread(task, "fleet-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/services", exchange -> handle(exchange, this::services));
+        server.createContext("/rollup", exchange -> handle(exchange, this::rollup));
+        server.createContext("/distinct", exchange -> handle(exchange, this::distinct));
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Query {
+        /**
+         * @return The JSON response, or null if the requested service or metric does not exist
+         */
+        String answer(Map<String, String> parameters);
+    }
+
+    private static void handle(HttpExchange exchange, Query query) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String json;
+            int status;
+            try {
+                json = query.answer(parameters(exchange.getRequestURI().getRawQuery()));
+                status = json != null ? 200 : 404;
+                if (json == null) {
+                    json = "{\"error\":\"not found\"}";
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                json = "{\"error\":" + quote(e.getMessage()) + "}";
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Query {} failed: {}", exchange.getRequestURI(), e.toString());
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String services(Map<String, String> parameters) {
+        StringBuilder json = new StringBuilder(256);
+        synchronized (rollups) {
+            json.append("{\"windowSeconds\":").append(rollups.getWindowMillis() / 1000)
+                .append(",\"snapshots\":").append(rollups.getSnapshots())
+                .append(",\"services\":[");
+            List<ServiceRollup> services = rollups.services();
+            for (int i = 0; i < services.size(); i++) {
+                ServiceRollup service = services.get(i);
+                json.append(i == 0 ? "" : ",").append("{\"service\":").append(quote(service.name))
+                    .append(",\"connectedNodes\":").append(service.connectedNodes)
+                    .append(",\"nodes\":").append(service.nodes.distinct(false))
+                    .append(",\"series\":").append(service.series.size())
+                    .append(",\"snapshots\":").append(service.snapshots).append('}');
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private String rollup(Map<String, String> parameters) {
+        boolean previous = previousWindow(parameters);
+        String metric = require(parameters, "metric");
+        StringBuilder json = new StringBuilder(1024);
+        synchronized (rollups) {
+            ServiceRollup service = rollups.find(require(parameters, "service"));
+            if (service == null) {
+                return null;
+            }
+            List<SeriesRollup> matches = matching(service, metric);
+            if (matches.isEmpty()) {
+                return null;
+            }
+            double seconds = previous
+                ? rollups.getWindowMillis() / 1000.0
+                : Math.max(System.currentTimeMillis() - rollups.getWindowStartMillis(), 1) / 1000.0;
+            json.append("{\"service\":").append(quote(service.name))
+                .append(",\"metric\":").append(quote(metric))
+                .append(",\"window\":").append(quote(previous ? "previous" : "current"))
+                .append(",\"series\":[");
+            for (int i = 0; i < matches.size(); i++) {
+                SeriesRollup series = matches.get(i);
+                json.append(i == 0 ? "" : ",").append("{\"key\":").append(quote(series.key))
+                    .append(",\"unit\":").append(quote(series.unit));
+                if (series.type == MetricDescriptor.Type.COUNTER) {
+                    long increase = series.increase(previous);
+                    json.append(",\"type\":\"counter\",\"increase\":").append(increase)
+                        .append(",\"ratePerSecond\":").append(round(increase / seconds));
+                } else {
+                    LogHistogram histogram = series.histogram(previous);
+                    double scale = series.scale();
+                    json.append(",\"type\":\"gauge\",\"count\":").append(histogram.count())
+                        .append(",\"mean\":").append(round(histogram.mean() / scale));
+                    for (double percentile : PERCENTILES) {
+                        json.append(",\"p").append((int) percentile).append("\":")
+                            .append(round(histogram.percentile(percentile) / scale));
+                    }
+                    json.append(",\"max\":").append(round(histogram.max() / scale));
+                }
+                json.append('}');
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private String distinct(Map<String, String> parameters) {
+        boolean previous = previousWindow(parameters);
+        String metric = require(parameters, "metric");
+        synchronized (rollups) {
+            ServiceRollup service = rollups.find(require(parameters, "service"));
+            MetricFamily family = service == null ? null : service.families.get(metric);
+            if (family == null) {
+                return null;
+            }
+            return "{\"service\":" + quote(service.name) + ",\"metric\":" + quote(metric)
+                + ",\"window\":" + quote(previous ? "previous" : "current")
+                + ",\"distinct\":" + family.distinct(previous) + "}";
+        }
+    }
+
+    private static List<SeriesRollup> matching(ServiceRollup service, String metric) {
+        List<SeriesRollup> matches = new ArrayList<>();
+        SeriesRollup exact = service.series.get(metric);
+        if (exact != null) {
+            matches.add(exact);
+            return matches;
+        }
+        for (SeriesRollup series : service.series.values()) {
+            if (series.family.name.equals(metric)) {
+                matches.add(series);
+            }
+        }
+        matches.sort((a, b) -> a.key.compareTo(b.key));
+        return matches;
+    }
+
+    private static boolean previousWindow(Map<String, String> parameters) {
+        String window = parameters.getOrDefault("window", "current");
+        if (!"current".equals(window) && !"previous".equals(window)) {
+            throw new IllegalArgumentException("window must be current or previous");
+        }
+        return "previous".equals(window);
+    }
+
+    private static String require(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String round(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+}
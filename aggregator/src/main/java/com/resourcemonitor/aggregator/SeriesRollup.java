@@ -0,0 +1,79 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.util.LogHistogram;
+
+/**
+ * Fleet-wide rollup of one series (metric name and tags) of one service over tumbling windows.
+ *
+ * Gauges are recorded into a log-linear {@link LogHistogram}: every sample of every node adds
+ * one value, so percentiles answer questions like "p99 heap usage across all pods". Double
+ * gauges are scaled by {@value #DOUBLE_SCALE} to keep three decimals; negative values count as 0.
+ * Counters keep the sum of the per-node increases. Histograms and sums are mergeable, so
+ * windows, services or aggregators can be combined without the raw samples.
+ */
+final class SeriesRollup {
+    static final int DOUBLE_SCALE = 1000;
+
+    final String key;
+    final String unit;
+    final MetricDescriptor.Kind kind;
+    final MetricDescriptor.Type type;
+    final MetricFamily family;
+    final long keyHash;
+    /** Number of node connections that currently report this series */
+    int references;
+
+    private LogHistogram current = new LogHistogram();
+    private LogHistogram previous = new LogHistogram();
+    private long currentIncrease;
+    private long previousIncrease;
+
+    SeriesRollup(String key, String unit, MetricDescriptor.Kind kind, MetricDescriptor.Type type, MetricFamily family) {
+        this.key = key;
+        this.unit = unit;
+        this.kind = kind;
+        this.type = type;
+        this.family = family;
+        this.keyHash = HyperLogLog.hash(key);
+    }
+
+    void recordGauge(long scaledValue) {
+        current.record(scaledValue);
+        family.add(keyHash);
+    }
+
+    void recordIncrease(long increase) {
+        currentIncrease += increase;
+        family.add(keyHash);
+    }
+
+    LogHistogram histogram(boolean previousWindow) {
+        return previousWindow ? previous : current;
+    }
+
+    long increase(boolean previousWindow) {
+        return previousWindow ? previousIncrease : currentIncrease;
+    }
+
+    /**
+     * @return Scale that turns recorded gauge values back into the metric's unit
+     */
+    double scale() {
+        return kind == MetricDescriptor.Kind.DOUBLE ? DOUBLE_SCALE : 1;
+    }
+
+    /**
+     * Starts a new window.
+     * @return true if nothing was recorded in either window and no node reports the series anymore
+     */
+    boolean rotate() {
+        LogHistogram swap = previous;
+        previous = current;
+        current = swap;
+        current.reset();
+        previousIncrease = currentIncrease;
+        currentIncrease = 0;
+        return references == 0 && previous.count() == 0 && previousIncrease == 0;
+    }
+}
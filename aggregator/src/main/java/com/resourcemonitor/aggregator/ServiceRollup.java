@@ -0,0 +1,50 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Rollups of all nodes of one service.
+ */
+final class ServiceRollup {
+    final String name;
+    final Map<String, SeriesRollup> series = new HashMap<>();
+    final Map<String, MetricFamily> families = new HashMap<>();
+    /** Distinct node names seen per window */
+    final MetricFamily nodes = new MetricFamily("nodes");
+    int connectedNodes;
+    long snapshots;
+
+    ServiceRollup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the rollup of a series, creating it on first use, and takes a reference on it.
+     */
+    SeriesRollup acquire(String name, String key, String unit, MetricDescriptor.Kind kind, MetricDescriptor.Type type) {
+        SeriesRollup rollup = series.get(key);
+        if (rollup == null) {
+            MetricFamily family = families.computeIfAbsent(name, MetricFamily::new);
+            rollup = new SeriesRollup(key, unit, kind, type, family);
+            series.put(key, rollup);
+        }
+        rollup.references++;
+        return rollup;
+    }
+
+    void rotate() {
+        Iterator<SeriesRollup> it = series.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().rotate()) {
+                it.remove();
+            }
+        }
+        for (MetricFamily family : families.values()) {
+            family.rotate();
+        }
+        nodes.rotate();
+    }
+}
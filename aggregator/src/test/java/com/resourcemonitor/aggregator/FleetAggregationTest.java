@@ -0,0 +1,181 @@
+package com.resourcemonitor.aggregator;
+
+import com.resourcemonitor.fleet.FleetSink;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs an {@link IngestServer} and a {@link QueryEndpoint} on localhost, feeds them from several
+ * in-process nodes through {@link FleetSink}, and checks the merged rollups through the HTTP API.
+ */
+class FleetAggregationTest {
+    private static final int NODES = 4;
+    private static final int SNAPSHOTS = 25;
+    private static final long MB = 1_000_000;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private FleetRollups rollups;
+    private IngestServer ingest;
+    private QueryEndpoint query;
+    private Node[] nodes;
+
+    @BeforeEach
+    void startAggregator() throws Exception {
+        rollups = new FleetRollups(60_000, System.currentTimeMillis());
+        ingest = new IngestServer(rollups, "127.0.0.1", 0);
+        query = new QueryEndpoint(rollups, "127.0.0.1", 0);
+        nodes = new Node[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = new Node(i, ingest.getPort());
+        }
+    }
+
+    @AfterEach
+    void stopAggregator() {
+        for (Node node : nodes) {
+            node.sink.close();
+        }
+        query.close();
+        ingest.close();
+    }
+
+    @Test
+    void mergesSnapshotsOfAllNodes() throws Exception {
+        // Connecting is non-blocking; snapshots written before it completes are dropped
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (number(get("/services"), "connectedNodes") < NODES) {
+            assertTrue(System.currentTimeMillis() < deadline, "nodes did not connect");
+            for (Node node : nodes) {
+                node.sendEmpty();
+            }
+            Thread.sleep(10);
+        }
+
+        for (int j = 0; j < SNAPSHOTS; j++) {
+            for (Node node : nodes) {
+                node.send(j);
+            }
+        }
+
+        // Heap values 1..100 MB, one per node and snapshot
+        String heap = awaitRollup("memory.heap.used", "count", NODES * SNAPSHOTS);
+        assertEquals(50.5 * MB, number(heap, "mean"));
+        assertEquals(100 * MB, number(heap, "max"));
+        assertPercentile(50 * MB, number(heap, "p50"));
+        assertPercentile(90 * MB, number(heap, "p90"));
+        assertPercentile(99 * MB, number(heap, "p99"));
+
+        // Node i counts up by i + 1 per snapshot, after a first value that only sets the baseline
+        String gc = awaitRollup("gc.collections", "increase", (SNAPSHOTS - 1) * (1 + 2 + 3 + 4));
+        assertTrue(gc.contains("\"type\":\"counter\""), gc);
+
+        // Node i reports groups 10 * i to 10 * i + 19, which overlap with the next node's
+        double groups = number(get("/distinct?service=checkout&metric=threads.cpu.group"), "distinct");
+        assertTrue(Math.abs(groups - (10 * (NODES - 1) + 20)) <= 1, groups + " distinct groups");
+
+        String services = get("/services");
+        assertEquals(NODES, number(services, "connectedNodes"));
+        assertEquals(NODES, number(services, "nodes"));
+    }
+
+    /**
+     * A percentile is the upper bound of its bucket, at most one sub-bucket (1/16) above the value.
+     */
+    private static void assertPercentile(double expected, double actual) {
+        assertTrue(actual >= expected && actual <= expected * 17 / 16, "expected about " + expected + ", got " + actual);
+    }
+
+    /**
+     * Polls the rollup of a metric until a field reaches the expected value, since the ingest
+     * thread applies snapshots asynchronously.
+     */
+    private String awaitRollup(String metric, String field, double expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        String json = get("/rollup?service=checkout&metric=" + metric);
+        while (json == null || number(json, field) < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + metric + ": " + json);
+            Thread.sleep(10);
+            json = get("/rollup?service=checkout&metric=" + metric);
+        }
+        assertEquals(expected, number(json, field), json);
+        return json;
+    }
+
+    /**
+     * @return The response body, or null for a 404
+     */
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + query.getPort() + path)
+            .openConnection();
+        try {
+            if (connection.getResponseCode() == 404) {
+                return null;
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static double number(String json, String field) {
+        if (json == null) {
+            return 0;
+        }
+        Matcher matcher = Pattern.compile("\"" + field + "\":(-?[0-9.]+)").matcher(json);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    /**
+     * A node of the checkout service with its own registry and sink.
+     */
+    private static final class Node {
+        final int index;
+        final MetricRegistry registry = new MetricRegistry();
+        final MetricsSnapshot snapshot;
+        final FleetSink sink;
+        final int heapUsed;
+        final int gcCount;
+        final int[] groupCpu = new int[20];
+
+        Node(int index, int port) {
+            this.index = index;
+            heapUsed = registry.longGauge("memory.heap.used", "bytes");
+            gcCount = registry.counter("gc.collections", "count", "gc", "G1 Young Generation");
+            for (int i = 0; i < groupCpu.length; i++) {
+                groupCpu[i] = registry.doubleGauge("threads.cpu.group", "percent",
+                    "group", "worker-" + (10 * index + i) + "-*");
+            }
+            snapshot = registry.newSnapshot();
+            sink = new FleetSink(registry, "127.0.0.1", port, "checkout", "node-" + index, 64 * 1024);
+        }
+
+        void sendEmpty() {
+            snapshot.begin(System.currentTimeMillis());
+            sink.write(snapshot);
+        }
+
+        void send(int sequence) {
+            snapshot.begin(System.currentTimeMillis());
+            snapshot.set(heapUsed, (index * SNAPSHOTS + sequence + 1) * MB);
+            snapshot.set(gcCount, (long) sequence * (index + 1));
+            for (int id : groupCpu) {
+                snapshot.set(id, 1.5);
+            }
+            sink.write(snapshot);
+        }
+    }
+}
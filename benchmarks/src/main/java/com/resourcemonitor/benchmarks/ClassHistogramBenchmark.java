@@ -0,0 +1,61 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.heap.ClassHistogramTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a class histogram of known classes into the history table, the steady state of the
+ * class histogram collector. The histogram text is generated in the format of
+ * {@code GC.class_histogram} on JDK 9 and later, with a module after each class name.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassHistogramBenchmark {
+    @Param({"2000", "20000"})
+    private int classes;
+
+    private String histogram;
+    private ClassHistogramTable table;
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder(classes * 96);
+        text.append(" num     #instances         #bytes  class name (module)\n");
+        text.append("-------------------------------------------------------\n");
+        long totalInstances = 0;
+        long totalBytes = 0;
+        for (int i = 1; i <= classes; i++) {
+            long instances = 1_000_000L / i + 1;
+            long bytes = instances * 24;
+            totalInstances += instances;
+            totalBytes += bytes;
+            text.append(String.format("%6d:%14d%15d  com.example.module%d.service.GeneratedType%d$Handler (app@1.0)%n",
+                i, instances, bytes, i % 40, i));
+        }
+        text.append(String.format("Total%17d%15d%n", totalInstances, totalBytes));
+        histogram = text.toString();
+        table = new ClassHistogramTable(4);
+        table.parse(histogram, timestamp++);
+    }
+
+    @Benchmark
+    public int parse() {
+        return table.parse(histogram, timestamp++);
+    }
+}
@@ -0,0 +1,74 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.collectors.CpuMetricsCollector;
+import com.resourcemonitor.collectors.GcMetricsCollector;
+import com.resourcemonitor.collectors.MemoryMetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one collect() call of the collectors that need no fixture.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectorBenchmark {
+    private MemoryMetricsCollector memory;
+    private CpuMetricsCollector cpu;
+    private GcMetricsCollector gc;
+    private MetricsSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        MetricRegistry registry = new MetricRegistry();
+        memory = new MemoryMetricsCollector(registry);
+        cpu = new CpuMetricsCollector(registry);
+        gc = new GcMetricsCollector(registry);
+        snapshot = registry.newSnapshot();
+        snapshot.begin(System.currentTimeMillis());
+        // Register lazily created metrics before measuring
+        memory.collect(snapshot);
+        cpu.collect(snapshot);
+        gc.collect(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() {
+        memory.close();
+        cpu.close();
+        gc.close();
+    }
+
+    @Benchmark
+    public MetricsSnapshot memory() {
+        memory.collect(snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public MetricsSnapshot cpu() {
+        cpu.collect(snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public MetricsSnapshot gc() {
+        gc.collect(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,75 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.database.InstrumentedDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the instrumenting DataSource wrapper on the getConnection()/close() round trip:
+ * uninstrumented, timing acquisitions only (the default), and also timing hold times.
+ *
+ * In {@link #getConnection()} the connection never leaves the benchmark method, so without the
+ * wrapper HikariCP's proxy is scalar-replaced; with it the call chain exceeds the inlining budget
+ * and the proxy is allocated. {@link #getConnectionEscaping(Blackhole)} hands the connection
+ * out, as application code that stores it in a transaction or template does, and so measures
+ * the cost of the wrapper itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConnectionAcquireBenchmark {
+
+    @Param({"hikari", "tomcat"})
+    public String pool;
+
+    @Param({"none", "acquire", "hold"})
+    public String instrumentation;
+
+    private DataSource pooled;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() throws SQLException {
+        pooled = Pools.create(pool, "acquire-" + pool + "-" + instrumentation);
+        dataSource = "none".equals(instrumentation)
+            ? pooled : new InstrumentedDataSource(pooled, "hold".equals(instrumentation));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.close(pooled);
+    }
+
+    @Benchmark
+    public boolean getConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean getConnectionEscaping(Blackhole blackhole) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            blackhole.consume(connection);
+            return connection.getAutoCommit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.collectors.DatabaseMetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of DatabaseMetricsCollector.collect() against a real, in-memory (H2) pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DatabaseCollectorBenchmark {
+
+    @Param({"hikari", "tomcat"})
+    public String pool;
+
+    private DataSource dataSource;
+    private DatabaseMetricsCollector collector;
+    private MetricsSnapshot snapshot;
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataSource = Pools.create(pool, "collector-" + pool);
+        MetricRegistry registry = new MetricRegistry();
+        collector = new DatabaseMetricsCollector(Collections.singletonList(dataSource), registry);
+        snapshot = registry.newSnapshot();
+        snapshot.begin(System.currentTimeMillis());
+        collector.collect(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.close(dataSource);
+    }
+
+    @Benchmark
+    public MetricsSnapshot collect() {
+        collector.collect(snapshot);
+        return snapshot;
+    }
+}
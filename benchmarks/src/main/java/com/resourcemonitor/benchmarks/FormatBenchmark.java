@@ -0,0 +1,109 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.collectors.CpuMetricsCollector;
+import com.resourcemonitor.collectors.MemoryMetricsCollector;
+import com.resourcemonitor.collectors.ThreadMetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.output.JsonSnapshotEncoder;
+import com.resourcemonitor.output.LogfmtSnapshotEncoder;
+import com.resourcemonitor.output.SnapshotEncoder;
+import com.resourcemonitor.util.ByteBuilder;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the output path: the FormatUtils / ColorCodes helpers behind the pretty log lines,
+ * and encoding a full snapshot as one JSON or logfmt line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+    private long bytes = 536_870_912L;
+    private long nanos = 12_345_678L;
+    private double percentage = 73.5;
+    private MetricsSnapshot snapshot;
+    private SnapshotEncoder json;
+    private SnapshotEncoder logfmt;
+    private SnapshotEncoder logfmtAnsi;
+    private final ByteBuilder buffer = new ByteBuilder();
+
+    @Setup
+    public void setUp() {
+        MetricRegistry registry = new MetricRegistry();
+        MemoryMetricsCollector memory = new MemoryMetricsCollector(registry);
+        CpuMetricsCollector cpu = new CpuMetricsCollector(registry);
+        ThreadMetricsCollector thread = new ThreadMetricsCollector(registry);
+        snapshot = registry.newSnapshot();
+        snapshot.begin(System.currentTimeMillis());
+        memory.collect(snapshot);
+        cpu.collect(snapshot);
+        thread.collect(snapshot);
+        cpu.close();
+        json = new JsonSnapshotEncoder(false);
+        logfmt = new LogfmtSnapshotEncoder(false);
+        logfmtAnsi = new LogfmtSnapshotEncoder(true);
+    }
+
+    @Benchmark
+    public String formatMB() {
+        return FormatUtils.formatMB(bytes);
+    }
+
+    @Benchmark
+    public String formatNanosToMillis() {
+        return FormatUtils.formatNanosToMillis(nanos);
+    }
+
+    @Benchmark
+    public String colorForPercentage() {
+        return ColorCodes.getColorForPercentage(percentage);
+    }
+
+    /**
+     * A heap usage line as the memory section builds it, without the logger.
+     */
+    @Benchmark
+    public String prettyHeapLine() {
+        return ColorCodes.BLUE + "Memory - Heap:" + ColorCodes.RESET + " "
+            + ColorCodes.getColorForPercentage(percentage)
+            + FormatUtils.formatMB(bytes) + "/" + FormatUtils.formatMB(bytes * 2)
+            + " MB (" + String.format("%.2f", percentage) + "%)" + ColorCodes.RESET;
+    }
+
+    @Benchmark
+    public ByteBuilder encodeJson() {
+        buffer.reset();
+        json.encode(snapshot, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuilder encodeLogfmt() {
+        buffer.reset();
+        logfmt.encode(snapshot, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuilder encodeLogfmtAnsi() {
+        buffer.reset();
+        logfmtAnsi.encode(snapshot, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,57 @@
+package com.resourcemonitor.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates in-memory H2 connection pools for the database benchmarks.
+ */
+final class Pools {
+    private static final int POOL_SIZE = 10;
+
+    private Pools() {}
+
+    static DataSource create(String type, String name) throws SQLException {
+        String url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+        DataSource dataSource;
+        switch (type) {
+            case "hikari":
+                HikariConfig config = new HikariConfig();
+                config.setPoolName(name);
+                config.setJdbcUrl(url);
+                config.setMaximumPoolSize(POOL_SIZE);
+                config.setRegisterMbeans(true);
+                dataSource = new HikariDataSource(config);
+                break;
+            case "tomcat":
+                PoolProperties properties = new PoolProperties();
+                properties.setName(name);
+                properties.setUrl(url);
+                properties.setDriverClassName("org.h2.Driver");
+                properties.setMaxActive(POOL_SIZE);
+                properties.setInitialSize(POOL_SIZE);
+                properties.setJmxEnabled(true);
+                dataSource = new org.apache.tomcat.jdbc.pool.DataSource(properties);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pool type: " + type);
+        }
+        // Start the pool before measuring
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        }
+        return dataSource;
+    }
+
+    static void close(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            ((HikariDataSource) dataSource).close();
+        } else if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) dataSource).close();
+        }
+    }
+}
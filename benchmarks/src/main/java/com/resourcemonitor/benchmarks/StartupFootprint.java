@@ -0,0 +1,97 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.ResourceMonitor;
+import com.resourcemonitor.ResourceMonitorProperties;
+import org.slf4j.LoggerFactory;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+
+/**
+ * Cold-start cost of the monitor: time to create and start it, classes loaded, threads started
+ * and heap retained, with one set of collectors enabled.
+ *
+ * Start-up costs only show once per JVM, so this is a plain program rather than a JMH
+ * benchmark. Run each profile in a fresh JVM:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.resourcemonitor.benchmarks.StartupFootprint none|memory|default|all
+ * </pre>
+ */
+public final class StartupFootprint {
+    private StartupFootprint() {}
+
+    public static void main(String[] args) throws Exception {
+        String profile = args.length > 0 ? args[0] : "default";
+        ResourceMonitorProperties properties = properties(profile);
+        // Logging is initialized by the application anyway and is not the monitor's cost
+        LoggerFactory.getLogger(StartupFootprint.class);
+
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeapAfterGc();
+        long classesBefore = classLoading.getTotalLoadedClassCount();
+        int threadsBefore = threads.getThreadCount();
+
+        long start = System.nanoTime();
+        ResourceMonitor monitor = new ResourceMonitor(properties, Collections::emptyList, Collections::emptyMap,
+            Collections.emptyList());
+        monitor.start();
+        long startNanos = System.nanoTime() - start;
+
+        // Let the first cycle run, so lazily started threads are counted
+        Thread.sleep(500);
+        long classes = classLoading.getTotalLoadedClassCount() - classesBefore;
+        int startedThreads = threads.getThreadCount() - threadsBefore;
+        // Heap that was released by the collections can make a small delta negative
+        long heap = Math.max(usedHeapAfterGc() - heapBefore, 0);
+        monitor.stop();
+
+        System.out.printf("%-8s start %7.2f ms, %5d classes, %2d threads, %6d KB heap%n",
+            profile, startNanos / 1e6, classes, startedThreads, heap / 1024);
+    }
+
+    private static ResourceMonitorProperties properties(String profile) {
+        ResourceMonitorProperties properties = new ResourceMonitorProperties();
+        properties.setIntervalSeconds(3600);
+        properties.setPhaseJitterEnabled(false);
+        properties.setOutputAsync(false);
+        switch (profile) {
+            case "none":
+                disableAll(properties);
+                break;
+            case "memory":
+                disableAll(properties);
+                properties.setMemoryEnabled(true);
+                break;
+            case "default":
+                break;
+            case "all":
+                properties.setThreadContentionTopMonitors(5);
+                properties.setProfilerEnabled(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile " + profile + ", expected none, memory, default or all");
+        }
+        return properties;
+    }
+
+    private static void disableAll(ResourceMonitorProperties properties) {
+        properties.setMemoryEnabled(false);
+        properties.setCpuEnabled(false);
+        properties.setGcEnabled(false);
+        properties.setRuntimeEnabled(false);
+        properties.setThreadEnabled(false);
+        properties.setDatabaseEnabled(false);
+        properties.setProfilerEnabled(false);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
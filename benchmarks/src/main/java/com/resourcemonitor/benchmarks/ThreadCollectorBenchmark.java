@@ -0,0 +1,119 @@
+package com.resourcemonitor.benchmarks;
+
+import com.resourcemonitor.collectors.ThreadMetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of ThreadMetricsCollector.collect() with a synthetic number of parked threads.
+ *
+ * With contention, a quarter of the threads are BLOCKED on four monitors whose owners stay
+ * parked while holding them, which exercises the budgeted lock-info tier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadCollectorBenchmark {
+    private static final int LOCKS = 4;
+
+    @Param({"100", "1000", "5000"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean contention;
+
+    private final List<Thread> started = new ArrayList<>();
+    private CountDownLatch release;
+    private ThreadMetricsCollector collector;
+    private MetricsSnapshot snapshot;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        release = new CountDownLatch(1);
+        Object[] locks = new Object[LOCKS];
+        int blocked = 0;
+        if (contention) {
+            CountDownLatch held = new CountDownLatch(LOCKS);
+            for (int i = 0; i < LOCKS; i++) {
+                Object lock = new Object();
+                locks[i] = lock;
+                start("holder-" + i, () -> {
+                    synchronized (lock) {
+                        held.countDown();
+                        awaitRelease();
+                    }
+                });
+            }
+            held.await();
+            blocked = threads / 4;
+        }
+        for (int i = 0; i < threads; i++) {
+            if (i < blocked) {
+                Object lock = locks[i % LOCKS];
+                start("blocked-" + i, () -> {
+                    synchronized (lock) {
+                        lock.hashCode();
+                    }
+                });
+            } else {
+                start("waiting-" + i, this::awaitRelease);
+            }
+        }
+
+        MetricRegistry registry = new MetricRegistry();
+        collector = new ThreadMetricsCollector(registry);
+        snapshot = registry.newSnapshot();
+        snapshot.begin(System.currentTimeMillis());
+        collector.collect(snapshot);
+    }
+
+    private void start(String name, Runnable task) {
+        Thread thread = new Thread(task, "bench-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        started.add(thread);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+        started.clear();
+        collector.close();
+    }
+
+    @Benchmark
+    public MetricsSnapshot collect() {
+        collector.collect(snapshot);
+        return snapshot;
+    }
+}
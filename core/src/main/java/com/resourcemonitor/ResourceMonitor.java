@@ -0,0 +1,429 @@
+package com.resourcemonitor;
+
+import com.resourcemonitor.alerting.*;
+import com.resourcemonitor.collectors.*;
+import com.resourcemonitor.fleet.FleetSink;
+import com.resourcemonitor.heap.ClassHistogramCollector;
+import com.resourcemonitor.history.MetricHistory;
+import com.resourcemonitor.journal.JournalWriter;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.output.*;
+import com.resourcemonitor.profiling.StackProfiler;
+import com.resourcemonitor.scheduling.CollectorScheduler;
+import com.resourcemonitor.util.ColorCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Main class for monitoring system resources, thread states, and database connection pools.
+ * Uses separate collectors for different types of metrics to maintain separation of concerns.
+ */
+@Component
+public class ResourceMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceMonitor.class);
+    private final ScheduledExecutorService scheduler;
+    private final ResourceMonitorProperties properties;
+    private final List<MetricsCollector> collectors = new ArrayList<>();
+    private final MetricRegistry registry;
+    private final MetricsSnapshot snapshot;
+    private final MetricHistory history;
+    private final int collectionTimeId;
+    private final List<MetricsSink> sinks = new ArrayList<>();
+    private final CollectorScheduler collectorScheduler;
+    private final AlertEngine alertEngine;
+    private final PrometheusSink prometheusSink;
+    private PrometheusEndpoint prometheusEndpoint;
+    private volatile boolean running;
+    private volatile ScheduledFuture<?> nextCycle;
+
+    /**
+     * Creates the monitor in a Spring context. DataSources and executors are only looked up when
+     * the collector using them is enabled, and none are required.
+     *
+     * @param properties Monitor configuration
+     * @param dataSources DataSource beans whose connection pools are monitored
+     * @param beanFactory Looks up the singleton Executor beans whose thread pools are monitored
+     * @param collectorProviders Additional collectors contributed as beans
+     */
+    @Autowired
+    public ResourceMonitor(ResourceMonitorProperties properties, ObjectProvider<DataSource> dataSources,
+                           ListableBeanFactory beanFactory, ObjectProvider<CollectorProvider> collectorProviders) {
+        this(properties, () -> dataSources.orderedStream().collect(Collectors.toList()),
+            () -> beanFactory.getBeansOfType(Executor.class, false, true),
+            collectorProviders.orderedStream().collect(Collectors.toList()));
+    }
+
+    public ResourceMonitor(List<DataSource> dataSources, ResourceMonitorProperties properties) {
+        this(dataSources, Collections.emptyMap(), properties);
+    }
+
+    /**
+     * @param dataSources DataSources whose connection pools are monitored
+     * @param executors Executors whose thread pools are monitored, by bean name
+     * @param properties Monitor configuration
+     */
+    public ResourceMonitor(List<DataSource> dataSources, Map<String, ? extends Executor> executors,
+                           ResourceMonitorProperties properties) {
+        this(properties, () -> dataSources, () -> executors, Collections.emptyList());
+    }
+
+    /**
+     * Creates the enabled collectors. When no collector is enabled, the monitor stays inert: no
+     * scheduler, sinks or threads are created and {@link #start()} does nothing.
+     *
+     * @param properties Monitor configuration
+     * @param dataSources Looks up the DataSources to monitor; only called if the database collector is enabled
+     * @param executors Looks up the executors to monitor by bean name; only called if executor metrics are enabled
+     * @param collectorProviders Additional collectors, next to the built-in ones and those listed
+     *                           for {@link ServiceLoader}
+     */
+    public ResourceMonitor(ResourceMonitorProperties properties, Supplier<List<DataSource>> dataSources,
+                           Supplier<Map<String, ? extends Executor>> executors,
+                           List<CollectorProvider> collectorProviders) {
+        this.properties = properties;
+        this.registry = new MetricRegistry();
+        CollectorContext context = new CollectorContext(registry, properties, dataSources, executors);
+        List<String> names = new ArrayList<>();
+        List<Long> intervals = new ArrayList<>();
+        for (CollectorProvider provider : resolveProviders(collectorProviders)) {
+            if (!provider.isEnabled(context)) {
+                continue;
+            }
+            if (!provider.isAvailable()) {
+                logger.info("Collector {} is enabled but its target is not on the classpath", provider.getName());
+                continue;
+            }
+            MetricsCollector collector = provider.create(context);
+            if (collector != null) {
+                collectors.add(collector);
+                names.add(provider.getName());
+                intervals.add(provider.getIntervalMillis(context));
+            }
+        }
+        if (collectors.isEmpty()) {
+            this.scheduler = null;
+            this.collectorScheduler = null;
+            this.collectionTimeId = -1;
+            this.prometheusSink = null;
+            this.alertEngine = null;
+            this.snapshot = null;
+            this.history = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.collectorScheduler = new CollectorScheduler(registry,
+            properties.getOverheadBudgetPercent(), properties.isPhaseJitterEnabled(),
+            properties.getCollectorParallelism(), properties.getCollectorDeadlineMillis());
+        for (int i = 0; i < collectors.size(); i++) {
+            long intervalMillis = intervals.get(i);
+            // An interval of 0 falls back to interval-seconds
+            collectorScheduler.add(names.get(i), collectors.get(i),
+                intervalMillis > 0 ? intervalMillis : TimeUnit.SECONDS.toMillis(properties.getIntervalSeconds()));
+        }
+        this.collectionTimeId = registry.longGauge("monitor.collection.time", "us");
+        // The journal goes first so that a sample is on disk even if the log output stalls
+        if (properties.isJournalEnabled()) {
+            sinks.add(createJournal());
+        }
+        if (properties.isFleetEnabled()) {
+            sinks.add(createFleet());
+        }
+        this.prometheusSink = properties.isPrometheusEnabled() ? new PrometheusSink(registry) : null;
+        if (prometheusSink != null) {
+            sinks.add(prometheusSink);
+        }
+        if (properties.isStatsdEnabled()) {
+            sinks.add(createStatsD());
+        }
+        sinks.add(createSink());
+        this.alertEngine = properties.getAlerts().isEmpty() ? null : createAlertEngine();
+        this.snapshot = registry.newSnapshot();
+        this.history = properties.isHistoryEnabled()
+            ? new MetricHistory(registry, properties.getHistoryRawSamples(),
+                properties.getHistoryRollupSamples(), properties.getHistoryCompressedBlocks())
+            : null;
+    }
+
+    /**
+     * Returns the built-in providers, followed by those listed for {@link ServiceLoader} and the
+     * given ones. A provider replaces an earlier one of the same name.
+     */
+    private static Collection<CollectorProvider> resolveProviders(List<CollectorProvider> contributed) {
+        Map<String, CollectorProvider> providers = new LinkedHashMap<>();
+        for (CollectorProvider provider : Arrays.asList(new MemoryMetricsCollector.Provider(),
+                new CpuMetricsCollector.Provider(), new GcMetricsCollector.Provider(), new RuntimeMetricsCollector.Provider(),
+                new ThreadMetricsCollector.Provider(), new DatabaseMetricsCollector.Provider(),
+                new StackProfiler.Provider(), new ClassHistogramCollector.Provider())) {
+            providers.put(provider.getName(), provider);
+        }
+        for (CollectorProvider provider : ServiceLoader.load(CollectorProvider.class, ResourceMonitor.class.getClassLoader())) {
+            providers.put(provider.getName(), provider);
+        }
+        for (CollectorProvider provider : contributed) {
+            providers.put(provider.getName(), provider);
+        }
+        return providers.values();
+    }
+
+    /**
+     * Creates the output sink for the configured format and target. The "pretty" format
+     * keeps the per-collector colored log sections and always runs on the sampling thread.
+     */
+    private MetricsSink createSink() {
+        String format = properties.getOutputFormat();
+        if ("pretty".equalsIgnoreCase(format)) {
+            return new CollectorLogSink(collectorScheduler.getCollectors(), collectionTimeId);
+        }
+
+        boolean console = "console".equalsIgnoreCase(properties.getOutputTarget());
+        boolean ansi = console && properties.isOutputAnsi();
+        SnapshotEncoder encoder;
+        if ("json".equalsIgnoreCase(format)) {
+            encoder = new JsonSnapshotEncoder(ansi);
+        } else if ("logfmt".equalsIgnoreCase(format)) {
+            encoder = new LogfmtSnapshotEncoder(ansi);
+        } else {
+            throw new IllegalArgumentException("Unknown output format: " + format);
+        }
+        MetricsSink target = console ? new ConsoleSink(encoder) : new LoggerSink(encoder);
+        return properties.isOutputAsync()
+            ? new AsyncSink(target, registry, properties.getOutputQueueSize())
+            : target;
+    }
+
+    private MetricsSink createJournal() {
+        try {
+            return new JournalWriter(Paths.get(properties.getJournalDirectory()),
+                properties.getJournalSegmentRecords(), properties.getJournalMaxSegments());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open metrics journal in " + properties.getJournalDirectory(), e);
+        }
+    }
+
+    private MetricsSink createFleet() {
+        String node = properties.getFleetNode();
+        if (node == null || node.isEmpty()) {
+            // pid@hostname
+            node = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return new FleetSink(registry, properties.getFleetHost(), properties.getFleetPort(),
+            properties.getFleetService(), node, properties.getFleetBufferBytes());
+    }
+
+    private MetricsSink createStatsD() {
+        String flavor = properties.getStatsdFlavor();
+        if (!"statsd".equalsIgnoreCase(flavor) && !"dogstatsd".equalsIgnoreCase(flavor)) {
+            throw new IllegalArgumentException("Unknown StatsD flavor: " + flavor);
+        }
+        try {
+            return new StatsDSink(registry, properties.getStatsdHost(), properties.getStatsdPort(),
+                "dogstatsd".equalsIgnoreCase(flavor), properties.getStatsdMaxPacketBytes(),
+                properties.getStatsdPrefix(), properties.getStatsdTags());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open StatsD channel to " + properties.getStatsdHost(), e);
+        }
+    }
+
+    private AlertEngine createAlertEngine() {
+        Path captures = Paths.get(properties.getAlertCaptureDirectory());
+        CaptureDispatcher dispatcher = new CaptureDispatcher(
+            TimeUnit.SECONDS.toMillis(properties.getAlertCaptureCooldownSeconds()));
+        dispatcher.register(new ThreadDumpCapture(captures));
+        dispatcher.register(new ClassHistogramCapture(captures));
+        dispatcher.register(new FastSamplingCapture(collectorScheduler, properties.getAlertFastSamplingFactor(),
+            TimeUnit.SECONDS.toMillis(properties.getAlertFastSamplingSeconds())));
+
+        List<AlertRule> rules = new ArrayList<>();
+        for (ResourceMonitorProperties.AlertRuleProperties rule : properties.getAlerts()) {
+            if (rule.getMetric() == null) {
+                throw new IllegalArgumentException("Alert rule " + rule.getName() + " has no metric");
+            }
+            String name = rule.getName() != null ? rule.getName() : rule.getMetric();
+            rules.add(new AlertRule(name, rule.getMetric(),
+                AnomalyDetectors.factory(rule.getDetector(), rule.getFireAt(), rule.getClearAt(),
+                    rule.getAlpha(), rule.getWarmupSamples()),
+                rule.getFireSamples(), rule.getClearSamples(), rule.getActions()));
+        }
+        return new AlertEngine(registry, rules, dispatcher);
+    }
+
+    /**
+     * @return Registry describing every metric slot written by the collectors
+     */
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @return History of all collected metrics, or null if history is disabled
+     */
+    public MetricHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * @return The OpenMetrics exposition of the latest cycle, for serving from the application's
+     *         own web stack; null if Prometheus output is disabled
+     */
+    public PrometheusSink getPrometheusSink() {
+        return prometheusSink;
+    }
+
+    /**
+     * @return The stack-sampling profiler, for exporting flame graphs and adjusting its rate and
+     *         depth at runtime; null if the profiler is disabled
+     */
+    public StackProfiler getProfiler() {
+        for (MetricsCollector collector : collectors) {
+            if (collector instanceof StackProfiler) {
+                return (StackProfiler) collector;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The class histogram collector, for reading the top growing classes; null if it is disabled
+     */
+    public ClassHistogramCollector getClassHistogram() {
+        for (MetricsCollector collector : collectors) {
+            if (collector instanceof ClassHistogramCollector) {
+                return (ClassHistogramCollector) collector;
+            }
+        }
+        return null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (collectors.isEmpty()) {
+            logger.info("All resource monitor collectors are disabled");
+            return;
+        }
+        logger.info("{}Starting Resource Monitor{}", ColorCodes.BOLD + ColorCodes.GREEN, ColorCodes.RESET);
+        if (prometheusSink != null && properties.isPrometheusServerEnabled()) {
+            try {
+                prometheusEndpoint = new PrometheusEndpoint(prometheusSink, properties.getPrometheusHost(),
+                    properties.getPrometheusPort(), properties.getPrometheusPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot start Prometheus endpoint on port " + properties.getPrometheusPort(), e);
+            }
+        }
+        for (MetricsCollector collector : collectors) {
+            collector.start();
+        }
+        running = true;
+        collectorScheduler.start(System.nanoTime());
+        scheduleNextCycle();
+    }
+
+    /**
+     * Schedules the next cycle for when the earliest collector is due.
+     */
+    private void scheduleNextCycle() {
+        if (!running) {
+            return;
+        }
+        try {
+            nextCycle = scheduler.schedule(this::collectMetrics,
+                collectorScheduler.nanosUntilNextDue(System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The monitor is stopping
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (collectors.isEmpty()) {
+            return;
+        }
+        logger.info("{}Stopping Resource Monitor{}", ColorCodes.BOLD + ColorCodes.YELLOW, ColorCodes.RESET);
+        running = false;
+        ScheduledFuture<?> pending = nextCycle;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        collectorScheduler.close();
+        if (prometheusEndpoint != null) {
+            prometheusEndpoint.close();
+        }
+        if (alertEngine != null) {
+            alertEngine.close();
+        }
+        for (MetricsSink sink : sinks) {
+            sink.close();
+        }
+        for (MetricsCollector collector : collectors) {
+            collector.close();
+        }
+    }
+
+    private void collectMetrics() {
+        long startTime = System.nanoTime();
+        try {
+            snapshot.begin(System.currentTimeMillis());
+            if (collectorScheduler.runDue(snapshot, startTime) == 0) {
+                // Woken up before anything was due
+                return;
+            }
+            collectorScheduler.endCycle(snapshot, System.nanoTime());
+
+            long outputCpuStart = collectorScheduler.currentThreadCpuTime();
+            if (alertEngine != null) {
+                alertEngine.evaluate(snapshot);
+            }
+            if (history != null) {
+                history.record(snapshot);
+            }
+
+            snapshot.set(collectionTimeId, (System.nanoTime() - startTime) / 1_000);
+            for (MetricsSink sink : sinks) {
+                sink.write(snapshot);
+            }
+            collectorScheduler.addOtherCpu(collectorScheduler.currentThreadCpuTime() - outputCpuStart);
+        } catch (Exception e) {
+            logger.error("{}Error collecting metrics: {}{}", ColorCodes.RED, e.getMessage(), ColorCodes.RESET, e);
+        } finally {
+            scheduleNextCycle();
+        }
+    }
+}
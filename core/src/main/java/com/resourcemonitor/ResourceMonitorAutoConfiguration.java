@@ -0,0 +1,59 @@
+package com.resourcemonitor;
+
+import com.resourcemonitor.collectors.CollectorProvider;
+import com.resourcemonitor.database.InstrumentingDataSourcePostProcessor;
+import com.resourcemonitor.executor.InstrumentingExecutorPostProcessor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
+
+/**
+ * Auto-configuration for the ResourceMonitor.
+ * Creates and configures the ResourceMonitor bean when enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(ResourceMonitorProperties.class)
+@ConditionalOnProperty(prefix = "resource.monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResourceMonitorAutoConfiguration {
+
+    /**
+     * Creates the monitor with all DataSource beans, all singleton Executor beans (including
+     * ThreadPoolTaskExecutor, ThreadPoolTaskScheduler and ForkJoinPool beans) and all
+     * {@link CollectorProvider} beans. DataSources and executors are only looked up by the
+     * collectors that are enabled; no DataSource bean is required.
+     */
+    @Bean
+    public ResourceMonitor resourceMonitor(ResourceMonitorProperties properties, ObjectProvider<DataSource> dataSources,
+                                           ListableBeanFactory beanFactory,
+                                           ObjectProvider<CollectorProvider> collectorProviders) {
+        return new ResourceMonitor(properties, dataSources, beanFactory, collectorProviders);
+    }
+
+    /**
+     * Wraps DataSource beans to record connection acquire latencies, and hold times with
+     * {@code database-instrumentation-hold-enabled}. Static so that the post processor is
+     * registered before the DataSource beans are created; this is also why the hold setting is
+     * read from the environment rather than from the bound properties.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "resource.monitor", name = "database-instrumentation-enabled", havingValue = "true")
+    public static InstrumentingDataSourcePostProcessor instrumentingDataSourcePostProcessor(Environment environment) {
+        return new InstrumentingDataSourcePostProcessor(environment.getProperty(
+            "resource.monitor.database-instrumentation-hold-enabled", Boolean.class, false));
+    }
+
+    /**
+     * Times queue wait and run time of the tasks of ThreadPoolTaskExecutor beans.
+     * Static so that the post processor is registered before the executor beans are created.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "resource.monitor", name = "executor-instrumentation-enabled", havingValue = "true")
+    public static InstrumentingExecutorPostProcessor instrumentingExecutorPostProcessor() {
+        return new InstrumentingExecutorPostProcessor();
+    }
+}
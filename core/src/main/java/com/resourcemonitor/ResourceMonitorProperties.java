@@ -0,0 +1,820 @@
+package com.resourcemonitor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the ResourceMonitor.
+ * Controls which monitoring sections are enabled and the monitoring interval.
+ */
+@ConfigurationProperties(prefix = "resource.monitor")
+public class ResourceMonitorProperties {
+    private boolean memoryEnabled = true;
+    private boolean cpuEnabled = true;
+    private boolean threadEnabled = true;
+    private boolean databaseEnabled = true;
+    private boolean gcEnabled = true;
+    private boolean runtimeEnabled = true;
+    private boolean databaseInstrumentationEnabled = false;
+    private boolean databaseInstrumentationHoldEnabled = false;
+    private boolean executorEnabled = true;
+    private boolean executorInstrumentationEnabled = false;
+    private boolean executorRejectionCountingEnabled = false;
+    private long intervalSeconds = 60;
+    private long memoryIntervalMillis = 0;
+    private long cpuIntervalMillis = 0;
+    private long gcIntervalMillis = 0;
+    private long threadIntervalMillis = 0;
+    private long databaseIntervalMillis = 0;
+    private long runtimeIntervalMillis = 0;
+    private boolean phaseJitterEnabled = true;
+    private double overheadBudgetPercent = 0.5;
+    private int collectorParallelism = 4;
+    private long collectorDeadlineMillis = 2000;
+    private double memoryPoolUsageThresholdPercent = 0;
+    private double memoryPoolCollectionThresholdPercent = 0;
+    private long threadFullDumpBudgetMillis = 50;
+    private int threadCpuTopThreads = 5;
+    private int threadContentionTopMonitors = 0;
+    private long threadContentionWindowSeconds = 300;
+    private boolean profilerEnabled = false;
+    private long profilerIntervalMillis = 100;
+    private int profilerMaxDepth = 64;
+    private boolean profilerRunnableOnly = true;
+    private List<String> profilerThreadGroups = new ArrayList<>();
+    private int profilerMaxNodes = 16384;
+    private long profilerWindowSeconds = 300;
+    private int profilerTopMethods = 10;
+    private boolean classHistogramEnabled = false;
+    private long classHistogramIntervalSeconds = 900;
+    private long classHistogramMinIntervalSeconds = 120;
+    private double classHistogramHeapGrowthPercent = 10;
+    private int classHistogramGenerations = 4;
+    private int classHistogramTopClasses = 10;
+    private boolean classHistogramAll = false;
+    private boolean historyEnabled = true;
+    private int historyRawSamples = 600;
+    private int historyRollupSamples = 60;
+    private int historyCompressedBlocks = 24;
+    private String outputFormat = "pretty";
+    private String outputTarget = "logger";
+    private boolean outputAnsi = true;
+    private boolean outputAsync = true;
+    private int outputQueueSize = 4;
+    private boolean journalEnabled = false;
+    private String journalDirectory = "metrics-journal";
+    private int journalSegmentRecords = 3600;
+    private int journalMaxSegments = 24;
+    private boolean prometheusEnabled = false;
+    private boolean prometheusServerEnabled = true;
+    private String prometheusHost = "0.0.0.0";
+    private int prometheusPort = 9404;
+    private String prometheusPath = "/metrics";
+    private boolean statsdEnabled = false;
+    private String statsdHost = "localhost";
+    private int statsdPort = 8125;
+    private String statsdFlavor = "dogstatsd";
+    private int statsdMaxPacketBytes = 1432;
+    private String statsdPrefix = "";
+    private List<String> statsdTags = new ArrayList<>();
+    private boolean fleetEnabled = false;
+    private String fleetHost = "localhost";
+    private int fleetPort = 7070;
+    private String fleetService = "default";
+    private String fleetNode = "";
+    private int fleetBufferBytes = 256 * 1024;
+    private List<AlertRuleProperties> alerts = new ArrayList<>();
+    private String alertCaptureDirectory = "metrics-captures";
+    private long alertCaptureCooldownSeconds = 300;
+    private int alertFastSamplingFactor = 4;
+    private long alertFastSamplingSeconds = 120;
+
+    public boolean isMemoryEnabled() {
+        return memoryEnabled;
+    }
+
+    public void setMemoryEnabled(boolean memoryEnabled) {
+        this.memoryEnabled = memoryEnabled;
+    }
+
+    public boolean isCpuEnabled() {
+        return cpuEnabled;
+    }
+
+    public void setCpuEnabled(boolean cpuEnabled) {
+        this.cpuEnabled = cpuEnabled;
+    }
+
+    public boolean isThreadEnabled() {
+        return threadEnabled;
+    }
+
+    public void setThreadEnabled(boolean threadEnabled) {
+        this.threadEnabled = threadEnabled;
+    }
+
+    public boolean isDatabaseEnabled() {
+        return databaseEnabled;
+    }
+
+    public void setDatabaseEnabled(boolean databaseEnabled) {
+        this.databaseEnabled = databaseEnabled;
+    }
+
+    public boolean isDatabaseInstrumentationEnabled() {
+        return databaseInstrumentationEnabled;
+    }
+
+    public void setDatabaseInstrumentationEnabled(boolean databaseInstrumentationEnabled) {
+        this.databaseInstrumentationEnabled = databaseInstrumentationEnabled;
+    }
+
+    public boolean isDatabaseInstrumentationHoldEnabled() {
+        return databaseInstrumentationHoldEnabled;
+    }
+
+    public void setDatabaseInstrumentationHoldEnabled(boolean databaseInstrumentationHoldEnabled) {
+        this.databaseInstrumentationHoldEnabled = databaseInstrumentationHoldEnabled;
+    }
+
+    public boolean isExecutorEnabled() {
+        return executorEnabled;
+    }
+
+    public void setExecutorEnabled(boolean executorEnabled) {
+        this.executorEnabled = executorEnabled;
+    }
+
+    public boolean isExecutorInstrumentationEnabled() {
+        return executorInstrumentationEnabled;
+    }
+
+    public void setExecutorInstrumentationEnabled(boolean executorInstrumentationEnabled) {
+        this.executorInstrumentationEnabled = executorInstrumentationEnabled;
+    }
+
+    public boolean isExecutorRejectionCountingEnabled() {
+        return executorRejectionCountingEnabled;
+    }
+
+    public void setExecutorRejectionCountingEnabled(boolean executorRejectionCountingEnabled) {
+        this.executorRejectionCountingEnabled = executorRejectionCountingEnabled;
+    }
+
+    public boolean isGcEnabled() {
+        return gcEnabled;
+    }
+
+    public void setGcEnabled(boolean gcEnabled) {
+        this.gcEnabled = gcEnabled;
+    }
+
+    public boolean isRuntimeEnabled() {
+        return runtimeEnabled;
+    }
+
+    public void setRuntimeEnabled(boolean runtimeEnabled) {
+        this.runtimeEnabled = runtimeEnabled;
+    }
+
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    public void setIntervalSeconds(long intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public long getMemoryIntervalMillis() {
+        return memoryIntervalMillis;
+    }
+
+    public void setMemoryIntervalMillis(long memoryIntervalMillis) {
+        this.memoryIntervalMillis = memoryIntervalMillis;
+    }
+
+    public long getCpuIntervalMillis() {
+        return cpuIntervalMillis;
+    }
+
+    public void setCpuIntervalMillis(long cpuIntervalMillis) {
+        this.cpuIntervalMillis = cpuIntervalMillis;
+    }
+
+    public long getGcIntervalMillis() {
+        return gcIntervalMillis;
+    }
+
+    public void setGcIntervalMillis(long gcIntervalMillis) {
+        this.gcIntervalMillis = gcIntervalMillis;
+    }
+
+    public long getThreadIntervalMillis() {
+        return threadIntervalMillis;
+    }
+
+    public void setThreadIntervalMillis(long threadIntervalMillis) {
+        this.threadIntervalMillis = threadIntervalMillis;
+    }
+
+    public long getDatabaseIntervalMillis() {
+        return databaseIntervalMillis;
+    }
+
+    public void setDatabaseIntervalMillis(long databaseIntervalMillis) {
+        this.databaseIntervalMillis = databaseIntervalMillis;
+    }
+
+    public long getRuntimeIntervalMillis() {
+        return runtimeIntervalMillis;
+    }
+
+    public void setRuntimeIntervalMillis(long runtimeIntervalMillis) {
+        this.runtimeIntervalMillis = runtimeIntervalMillis;
+    }
+
+    public boolean isPhaseJitterEnabled() {
+        return phaseJitterEnabled;
+    }
+
+    public void setPhaseJitterEnabled(boolean phaseJitterEnabled) {
+        this.phaseJitterEnabled = phaseJitterEnabled;
+    }
+
+    public double getOverheadBudgetPercent() {
+        return overheadBudgetPercent;
+    }
+
+    public void setOverheadBudgetPercent(double overheadBudgetPercent) {
+        this.overheadBudgetPercent = overheadBudgetPercent;
+    }
+
+    public int getCollectorParallelism() {
+        return collectorParallelism;
+    }
+
+    public void setCollectorParallelism(int collectorParallelism) {
+        this.collectorParallelism = collectorParallelism;
+    }
+
+    public long getCollectorDeadlineMillis() {
+        return collectorDeadlineMillis;
+    }
+
+    public void setCollectorDeadlineMillis(long collectorDeadlineMillis) {
+        this.collectorDeadlineMillis = collectorDeadlineMillis;
+    }
+
+    public double getMemoryPoolUsageThresholdPercent() {
+        return memoryPoolUsageThresholdPercent;
+    }
+
+    public void setMemoryPoolUsageThresholdPercent(double memoryPoolUsageThresholdPercent) {
+        this.memoryPoolUsageThresholdPercent = memoryPoolUsageThresholdPercent;
+    }
+
+    public double getMemoryPoolCollectionThresholdPercent() {
+        return memoryPoolCollectionThresholdPercent;
+    }
+
+    public void setMemoryPoolCollectionThresholdPercent(double memoryPoolCollectionThresholdPercent) {
+        this.memoryPoolCollectionThresholdPercent = memoryPoolCollectionThresholdPercent;
+    }
+
+    public long getThreadFullDumpBudgetMillis() {
+        return threadFullDumpBudgetMillis;
+    }
+
+    public void setThreadFullDumpBudgetMillis(long threadFullDumpBudgetMillis) {
+        this.threadFullDumpBudgetMillis = threadFullDumpBudgetMillis;
+    }
+
+    public int getThreadCpuTopThreads() {
+        return threadCpuTopThreads;
+    }
+
+    public void setThreadCpuTopThreads(int threadCpuTopThreads) {
+        this.threadCpuTopThreads = threadCpuTopThreads;
+    }
+
+    public int getThreadContentionTopMonitors() {
+        return threadContentionTopMonitors;
+    }
+
+    public void setThreadContentionTopMonitors(int threadContentionTopMonitors) {
+        this.threadContentionTopMonitors = threadContentionTopMonitors;
+    }
+
+    public long getThreadContentionWindowSeconds() {
+        return threadContentionWindowSeconds;
+    }
+
+    public void setThreadContentionWindowSeconds(long threadContentionWindowSeconds) {
+        this.threadContentionWindowSeconds = threadContentionWindowSeconds;
+    }
+
+    public boolean isProfilerEnabled() {
+        return profilerEnabled;
+    }
+
+    public void setProfilerEnabled(boolean profilerEnabled) {
+        this.profilerEnabled = profilerEnabled;
+    }
+
+    public long getProfilerIntervalMillis() {
+        return profilerIntervalMillis;
+    }
+
+    public void setProfilerIntervalMillis(long profilerIntervalMillis) {
+        this.profilerIntervalMillis = profilerIntervalMillis;
+    }
+
+    public int getProfilerMaxDepth() {
+        return profilerMaxDepth;
+    }
+
+    public void setProfilerMaxDepth(int profilerMaxDepth) {
+        this.profilerMaxDepth = profilerMaxDepth;
+    }
+
+    public boolean isProfilerRunnableOnly() {
+        return profilerRunnableOnly;
+    }
+
+    public void setProfilerRunnableOnly(boolean profilerRunnableOnly) {
+        this.profilerRunnableOnly = profilerRunnableOnly;
+    }
+
+    public List<String> getProfilerThreadGroups() {
+        return profilerThreadGroups;
+    }
+
+    public void setProfilerThreadGroups(List<String> profilerThreadGroups) {
+        this.profilerThreadGroups = profilerThreadGroups;
+    }
+
+    public int getProfilerMaxNodes() {
+        return profilerMaxNodes;
+    }
+
+    public void setProfilerMaxNodes(int profilerMaxNodes) {
+        this.profilerMaxNodes = profilerMaxNodes;
+    }
+
+    public long getProfilerWindowSeconds() {
+        return profilerWindowSeconds;
+    }
+
+    public void setProfilerWindowSeconds(long profilerWindowSeconds) {
+        this.profilerWindowSeconds = profilerWindowSeconds;
+    }
+
+    public int getProfilerTopMethods() {
+        return profilerTopMethods;
+    }
+
+    public void setProfilerTopMethods(int profilerTopMethods) {
+        this.profilerTopMethods = profilerTopMethods;
+    }
+
+    public boolean isClassHistogramEnabled() {
+        return classHistogramEnabled;
+    }
+
+    public void setClassHistogramEnabled(boolean classHistogramEnabled) {
+        this.classHistogramEnabled = classHistogramEnabled;
+    }
+
+    public long getClassHistogramIntervalSeconds() {
+        return classHistogramIntervalSeconds;
+    }
+
+    public void setClassHistogramIntervalSeconds(long classHistogramIntervalSeconds) {
+        this.classHistogramIntervalSeconds = classHistogramIntervalSeconds;
+    }
+
+    public long getClassHistogramMinIntervalSeconds() {
+        return classHistogramMinIntervalSeconds;
+    }
+
+    public void setClassHistogramMinIntervalSeconds(long classHistogramMinIntervalSeconds) {
+        this.classHistogramMinIntervalSeconds = classHistogramMinIntervalSeconds;
+    }
+
+    public double getClassHistogramHeapGrowthPercent() {
+        return classHistogramHeapGrowthPercent;
+    }
+
+    public void setClassHistogramHeapGrowthPercent(double classHistogramHeapGrowthPercent) {
+        this.classHistogramHeapGrowthPercent = classHistogramHeapGrowthPercent;
+    }
+
+    public int getClassHistogramGenerations() {
+        return classHistogramGenerations;
+    }
+
+    public void setClassHistogramGenerations(int classHistogramGenerations) {
+        this.classHistogramGenerations = classHistogramGenerations;
+    }
+
+    public int getClassHistogramTopClasses() {
+        return classHistogramTopClasses;
+    }
+
+    public void setClassHistogramTopClasses(int classHistogramTopClasses) {
+        this.classHistogramTopClasses = classHistogramTopClasses;
+    }
+
+    public boolean isClassHistogramAll() {
+        return classHistogramAll;
+    }
+
+    public void setClassHistogramAll(boolean classHistogramAll) {
+        this.classHistogramAll = classHistogramAll;
+    }
+
+    public boolean isHistoryEnabled() {
+        return historyEnabled;
+    }
+
+    public void setHistoryEnabled(boolean historyEnabled) {
+        this.historyEnabled = historyEnabled;
+    }
+
+    public int getHistoryRawSamples() {
+        return historyRawSamples;
+    }
+
+    public void setHistoryRawSamples(int historyRawSamples) {
+        this.historyRawSamples = historyRawSamples;
+    }
+
+    public int getHistoryRollupSamples() {
+        return historyRollupSamples;
+    }
+
+    public void setHistoryRollupSamples(int historyRollupSamples) {
+        this.historyRollupSamples = historyRollupSamples;
+    }
+
+    public int getHistoryCompressedBlocks() {
+        return historyCompressedBlocks;
+    }
+
+    public void setHistoryCompressedBlocks(int historyCompressedBlocks) {
+        this.historyCompressedBlocks = historyCompressedBlocks;
+    }
+
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    public void setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    public String getOutputTarget() {
+        return outputTarget;
+    }
+
+    public void setOutputTarget(String outputTarget) {
+        this.outputTarget = outputTarget;
+    }
+
+    public boolean isOutputAnsi() {
+        return outputAnsi;
+    }
+
+    public void setOutputAnsi(boolean outputAnsi) {
+        this.outputAnsi = outputAnsi;
+    }
+
+    public boolean isOutputAsync() {
+        return outputAsync;
+    }
+
+    public void setOutputAsync(boolean outputAsync) {
+        this.outputAsync = outputAsync;
+    }
+
+    public int getOutputQueueSize() {
+        return outputQueueSize;
+    }
+
+    public void setOutputQueueSize(int outputQueueSize) {
+        this.outputQueueSize = outputQueueSize;
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public int getJournalSegmentRecords() {
+        return journalSegmentRecords;
+    }
+
+    public void setJournalSegmentRecords(int journalSegmentRecords) {
+        this.journalSegmentRecords = journalSegmentRecords;
+    }
+
+    public int getJournalMaxSegments() {
+        return journalMaxSegments;
+    }
+
+    public void setJournalMaxSegments(int journalMaxSegments) {
+        this.journalMaxSegments = journalMaxSegments;
+    }
+
+    public boolean isPrometheusEnabled() {
+        return prometheusEnabled;
+    }
+
+    public void setPrometheusEnabled(boolean prometheusEnabled) {
+        this.prometheusEnabled = prometheusEnabled;
+    }
+
+    public boolean isPrometheusServerEnabled() {
+        return prometheusServerEnabled;
+    }
+
+    public void setPrometheusServerEnabled(boolean prometheusServerEnabled) {
+        this.prometheusServerEnabled = prometheusServerEnabled;
+    }
+
+    public String getPrometheusHost() {
+        return prometheusHost;
+    }
+
+    public void setPrometheusHost(String prometheusHost) {
+        this.prometheusHost = prometheusHost;
+    }
+
+    public int getPrometheusPort() {
+        return prometheusPort;
+    }
+
+    public void setPrometheusPort(int prometheusPort) {
+        this.prometheusPort = prometheusPort;
+    }
+
+    public String getPrometheusPath() {
+        return prometheusPath;
+    }
+
+    public void setPrometheusPath(String prometheusPath) {
+        this.prometheusPath = prometheusPath;
+    }
+
+    public boolean isStatsdEnabled() {
+        return statsdEnabled;
+    }
+
+    public void setStatsdEnabled(boolean statsdEnabled) {
+        this.statsdEnabled = statsdEnabled;
+    }
+
+    public String getStatsdHost() {
+        return statsdHost;
+    }
+
+    public void setStatsdHost(String statsdHost) {
+        this.statsdHost = statsdHost;
+    }
+
+    public int getStatsdPort() {
+        return statsdPort;
+    }
+
+    public void setStatsdPort(int statsdPort) {
+        this.statsdPort = statsdPort;
+    }
+
+    public String getStatsdFlavor() {
+        return statsdFlavor;
+    }
+
+    public void setStatsdFlavor(String statsdFlavor) {
+        this.statsdFlavor = statsdFlavor;
+    }
+
+    public int getStatsdMaxPacketBytes() {
+        return statsdMaxPacketBytes;
+    }
+
+    public void setStatsdMaxPacketBytes(int statsdMaxPacketBytes) {
+        this.statsdMaxPacketBytes = statsdMaxPacketBytes;
+    }
+
+    public String getStatsdPrefix() {
+        return statsdPrefix;
+    }
+
+    public void setStatsdPrefix(String statsdPrefix) {
+        this.statsdPrefix = statsdPrefix;
+    }
+
+    public List<String> getStatsdTags() {
+        return statsdTags;
+    }
+
+    public void setStatsdTags(List<String> statsdTags) {
+        this.statsdTags = statsdTags;
+    }
+
+    public boolean isFleetEnabled() {
+        return fleetEnabled;
+    }
+
+    public void setFleetEnabled(boolean fleetEnabled) {
+        this.fleetEnabled = fleetEnabled;
+    }
+
+    public String getFleetHost() {
+        return fleetHost;
+    }
+
+    public void setFleetHost(String fleetHost) {
+        this.fleetHost = fleetHost;
+    }
+
+    public int getFleetPort() {
+        return fleetPort;
+    }
+
+    public void setFleetPort(int fleetPort) {
+        this.fleetPort = fleetPort;
+    }
+
+    public String getFleetService() {
+        return fleetService;
+    }
+
+    public void setFleetService(String fleetService) {
+        this.fleetService = fleetService;
+    }
+
+    public String getFleetNode() {
+        return fleetNode;
+    }
+
+    public void setFleetNode(String fleetNode) {
+        this.fleetNode = fleetNode;
+    }
+
+    public int getFleetBufferBytes() {
+        return fleetBufferBytes;
+    }
+
+    public void setFleetBufferBytes(int fleetBufferBytes) {
+        this.fleetBufferBytes = fleetBufferBytes;
+    }
+
+    public List<AlertRuleProperties> getAlerts() {
+        return alerts;
+    }
+
+    public void setAlerts(List<AlertRuleProperties> alerts) {
+        this.alerts = alerts;
+    }
+
+    public String getAlertCaptureDirectory() {
+        return alertCaptureDirectory;
+    }
+
+    public void setAlertCaptureDirectory(String alertCaptureDirectory) {
+        this.alertCaptureDirectory = alertCaptureDirectory;
+    }
+
+    public long getAlertCaptureCooldownSeconds() {
+        return alertCaptureCooldownSeconds;
+    }
+
+    public void setAlertCaptureCooldownSeconds(long alertCaptureCooldownSeconds) {
+        this.alertCaptureCooldownSeconds = alertCaptureCooldownSeconds;
+    }
+
+    public int getAlertFastSamplingFactor() {
+        return alertFastSamplingFactor;
+    }
+
+    public void setAlertFastSamplingFactor(int alertFastSamplingFactor) {
+        this.alertFastSamplingFactor = alertFastSamplingFactor;
+    }
+
+    public long getAlertFastSamplingSeconds() {
+        return alertFastSamplingSeconds;
+    }
+
+    public void setAlertFastSamplingSeconds(long alertFastSamplingSeconds) {
+        this.alertFastSamplingSeconds = alertFastSamplingSeconds;
+    }
+
+    /**
+     * One alert rule, configured under resource.monitor.alerts[n].
+     */
+    public static class AlertRuleProperties {
+        private String name;
+        private String metric;
+        private String detector = "threshold";
+        private double fireAt;
+        private double clearAt = Double.NaN;
+        private double alpha = 0.1;
+        private int warmupSamples = 30;
+        private int fireSamples = 1;
+        private int clearSamples = 3;
+        private List<String> actions = new ArrayList<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public void setMetric(String metric) {
+            this.metric = metric;
+        }
+
+        public String getDetector() {
+            return detector;
+        }
+
+        public void setDetector(String detector) {
+            this.detector = detector;
+        }
+
+        public double getFireAt() {
+            return fireAt;
+        }
+
+        public void setFireAt(double fireAt) {
+            this.fireAt = fireAt;
+        }
+
+        public double getClearAt() {
+            return clearAt;
+        }
+
+        public void setClearAt(double clearAt) {
+            this.clearAt = clearAt;
+        }
+
+        public double getAlpha() {
+            return alpha;
+        }
+
+        public void setAlpha(double alpha) {
+            this.alpha = alpha;
+        }
+
+        public int getWarmupSamples() {
+            return warmupSamples;
+        }
+
+        public void setWarmupSamples(int warmupSamples) {
+            this.warmupSamples = warmupSamples;
+        }
+
+        public int getFireSamples() {
+            return fireSamples;
+        }
+
+        public void setFireSamples(int fireSamples) {
+            this.fireSamples = fireSamples;
+        }
+
+        public int getClearSamples() {
+            return clearSamples;
+        }
+
+        public void setClearSamples(int clearSamples) {
+            this.clearSamples = clearSamples;
+        }
+
+        public List<String> getActions() {
+            return actions;
+        }
+
+        public void setActions(List<String> actions) {
+            this.actions = actions;
+        }
+    }
+}
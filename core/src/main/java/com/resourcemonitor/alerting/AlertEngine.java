@@ -0,0 +1,119 @@
+package com.resourcemonitor.alerting;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Evaluates alert rules against every snapshot and triggers captures when a rule fires.
+ *
+ * Rules are matched against the registry incrementally: only metrics registered since the
+ * previous cycle are inspected, so series that appear later (a new pool, a new GC) are picked
+ * up without a per-cycle lookup. Evaluating a cycle costs one detector update per matched series
+ * that is present in the snapshot and does not allocate unless a rule fires or clears.
+ *
+ * For each rule the engine reports {@code monitor.alert.active{rule}}, the number of firing
+ * series, and {@code monitor.alert.fired{rule}}, how often a series started firing.
+ */
+public class AlertEngine {
+    private static final Logger logger = LoggerFactory.getLogger("com.resourcemonitor.alerts");
+
+    private final MetricRegistry registry;
+    private final List<AlertRule> rules;
+    private final CaptureDispatcher dispatcher;
+    private final int[] activeIds;
+    private final int[] firedIds;
+    private int matchedUpTo;
+
+    /**
+     * @param registry The registry of the monitored metrics
+     * @param rules The rules to evaluate
+     * @param dispatcher Runs the capture actions of fired rules
+     * @throws IllegalArgumentException if a rule refers to an unknown capture action
+     */
+    public AlertEngine(MetricRegistry registry, List<AlertRule> rules, CaptureDispatcher dispatcher) {
+        this.registry = registry;
+        this.rules = new ArrayList<>(rules);
+        this.dispatcher = dispatcher;
+        this.activeIds = new int[rules.size()];
+        this.firedIds = new int[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            AlertRule rule = rules.get(i);
+            for (String action : rule.getActions()) {
+                if (!dispatcher.hasAction(action)) {
+                    throw new IllegalArgumentException("Unknown capture action " + action + " in alert rule " + rule.getName());
+                }
+            }
+            activeIds[i] = registry.longGauge("monitor.alert.active", "count", "rule", rule.getName());
+            firedIds[i] = registry.counter("monitor.alert.fired", "count", "rule", rule.getName());
+        }
+    }
+
+    /**
+     * @return The rules in evaluation order
+     */
+    public List<AlertRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Evaluates all rules against a completed snapshot and writes the alert metrics into it.
+     * @param snapshot The snapshot of this cycle
+     */
+    public void evaluate(MetricsSnapshot snapshot) {
+        matchNewMetrics();
+        long timestamp = snapshot.getTimestampMillis();
+        for (int i = 0; i < rules.size(); i++) {
+            AlertRule rule = rules.get(i);
+            for (AlertRule.Series series : rule.series) {
+                if (!snapshot.isPresent(series.id)) {
+                    continue;
+                }
+                double value = snapshot.getAsDouble(series.id);
+                int change = rule.update(series, value, timestamp);
+                if (change > 0) {
+                    fire(rule, series, value, timestamp);
+                } else if (change < 0) {
+                    logger.info("{}Alert {} cleared on {} (value {}){}", ColorCodes.GREEN, rule.getName(),
+                        series.key, value, ColorCodes.RESET);
+                }
+            }
+            snapshot.set(activeIds[i], rule.activeCount());
+            snapshot.set(firedIds[i], rule.fired);
+        }
+    }
+
+    private void fire(AlertRule rule, AlertRule.Series series, double value, long timestamp) {
+        AlertEvent event = new AlertEvent(rule.getName(), series.key, value, series.detector.lastScore(), timestamp);
+        logger.warn("{}Alert {} fired on {} (value {}, score {}){}", ColorCodes.RED, rule.getName(), series.key,
+            value, String.format("%.2f", event.getScore()), ColorCodes.RESET);
+        for (String action : rule.getActions()) {
+            dispatcher.trigger(action, event);
+        }
+    }
+
+    private void matchNewMetrics() {
+        MetricDescriptor[] descriptors = registry.descriptors();
+        for (int id = matchedUpTo; id < descriptors.length; id++) {
+            for (AlertRule rule : rules) {
+                if (rule.matches(descriptors[id])) {
+                    rule.addSeries(descriptors[id]);
+                }
+            }
+        }
+        matchedUpTo = descriptors.length;
+    }
+
+    /**
+     * Stops the capture thread.
+     */
+    public void close() {
+        dispatcher.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * A rule firing for one series, handed to the {@link CaptureAction}s of the rule.
+ */
+public final class AlertEvent {
+    private final String rule;
+    private final String series;
+    private final double value;
+    private final double score;
+    private final long timestampMillis;
+
+    AlertEvent(String rule, String series, double value, double score, long timestampMillis) {
+        this.rule = rule;
+        this.series = series;
+        this.value = value;
+        this.score = score;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * @return Key of the series that fired, e.g. {@code db.connections.usage{pool=main}}
+     */
+    public String getSeries() {
+        return series;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return Score of the detector: the value, z-score or rate per second
+     */
+    public double getScore() {
+        return score;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return rule + " on " + series + " (value " + value + ", score " + String.format("%.2f", score) + ")";
+    }
+}
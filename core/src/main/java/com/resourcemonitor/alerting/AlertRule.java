@@ -0,0 +1,127 @@
+package com.resourcemonitor.alerting;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A detector applied to every series of one metric, with hysteresis and capture actions.
+ *
+ * The metric is given as a key: {@code memory.heap.usage} or {@code db.connections.usage{pool=main}}.
+ * A key without tags matches every series of that name, so one rule covers all pools; each
+ * series gets its own detector and state. A series fires after {@code fireSamples} breaching
+ * samples in a row and clears after {@code clearSamples} normal samples in a row, so a value
+ * hovering around the threshold does not flap.
+ */
+public final class AlertRule {
+    private final String name;
+    private final String metric;
+    private final boolean allTags;
+    private final Supplier<AnomalyDetector> detectorFactory;
+    private final int fireSamples;
+    private final int clearSamples;
+    private final List<String> actions;
+    final List<Series> series = new ArrayList<>();
+    long fired;
+
+    /**
+     * @param name Rule name used in logs, tags and capture file names
+     * @param metric Metric key, with or without tags
+     * @param detectorFactory Creates the detector for each matching series
+     * @param fireSamples Breaching samples in a row before the rule fires
+     * @param clearSamples Normal samples in a row before a firing rule clears
+     * @param actions Names of the capture actions to trigger when the rule fires
+     */
+    public AlertRule(String name, String metric, Supplier<AnomalyDetector> detectorFactory,
+                     int fireSamples, int clearSamples, List<String> actions) {
+        this.name = name;
+        this.metric = metric;
+        this.allTags = metric.indexOf('{') < 0;
+        this.detectorFactory = detectorFactory;
+        this.fireSamples = Math.max(fireSamples, 1);
+        this.clearSamples = Math.max(clearSamples, 1);
+        this.actions = Collections.unmodifiableList(new ArrayList<>(actions));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public List<String> getActions() {
+        return actions;
+    }
+
+    boolean matches(MetricDescriptor descriptor) {
+        return allTags ? descriptor.getName().equals(metric) : descriptor.toString().equals(metric);
+    }
+
+    void addSeries(MetricDescriptor descriptor) {
+        series.add(new Series(descriptor.getId(), descriptor.toString(), detectorFactory.get()));
+    }
+
+    /**
+     * @return Number of series currently firing
+     */
+    int activeCount() {
+        int active = 0;
+        for (Series s : series) {
+            if (s.active) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Feeds a sample into the series state.
+     * @return +1 if the series started firing, -1 if it cleared, 0 otherwise
+     */
+    int update(Series s, double value, long timestampMillis) {
+        switch (s.detector.update(value, timestampMillis)) {
+            case BREACH:
+                s.normalRun = 0;
+                if (!s.active && ++s.breachRun >= fireSamples) {
+                    s.active = true;
+                    s.breachRun = 0;
+                    fired++;
+                    return 1;
+                }
+                return 0;
+            case NORMAL:
+                s.breachRun = 0;
+                if (s.active && ++s.normalRun >= clearSamples) {
+                    s.active = false;
+                    s.normalRun = 0;
+                    return -1;
+                }
+                return 0;
+            default:
+                // Inside the hysteresis band: neither builds up to firing nor to clearing
+                s.breachRun = 0;
+                s.normalRun = 0;
+                return 0;
+        }
+    }
+
+    /** State of one series of the rule. */
+    static final class Series {
+        final int id;
+        final String key;
+        final AnomalyDetector detector;
+        boolean active;
+        int breachRun;
+        int normalRun;
+
+        Series(int id, String key, AnomalyDetector detector) {
+            this.id = id;
+            this.key = key;
+            this.detector = detector;
+        }
+    }
+}
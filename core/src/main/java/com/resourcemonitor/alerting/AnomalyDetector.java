@@ -0,0 +1,31 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * Incremental detector for one series. Implementations keep a constant amount of state
+ * and see every sample exactly once, in timestamp order.
+ */
+public interface AnomalyDetector {
+
+    /** Classification of a sample. */
+    enum Signal {
+        /** The sample breaches the rule */
+        BREACH,
+        /** The sample is back in the normal range */
+        NORMAL,
+        /** The sample is between the fire and clear levels, or there is not enough data yet */
+        HOLD
+    }
+
+    /**
+     * Feeds one sample into the detector.
+     * @param value The sample value
+     * @param timestampMillis Wall-clock time of the sample
+     * @return Classification of the sample
+     */
+    Signal update(double value, long timestampMillis);
+
+    /**
+     * @return The value the last classification was based on, e.g. the z-score or the rate
+     */
+    double lastScore();
+}
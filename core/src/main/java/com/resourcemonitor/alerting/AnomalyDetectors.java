@@ -0,0 +1,41 @@
+package com.resourcemonitor.alerting;
+
+import java.util.function.Supplier;
+
+/**
+ * Creates detector factories from configuration values.
+ */
+public final class AnomalyDetectors {
+    private AnomalyDetectors() {}
+
+    /**
+     * @param type "threshold", "zscore" or "rate"
+     * @param fireAt Fire level: the value, the z-score or the rate per second
+     * @param clearAt Clear level; NaN uses the fire level for thresholds and rates and half the
+     *                fire level for z-scores
+     * @param alpha EWMA weight for z-scores
+     * @param warmupSamples Samples before a z-score rule may fire
+     * @return Factory creating one detector per series
+     */
+    public static Supplier<AnomalyDetector> factory(String type, double fireAt, double clearAt,
+                                                    double alpha, int warmupSamples) {
+        switch (type.toLowerCase()) {
+            case "threshold": {
+                double clear = Double.isNaN(clearAt) ? fireAt : clearAt;
+                return () -> new ThresholdDetector(fireAt, clear);
+            }
+            case "zscore": {
+                double clear = Double.isNaN(clearAt) ? fireAt / 2 : clearAt;
+                // Validate eagerly rather than on the first registered series
+                new EwmaDetector(alpha, fireAt, clear, warmupSamples);
+                return () -> new EwmaDetector(alpha, fireAt, clear, warmupSamples);
+            }
+            case "rate": {
+                double clear = Double.isNaN(clearAt) ? fireAt : clearAt;
+                return () -> new RateOfChangeDetector(fireAt, clear);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown alert detector: " + type);
+        }
+    }
+}
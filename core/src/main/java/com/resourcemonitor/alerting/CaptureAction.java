@@ -0,0 +1,28 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * Expensive diagnostic capture that an {@link AlertRule} triggers when it fires.
+ */
+public interface CaptureAction {
+
+    /**
+     * @return Name used in the actions of a rule, e.g. "thread-dump"
+     */
+    String getName();
+
+    /**
+     * Returns whether the capture is expensive enough to run on the capture thread. Cheap
+     * actions run inline on the sampling thread, which also means they may touch scheduler state.
+     * @return true to run on the capture thread
+     */
+    default boolean isAsync() {
+        return true;
+    }
+
+    /**
+     * Performs the capture.
+     * @param event The event that triggered it
+     * @throws Exception if the capture fails; the failure is logged
+     */
+    void capture(AlertEvent event) throws Exception;
+}
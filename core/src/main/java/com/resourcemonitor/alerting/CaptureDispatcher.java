@@ -0,0 +1,108 @@
+package com.resourcemonitor.alerting;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs capture actions for fired rules.
+ *
+ * Expensive captures run one at a time on a single daemon thread, so a thread dump or class
+ * histogram never delays the sampling cycle. Each of them is rate-limited by a cooldown that
+ * applies across all rules and series, because an incident typically trips several rules at once
+ * and one capture of it is enough. Cheap actions run inline and are not rate-limited.
+ */
+public class CaptureDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureDispatcher.class);
+
+    private final Map<String, CaptureAction> actions = new LinkedHashMap<>();
+    private final Map<String, Long> lastCaptureNanos = new LinkedHashMap<>();
+    private final long cooldownNanos;
+    private ThreadPoolExecutor executor;
+
+    /**
+     * @param cooldownMillis Minimum time between two runs of the same expensive capture
+     */
+    public CaptureDispatcher(long cooldownMillis) {
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+    }
+
+    /**
+     * Registers an action under its name.
+     * @param action The action
+     */
+    public void register(CaptureAction action) {
+        actions.put(action.getName(), action);
+    }
+
+    /**
+     * @param name Action name
+     * @return true if an action with this name is registered
+     */
+    public boolean hasAction(String name) {
+        return actions.containsKey(name);
+    }
+
+    /**
+     * Triggers an action for an event. Called on the sampling thread.
+     * @param name Action name
+     * @param event The event that fired
+     */
+    void trigger(String name, AlertEvent event) {
+        CaptureAction action = actions.get(name);
+        if (action == null) {
+            return;
+        }
+        if (!action.isAsync()) {
+            run(action, event);
+            return;
+        }
+
+        long now = System.nanoTime();
+        Long last = lastCaptureNanos.get(name);
+        if (last != null && now - last < cooldownNanos) {
+            logger.info("Skipping {} for {}: last capture was {}s ago", name, event,
+                TimeUnit.NANOSECONDS.toSeconds(now - last));
+            return;
+        }
+        lastCaptureNanos.put(name, now);
+        try {
+            executor().execute(() -> run(action, event));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Capture queue full, dropping {} for {}", name, event);
+        }
+    }
+
+    private static void run(CaptureAction action, AlertEvent event) {
+        try {
+            action.capture(event);
+        } catch (Exception e) {
+            logger.error("Capture {} for {} failed: {}", action.getName(), event, e.getMessage(), e);
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4), task -> {
+                Thread thread = new Thread(task, "resource-monitor-capture");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the capture thread; a capture in progress is allowed to finish.
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
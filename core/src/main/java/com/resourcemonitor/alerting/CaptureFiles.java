@@ -0,0 +1,21 @@
+package com.resourcemonitor.alerting;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Names capture files after the time and the rule that triggered them.
+ */
+final class CaptureFiles {
+    private CaptureFiles() {}
+
+    static Path create(Path directory, String kind, AlertEvent event) throws IOException {
+        Files.createDirectories(directory);
+        String time = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(event.getTimestampMillis()));
+        String rule = event.getRule().replaceAll("[^A-Za-z0-9._-]", "_");
+        return directory.resolve(kind + "-" + time + "-" + rule + ".txt");
+    }
+}
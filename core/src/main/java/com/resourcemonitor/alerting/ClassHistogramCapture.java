@@ -0,0 +1,41 @@
+package com.resourcemonitor.alerting;
+
+import com.resourcemonitor.util.DiagnosticCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a class histogram (instances and bytes per class) to a file, as {@code jcmd GC.class_histogram}
+ * would. Without {@code -all} the JVM runs a full GC first so that only live objects are counted;
+ * that pause is the price of the capture and the reason it only runs when a rule fires.
+ */
+public class ClassHistogramCapture implements CaptureAction {
+    private static final Logger logger = LoggerFactory.getLogger(ClassHistogramCapture.class);
+
+    private final Path directory;
+
+    /**
+     * @param directory Directory for the histogram files
+     */
+    public ClassHistogramCapture(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String getName() {
+        return "class-histogram";
+    }
+
+    @Override
+    public void capture(AlertEvent event) throws IOException {
+        String histogram = DiagnosticCommands.invoke("gcClassHistogram");
+        Path file = CaptureFiles.create(directory, "class-histogram", event);
+        Files.write(file, ("Class histogram triggered by " + event + "\n\n" + histogram)
+            .getBytes(StandardCharsets.UTF_8));
+        logger.warn("Wrote class histogram to {}", file);
+    }
+}
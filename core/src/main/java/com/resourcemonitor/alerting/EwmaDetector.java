@@ -0,0 +1,62 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * Spike detection against an exponentially weighted moving average.
+ *
+ * The detector keeps an EWMA of the mean and the variance and scores each sample by its
+ * z-score against the baseline before the sample, so memory stays constant however long the
+ * series runs. Only upward spikes breach: a sudden drop in heap or CPU is rarely a problem.
+ * The baseline keeps adapting while a rule fires, so a permanent level shift clears after
+ * roughly {@code 1 / alpha} samples instead of firing forever.
+ */
+public final class EwmaDetector implements AnomalyDetector {
+    private final double alpha;
+    private final double fireZ;
+    private final double clearZ;
+    private final int warmupSamples;
+    private long samples;
+    private double mean;
+    private double variance;
+    private double lastScore = Double.NaN;
+
+    /**
+     * @param alpha Weight of a new sample, between 0 and 1
+     * @param fireZ Z-score at which a sample breaches
+     * @param clearZ Z-score a sample must fall below to count as normal
+     * @param warmupSamples Samples needed before the baseline is trusted
+     */
+    public EwmaDetector(double alpha, double fireZ, double clearZ, int warmupSamples) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("EWMA alpha must be between 0 and 1: " + alpha);
+        }
+        this.alpha = alpha;
+        this.fireZ = fireZ;
+        this.clearZ = clearZ;
+        this.warmupSamples = Math.max(warmupSamples, 2);
+    }
+
+    @Override
+    public Signal update(double value, long timestampMillis) {
+        if (samples++ == 0) {
+            mean = value;
+            return Signal.HOLD;
+        }
+        double diff = value - mean;
+        // A perfectly flat series has no variance; treat tiny deviations as noise
+        double deviation = Math.max(Math.sqrt(variance), Math.max(Math.abs(mean) * 1e-3, 1e-9));
+        lastScore = diff / deviation;
+        double increment = alpha * diff;
+        mean += increment;
+        variance = (1 - alpha) * (variance + diff * increment);
+
+        if (samples < warmupSamples) {
+            return Signal.HOLD;
+        }
+        return lastScore >= fireZ ? Signal.BREACH : lastScore < clearZ ? Signal.NORMAL : Signal.HOLD;
+    }
+
+    @Override
+    public double lastScore() {
+        return lastScore;
+    }
+}
@@ -0,0 +1,48 @@
+package com.resourcemonitor.alerting;
+
+import com.resourcemonitor.scheduling.CollectorScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporarily shortens the interval of every collector, so the metrics around an incident
+ * are sampled at a finer resolution than the steady state pays for.
+ */
+public class FastSamplingCapture implements CaptureAction {
+    private static final Logger logger = LoggerFactory.getLogger(FastSamplingCapture.class);
+
+    private final CollectorScheduler scheduler;
+    private final int factor;
+    private final long durationNanos;
+
+    /**
+     * @param scheduler The collector scheduler
+     * @param factor Factor to divide the intervals by
+     * @param durationMillis How long to sample faster; a new firing extends the period
+     */
+    public FastSamplingCapture(CollectorScheduler scheduler, int factor, long durationMillis) {
+        this.scheduler = scheduler;
+        this.factor = Math.max(factor, 1);
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    }
+
+    @Override
+    public String getName() {
+        return "fast-sampling";
+    }
+
+    @Override
+    public boolean isAsync() {
+        // Touches the scheduler, which is owned by the sampling thread
+        return false;
+    }
+
+    @Override
+    public void capture(AlertEvent event) {
+        long now = System.nanoTime();
+        scheduler.boost(factor, now + durationNanos, now);
+        logger.warn("Sampling {}x faster for {}s after {}", factor,
+            TimeUnit.NANOSECONDS.toSeconds(durationNanos), event);
+    }
+}
@@ -0,0 +1,44 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * Fires when a series changes faster than a limit, per second of wall-clock time.
+ *
+ * Works for gauges (heap growing by more than 50 MB/s) as well as counters (more than 10
+ * full thread dumps per second). Only the previous sample is kept.
+ */
+public final class RateOfChangeDetector implements AnomalyDetector {
+    private final double fireAt;
+    private final double clearAt;
+    private boolean hasPrevious;
+    private double previousValue;
+    private long previousMillis;
+    private double lastScore = Double.NaN;
+
+    /**
+     * @param fireAt Rate per second at which a sample breaches
+     * @param clearAt Rate per second a sample must fall below to count as normal
+     */
+    public RateOfChangeDetector(double fireAt, double clearAt) {
+        this.fireAt = fireAt;
+        this.clearAt = clearAt;
+    }
+
+    @Override
+    public Signal update(double value, long timestampMillis) {
+        if (!hasPrevious || timestampMillis <= previousMillis) {
+            hasPrevious = true;
+            previousValue = value;
+            previousMillis = timestampMillis;
+            return Signal.HOLD;
+        }
+        lastScore = (value - previousValue) * 1000.0 / (timestampMillis - previousMillis);
+        previousValue = value;
+        previousMillis = timestampMillis;
+        return lastScore >= fireAt ? Signal.BREACH : lastScore < clearAt ? Signal.NORMAL : Signal.HOLD;
+    }
+
+    @Override
+    public double lastScore() {
+        return lastScore;
+    }
+}
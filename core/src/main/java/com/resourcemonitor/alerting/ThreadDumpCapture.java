@@ -0,0 +1,82 @@
+package com.resourcemonitor.alerting;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a full thread dump with stack traces, locked monitors and synchronizers to a file.
+ *
+ * Unlike {@link ThreadInfo#toString()}, stacks are not truncated. The dump stops the JVM at a
+ * safepoint for as long as it takes, which is why it only runs when a rule fires.
+ */
+public class ThreadDumpCapture implements CaptureAction {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadDumpCapture.class);
+
+    private final Path directory;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * @param directory Directory for the dump files
+     */
+    public ThreadDumpCapture(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String getName() {
+        return "thread-dump";
+    }
+
+    @Override
+    public void capture(AlertEvent event) throws IOException {
+        ThreadInfo[] threads = threadMXBean.dumpAllThreads(
+            threadMXBean.isObjectMonitorUsageSupported(), threadMXBean.isSynchronizerUsageSupported());
+        Path file = CaptureFiles.create(directory, "thread-dump", event);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("Thread dump triggered by " + event + "\n\n");
+            for (ThreadInfo thread : threads) {
+                write(out, thread);
+            }
+        }
+        logger.warn("Wrote thread dump of {} threads to {}", threads.length, file);
+    }
+
+    private static void write(BufferedWriter out, ThreadInfo thread) throws IOException {
+        out.write('"' + thread.getThreadName() + "\" #" + thread.getThreadId() + ' ' + thread.getThreadState());
+        if (thread.getLockName() != null) {
+            out.write(" on " + thread.getLockName());
+        }
+        if (thread.getLockOwnerName() != null) {
+            out.write(" owned by \"" + thread.getLockOwnerName() + "\" #" + thread.getLockOwnerId());
+        }
+        out.write('\n');
+        StackTraceElement[] stack = thread.getStackTrace();
+        MonitorInfo[] monitors = thread.getLockedMonitors();
+        for (int depth = 0; depth < stack.length; depth++) {
+            out.write("\tat " + stack[depth] + '\n');
+            for (MonitorInfo monitor : monitors) {
+                if (monitor.getLockedStackDepth() == depth) {
+                    out.write("\t- locked " + monitor + '\n');
+                }
+            }
+        }
+        LockInfo[] synchronizers = thread.getLockedSynchronizers();
+        if (synchronizers.length > 0) {
+            out.write("\tLocked synchronizers:\n");
+            for (LockInfo lock : synchronizers) {
+                out.write("\t- " + lock + '\n');
+            }
+        }
+        out.write('\n');
+    }
+}
@@ -0,0 +1,38 @@
+package com.resourcemonitor.alerting;
+
+/**
+ * Static threshold with a hysteresis band.
+ *
+ * With a fire level above the clear level the detector fires on high values, e.g. fire at 90%
+ * and clear below 80%. With the fire level below the clear level it fires on low values.
+ */
+public final class ThresholdDetector implements AnomalyDetector {
+    private final double fireAt;
+    private final double clearAt;
+    private final boolean upward;
+    private double lastScore = Double.NaN;
+
+    /**
+     * @param fireAt Level at which a sample breaches
+     * @param clearAt Level a sample must be back beyond to count as normal
+     */
+    public ThresholdDetector(double fireAt, double clearAt) {
+        this.fireAt = fireAt;
+        this.clearAt = clearAt;
+        this.upward = fireAt >= clearAt;
+    }
+
+    @Override
+    public Signal update(double value, long timestampMillis) {
+        lastScore = value;
+        if (upward) {
+            return value >= fireAt ? Signal.BREACH : value < clearAt ? Signal.NORMAL : Signal.HOLD;
+        }
+        return value <= fireAt ? Signal.BREACH : value > clearAt ? Signal.NORMAL : Signal.HOLD;
+    }
+
+    @Override
+    public double lastScore() {
+        return lastScore;
+    }
+}
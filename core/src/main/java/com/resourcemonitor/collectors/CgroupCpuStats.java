@@ -0,0 +1,363 @@
+package com.resourcemonitor.collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Reads CPU quota, usage and throttling counters of the process' cgroup on Linux.
+ *
+ * Both cgroup v2 ({@code cpu.max}, {@code cpu.stat}) and v1 ({@code cpu.cfs_quota_us},
+ * {@code cpu.cfs_period_us}, {@code cpu.stat}, {@code cpuacct.usage}) are supported. The cgroup
+ * directory is resolved once from {@code /proc/self/cgroup}; afterwards every file is kept open
+ * and re-read from offset 0 into a single reused direct buffer and parsed byte by byte, so a
+ * refresh does not allocate. A direct buffer also spares the JDK the temporary direct buffer it
+ * would otherwise copy through on every read.
+ *
+ * The aggregate {@code cpu} line of {@code /proc/stat} is read the same way, so the collector can
+ * derive host CPU usage without {@code OperatingSystemMXBean.getSystemCpuLoad()}, which in a
+ * container re-reads the cgroup hierarchy through the JDK's container support and allocates
+ * about 100KB per call.
+ */
+final class CgroupCpuStats {
+    private static final Logger logger = LoggerFactory.getLogger(CgroupCpuStats.class);
+    private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+
+    private static final byte[] NR_PERIODS = ascii("nr_periods");
+    private static final byte[] NR_THROTTLED = ascii("nr_throttled");
+    private static final byte[] THROTTLED_USEC = ascii("throttled_usec");
+    private static final byte[] THROTTLED_TIME = ascii("throttled_time");
+    private static final byte[] USAGE_USEC = ascii("usage_usec");
+    private static final byte[] CPU = ascii("cpu");
+
+    private final boolean v2;
+    private final StatFile quotaFile;
+    private final StatFile periodFile;
+    private final StatFile statFile;
+    private final StatFile usageFile;
+    private final StatFile procStatFile = new StatFile(Paths.get("/proc/stat"));
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+    /** CPU quota in microseconds per period, or -1 when unlimited */
+    private long quotaMicros = -1;
+    private long periodMicros;
+    private long usageNanos;
+    private long periods;
+    private long throttledPeriods;
+    private long throttledNanos;
+    /** Host CPU time in clock ticks, or -1 when /proc/stat cannot be read */
+    private long hostTotalTicks = -1;
+    private long hostIdleTicks;
+
+    private CgroupCpuStats(boolean v2, Path directory, Path usageDirectory) {
+        this.v2 = v2;
+        if (v2) {
+            this.quotaFile = new StatFile(directory.resolve("cpu.max"));
+            this.periodFile = null;
+            this.statFile = new StatFile(directory.resolve("cpu.stat"));
+            this.usageFile = null;
+        } else {
+            this.quotaFile = new StatFile(directory.resolve("cpu.cfs_quota_us"));
+            this.periodFile = new StatFile(directory.resolve("cpu.cfs_period_us"));
+            this.statFile = new StatFile(directory.resolve("cpu.stat"));
+            this.usageFile = new StatFile(usageDirectory.resolve("cpuacct.usage"));
+        }
+    }
+
+    /**
+     * Detects the cgroup of the current process.
+     *
+     * @return The stats reader, or null when not running on Linux or no cpu controller is visible
+     */
+    static CgroupCpuStats detect() {
+        Path procCgroup = Paths.get("/proc/self/cgroup");
+        if (!Files.isReadable(procCgroup)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(procCgroup, StandardCharsets.US_ASCII);
+            String v2Path = null;
+            String cpuPath = null;
+            String cpuacctPath = null;
+            for (String line : lines) {
+                String[] parts = line.split(":", 3);
+                if (parts.length < 3) {
+                    continue;
+                }
+                if (parts[0].equals("0") && parts[1].isEmpty()) {
+                    v2Path = parts[2];
+                }
+                for (String controller : parts[1].split(",")) {
+                    if (controller.equals("cpu")) {
+                        cpuPath = parts[2];
+                    } else if (controller.equals("cpuacct")) {
+                        cpuacctPath = parts[2];
+                    }
+                }
+            }
+
+            if (cpuPath != null) {
+                Path cpuDir = resolve(cpuPath, "cpu,cpuacct", "cpu");
+                Path cpuacctDir = resolve(cpuacctPath != null ? cpuacctPath : cpuPath, "cpu,cpuacct", "cpuacct");
+                if (cpuDir != null && cpuacctDir != null && Files.isReadable(cpuDir.resolve("cpu.stat"))) {
+                    return new CgroupCpuStats(false, cpuDir, cpuacctDir);
+                }
+            }
+            if (v2Path != null) {
+                Path dir = CGROUP_ROOT.resolve(stripSlash(v2Path));
+                if (!Files.isReadable(dir.resolve("cpu.stat"))) {
+                    // Inside a cgroup namespace the process' own cgroup is mounted at the root
+                    dir = CGROUP_ROOT;
+                }
+                if (Files.isReadable(dir.resolve("cpu.stat"))) {
+                    return new CgroupCpuStats(true, dir, dir);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not detect cgroup CPU controller: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private static Path resolve(String cgroupPath, String... mounts) {
+        for (String mount : mounts) {
+            Path mountDir = CGROUP_ROOT.resolve(mount);
+            Path dir = mountDir.resolve(stripSlash(cgroupPath));
+            if (Files.isDirectory(dir)) {
+                return dir;
+            }
+            if (Files.isDirectory(mountDir)) {
+                return mountDir;
+            }
+        }
+        return null;
+    }
+
+    private static String stripSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Refreshes all counters.
+     *
+     * @return true if the counters could be read
+     */
+    boolean refresh() {
+        try {
+            if (v2) {
+                // cpu.max is "<quota|max> <period>"
+                quotaFile.read(buffer);
+                if (buffer.remaining() > 0 && buffer.get(buffer.position()) == 'm') {
+                    quotaMicros = -1;
+                    skipToken(buffer);
+                } else {
+                    quotaMicros = parseLong(buffer);
+                }
+                periodMicros = parseLong(buffer);
+
+                statFile.read(buffer);
+                usageNanos = findValue(buffer, USAGE_USEC) * 1_000;
+                periods = findValue(buffer, NR_PERIODS);
+                throttledPeriods = findValue(buffer, NR_THROTTLED);
+                throttledNanos = findValue(buffer, THROTTLED_USEC) * 1_000;
+            } else {
+                quotaFile.read(buffer);
+                quotaMicros = parseLong(buffer);
+                periodFile.read(buffer);
+                periodMicros = parseLong(buffer);
+                usageFile.read(buffer);
+                usageNanos = parseLong(buffer);
+
+                statFile.read(buffer);
+                periods = findValue(buffer, NR_PERIODS);
+                throttledPeriods = findValue(buffer, NR_THROTTLED);
+                throttledNanos = findValue(buffer, THROTTLED_TIME);
+            }
+            refreshHost();
+            return true;
+        } catch (IOException e) {
+            logger.debug("Failed to read cgroup CPU stats: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void refreshHost() {
+        try {
+            procStatFile.read(buffer);
+        } catch (IOException e) {
+            hostTotalTicks = -1;
+            return;
+        }
+        // cpu  user nice system idle iowait irq softirq steal; guest time is already part of user
+        long total = findValue(buffer, CPU);
+        long idle = 0;
+        for (int field = 1; field < 8; field++) {
+            long ticks = parseLong(buffer);
+            total += ticks;
+            if (field == 3 || field == 4) {
+                idle += ticks;
+            }
+        }
+        hostTotalTicks = total;
+        hostIdleTicks = idle;
+    }
+
+    /**
+     * @return CPU time of all host CPUs in clock ticks since boot, or -1 if unknown
+     */
+    long getHostTotalTicks() {
+        return hostTotalTicks;
+    }
+
+    /**
+     * @return Idle and I/O wait time of all host CPUs in clock ticks since boot
+     */
+    long getHostIdleTicks() {
+        return hostIdleTicks;
+    }
+
+    /**
+     * @return CPU quota in cores, or -1 when the cgroup has no quota
+     */
+    double quotaCores() {
+        return quotaMicros <= 0 || periodMicros <= 0 ? -1 : (double) quotaMicros / periodMicros;
+    }
+
+    long getUsageNanos() {
+        return usageNanos;
+    }
+
+    long getPeriods() {
+        return periods;
+    }
+
+    long getThrottledPeriods() {
+        return throttledPeriods;
+    }
+
+    long getThrottledNanos() {
+        return throttledNanos;
+    }
+
+    boolean isV2() {
+        return v2;
+    }
+
+    void close() {
+        for (StatFile file : new StatFile[] {quotaFile, periodFile, statFile, usageFile, procStatFile}) {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    private static void skipToken(ByteBuffer buffer) {
+        while (buffer.hasRemaining() && !Character.isWhitespace(buffer.get(buffer.position()))) {
+            buffer.get();
+        }
+    }
+
+    /**
+     * Parses the next (possibly negative) decimal number, skipping leading whitespace.
+     */
+    private static long parseLong(ByteBuffer buffer) {
+        while (buffer.hasRemaining() && Character.isWhitespace(buffer.get(buffer.position()))) {
+            buffer.get();
+        }
+        boolean negative = false;
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == '-') {
+            negative = true;
+            buffer.get();
+        }
+        long value = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get(buffer.position());
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            buffer.get();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finds "key value" at the start of a line and returns the value, or 0 if absent.
+     */
+    private static long findValue(ByteBuffer buffer, byte[] key) {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            if (matches(buffer, lineStart, key) && lineStart + key.length < limit
+                    && buffer.get(lineStart + key.length) == ' ') {
+                buffer.position(lineStart + key.length);
+                return parseLong(buffer);
+            }
+            while (lineStart < limit && buffer.get(lineStart) != '\n') {
+                lineStart++;
+            }
+            lineStart++;
+        }
+        return 0;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int offset, byte[] key) {
+        if (offset + key.length > buffer.limit()) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A pseudo file kept open and re-read from offset 0 on every refresh.
+     */
+    private static final class StatFile {
+        private final Path path;
+        private FileChannel channel;
+
+        StatFile(Path path) {
+            this.path = path;
+        }
+
+        void read(ByteBuffer buffer) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            buffer.clear();
+            long position = 0;
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+                position += read;
+            }
+            buffer.flip();
+        }
+
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close {}: {}", path, e.getMessage());
+                }
+                channel = null;
+            }
+        }
+    }
+}
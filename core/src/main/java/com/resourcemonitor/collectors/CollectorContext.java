@@ -0,0 +1,68 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.ResourceMonitorProperties;
+import com.resourcemonitor.metrics.MetricRegistry;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * What a {@link CollectorProvider} gets to create its collector: the registry, the monitor
+ * configuration and the monitored DataSources and executors.
+ *
+ * DataSources and executors are looked up on first use, so an application without an enabled
+ * database or thread collector never resolves them, and does not need any DataSource at all.
+ */
+public final class CollectorContext {
+    private final MetricRegistry registry;
+    private final ResourceMonitorProperties properties;
+    private final Supplier<List<DataSource>> dataSourceLookup;
+    private final Supplier<Map<String, ? extends Executor>> executorLookup;
+    private List<DataSource> dataSources;
+    private Map<String, ? extends Executor> executors;
+
+    /**
+     * @param registry Registry for the collectors' metric slots
+     * @param properties Monitor configuration
+     * @param dataSources Looks up the DataSources to monitor
+     * @param executors Looks up the executors to monitor, by bean name
+     */
+    public CollectorContext(MetricRegistry registry, ResourceMonitorProperties properties,
+                            Supplier<List<DataSource>> dataSources,
+                            Supplier<Map<String, ? extends Executor>> executors) {
+        this.registry = registry;
+        this.properties = properties;
+        this.dataSourceLookup = dataSources;
+        this.executorLookup = executors;
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    public ResourceMonitorProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return DataSources whose connection pools are monitored
+     */
+    public List<DataSource> getDataSources() {
+        if (dataSources == null) {
+            dataSources = dataSourceLookup.get();
+        }
+        return dataSources;
+    }
+
+    /**
+     * @return Executors whose thread pools are monitored, by bean name
+     */
+    public Map<String, ? extends Executor> getExecutors() {
+        if (executors == null) {
+            executors = executorLookup.get();
+        }
+        return executors;
+    }
+}
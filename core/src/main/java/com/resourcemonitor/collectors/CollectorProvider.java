@@ -0,0 +1,65 @@
+package com.resourcemonitor.collectors;
+
+/**
+ * Creates a {@link MetricsCollector} for the monitor, if it is enabled and its target is present.
+ *
+ * Providers are cheap to create and must not touch the collector class or the library it
+ * monitors until {@link #create(CollectorContext)} is called, so that a disabled collector is
+ * never loaded. The built-in collectors are provided by the nested {@code Provider} classes,
+ * e.g. {@link MemoryMetricsCollector.Provider}. Additional collectors can be contributed as
+ * Spring beans or by listing the provider in
+ * {@code META-INF/services/com.resourcemonitor.collectors.CollectorProvider}. A contributed
+ * provider with the name of a built-in one replaces it.
+ */
+public interface CollectorProvider {
+    /**
+     * @return Short unique name of the collector, e.g. "memory"; used for scheduling and in logs
+     */
+    String getName();
+
+    /**
+     * Checks whether the collector's target is on the classpath, e.g. by looking up a class
+     * without initializing it. Only called for enabled collectors.
+     *
+     * @return true if the collector can be created
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * @param context Configuration and targets of the monitor
+     * @return true if the collector is enabled
+     */
+    boolean isEnabled(CollectorContext context);
+
+    /**
+     * @param context Configuration and targets of the monitor
+     * @return Collection interval in milliseconds; 0 uses interval-seconds
+     */
+    default long getIntervalMillis(CollectorContext context) {
+        return 0;
+    }
+
+    /**
+     * Creates the collector; called once, only if the collector is enabled and available.
+     *
+     * @param context Configuration and targets of the monitor
+     * @return The collector, or null if there is nothing to monitor, e.g. no DataSources
+     */
+    MetricsCollector create(CollectorContext context);
+
+    /**
+     * @param className Fully qualified name of a class
+     * @return true if the class can be loaded by the monitor's class loader; the class is not
+     *         initialized
+     */
+    static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, CollectorProvider.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects and logs CPU-related metrics.
+ *
+ * Metrics collected:
+ * - Process CPU usage from process CPU time deltas ({@code com.sun.management.OperatingSystemMXBean})
+ * - System CPU usage and load average; with cgroup stats available, system CPU usage is derived
+ *   from {@code /proc/stat} deltas instead of {@code getSystemCpuLoad()}, which allocates about
+ *   100KB per call in a container
+ * - On Linux, cgroup CPU quota, usage against the quota and throttling counters
+ *
+ * The load average reflects the whole host and is not available on every platform, so it is only
+ * reported for reference. Throttling counters are reported as deltas per interval.
+ */
+public class CpuMetricsCollector implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(CpuMetricsCollector.class);
+    private final OperatingSystemMXBean operatingSystemMXBean;
+    private final com.sun.management.OperatingSystemMXBean platformMXBean;
+    private final CgroupCpuStats cgroup;
+
+    private final int loadAverageId;
+    private final int availableProcessorsId;
+    private final int loadPercentId;
+    private final int processUsageId;
+    private final int processCoresId;
+    private final int systemUsageId;
+    private final int quotaCoresId;
+    private final int cgroupUsageId;
+    private final int throttledPeriodsId;
+    private final int throttledRatioId;
+    private final int throttledTimeId;
+
+    private long previousWallNanos;
+    private long previousProcessCpuNanos;
+    private long previousCgroupUsageNanos;
+    private long previousPeriods;
+    private long previousThrottledPeriods;
+    private long previousThrottledNanos;
+    private long previousHostTotalTicks;
+    private long previousHostIdleTicks;
+
+    public CpuMetricsCollector(MetricRegistry registry) {
+        this.operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+        this.platformMXBean = operatingSystemMXBean instanceof com.sun.management.OperatingSystemMXBean
+            ? (com.sun.management.OperatingSystemMXBean) operatingSystemMXBean
+            : null;
+        this.cgroup = CgroupCpuStats.detect();
+        this.loadAverageId = registry.doubleGauge("cpu.load.average", "load");
+        this.availableProcessorsId = registry.longGauge("cpu.processors", "count");
+        this.loadPercentId = registry.doubleGauge("cpu.load.usage", "percent");
+        this.processUsageId = registry.doubleGauge("cpu.process.usage", "percent");
+        this.processCoresId = registry.doubleGauge("cpu.process.cores", "cores");
+        this.systemUsageId = registry.doubleGauge("cpu.system.usage", "percent");
+        this.quotaCoresId = registry.doubleGauge("cpu.cgroup.quota", "cores");
+        this.cgroupUsageId = registry.doubleGauge("cpu.cgroup.usage", "percent");
+        this.throttledPeriodsId = registry.longGauge("cpu.cgroup.throttled.periods", "count");
+        this.throttledRatioId = registry.doubleGauge("cpu.cgroup.throttled.ratio", "percent");
+        this.throttledTimeId = registry.longGauge("cpu.cgroup.throttled.time", "us");
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        double systemLoadAverage = operatingSystemMXBean.getSystemLoadAverage();
+        int availableProcessors = operatingSystemMXBean.getAvailableProcessors();
+
+        snapshot.set(availableProcessorsId, availableProcessors);
+        // A negative load average means "not available"; leave the slots absent
+        if (systemLoadAverage >= 0) {
+            snapshot.set(loadAverageId, systemLoadAverage);
+            snapshot.set(loadPercentId, (systemLoadAverage / availableProcessors) * 100);
+        }
+
+        long wallNanos = System.nanoTime();
+        long wallDelta = previousWallNanos == 0 ? 0 : wallNanos - previousWallNanos;
+        previousWallNanos = wallNanos;
+
+        boolean cgroupRead = cgroup != null && cgroup.refresh();
+        if (platformMXBean != null) {
+            collectProcessCpu(snapshot, wallDelta, availableProcessors);
+        }
+        if (cgroupRead && cgroup.getHostTotalTicks() >= 0) {
+            collectHostCpu(snapshot);
+        } else if (platformMXBean != null) {
+            collectSystemCpuLoad(snapshot);
+        }
+        if (cgroupRead) {
+            collectCgroupCpu(snapshot, wallDelta);
+        }
+    }
+
+    private void collectProcessCpu(MetricsSnapshot snapshot, long wallDelta, int availableProcessors) {
+        long processCpuNanos = platformMXBean.getProcessCpuTime();
+        if (processCpuNanos >= 0) {
+            if (wallDelta > 0 && previousProcessCpuNanos > 0) {
+                double cores = (double) (processCpuNanos - previousProcessCpuNanos) / wallDelta;
+                snapshot.set(processCoresId, cores);
+                snapshot.set(processUsageId, cores / availableProcessors * 100);
+            }
+            previousProcessCpuNanos = processCpuNanos;
+        }
+    }
+
+    private void collectHostCpu(MetricsSnapshot snapshot) {
+        long totalTicks = cgroup.getHostTotalTicks();
+        long idleTicks = cgroup.getHostIdleTicks();
+        long totalDelta = totalTicks - previousHostTotalTicks;
+        if (previousHostTotalTicks > 0 && totalDelta > 0) {
+            snapshot.set(systemUsageId, (totalDelta - (idleTicks - previousHostIdleTicks)) * 100.0 / totalDelta);
+        }
+        previousHostTotalTicks = totalTicks;
+        previousHostIdleTicks = idleTicks;
+    }
+
+    @SuppressWarnings("deprecation") // getSystemCpuLoad is the Java 11 name of getCpuLoad
+    private void collectSystemCpuLoad(MetricsSnapshot snapshot) {
+        double systemCpuLoad = platformMXBean.getSystemCpuLoad();
+        if (systemCpuLoad >= 0) {
+            snapshot.set(systemUsageId, systemCpuLoad * 100);
+        }
+    }
+
+    private void collectCgroupCpu(MetricsSnapshot snapshot, long wallDelta) {
+        double quotaCores = cgroup.quotaCores();
+        long usageNanos = cgroup.getUsageNanos();
+        long periods = cgroup.getPeriods();
+        long throttledPeriods = cgroup.getThrottledPeriods();
+        long throttledNanos = cgroup.getThrottledNanos();
+
+        if (quotaCores > 0) {
+            snapshot.set(quotaCoresId, quotaCores);
+        }
+        if (wallDelta > 0) {
+            long periodDelta = periods - previousPeriods;
+            long throttledDelta = throttledPeriods - previousThrottledPeriods;
+            if (quotaCores > 0) {
+                double usedCores = (double) (usageNanos - previousCgroupUsageNanos) / wallDelta;
+                snapshot.set(cgroupUsageId, usedCores / quotaCores * 100);
+            }
+            snapshot.set(throttledPeriodsId, throttledDelta);
+            snapshot.set(throttledRatioId, periodDelta > 0 ? throttledDelta * 100.0 / periodDelta : 0.0);
+            snapshot.set(throttledTimeId, (throttledNanos - previousThrottledNanos) / 1_000);
+        }
+
+        previousCgroupUsageNanos = usageNanos;
+        previousPeriods = periods;
+        previousThrottledPeriods = throttledPeriods;
+        previousThrottledNanos = throttledNanos;
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        logger.info("{}=== CPU Usage ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        if (snapshot.isPresent(processUsageId)) {
+            double processUsage = snapshot.getDouble(processUsageId);
+            logger.info("{}CPU - Process:{} {}{}% ({} cores){}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(processUsage),
+                String.format("%.2f", processUsage),
+                String.format("%.2f", snapshot.getDouble(processCoresId)),
+                ColorCodes.RESET);
+        }
+        if (snapshot.isPresent(systemUsageId)) {
+            double systemUsage = snapshot.getDouble(systemUsageId);
+            logger.info("{}CPU - System:{} {}{}%{}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(systemUsage),
+                String.format("%.2f", systemUsage),
+                ColorCodes.RESET);
+        }
+        if (!snapshot.isPresent(loadAverageId)) {
+            logger.info("{}CPU - System Load Average:{} {}Not available{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.YELLOW, ColorCodes.RESET);
+        } else {
+            double cpuUsagePercentage = snapshot.getDouble(loadPercentId);
+            logger.info("{}CPU - System Load Average:{} {}{}/{} ({}%){}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(cpuUsagePercentage),
+                String.format("%.2f", snapshot.getDouble(loadAverageId)),
+                snapshot.getLong(availableProcessorsId),
+                String.format("%.2f", cpuUsagePercentage),
+                ColorCodes.RESET);
+        }
+        logCgroup(snapshot);
+    }
+
+    private void logCgroup(MetricsSnapshot snapshot) {
+        if (!snapshot.isPresent(throttledPeriodsId)) {
+            return;
+        }
+        if (snapshot.isPresent(quotaCoresId)) {
+            double cgroupUsage = snapshot.getDouble(cgroupUsageId);
+            logger.info("{}CPU - Cgroup Quota:{} {}{}% of {} cores{}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(cgroupUsage),
+                String.format("%.2f", cgroupUsage),
+                String.format("%.2f", snapshot.getDouble(quotaCoresId)),
+                ColorCodes.RESET);
+        }
+        long throttledPeriods = snapshot.getLong(throttledPeriodsId);
+        logger.info("{}CPU - Throttled:{} {}{} periods ({}%), {}ms{}", 
+            ColorCodes.BLUE, ColorCodes.RESET,
+            throttledPeriods > 0 ? ColorCodes.RED : ColorCodes.GREEN,
+            throttledPeriods,
+            String.format("%.2f", snapshot.getDouble(throttledRatioId)),
+            snapshot.getLong(throttledTimeId) / 1_000,
+            ColorCodes.RESET);
+    }
+
+    @Override
+    public void close() {
+        if (cgroup != null) {
+            cgroup.close();
+        }
+    }
+
+    /**
+     * Provides the CPU collector when {@code cpu-enabled} is set.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "cpu";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isCpuEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getCpuIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            return new CpuMetricsCollector(context.getRegistry());
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.database.ConnectionMetrics;
+import com.resourcemonitor.database.InstrumentedDataSource;
+import com.resourcemonitor.database.PoolAdapter;
+import com.resourcemonitor.database.PoolAdapterRegistry;
+import com.resourcemonitor.database.PoolStats;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import com.resourcemonitor.util.LogHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Collects and logs database connection pool metrics for various connection pool implementations.
+ * 
+ * Each DataSource is resolved to a {@link PoolAdapter} once, when the collector is created:
+ * the pool type is detected and all accessors are bound as cached {@code MethodHandle}s. Every
+ * cycle then only invokes those handles, without reflective lookups or boxing. Built-in adapters
+ * cover HikariCP, Tomcat JDBC Pool, DBCP2 and c3p0; other pools can be supported by registering
+ * a {@link com.resourcemonitor.database.PoolAdapterFactory} without changing this collector.
+ * DataSources without an adapter are reported by type only.
+ *
+ * Every pool is a separate partition (see {@link #collectPartition(int, MetricsSnapshot)}), so
+ * pools are sampled concurrently and a hung pool MXBean only delays its own metrics.
+ * 
+ * Metrics collected include:
+ * - Active/Idle/Total connections
+ * - Connection utilization against the pool's real maximum size
+ * - Threads waiting for a connection
+ * - Pool configuration (timeouts, max lifetime)
+ * - For DataSources wrapped in an {@link InstrumentedDataSource}: connection acquire latency
+ *   (p50/p99/p999/max) and connection hold time per interval
+ */
+public class DatabaseMetricsCollector implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMetricsCollector.class);
+    private final PoolAdapter[] adapters;
+    private final PoolMetricIds[] poolIds;
+    private final PoolStats[] stats;
+    private final ConnectionMetrics[] connectionMetrics;
+    private final LatencyMetricIds[] latencyIds;
+    private final LogHistogram[] intervalAcquire;
+    private final LogHistogram[] intervalHold;
+
+    /**
+     * Creates a new DatabaseMetricsCollector using the default adapter registry.
+     * 
+     * @param dataSources List of DataSource instances to monitor. These can be of any
+     *                    supported connection pool implementation.
+     * @param registry Registry in which the per-pool metric slots are registered
+     */
+    public DatabaseMetricsCollector(List<DataSource> dataSources, MetricRegistry registry) {
+        this(dataSources, registry, new PoolAdapterRegistry());
+    }
+
+    /**
+     * Creates a new DatabaseMetricsCollector.
+     * 
+     * @param dataSources List of DataSource instances to monitor
+     * @param registry Registry in which the per-pool metric slots are registered
+     * @param adapterRegistry Registry resolving an adapter for each DataSource
+     */
+    public DatabaseMetricsCollector(List<DataSource> dataSources, MetricRegistry registry,
+                                    PoolAdapterRegistry adapterRegistry) {
+        this.adapters = new PoolAdapter[dataSources.size()];
+        this.poolIds = new PoolMetricIds[dataSources.size()];
+        this.connectionMetrics = new ConnectionMetrics[dataSources.size()];
+        this.latencyIds = new LatencyMetricIds[dataSources.size()];
+        this.stats = new PoolStats[dataSources.size()];
+        this.intervalAcquire = new LogHistogram[dataSources.size()];
+        this.intervalHold = new LogHistogram[dataSources.size()];
+        for (int i = 0; i < adapters.length; i++) {
+            DataSource dataSource = dataSources.get(i);
+            adapters[i] = adapterRegistry.adapt(dataSource, "datasource-" + i);
+            poolIds[i] = new PoolMetricIds(registry, adapters[i].getPoolName());
+            stats[i] = new PoolStats();
+            if (dataSource instanceof InstrumentedDataSource) {
+                InstrumentedDataSource instrumented = (InstrumentedDataSource) dataSource;
+                connectionMetrics[i] = instrumented.getMetrics();
+                latencyIds[i] = new LatencyMetricIds(registry, poolIds[i].pool, instrumented.isHoldTracked());
+                intervalAcquire[i] = new LogHistogram();
+                if (instrumented.isHoldTracked()) {
+                    intervalHold[i] = new LogHistogram();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        for (int i = 0; i < adapters.length; i++) {
+            collectPartition(i, snapshot);
+        }
+    }
+
+    @Override
+    public int partitionCount() {
+        return Math.max(adapters.length, 1);
+    }
+
+    @Override
+    public String partitionName(int partition) {
+        return partition < adapters.length ? poolIds[partition].pool : "none";
+    }
+
+    /**
+     * Collects one pool. Every pool has its own scratch state, so pools can be collected concurrently.
+     */
+    @Override
+    public void collectPartition(int partition, MetricsSnapshot snapshot) {
+        if (partition >= adapters.length) {
+            return;
+        }
+        collectPoolMetrics(adapters[partition], poolIds[partition], stats[partition], snapshot);
+        if (connectionMetrics[partition] != null) {
+            collectLatencyMetrics(partition, snapshot);
+        }
+    }
+
+    private void collectLatencyMetrics(int pool, MetricsSnapshot snapshot) {
+        ConnectionMetrics metrics = connectionMetrics[pool];
+        LatencyMetricIds ids = latencyIds[pool];
+        LogHistogram acquire = intervalAcquire[pool];
+        acquire.reset();
+        metrics.drainAcquire(acquire);
+
+        snapshot.set(ids.acquireCount, acquire.count());
+        snapshot.set(ids.acquireP50, acquire.percentile(50) / 1_000);
+        snapshot.set(ids.acquireP99, acquire.percentile(99) / 1_000);
+        snapshot.set(ids.acquireP999, acquire.percentile(99.9) / 1_000);
+        snapshot.set(ids.acquireMax, acquire.max() / 1_000);
+        snapshot.set(ids.acquireFailures, metrics.getAcquireFailures());
+
+        LogHistogram hold = intervalHold[pool];
+        if (hold == null) {
+            return;
+        }
+        hold.reset();
+        metrics.drainHold(hold);
+        snapshot.set(ids.holdP50, hold.percentile(50) / 1_000);
+        snapshot.set(ids.holdP99, hold.percentile(99) / 1_000);
+        snapshot.set(ids.holdMax, hold.max() / 1_000);
+    }
+
+    private void collectPoolMetrics(PoolAdapter adapter, PoolMetricIds ids, PoolStats stats, MetricsSnapshot snapshot) {
+        stats.clear();
+        try {
+            if (!adapter.read(stats)) {
+                return;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to collect {} metrics: {}", adapter.getPoolType(), e.getMessage());
+            return;
+        }
+        setIfKnown(snapshot, ids.active, stats.active);
+        setIfKnown(snapshot, ids.idle, stats.idle);
+        setIfKnown(snapshot, ids.total, stats.total);
+        setIfKnown(snapshot, ids.max, stats.max);
+        setIfKnown(snapshot, ids.pending, stats.pending);
+        setIfKnown(snapshot, ids.connectionTimeout, stats.connectionTimeoutMillis);
+        setIfKnown(snapshot, ids.idleTimeout, stats.idleTimeoutMillis);
+        setIfKnown(snapshot, ids.maxLifetime, stats.maxLifetimeMillis);
+        if (stats.active >= 0 && stats.max > 0) {
+            snapshot.set(ids.usage, stats.active * 100.0 / stats.max);
+        }
+    }
+
+    private static void setIfKnown(MetricsSnapshot snapshot, int id, long value) {
+        if (value != PoolStats.UNKNOWN) {
+            snapshot.set(id, value);
+        }
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        for (int i = 0; i < adapters.length; i++) {
+            if (snapshot.isPresent(poolIds[i].active)) {
+                logPoolMetrics(adapters[i], poolIds[i], snapshot);
+            } else {
+                logGenericPoolMetrics(adapters[i]);
+            }
+            if (latencyIds[i] != null) {
+                logLatencyMetrics(latencyIds[i], snapshot);
+            }
+        }
+    }
+
+    private void logLatencyMetrics(LatencyMetricIds ids, MetricsSnapshot snapshot) {
+        long p99 = snapshot.getLong(ids.acquireP99);
+        logger.info("{}Connection Acquire:{} {}{} calls, p50 {}ms, p99 {}ms, p999 {}ms, max {}ms{}", 
+            ColorCodes.BLUE, ColorCodes.RESET,
+            p99 >= 100_000 ? ColorCodes.RED : p99 >= 10_000 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+            snapshot.getLong(ids.acquireCount),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.acquireP50) * 1_000),
+            FormatUtils.formatNanosToMillis(p99 * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.acquireP999) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.acquireMax) * 1_000),
+            ColorCodes.RESET);
+        if (!ids.holdTracked) {
+            return;
+        }
+        logger.info("{}Connection Hold:{} {}p50 {}ms, p99 {}ms, max {}ms{}", 
+            ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.holdP50) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.holdP99) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.holdMax) * 1_000),
+            ColorCodes.RESET);
+    }
+
+    /**
+     * Logs the metrics collected for a connection pool.
+     * 
+     * @param adapter The pool's adapter
+     * @param ids Metric slots of the pool
+     * @param snapshot The snapshot of the current cycle
+     */
+    private void logPoolMetrics(PoolAdapter adapter, PoolMetricIds ids, MetricsSnapshot snapshot) {
+        logger.info("{}=== {} Pool Metrics ({}) ==={}", 
+            ColorCodes.BOLD + ColorCodes.PURPLE, adapter.getPoolType(), ids.pool, ColorCodes.RESET);
+
+        // Active connections with utilization percentage
+        if (snapshot.isPresent(ids.usage)) {
+            logger.info("{}Active Connections:{} {}{}/{} ({}%){}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(snapshot.getDouble(ids.usage)),
+                snapshot.getLong(ids.active), snapshot.getLong(ids.max),
+                String.format("%.0f", snapshot.getDouble(ids.usage)), ColorCodes.RESET);
+        } else {
+            logger.info("{}Active Connections:{} {}{}{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, snapshot.getLong(ids.active), ColorCodes.RESET);
+        }
+        logger.info("{}Idle Connections:{} {}{}{}", 
+            ColorCodes.BLUE, ColorCodes.RESET,
+            ColorCodes.GREEN, snapshot.getLong(ids.idle), ColorCodes.RESET);
+        logger.info("{}Total Connections:{} {}{}{}", 
+            ColorCodes.BLUE, ColorCodes.RESET,
+            ColorCodes.CYAN, snapshot.getLong(ids.total), ColorCodes.RESET);
+        if (snapshot.isPresent(ids.pending)) {
+            long pending = snapshot.getLong(ids.pending);
+            logger.info("{}Threads Awaiting Connection:{} {}{}{}", 
+                ColorCodes.BLUE, ColorCodes.RESET,
+                pending > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN, pending, ColorCodes.RESET);
+        }
+
+        logger.info("{}Pool Configuration:{}", ColorCodes.BLUE, ColorCodes.RESET);
+        logConfig("Connection Timeout", ids.connectionTimeout, snapshot);
+        logConfig("Idle Timeout", ids.idleTimeout, snapshot);
+        logConfig("Max Lifetime", ids.maxLifetime, snapshot);
+    }
+
+    private void logConfig(String label, int id, MetricsSnapshot snapshot) {
+        if (snapshot.isPresent(id)) {
+            logger.info("{}  {}:{} {}{}ms{}", 
+                ColorCodes.BLUE, label, ColorCodes.RESET,
+                ColorCodes.CYAN, snapshot.getLong(id), ColorCodes.RESET);
+        }
+    }
+
+    /**
+     * Logs basic metrics for a generic DataSource implementation.
+     * This is a fallback for unsupported connection pool implementations.
+     * 
+     * @param adapter The adapter of the generic DataSource
+     */
+    private void logGenericPoolMetrics(PoolAdapter adapter) {
+        logger.info("{}=== Generic DataSource Metrics ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        logger.info("{}DataSource Type:{} {}{}{}", 
+            ColorCodes.BLUE, ColorCodes.RESET,
+            ColorCodes.CYAN, adapter.getPoolType(), ColorCodes.RESET);
+    }
+
+    /**
+     * Metric slots registered for a single DataSource, tagged with its pool name. The name is
+     * read once, so logs and partition labels use the same name as the tags even if the pool
+     * reports a different one later (e.g. HikariCP names its pool only when it starts).
+     */
+    private static final class PoolMetricIds {
+        final String pool;
+        final int active;
+        final int idle;
+        final int total;
+        final int max;
+        final int usage;
+        final int pending;
+        final int connectionTimeout;
+        final int idleTimeout;
+        final int maxLifetime;
+
+        PoolMetricIds(MetricRegistry registry, String pool) {
+            this.pool = pool;
+            this.active = registry.longGauge("db.connections.active", "count", "pool", pool);
+            this.idle = registry.longGauge("db.connections.idle", "count", "pool", pool);
+            this.total = registry.longGauge("db.connections.total", "count", "pool", pool);
+            this.max = registry.longGauge("db.connections.max", "count", "pool", pool);
+            this.usage = registry.doubleGauge("db.connections.usage", "percent", "pool", pool);
+            this.pending = registry.longGauge("db.connections.pending", "count", "pool", pool);
+            this.connectionTimeout = registry.longGauge("db.pool.connection.timeout", "ms", "pool", pool);
+            this.idleTimeout = registry.longGauge("db.pool.idle.timeout", "ms", "pool", pool);
+            this.maxLifetime = registry.longGauge("db.pool.max.lifetime", "ms", "pool", pool);
+        }
+    }
+
+    /**
+     * Latency metric slots of an instrumented DataSource, in microseconds.
+     */
+    private static final class LatencyMetricIds {
+        final int acquireCount;
+        final int acquireP50;
+        final int acquireP99;
+        final int acquireP999;
+        final int acquireMax;
+        final int acquireFailures;
+        final boolean holdTracked;
+        final int holdP50;
+        final int holdP99;
+        final int holdMax;
+
+        LatencyMetricIds(MetricRegistry registry, String pool, boolean holdTracked) {
+            this.acquireCount = registry.longGauge("db.connections.acquire.count", "count", "pool", pool);
+            this.acquireP50 = registry.longGauge("db.connections.acquire", "us", "pool", pool, "quantile", "0.5");
+            this.acquireP99 = registry.longGauge("db.connections.acquire", "us", "pool", pool, "quantile", "0.99");
+            this.acquireP999 = registry.longGauge("db.connections.acquire", "us", "pool", pool, "quantile", "0.999");
+            this.acquireMax = registry.longGauge("db.connections.acquire", "us", "pool", pool, "quantile", "max");
+            this.acquireFailures = registry.counter("db.connections.acquire.failures", "count", "pool", pool);
+            this.holdTracked = holdTracked;
+            this.holdP50 = holdTracked ? registry.longGauge("db.connections.hold", "us", "pool", pool, "quantile", "0.5") : -1;
+            this.holdP99 = holdTracked ? registry.longGauge("db.connections.hold", "us", "pool", pool, "quantile", "0.99") : -1;
+            this.holdMax = holdTracked ? registry.longGauge("db.connections.hold", "us", "pool", pool, "quantile", "max") : -1;
+        }
+    }
+
+    /**
+     * Provides the database collector when {@code database-enabled} is set and JDBC is present;
+     * runtimes linked without the {@code java.sql} module skip it. DataSources are only looked
+     * up once the collector is created.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "database";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return CollectorProvider.isPresent("javax.sql.DataSource");
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isDatabaseEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getDatabaseIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            List<DataSource> dataSources = context.getDataSources();
+            return dataSources.isEmpty() ? null : new DatabaseMetricsCollector(dataSources, context.getRegistry());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.executor.ExecutorAdapter;
+import com.resourcemonitor.executor.ExecutorAdapters;
+import com.resourcemonitor.executor.ExecutorStats;
+import com.resourcemonitor.executor.TaskMetrics;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import com.resourcemonitor.util.LogHistogram;
+import org.slf4j.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Thread pool metrics used by {@link ThreadMetricsCollector}.
+ *
+ * Each executor bean is resolved to an {@link ExecutorAdapter} once; every cycle reads pool
+ * size, active threads, queue depth, completed and rejected tasks into a reused
+ * {@link ExecutorStats}. Executors whose tasks are timed by a
+ * {@link com.resourcemonitor.executor.TimingTaskDecorator} additionally report queue wait and
+ * run time percentiles per interval.
+ */
+final class ExecutorPoolMetrics {
+    private final ExecutorAdapter[] adapters;
+    private final PoolIds[] poolIds;
+    private final TimingIds[] timingIds;
+    private final LogHistogram[] intervalQueueWait;
+    private final LogHistogram[] intervalRun;
+    private final ExecutorStats stats = new ExecutorStats();
+
+    /**
+     * @param executors Executors to monitor by name, normally the bean name
+     * @param registry Registry for the per-executor metric slots
+     * @param countRejections true to count rejected tasks of ThreadPoolExecutors
+     */
+    ExecutorPoolMetrics(Map<String, ? extends Executor> executors, MetricRegistry registry, boolean countRejections) {
+        List<ExecutorAdapter> resolved = new ArrayList<>();
+        executors.forEach((name, executor) -> {
+            ExecutorAdapter adapter = ExecutorAdapters.adapt(name, executor, countRejections);
+            if (adapter != null) {
+                resolved.add(adapter);
+            }
+        });
+        this.adapters = resolved.toArray(new ExecutorAdapter[0]);
+        this.poolIds = new PoolIds[adapters.length];
+        this.timingIds = new TimingIds[adapters.length];
+        this.intervalQueueWait = new LogHistogram[adapters.length];
+        this.intervalRun = new LogHistogram[adapters.length];
+        for (int i = 0; i < adapters.length; i++) {
+            poolIds[i] = new PoolIds(registry, adapters[i].getName());
+            if (adapters[i].getTaskMetrics() != null) {
+                timingIds[i] = new TimingIds(registry, adapters[i].getName());
+                intervalQueueWait[i] = new LogHistogram();
+                intervalRun[i] = new LogHistogram();
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return adapters.length == 0;
+    }
+
+    void collect(MetricsSnapshot snapshot) {
+        for (int i = 0; i < adapters.length; i++) {
+            stats.clear();
+            if (!adapters[i].read(stats)) {
+                continue;
+            }
+            PoolIds ids = poolIds[i];
+            setIfKnown(snapshot, ids.poolSize, stats.poolSize);
+            setIfKnown(snapshot, ids.corePoolSize, stats.corePoolSize);
+            setIfKnown(snapshot, ids.maxPoolSize, stats.maxPoolSize);
+            setIfKnown(snapshot, ids.active, stats.active);
+            setIfKnown(snapshot, ids.queued, stats.queued);
+            setIfKnown(snapshot, ids.queueRemaining, stats.queueRemaining);
+            setIfKnown(snapshot, ids.completed, stats.completed);
+            setIfKnown(snapshot, ids.rejected, stats.rejected);
+            setIfKnown(snapshot, ids.steals, stats.steals);
+            if (timingIds[i] != null) {
+                collectTimings(i, snapshot);
+            }
+        }
+    }
+
+    private void collectTimings(int executor, MetricsSnapshot snapshot) {
+        TaskMetrics metrics = adapters[executor].getTaskMetrics();
+        TimingIds ids = timingIds[executor];
+        LogHistogram queueWait = intervalQueueWait[executor];
+        LogHistogram run = intervalRun[executor];
+        queueWait.reset();
+        run.reset();
+        metrics.drainQueueWait(queueWait);
+        metrics.drainRun(run);
+
+        snapshot.set(ids.taskCount, run.count());
+        snapshot.set(ids.queueWaitP50, queueWait.percentile(50) / 1_000);
+        snapshot.set(ids.queueWaitP99, queueWait.percentile(99) / 1_000);
+        snapshot.set(ids.queueWaitP999, queueWait.percentile(99.9) / 1_000);
+        snapshot.set(ids.queueWaitMax, queueWait.max() / 1_000);
+        snapshot.set(ids.runP50, run.percentile(50) / 1_000);
+        snapshot.set(ids.runP99, run.percentile(99) / 1_000);
+        snapshot.set(ids.runMax, run.max() / 1_000);
+    }
+
+    private static void setIfKnown(MetricsSnapshot snapshot, int id, long value) {
+        if (value != ExecutorStats.UNKNOWN) {
+            snapshot.set(id, value);
+        }
+    }
+
+    void log(Logger logger, MetricsSnapshot snapshot) {
+        for (int i = 0; i < adapters.length; i++) {
+            PoolIds ids = poolIds[i];
+            if (!snapshot.isPresent(ids.active)) {
+                continue;
+            }
+            logger.info("{}{} ({}):{}", ColorCodes.BLUE, adapters[i].getName(), adapters[i].getType(), ColorCodes.RESET);
+            long max = snapshot.getLong(ids.maxPoolSize);
+            long active = snapshot.getLong(ids.active);
+            double usage = max > 0 ? active * 100.0 / max : 0;
+            logger.info("{}  Active Threads:{} {}{}/{} (pool {}){}",
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.getColorForPercentage(usage),
+                active, max, snapshot.getLong(ids.poolSize), ColorCodes.RESET);
+            long queued = snapshot.getLong(ids.queued);
+            if (snapshot.isPresent(ids.queueRemaining)) {
+                logger.info("{}  Queued Tasks:{} {}{} ({} free){}",
+                    ColorCodes.BLUE, ColorCodes.RESET, queued > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+                    queued, snapshot.getLong(ids.queueRemaining), ColorCodes.RESET);
+            } else {
+                logger.info("{}  Queued Tasks:{} {}{}{}",
+                    ColorCodes.BLUE, ColorCodes.RESET, queued > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+                    queued, ColorCodes.RESET);
+            }
+            if (snapshot.isPresent(ids.completed) && !snapshot.isPresent(ids.rejected)) {
+                logger.info("{}  Completed Tasks:{} {}{}{}",
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, snapshot.getLong(ids.completed), ColorCodes.RESET);
+            } else if (snapshot.isPresent(ids.completed)) {
+                long rejected = snapshot.getLong(ids.rejected);
+                logger.info("{}  Completed Tasks:{} {}{}{}, {}rejected {}{}",
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, snapshot.getLong(ids.completed), ColorCodes.RESET,
+                    rejected > 0 ? ColorCodes.RED : ColorCodes.GREEN, rejected, ColorCodes.RESET);
+            }
+            if (snapshot.isPresent(ids.steals)) {
+                logger.info("{}  Steals:{} {}{}{}",
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, snapshot.getLong(ids.steals), ColorCodes.RESET);
+            }
+            if (timingIds[i] != null) {
+                logTimings(logger, timingIds[i], snapshot);
+            }
+        }
+    }
+
+    private static void logTimings(Logger logger, TimingIds ids, MetricsSnapshot snapshot) {
+        long p99 = snapshot.getLong(ids.queueWaitP99);
+        logger.info("{}  Queue Wait:{} {}{} tasks, p50 {}ms, p99 {}ms, p999 {}ms, max {}ms{}",
+            ColorCodes.BLUE, ColorCodes.RESET,
+            p99 >= 100_000 ? ColorCodes.RED : p99 >= 10_000 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+            snapshot.getLong(ids.taskCount),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.queueWaitP50) * 1_000),
+            FormatUtils.formatNanosToMillis(p99 * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.queueWaitP999) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.queueWaitMax) * 1_000),
+            ColorCodes.RESET);
+        logger.info("{}  Run Time:{} {}p50 {}ms, p99 {}ms, max {}ms{}",
+            ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.runP50) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.runP99) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(ids.runMax) * 1_000),
+            ColorCodes.RESET);
+    }
+
+    void close() {
+        for (ExecutorAdapter adapter : adapters) {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Metric slots registered for a single executor, tagged with its name.
+     */
+    private static final class PoolIds {
+        final int poolSize;
+        final int corePoolSize;
+        final int maxPoolSize;
+        final int active;
+        final int queued;
+        final int queueRemaining;
+        final int completed;
+        final int rejected;
+        final int steals;
+
+        PoolIds(MetricRegistry registry, String executor) {
+            this.poolSize = registry.longGauge("executor.pool.size", "count", "executor", executor);
+            this.corePoolSize = registry.longGauge("executor.pool.core", "count", "executor", executor);
+            this.maxPoolSize = registry.longGauge("executor.pool.max", "count", "executor", executor);
+            this.active = registry.longGauge("executor.active", "count", "executor", executor);
+            this.queued = registry.longGauge("executor.queued", "count", "executor", executor);
+            this.queueRemaining = registry.longGauge("executor.queue.remaining", "count", "executor", executor);
+            this.completed = registry.counter("executor.completed", "count", "executor", executor);
+            this.rejected = registry.counter("executor.rejected", "count", "executor", executor);
+            this.steals = registry.counter("executor.steals", "count", "executor", executor);
+        }
+    }
+
+    /**
+     * Task timing slots of an instrumented executor, in microseconds.
+     */
+    private static final class TimingIds {
+        final int taskCount;
+        final int queueWaitP50;
+        final int queueWaitP99;
+        final int queueWaitP999;
+        final int queueWaitMax;
+        final int runP50;
+        final int runP99;
+        final int runMax;
+
+        TimingIds(MetricRegistry registry, String executor) {
+            this.taskCount = registry.longGauge("executor.tasks.count", "count", "executor", executor);
+            this.queueWaitP50 = registry.longGauge("executor.queue.wait", "us", "executor", executor, "quantile", "0.5");
+            this.queueWaitP99 = registry.longGauge("executor.queue.wait", "us", "executor", executor, "quantile", "0.99");
+            this.queueWaitP999 = registry.longGauge("executor.queue.wait", "us", "executor", executor, "quantile", "0.999");
+            this.queueWaitMax = registry.longGauge("executor.queue.wait", "us", "executor", executor, "quantile", "max");
+            this.runP50 = registry.longGauge("executor.task.run", "us", "executor", executor, "quantile", "0.5");
+            this.runP99 = registry.longGauge("executor.task.run", "us", "executor", executor, "quantile", "0.99");
+            this.runMax = registry.longGauge("executor.task.run", "us", "executor", executor, "quantile", "max");
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import com.resourcemonitor.util.LogHistogram;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects GC pause and allocation metrics from {@link GarbageCollectorMXBean} notifications.
+ *
+ * Instead of polling, the collector subscribes to {@code GarbageCollectionNotificationInfo}
+ * notifications, so every GC is captured no matter how long the sampling interval is, and nothing
+ * is done between GCs. Each notification records:
+ * - The pause duration into a lock-free {@link LogHistogram}
+ * - The GC cause and per-pool usage before and after the collection
+ * - Bytes allocated since the previous GC (heap before this GC minus heap after the previous one)
+ * - Bytes promoted into the old generation
+ *
+ * Each cycle reports the pause count, total, p50/p99/max and the allocation and promotion rates
+ * of the interval. Cycles of concurrent collectors (e.g. "G1 Concurrent GC", "ZGC Cycles") are
+ * counted with their cause but otherwise ignored: they do not pause the application, and the
+ * application keeps allocating while they run, so their before/after usage would distort the
+ * pause, allocation and promotion figures.
+ *
+ * {@code GcInfo.getDuration()} is in milliseconds, so pauses have a resolution of 1ms: a
+ * sub-millisecond pause (common for young collections of small heaps and for ZGC/Shenandoah) is
+ * recorded as 0us, and the pause total undercounts by up to 1ms per pause.
+ */
+public class GcMetricsCollector implements MetricsCollector, NotificationListener {
+    private static final Logger logger = LoggerFactory.getLogger(GcMetricsCollector.class);
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final LogHistogram livePauses = new LogHistogram();
+    private final LogHistogram intervalPauses = new LogHistogram();
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong promotedBytes = new AtomicLong();
+    private final AtomicLong heapAfterLastGc = new AtomicLong(-1);
+    private final Map<String, Long> causeCounts = new LinkedHashMap<>();
+    private final Map<String, MemoryUsage[]> lastPoolUsage = new LinkedHashMap<>();
+    private long previousHeapAfterGc = -1;
+
+    private final int countId;
+    private final int pauseCountId;
+    private final int pauseTotalId;
+    private final int pauseP50Id;
+    private final int pauseP99Id;
+    private final int pauseMaxId;
+    private final int allocationRateId;
+    private final int promotionRateId;
+    private final int heapAfterGcId;
+
+    private long previousCycleNanos;
+    private Map<String, Long> lastCauses = Collections.emptyMap();
+
+    public GcMetricsCollector(MetricRegistry registry) {
+        this.countId = registry.counter("gc.count", "count");
+        this.pauseCountId = registry.longGauge("gc.pause.count", "count");
+        this.pauseTotalId = registry.longGauge("gc.pause.total", "us");
+        this.pauseP50Id = registry.longGauge("gc.pause", "us", "quantile", "0.5");
+        this.pauseP99Id = registry.longGauge("gc.pause", "us", "quantile", "0.99");
+        this.pauseMaxId = registry.longGauge("gc.pause", "us", "quantile", "max");
+        this.allocationRateId = registry.doubleGauge("gc.allocation.rate", "bytes/s");
+        this.promotionRateId = registry.doubleGauge("gc.promotion.rate", "bytes/s");
+        this.heapAfterGcId = registry.longGauge("gc.heap.after", "bytes");
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gcBean;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        try {
+            GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            recordGc(info);
+        } catch (RuntimeException e) {
+            logger.debug("Failed to process GC notification: {}", e.getMessage());
+        }
+    }
+
+    private void recordGc(GarbageCollectionNotificationInfo info) {
+        GcInfo gcInfo = info.getGcInfo();
+        gcCount.incrementAndGet();
+        if (info.getGcName().contains("Concurrent") || info.getGcName().contains("Cycles")) {
+            synchronized (this) {
+                causeCounts.merge(info.getGcCause(), 1L, Long::sum);
+            }
+            return;
+        }
+        // GcInfo reports whole milliseconds; pause metrics are kept in microseconds
+        livePauses.record(gcInfo.getDuration() * 1_000);
+
+        Map<String, MemoryUsage> before = gcInfo.getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = gcInfo.getMemoryUsageAfterGc();
+        long heapBefore = 0;
+        long heapAfter = 0;
+        long oldBefore = 0;
+        long oldAfter = 0;
+        synchronized (this) {
+            for (Map.Entry<String, MemoryUsage> entry : before.entrySet()) {
+                String pool = entry.getKey();
+                MemoryUsage usageAfter = after.get(pool);
+                if (usageAfter == null || !isHeapPool(pool)) {
+                    continue;
+                }
+                heapBefore += entry.getValue().getUsed();
+                heapAfter += usageAfter.getUsed();
+                if (isOldPool(pool)) {
+                    oldBefore += entry.getValue().getUsed();
+                    oldAfter += usageAfter.getUsed();
+                }
+                lastPoolUsage.put(pool, new MemoryUsage[] {entry.getValue(), usageAfter});
+            }
+            causeCounts.merge(info.getGcCause(), 1L, Long::sum);
+
+            if (previousHeapAfterGc >= 0 && heapBefore > previousHeapAfterGc) {
+                allocatedBytes.addAndGet(heapBefore - previousHeapAfterGc);
+            }
+            previousHeapAfterGc = heapAfter;
+        }
+        if (oldAfter > oldBefore && info.getGcAction().contains("minor")) {
+            promotedBytes.addAndGet(oldAfter - oldBefore);
+        }
+        heapAfterLastGc.set(heapAfter);
+    }
+
+    private static boolean isHeapPool(String pool) {
+        return !pool.contains("Metaspace") && !pool.contains("Code") && !pool.contains("Compressed Class");
+    }
+
+    private static boolean isOldPool(String pool) {
+        return pool.contains("Old") || pool.contains("Tenured");
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        long now = System.nanoTime();
+        long elapsed = previousCycleNanos == 0 ? 0 : now - previousCycleNanos;
+        previousCycleNanos = now;
+
+        intervalPauses.reset();
+        livePauses.drainInto(intervalPauses);
+        snapshot.set(countId, gcCount.get());
+        snapshot.set(pauseCountId, intervalPauses.count());
+        snapshot.set(pauseTotalId, intervalPauses.sum());
+        snapshot.set(pauseP50Id, intervalPauses.percentile(50));
+        snapshot.set(pauseP99Id, intervalPauses.percentile(99));
+        snapshot.set(pauseMaxId, intervalPauses.max());
+
+        long allocated = allocatedBytes.getAndSet(0);
+        long promoted = promotedBytes.getAndSet(0);
+        if (elapsed > 0) {
+            snapshot.set(allocationRateId, allocated * 1e9 / elapsed);
+            snapshot.set(promotionRateId, promoted * 1e9 / elapsed);
+        }
+        long heapAfter = heapAfterLastGc.get();
+        if (heapAfter >= 0) {
+            snapshot.set(heapAfterGcId, heapAfter);
+        }
+
+        synchronized (this) {
+            if (causeCounts.isEmpty()) {
+                lastCauses = Collections.emptyMap();
+            } else {
+                lastCauses = new LinkedHashMap<>(causeCounts);
+                causeCounts.clear();
+            }
+        }
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        logger.info("{}=== Garbage Collection ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        long pauses = snapshot.getLong(pauseCountId);
+        logger.info("{}GC Pauses:{} {}{} (total {}ms, p50 {}ms, p99 {}ms, max {}ms){}", 
+            ColorCodes.BLUE, ColorCodes.RESET, pauses > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+            pauses,
+            FormatUtils.formatNanosToMillis(snapshot.getLong(pauseTotalId) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(pauseP50Id) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(pauseP99Id) * 1_000),
+            FormatUtils.formatNanosToMillis(snapshot.getLong(pauseMaxId) * 1_000),
+            ColorCodes.RESET);
+        if (snapshot.isPresent(allocationRateId)) {
+            logger.info("{}Allocation Rate:{} {}{} MB/s{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+                FormatUtils.formatMB((long) snapshot.getDouble(allocationRateId)), ColorCodes.RESET);
+            logger.info("{}Promotion Rate:{} {}{} MB/s{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+                FormatUtils.formatMB((long) snapshot.getDouble(promotionRateId)), ColorCodes.RESET);
+        }
+        if (snapshot.isPresent(heapAfterGcId)) {
+            logger.info("{}Heap After Last GC:{} {}{} MB{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+                FormatUtils.formatMB(snapshot.getLong(heapAfterGcId)), ColorCodes.RESET);
+        }
+
+        Map<String, MemoryUsage[]> pools;
+        synchronized (this) {
+            pools = new LinkedHashMap<>(lastPoolUsage);
+        }
+        lastCauses.forEach((cause, count) -> logger.info("{}  Cause {}:{} {}{}{}", 
+            ColorCodes.BLUE, cause, ColorCodes.RESET, ColorCodes.YELLOW, count, ColorCodes.RESET));
+        pools.forEach((pool, usage) -> logger.info("{}  {}:{} {} -> {} MB", 
+            ColorCodes.BLUE, pool, ColorCodes.RESET,
+            FormatUtils.formatMB(usage[0].getUsed()), FormatUtils.formatMB(usage[1].getUsed())));
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("GC listener already removed: {}", e.getMessage());
+            }
+        }
+        emitters.clear();
+    }
+
+    /**
+     * Provides the GC collector when {@code gc-enabled} is set.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "gc";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isGcEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getGcIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            return new GcMetricsCollector(context.getRegistry());
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.LongLongMap;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in lock contention profiler used by {@link ThreadMetricsCollector}.
+ *
+ * Enables JVM thread contention monitoring and diffs every thread's blocked count, blocked time
+ * and waited time between cycles. Blocked time is attributed to a monitor: the lock a thread is
+ * blocked on now, identified by its class and identity hash and the top stack frame of the
+ * blocked thread, or the monitor it was last seen blocked on when it is running again. Monitors
+ * are ranked by blocked time over a sliding window of {@link #BUCKETS} time buckets, so the
+ * table shows which locks hurt recently rather than which one happened to be held at the
+ * instant of a sample.
+ *
+ * The cost per cycle is one depth-1 stack lookup for the currently blocked threads plus work
+ * linear in the number of threads and monitors. Monitors live in a fixed array of slots, and
+ * the monitor each thread was last blocked on is kept as a slot index in a {@link LongLongMap},
+ * so apart from the stack lookup and new monitors a cycle does not allocate. Contention
+ * monitoring itself adds a little overhead to every contended monitor enter, which is why the
+ * profiler is off by default.
+ */
+final class LockContentionProfiler {
+    static final int BUCKETS = 10;
+    private static final int MAX_MONITORS = 256;
+    private static final String UNKNOWN_FRAME = "(unknown frame)";
+
+    private final ThreadMXBean threadMXBean;
+    private final boolean enabledHere;
+    private final int topN;
+    private final long bucketNanos;
+    private long bucketStart = System.nanoTime();
+    private int bucket;
+
+    private LongLongMap previousBlockedTime = new LongLongMap(256);
+    private LongLongMap previousBlockedCount = new LongLongMap(256);
+    private LongLongMap previousWaitedTime = new LongLongMap(256);
+    private LongLongMap currentBlockedTime = new LongLongMap(256);
+    private LongLongMap currentBlockedCount = new LongLongMap(256);
+    private LongLongMap currentWaitedTime = new LongLongMap(256);
+
+    private final Map<String, HotMonitor> monitors = new HashMap<>();
+    private final HotMonitor[] slots = new HotMonitor[MAX_MONITORS];
+    private final int[] freeSlots = new int[MAX_MONITORS];
+    private int freeCount;
+    /** Slot of the monitor each thread was last seen blocked on, for time accrued between two samples */
+    private LongLongMap previousMonitor = new LongLongMap(256);
+    private LongLongMap currentMonitor = new LongLongMap(256);
+
+    private long[] blockedIds = new long[16];
+    private long[] requestIds = new long[0];
+    private String[] frames = new String[16];
+    /** Index into {@link #frames} of each thread blocked in this cycle */
+    private final LongLongMap frameIndex = new LongLongMap(16);
+    private final HotMonitor[] top;
+    private int topCount;
+
+    private long totalBlockedMillis;
+    private long totalBlockedCount;
+    private long totalWaitedMillis;
+    private final int blockedTimeId;
+    private final int blockedCountId;
+    private final int waitedTimeId;
+    private final int[] topIds;
+
+    /**
+     * @param threadMXBean The thread bean
+     * @param registry Registry for the contention metrics
+     * @param topN Number of monitors in the ranking
+     * @param windowMillis Length of the sliding window
+     */
+    LockContentionProfiler(ThreadMXBean threadMXBean, MetricRegistry registry, int topN, long windowMillis) {
+        this.threadMXBean = threadMXBean;
+        this.enabledHere = !threadMXBean.isThreadContentionMonitoringEnabled();
+        if (enabledHere) {
+            threadMXBean.setThreadContentionMonitoringEnabled(true);
+        }
+        this.topN = topN;
+        this.bucketNanos = Math.max(windowMillis, BUCKETS) * 1_000_000 / BUCKETS;
+        this.top = new HotMonitor[topN];
+        for (int i = 0; i < MAX_MONITORS; i++) {
+            freeSlots[freeCount++] = MAX_MONITORS - 1 - i;
+        }
+        this.blockedTimeId = registry.counter("threads.contention.blocked.time", "ms");
+        this.blockedCountId = registry.counter("threads.contention.blocked.count", "count");
+        this.waitedTimeId = registry.counter("threads.contention.waited.time", "ms");
+        this.topIds = new int[topN];
+        for (int i = 0; i < topN; i++) {
+            topIds[i] = registry.longGauge("threads.contention.top", "ms", "rank", Integer.toString(i + 1));
+        }
+    }
+
+    /**
+     * @param threadMXBean The thread bean
+     * @return true if the JVM can measure thread contention
+     */
+    static boolean isSupported(ThreadMXBean threadMXBean) {
+        return threadMXBean.isThreadContentionMonitoringSupported();
+    }
+
+    /**
+     * Diffs the contention counters of the threads in the cheap dump of this cycle.
+     */
+    void collect(ThreadInfo[] threadInfos, MetricsSnapshot snapshot) {
+        rotate(System.nanoTime());
+        lookUpBlockedFrames(threadInfos);
+        for (HotMonitor monitor : slots) {
+            if (monitor != null) {
+                monitor.threads = 0;
+            }
+        }
+
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null || threadInfo.getBlockedTime() < 0) {
+                continue;
+            }
+            long threadId = threadInfo.getThreadId();
+            long blockedTime = threadInfo.getBlockedTime();
+            long blockedCount = threadInfo.getBlockedCount();
+            long waitedTime = Math.max(threadInfo.getWaitedTime(), 0);
+            currentBlockedTime.put(threadId, blockedTime);
+            currentBlockedCount.put(threadId, blockedCount);
+            currentWaitedTime.put(threadId, waitedTime);
+
+            // Threads that appeared since the last cycle have no baseline yet
+            long blockedTimeDelta = blockedTime - previousBlockedTime.get(threadId, blockedTime);
+            long blockedCountDelta = blockedCount - previousBlockedCount.get(threadId, blockedCount);
+            totalBlockedMillis += blockedTimeDelta;
+            totalBlockedCount += blockedCountDelta;
+            totalWaitedMillis += waitedTime - previousWaitedTime.get(threadId, waitedTime);
+
+            int lastSlot = (int) previousMonitor.get(threadId, -1);
+            HotMonitor monitor = null;
+            if (threadInfo.getThreadState() == Thread.State.BLOCKED && threadInfo.getLockName() != null) {
+                int index = (int) frameIndex.get(threadId, -1);
+                monitor = monitorOf(threadInfo.getLockName(), index >= 0 ? frames[index] : UNKNOWN_FRAME);
+                if (monitor != null) {
+                    lastSlot = monitor.slot;
+                }
+            } else if (lastSlot >= 0 && (blockedTimeDelta > 0 || blockedCountDelta > 0)) {
+                monitor = slots[lastSlot];
+            }
+            if (monitor != null) {
+                monitor.blockedMillis[bucket] += blockedTimeDelta;
+                monitor.blockedCount[bucket] += blockedCountDelta;
+            }
+            if (lastSlot >= 0) {
+                currentMonitor.put(threadId, lastSlot);
+                slots[lastSlot].threads++;
+            }
+        }
+
+        // Swap maps; threads missing from this cycle are evicted with the cleared maps
+        LongLongMap swap = previousBlockedTime;
+        previousBlockedTime = currentBlockedTime;
+        currentBlockedTime = swap;
+        currentBlockedTime.clear();
+        swap = previousBlockedCount;
+        previousBlockedCount = currentBlockedCount;
+        currentBlockedCount = swap;
+        currentBlockedCount.clear();
+        swap = previousWaitedTime;
+        previousWaitedTime = currentWaitedTime;
+        currentWaitedTime = swap;
+        currentWaitedTime.clear();
+        swap = previousMonitor;
+        previousMonitor = currentMonitor;
+        currentMonitor = swap;
+        currentMonitor.clear();
+
+        rank();
+        snapshot.set(blockedTimeId, totalBlockedMillis);
+        snapshot.set(blockedCountId, totalBlockedCount);
+        snapshot.set(waitedTimeId, totalWaitedMillis);
+        for (int i = 0; i < topN; i++) {
+            snapshot.set(topIds[i], i < topCount ? top[i].windowBlockedMillis() : 0);
+        }
+    }
+
+    /**
+     * Looks up the top frame of every BLOCKED thread: the method that tries to enter the monitor.
+     * Fills {@link #frames} and {@link #frameIndex}, which are reused across cycles.
+     */
+    private void lookUpBlockedFrames(ThreadInfo[] threadInfos) {
+        frameIndex.clear();
+        int count = 0;
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo != null && threadInfo.getThreadState() == Thread.State.BLOCKED) {
+                if (count == blockedIds.length) {
+                    blockedIds = Arrays.copyOf(blockedIds, count * 2);
+                }
+                blockedIds[count++] = threadInfo.getThreadId();
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        // getThreadInfo takes the whole array, so it is only replaced when the count changes
+        if (requestIds.length != count) {
+            requestIds = new long[count];
+        }
+        System.arraycopy(blockedIds, 0, requestIds, 0, count);
+        if (frames.length < count) {
+            frames = new String[blockedIds.length];
+        }
+        ThreadInfo[] infos = threadMXBean.getThreadInfo(requestIds, 1);
+        for (int i = 0; i < infos.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info != null && info.getStackTrace().length > 0) {
+                frames[i] = info.getStackTrace()[0].toString();
+                frameIndex.put(info.getThreadId(), i);
+            }
+        }
+    }
+
+    private HotMonitor monitorOf(String lockName, String frame) {
+        String key = lockName + ' ' + frame;
+        HotMonitor monitor = monitors.get(key);
+        if (monitor == null) {
+            if (freeCount == 0) {
+                // Stay bounded when lock instances churn; the oldest entries age out on rotation
+                return null;
+            }
+            monitor = new HotMonitor(key, lockName, frame, freeSlots[--freeCount]);
+            monitors.put(key, monitor);
+            slots[monitor.slot] = monitor;
+        }
+        return monitor;
+    }
+
+    /**
+     * Advances the window, clearing buckets that fell out of it and dropping idle monitors.
+     */
+    private void rotate(long now) {
+        long elapsed = now - bucketStart;
+        if (elapsed < bucketNanos) {
+            return;
+        }
+        long steps = Math.min(elapsed / bucketNanos, BUCKETS);
+        bucketStart += (elapsed / bucketNanos) * bucketNanos;
+        for (int step = 0; step < steps; step++) {
+            bucket = (bucket + 1) % BUCKETS;
+            for (HotMonitor monitor : slots) {
+                if (monitor != null) {
+                    monitor.blockedMillis[bucket] = 0;
+                    monitor.blockedCount[bucket] = 0;
+                }
+            }
+        }
+        for (HotMonitor monitor : slots) {
+            if (monitor != null && monitor.threads == 0
+                    && monitor.windowBlockedMillis() == 0 && monitor.windowBlockedCount() == 0) {
+                monitors.remove(monitor.key);
+                slots[monitor.slot] = null;
+                freeSlots[freeCount++] = monitor.slot;
+            }
+        }
+    }
+
+    private void rank() {
+        topCount = 0;
+        for (HotMonitor monitor : slots) {
+            if (monitor == null) {
+                continue;
+            }
+            long blocked = monitor.windowBlockedMillis();
+            if (topN == 0 || (blocked == 0 && monitor.windowBlockedCount() == 0)
+                    || (topCount == topN && blocked <= top[topN - 1].windowBlockedMillis())) {
+                continue;
+            }
+            int position = topCount < topN ? topCount++ : topN - 1;
+            while (position > 0 && top[position - 1].windowBlockedMillis() < blocked) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = monitor;
+        }
+    }
+
+    /**
+     * @return The hottest monitors of the window, hottest first
+     */
+    List<HotMonitor> getTop() {
+        return new ArrayList<>(Arrays.asList(top).subList(0, topCount));
+    }
+
+    /**
+     * @return Window length in milliseconds
+     */
+    long getWindowMillis() {
+        return bucketNanos * BUCKETS / 1_000_000;
+    }
+
+    void close() {
+        if (enabledHere) {
+            threadMXBean.setThreadContentionMonitoringEnabled(false);
+        }
+    }
+
+    /** A monitor, identified by lock and blocking frame, with its blocked time per bucket. */
+    static final class HotMonitor {
+        final String key;
+        final String lockName;
+        final String frame;
+        final int slot;
+        final long[] blockedMillis = new long[BUCKETS];
+        final long[] blockedCount = new long[BUCKETS];
+        /** Number of threads whose last blocking monitor this is; kept while non-zero */
+        int threads;
+
+        HotMonitor(String key, String lockName, String frame, int slot) {
+            this.key = key;
+            this.lockName = lockName;
+            this.frame = frame;
+            this.slot = slot;
+        }
+
+        long windowBlockedMillis() {
+            long sum = 0;
+            for (long value : blockedMillis) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        long windowBlockedCount() {
+            long sum = 0;
+            for (long value : blockedCount) {
+                sum += value;
+            }
+            return sum;
+        }
+    }
+}
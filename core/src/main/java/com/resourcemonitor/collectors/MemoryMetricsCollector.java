@@ -0,0 +1,359 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects and logs memory-related metrics including heap and non-heap memory usage,
+ * a breakdown per memory pool and the direct and mapped buffer pools.
+ *
+ * Heap values are read from {@link Runtime}, which returns primitives without allocating.
+ * Pool usage is only exposed through {@link MemoryPoolMXBean}, whose {@code MemoryUsage} result
+ * objects (one per pool, and one more per collected pool) are the only allocations left on this
+ * path. The non-heap total is the sum of the non-heap pools, as the JVM computes it, rather than
+ * another {@code MemoryUsage} from {@link MemoryMXBean}.
+ *
+ * For every pool the collector reports the current usage and, for collected pools, the usage
+ * right after the last GC. The post-GC value of the old generation is what reveals a leak:
+ * the current value of a heap pool mostly shows how long ago the last GC ran.
+ *
+ * When configured, pools that support it also get JVM usage thresholds (a percentage of their
+ * maximum size), unless another component (an APM agent, the application) already set one: a
+ * pool has a single threshold of each kind, so the collector leaves a non-zero threshold alone
+ * and on close only resets the thresholds it set itself, back to their previous value. The JVM
+ * notifies the collector when a pool crosses its threshold, so a crossing is logged and counted
+ * in {@code memory.pool.threshold.crossings} as soon as it happens, between two polls.
+ */
+public class MemoryMetricsCollector implements MetricsCollector, NotificationListener {
+    private static final Logger logger = LoggerFactory.getLogger(MemoryMetricsCollector.class);
+    private final MemoryMXBean memoryMXBean;
+    private final Runtime runtime;
+    private final PoolIds[] pools;
+    private final BufferIds[] buffers;
+
+    private final int heapUsedId;
+    private final int heapCommittedId;
+    private final int heapMaxId;
+    private final int heapUsagePercentId;
+    private final int nonHeapUsedId;
+
+    public MemoryMetricsCollector(MetricRegistry registry) {
+        this(registry, 0, 0);
+    }
+
+    /**
+     * @param registry Registry for the metric slots
+     * @param usageThresholdPercent Usage threshold set on pools with a known maximum, in percent
+     *                              of the maximum; 0 leaves the thresholds alone
+     * @param collectionThresholdPercent Post-GC usage threshold set on collected pools with a
+     *                                   known maximum; 0 leaves the thresholds alone
+     */
+    public MemoryMetricsCollector(MetricRegistry registry, double usageThresholdPercent,
+                                  double collectionThresholdPercent) {
+        this.memoryMXBean = ManagementFactory.getMemoryMXBean();
+        this.runtime = Runtime.getRuntime();
+        this.heapUsedId = registry.longGauge("memory.heap.used", "bytes");
+        this.heapCommittedId = registry.longGauge("memory.heap.committed", "bytes");
+        this.heapMaxId = registry.longGauge("memory.heap.max", "bytes");
+        this.heapUsagePercentId = registry.doubleGauge("memory.heap.usage", "percent");
+        this.nonHeapUsedId = registry.longGauge("memory.nonheap.used", "bytes");
+
+        List<MemoryPoolMXBean> poolBeans = ManagementFactory.getMemoryPoolMXBeans();
+        this.pools = new PoolIds[poolBeans.size()];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new PoolIds(poolBeans.get(i), registry);
+            pools[i].armThresholds(usageThresholdPercent, collectionThresholdPercent);
+        }
+        List<BufferPoolMXBean> bufferBeans = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        this.buffers = new BufferIds[bufferBeans.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new BufferIds(bufferBeans.get(i), registry);
+        }
+
+        if (memoryMXBean instanceof NotificationEmitter) {
+            ((NotificationEmitter) memoryMXBean).addNotificationListener(this, null, null);
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        boolean collection = MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type);
+        if (!collection && !MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+            return;
+        }
+        try {
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            for (PoolIds pool : pools) {
+                if (pool.name.equals(info.getPoolName())) {
+                    (collection ? pool.collectionCrossings : pool.usageCrossings).incrementAndGet();
+                    break;
+                }
+            }
+            MemoryUsage usage = info.getUsage();
+            logger.warn("{}Memory pool {} crossed its {}threshold: {}/{} MB{}", ColorCodes.RED, info.getPoolName(),
+                collection ? "post-GC " : "", FormatUtils.formatMB(usage.getUsed()),
+                FormatUtils.formatMB(usage.getMax()), ColorCodes.RESET);
+        } catch (RuntimeException e) {
+            logger.debug("Failed to process memory notification: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        long heapCommitted = runtime.totalMemory();
+        long heapUsed = heapCommitted - runtime.freeMemory();
+        long heapMax = runtime.maxMemory();
+
+        snapshot.set(heapUsedId, heapUsed);
+        snapshot.set(heapCommittedId, heapCommitted);
+        snapshot.set(heapMaxId, heapMax);
+        snapshot.set(heapUsagePercentId, (double) heapUsed / heapMax * 100);
+
+        long nonHeapUsed = 0;
+        for (PoolIds pool : pools) {
+            long used = pool.collect(snapshot);
+            if (pool.nonHeap) {
+                nonHeapUsed += used;
+            }
+        }
+        snapshot.set(nonHeapUsedId, nonHeapUsed);
+        for (BufferIds buffer : buffers) {
+            snapshot.set(buffer.usedId, buffer.bean.getMemoryUsed());
+            snapshot.set(buffer.capacityId, buffer.bean.getTotalCapacity());
+            snapshot.set(buffer.countId, buffer.bean.getCount());
+        }
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        double heapUsagePercentage = snapshot.getDouble(heapUsagePercentId);
+
+        logger.info("{}=== Memory Usage ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        logger.info("{}Memory - Heap:{} {}{}/{} MB ({}%){}",
+            ColorCodes.BLUE, ColorCodes.RESET,
+            ColorCodes.getColorForPercentage(heapUsagePercentage),
+            FormatUtils.formatMB(snapshot.getLong(heapUsedId)),
+            FormatUtils.formatMB(snapshot.getLong(heapMaxId)),
+            String.format("%.2f", heapUsagePercentage),
+            ColorCodes.RESET);
+        logger.info("{}Memory - Non-Heap:{} {} MB",
+            ColorCodes.BLUE, ColorCodes.RESET,
+            FormatUtils.formatMB(snapshot.getLong(nonHeapUsedId)));
+
+        for (PoolIds pool : pools) {
+            if (!snapshot.isPresent(pool.usedId)) {
+                continue;
+            }
+            StringBuilder line = new StringBuilder(FormatUtils.formatMB(snapshot.getLong(pool.usedId)));
+            if (snapshot.isPresent(pool.usagePercentId)) {
+                double percent = snapshot.getDouble(pool.usagePercentId);
+                line.insert(0, ColorCodes.getColorForPercentage(percent))
+                    .append('/').append(FormatUtils.formatMB(snapshot.getLong(pool.maxId)))
+                    .append(" MB (").append(String.format("%.2f", percent)).append("%)").append(ColorCodes.RESET);
+            } else {
+                line.append(" MB");
+            }
+            if (pool.collectionUsedId >= 0 && snapshot.isPresent(pool.collectionUsedId)) {
+                line.append(", after last GC ").append(FormatUtils.formatMB(snapshot.getLong(pool.collectionUsedId)))
+                    .append(" MB");
+            }
+            logger.info("{}Memory Pool - {}:{} {}", ColorCodes.BLUE, pool.name, ColorCodes.RESET, line);
+        }
+        for (BufferIds buffer : buffers) {
+            logger.info("{}Buffer Pool - {}:{} {} MB in {} buffers (capacity {} MB)",
+                ColorCodes.BLUE, buffer.bean.getName(), ColorCodes.RESET,
+                FormatUtils.formatMB(snapshot.getLong(buffer.usedId)),
+                snapshot.getLong(buffer.countId),
+                FormatUtils.formatMB(snapshot.getLong(buffer.capacityId)));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (memoryMXBean instanceof NotificationEmitter) {
+            try {
+                ((NotificationEmitter) memoryMXBean).removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                logger.debug("Memory listener already removed: {}", e.getMessage());
+            }
+        }
+        for (PoolIds pool : pools) {
+            pool.disarmThresholds();
+        }
+    }
+
+    /** Metric ids and threshold state of one memory pool. */
+    private static final class PoolIds {
+        final MemoryPoolMXBean bean;
+        final String name;
+        final boolean nonHeap;
+        final int usedId;
+        final int committedId;
+        final int maxId;
+        final int usagePercentId;
+        final int collectionUsedId;
+        final int usageCrossingsId;
+        final int collectionCrossingsId;
+        final AtomicLong usageCrossings = new AtomicLong();
+        final AtomicLong collectionCrossings = new AtomicLong();
+        // Threshold set by the collector and the one it replaced, or -1 if the collector set none
+        long armedUsageThreshold = -1;
+        long previousUsageThreshold;
+        long armedCollectionThreshold = -1;
+        long previousCollectionThreshold;
+
+        PoolIds(MemoryPoolMXBean bean, MetricRegistry registry) {
+            this.bean = bean;
+            this.name = bean.getName();
+            this.nonHeap = bean.getType() == MemoryType.NON_HEAP;
+            this.usedId = registry.longGauge("memory.pool.used", "bytes", "pool", name);
+            this.committedId = registry.longGauge("memory.pool.committed", "bytes", "pool", name);
+            this.maxId = registry.longGauge("memory.pool.max", "bytes", "pool", name);
+            this.usagePercentId = registry.doubleGauge("memory.pool.usage", "percent", "pool", name);
+            // Only collected pools (heap pools) have a post-GC usage
+            this.collectionUsedId = bean.getCollectionUsage() != null
+                ? registry.longGauge("memory.pool.collection.used", "bytes", "pool", name)
+                : -1;
+            this.usageCrossingsId = bean.isUsageThresholdSupported()
+                ? registry.counter("memory.pool.threshold.crossings", "count", "pool", name, "kind", "usage")
+                : -1;
+            this.collectionCrossingsId = bean.isCollectionUsageThresholdSupported()
+                ? registry.counter("memory.pool.threshold.crossings", "count", "pool", name, "kind", "collection")
+                : -1;
+        }
+
+        void armThresholds(double usagePercent, double collectionPercent) {
+            long max = bean.getUsage().getMax();
+            if (max <= 0) {
+                // No maximum (e.g. Metaspace without MaxMetaspaceSize): a percentage means nothing
+                return;
+            }
+            if (usagePercent > 0 && bean.isUsageThresholdSupported()) {
+                previousUsageThreshold = bean.getUsageThreshold();
+                if (previousUsageThreshold != 0) {
+                    logger.debug("Memory pool {} already has a usage threshold of {} bytes, leaving it",
+                        name, previousUsageThreshold);
+                } else {
+                    armedUsageThreshold = (long) (max * usagePercent / 100);
+                    bean.setUsageThreshold(armedUsageThreshold);
+                }
+            }
+            if (collectionPercent > 0 && bean.isCollectionUsageThresholdSupported()) {
+                previousCollectionThreshold = bean.getCollectionUsageThreshold();
+                if (previousCollectionThreshold != 0) {
+                    logger.debug("Memory pool {} already has a collection usage threshold of {} bytes, leaving it",
+                        name, previousCollectionThreshold);
+                } else {
+                    armedCollectionThreshold = (long) (max * collectionPercent / 100);
+                    bean.setCollectionUsageThreshold(armedCollectionThreshold);
+                }
+            }
+        }
+
+        /**
+         * Restores the thresholds the collector replaced, unless they were changed again since.
+         */
+        void disarmThresholds() {
+            if (!bean.isValid()) {
+                return;
+            }
+            if (armedUsageThreshold >= 0 && bean.getUsageThreshold() == armedUsageThreshold) {
+                bean.setUsageThreshold(previousUsageThreshold);
+            }
+            if (armedCollectionThreshold >= 0 && bean.getCollectionUsageThreshold() == armedCollectionThreshold) {
+                bean.setCollectionUsageThreshold(previousCollectionThreshold);
+            }
+        }
+
+        /**
+         * @return The used bytes of the pool, or 0 if it is no longer valid
+         */
+        long collect(MetricsSnapshot snapshot) {
+            if (!bean.isValid()) {
+                return 0;
+            }
+            MemoryUsage usage = bean.getUsage();
+            snapshot.set(usedId, usage.getUsed());
+            snapshot.set(committedId, usage.getCommitted());
+            if (usage.getMax() > 0) {
+                snapshot.set(maxId, usage.getMax());
+                snapshot.set(usagePercentId, (double) usage.getUsed() / usage.getMax() * 100);
+            }
+            if (collectionUsedId >= 0) {
+                MemoryUsage afterGc = bean.getCollectionUsage();
+                if (afterGc != null) {
+                    snapshot.set(collectionUsedId, afterGc.getUsed());
+                }
+            }
+            if (usageCrossingsId >= 0) {
+                snapshot.set(usageCrossingsId, usageCrossings.get());
+            }
+            if (collectionCrossingsId >= 0) {
+                snapshot.set(collectionCrossingsId, collectionCrossings.get());
+            }
+            return usage.getUsed();
+        }
+    }
+
+    /** Metric ids of one buffer pool ("direct" or "mapped"). */
+    private static final class BufferIds {
+        final BufferPoolMXBean bean;
+        final int usedId;
+        final int capacityId;
+        final int countId;
+
+        BufferIds(BufferPoolMXBean bean, MetricRegistry registry) {
+            this.bean = bean;
+            String name = bean.getName();
+            this.usedId = registry.longGauge("memory.buffer.used", "bytes", "pool", name);
+            this.capacityId = registry.longGauge("memory.buffer.capacity", "bytes", "pool", name);
+            this.countId = registry.longGauge("memory.buffer.count", "count", "pool", name);
+        }
+    }
+
+    /**
+     * Provides the memory collector when {@code memory-enabled} is set.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "memory";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isMemoryEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getMemoryIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            return new MemoryMetricsCollector(context.getRegistry(),
+                context.getProperties().getMemoryPoolUsageThresholdPercent(),
+                context.getProperties().getMemoryPoolCollectionThresholdPercent());
+        }
+    }
+}
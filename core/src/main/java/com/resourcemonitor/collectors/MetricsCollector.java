@@ -0,0 +1,107 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+
+/**
+ * Interface for all metrics collectors in the resource monitoring system.
+ * Each collector is responsible for gathering specific types of metrics.
+ *
+ * Collectors register their metric slots with a {@link com.resourcemonitor.metrics.MetricRegistry}
+ * when they are created and then write primitive values into a reused {@link MetricsSnapshot}
+ * on every cycle. Logging is just one consumer of that snapshot.
+ */
+public interface MetricsCollector {
+    /**
+     * Collects the metrics for this collector into the given snapshot.
+     * Implementations should not allocate in steady state: no boxing, formatting or varargs.
+     * Where the JDK or a pool library only offers an allocating API there is no way around it;
+     * the built-in collectors that allocate on every cycle are:
+     * <ul>
+     *   <li>the thread collector, through the {@code ThreadInfo} array of
+     *       {@code ThreadMXBean.dumpAllThreads} (growing with the thread count);</li>
+     *   <li>the memory collector, through the {@code MemoryUsage} objects returned for every
+     *       memory pool, and once more for the post-GC usage of collected pools;</li>
+     *   <li>the runtime collector, through the {@code MemoryUsage} of the code cache segments;</li>
+     *   <li>the database collector, through the {@code CopyOnWriteArrayList} iterators of
+     *       HikariCP's active and idle counts, wherever the JIT does not inline them;</li>
+     *   <li>the CPU collector, but only where it falls back to
+     *       {@code OperatingSystemMXBean.getSystemCpuLoad()} (off Linux or without a visible
+     *       cgroup), which allocates about 100KB per call in a container.</li>
+     * </ul>
+     * {@code CollectorAllocationTest} measures this with
+     * {@code ThreadMXBean.getCurrentThreadAllocatedBytes()} and fails if a collector allocates
+     * anything beyond these calls.
+     *
+     * @param snapshot The snapshot of the current cycle
+     */
+    void collect(MetricsSnapshot snapshot);
+
+    /**
+     * Returns the number of independent units this collector can be split into, e.g. one per
+     * connection pool. Units are scheduled and timed separately, so one slow unit cannot hold
+     * back the others.
+     *
+     * @return Number of partitions, at least 1
+     */
+    default int partitionCount() {
+        return 1;
+    }
+
+    /**
+     * Returns a short label for a partition, used when reporting a partition that missed its deadline.
+     *
+     * @param partition The partition index
+     * @return The label, e.g. the pool name
+     */
+    default String partitionName(int partition) {
+        return String.valueOf(partition);
+    }
+
+    /**
+     * Collects a single partition. Different partitions of the same collector may run
+     * concurrently on different threads, each with its own snapshot; a partition never runs
+     * concurrently with itself.
+     *
+     * @param partition The partition index
+     * @param snapshot The snapshot to write into
+     */
+    default void collectPartition(int partition, MetricsSnapshot snapshot) {
+        collect(snapshot);
+    }
+
+    /**
+     * Logs the values this collector wrote into the snapshot.
+     *
+     * @param snapshot The snapshot of the current cycle
+     */
+    void log(MetricsSnapshot snapshot);
+
+    /**
+     * @return true if the collector has a cheaper tier that {@link #setDegraded(boolean)} switches to
+     */
+    default boolean supportsDegradedMode() {
+        return false;
+    }
+
+    /**
+     * Switches to or from the cheaper tier. Called by the overhead governor when the monitor
+     * exceeds its CPU budget, and again when load falls.
+     *
+     * @param degraded true to collect only the cheap metrics
+     */
+    default void setDegraded(boolean degraded) {
+    }
+
+    /**
+     * Starts background work such as a sampling thread. Called once when the monitor starts.
+     */
+    default void start() {
+    }
+
+    /**
+     * Releases listeners, files or other resources held by this collector.
+     * Called once when the monitor stops.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,146 @@
+package com.resourcemonitor.collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads HotSpot's internal performance counters (the ones behind {@code jstat}) from the
+ * process' own {@code hsperfdata} file.
+ *
+ * HotSpot publishes counters such as {@code sun.rt.safepoints} in a memory-mapped file
+ * {@code <tmp>/hsperfdata_<user>/<pid>} and updates them in place. The file is mapped read-only
+ * once, the entry directory is walked once per counter name, and afterwards a counter is a
+ * single {@code getLong} at a fixed offset: no MBean, no allocation and no access to
+ * encapsulated JDK internals. The file is absent with {@code -XX:-UsePerfData} or
+ * {@code -XX:+PerfDisableSharedMem} and on JVMs other than HotSpot.
+ */
+final class PerfCounters {
+    private static final Logger logger = LoggerFactory.getLogger(PerfCounters.class);
+
+    private static final int MAGIC = 0xcafec0c0;
+    private static final int BYTE_ORDER_OFFSET = 4;
+    private static final int ACCESSIBLE_OFFSET = 7;
+    private static final int ENTRY_OFFSET_OFFSET = 24;
+    private static final int NUM_ENTRIES_OFFSET = 28;
+    private static final byte TYPE_LONG = 'J';
+
+    private final MappedByteBuffer buffer;
+    private final double nanosPerTick;
+
+    private PerfCounters(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        int frequency = find("sun.os.hrt.frequency");
+        long ticksPerSecond = frequency >= 0 ? buffer.getLong(frequency) : 0;
+        this.nanosPerTick = ticksPerSecond > 0 ? 1e9 / ticksPerSecond : 0;
+    }
+
+    /**
+     * Maps the perf data file of the current process.
+     *
+     * @return The counters, or null if the JVM does not publish them
+     */
+    static PerfCounters open() {
+        String pid = String.valueOf(ProcessHandle.current().pid());
+        String directory = "hsperfdata_" + System.getProperty("user.name");
+        // HotSpot uses /tmp on Linux and macOS whatever java.io.tmpdir says, and %TEMP% on Windows
+        Set<Path> candidates = new LinkedHashSet<>(Arrays.asList(
+            Paths.get(System.getProperty("java.io.tmpdir"), directory, pid),
+            Paths.get("/tmp", directory, pid)));
+        for (Path file : candidates) {
+            if (!Files.isReadable(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.capacity() < NUM_ENTRIES_OFFSET + 4 || buffer.getInt(0) != MAGIC) {
+                    continue;
+                }
+                buffer.order(buffer.get(BYTE_ORDER_OFFSET) == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+                if (buffer.get(ACCESSIBLE_OFFSET) == 0) {
+                    continue;
+                }
+                return new PerfCounters(buffer);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Cannot map perf data file {}: {}", file, e.getMessage());
+            }
+        }
+        logger.debug("No perf data file for process {}", pid);
+        return null;
+    }
+
+    /**
+     * Looks up a scalar long counter.
+     *
+     * @param name Counter name, e.g. "sun.rt.safepoints"
+     * @return Offset of the counter's value for {@link #get(int)}, or -1 if there is no such counter
+     */
+    int find(String name) {
+        byte[] wanted = name.getBytes(StandardCharsets.US_ASCII);
+        int offset = buffer.getInt(ENTRY_OFFSET_OFFSET);
+        int entries = buffer.getInt(NUM_ENTRIES_OFFSET);
+        for (int i = 0; i < entries && offset > 0 && offset < buffer.capacity(); i++) {
+            // Entry header: length, name offset, vector length, type, flags, units, variability, data offset
+            int length = buffer.getInt(offset);
+            int nameOffset = buffer.getInt(offset + 4);
+            int vectorLength = buffer.getInt(offset + 8);
+            byte type = buffer.get(offset + 12);
+            int dataOffset = buffer.getInt(offset + 16);
+            if (type == TYPE_LONG && vectorLength == 0 && nameMatches(offset + nameOffset, wanted)) {
+                return offset + dataOffset;
+            }
+            if (length <= 0) {
+                break;
+            }
+            offset += length;
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the tick frequency is known, so time counters can be converted
+     */
+    boolean hasTimer() {
+        return nanosPerTick > 0;
+    }
+
+    private boolean nameMatches(int position, byte[] wanted) {
+        if (position + wanted.length >= buffer.capacity()) {
+            return false;
+        }
+        for (int i = 0; i < wanted.length; i++) {
+            if (buffer.get(position + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return buffer.get(position + wanted.length) == 0;
+    }
+
+    /**
+     * @param offset Offset returned by {@link #find(String)}
+     * @return Current value of the counter
+     */
+    long get(int offset) {
+        return buffer.getLong(offset);
+    }
+
+    /**
+     * @param ticks Time in high-resolution timer ticks, the unit of time counters such as
+     *              {@code sun.rt.safepointTime}
+     * @return The time in nanoseconds
+     */
+    long ticksToNanos(long ticks) {
+        return (long) (ticks * nanosPerTick);
+    }
+}
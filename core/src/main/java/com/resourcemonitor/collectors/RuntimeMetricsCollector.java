@@ -0,0 +1,321 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects the JVM runtime activity behind warm-up and post-deploy latency: JIT compilation,
+ * code cache usage, class loading and safepoints.
+ *
+ * All activity values are deltas over the interval, so they line up with request latency of
+ * the same interval:
+ * - JIT compilation time from {@link CompilationMXBean}
+ * - Classes loaded and unloaded per second from {@link ClassLoadingMXBean}
+ * - Usage of each code cache segment ({@code CodeHeap 'profiled nmethods'} etc., or the single
+ *   {@code Code Cache} without segmentation); the JIT stops compiling when a segment is full
+ *
+ * On HotSpot, compilations, bailouts, invalidated compilations, class loading time and the
+ * count, total time and time-to-safepoint of safepoints are read from the JVM's perf counters
+ * through {@link PerfCounters}. Without perf data these values are left out and the rest is
+ * still reported. Everything is read as primitives; only the code cache usage objects allocate.
+ */
+public class RuntimeMetricsCollector implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(RuntimeMetricsCollector.class);
+
+    private final CompilationMXBean compilationMXBean;
+    private final ClassLoadingMXBean classLoadingMXBean;
+    private final CodeHeapIds[] codeHeaps;
+    private final PerfCounters perf;
+    private final int compilesCounter;
+    private final int bailoutsCounter;
+    private final int invalidatesCounter;
+    private final int classLoadTimeCounter;
+    private final int safepointsCounter;
+    private final int safepointTimeCounter;
+    private final int safepointSyncTimeCounter;
+
+    private final int compilationTimeId;
+    private final int compilationsId;
+    private final int bailoutsId;
+    private final int invalidationsId;
+    private final int classCountId;
+    private final int classLoadRateId;
+    private final int classUnloadRateId;
+    private final int classLoadTimeId;
+    private final int safepointCountId;
+    private final int safepointTimeId;
+    private final int safepointSyncTimeId;
+
+    private long previousNanos;
+    private long previousCompilationMillis;
+    private long previousLoaded;
+    private long previousUnloaded;
+    private long previousCompiles;
+    private long previousBailouts;
+    private long previousInvalidates;
+    private long previousClassLoadTicks;
+    private long previousSafepoints;
+    private long previousSafepointTicks;
+    private long previousSafepointSyncTicks;
+
+    public RuntimeMetricsCollector(MetricRegistry registry) {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        // Null with -Xint; without time monitoring the compilation time is always 0
+        this.compilationMXBean = compilation != null && compilation.isCompilationTimeMonitoringSupported()
+            ? compilation : null;
+        this.classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+
+        List<CodeHeapIds> heaps = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.NON_HEAP && pool.getName().startsWith("Code")) {
+                heaps.add(new CodeHeapIds(pool, registry));
+            }
+        }
+        this.codeHeaps = heaps.toArray(new CodeHeapIds[0]);
+
+        this.perf = PerfCounters.open();
+        boolean timer = perf != null && perf.hasTimer();
+        this.compilesCounter = perf != null ? perf.find("sun.ci.totalCompiles") : -1;
+        this.bailoutsCounter = perf != null ? perf.find("sun.ci.totalBailouts") : -1;
+        this.invalidatesCounter = perf != null ? perf.find("sun.ci.totalInvalidates") : -1;
+        this.classLoadTimeCounter = timer ? perf.find("sun.cls.time") : -1;
+        this.safepointsCounter = perf != null ? perf.find("sun.rt.safepoints") : -1;
+        this.safepointTimeCounter = timer ? perf.find("sun.rt.safepointTime") : -1;
+        this.safepointSyncTimeCounter = timer ? perf.find("sun.rt.safepointSyncTime") : -1;
+        if (safepointsCounter < 0) {
+            logger.info("HotSpot perf counters are not available; safepoint and compile counts are not reported");
+        }
+
+        this.compilationTimeId = compilationMXBean != null ? registry.longGauge("jit.compilation.time", "ms") : -1;
+        this.compilationsId = compilesCounter >= 0 ? registry.longGauge("jit.compilations", "count") : -1;
+        this.bailoutsId = bailoutsCounter >= 0 ? registry.longGauge("jit.bailouts", "count") : -1;
+        this.invalidationsId = invalidatesCounter >= 0 ? registry.longGauge("jit.invalidations", "count") : -1;
+        this.classCountId = registry.longGauge("classes.count", "count");
+        this.classLoadRateId = registry.doubleGauge("classes.load.rate", "classes/s");
+        this.classUnloadRateId = registry.doubleGauge("classes.unload.rate", "classes/s");
+        this.classLoadTimeId = classLoadTimeCounter >= 0 ? registry.longGauge("classes.load.time", "us") : -1;
+        this.safepointCountId = safepointsCounter >= 0 ? registry.longGauge("safepoint.count", "count") : -1;
+        this.safepointTimeId = safepointTimeCounter >= 0 ? registry.longGauge("safepoint.time", "us") : -1;
+        this.safepointSyncTimeId = safepointSyncTimeCounter >= 0
+            ? registry.longGauge("safepoint.sync.time", "us") : -1;
+
+        // The first interval starts now, so the first cycle already reports deltas
+        this.previousNanos = System.nanoTime();
+        this.previousCompilationMillis = compilationMXBean != null ? compilationMXBean.getTotalCompilationTime() : 0;
+        this.previousLoaded = classLoadingMXBean.getTotalLoadedClassCount();
+        this.previousUnloaded = classLoadingMXBean.getUnloadedClassCount();
+        this.previousCompiles = read(compilesCounter);
+        this.previousBailouts = read(bailoutsCounter);
+        this.previousInvalidates = read(invalidatesCounter);
+        this.previousClassLoadTicks = read(classLoadTimeCounter);
+        this.previousSafepoints = read(safepointsCounter);
+        this.previousSafepointTicks = read(safepointTimeCounter);
+        this.previousSafepointSyncTicks = read(safepointSyncTimeCounter);
+    }
+
+    private long read(int counter) {
+        return counter >= 0 ? perf.get(counter) : 0;
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        long now = System.nanoTime();
+        long elapsed = now - previousNanos;
+        previousNanos = now;
+
+        if (compilationMXBean != null) {
+            long compilationMillis = compilationMXBean.getTotalCompilationTime();
+            snapshot.set(compilationTimeId, compilationMillis - previousCompilationMillis);
+            previousCompilationMillis = compilationMillis;
+        }
+        if (compilesCounter >= 0) {
+            long compiles = perf.get(compilesCounter);
+            snapshot.set(compilationsId, compiles - previousCompiles);
+            previousCompiles = compiles;
+        }
+        if (bailoutsCounter >= 0) {
+            long bailouts = perf.get(bailoutsCounter);
+            snapshot.set(bailoutsId, bailouts - previousBailouts);
+            previousBailouts = bailouts;
+        }
+        if (invalidatesCounter >= 0) {
+            long invalidates = perf.get(invalidatesCounter);
+            snapshot.set(invalidationsId, invalidates - previousInvalidates);
+            previousInvalidates = invalidates;
+        }
+
+        for (CodeHeapIds heap : codeHeaps) {
+            heap.collect(snapshot);
+        }
+
+        long loaded = classLoadingMXBean.getTotalLoadedClassCount();
+        long unloaded = classLoadingMXBean.getUnloadedClassCount();
+        snapshot.set(classCountId, classLoadingMXBean.getLoadedClassCount());
+        if (elapsed > 0) {
+            snapshot.set(classLoadRateId, (loaded - previousLoaded) * 1e9 / elapsed);
+            snapshot.set(classUnloadRateId, (unloaded - previousUnloaded) * 1e9 / elapsed);
+        }
+        previousLoaded = loaded;
+        previousUnloaded = unloaded;
+        if (classLoadTimeCounter >= 0) {
+            long ticks = perf.get(classLoadTimeCounter);
+            snapshot.set(classLoadTimeId, perf.ticksToNanos(ticks - previousClassLoadTicks) / 1_000);
+            previousClassLoadTicks = ticks;
+        }
+
+        if (safepointsCounter >= 0) {
+            long safepoints = perf.get(safepointsCounter);
+            snapshot.set(safepointCountId, safepoints - previousSafepoints);
+            previousSafepoints = safepoints;
+        }
+        if (safepointTimeCounter >= 0) {
+            long ticks = perf.get(safepointTimeCounter);
+            snapshot.set(safepointTimeId, perf.ticksToNanos(ticks - previousSafepointTicks) / 1_000);
+            previousSafepointTicks = ticks;
+        }
+        if (safepointSyncTimeCounter >= 0) {
+            long ticks = perf.get(safepointSyncTimeCounter);
+            snapshot.set(safepointSyncTimeId, perf.ticksToNanos(ticks - previousSafepointSyncTicks) / 1_000);
+            previousSafepointSyncTicks = ticks;
+        }
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        logger.info("{}=== JIT, Code Cache and Class Loading ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        StringBuilder jit = new StringBuilder();
+        if (compilationsId >= 0) {
+            jit.append(snapshot.getLong(compilationsId)).append(" compilations");
+        }
+        if (compilationTimeId >= 0) {
+            boolean counted = jit.length() > 0;
+            jit.append(counted ? " in " : "").append(snapshot.getLong(compilationTimeId))
+                .append(counted ? "ms" : "ms compiling");
+        }
+        if (bailoutsId >= 0) {
+            jit.append(", ").append(snapshot.getLong(bailoutsId)).append(" bailouts");
+        }
+        if (invalidationsId >= 0) {
+            jit.append(", ").append(snapshot.getLong(invalidationsId)).append(" invalidated");
+        }
+        if (jit.length() > 0) {
+            logger.info("{}JIT:{} {}", ColorCodes.BLUE, ColorCodes.RESET, jit);
+        }
+
+        for (CodeHeapIds heap : codeHeaps) {
+            if (!snapshot.isPresent(heap.usedId)) {
+                continue;
+            }
+            if (snapshot.isPresent(heap.usagePercentId)) {
+                double percent = snapshot.getDouble(heap.usagePercentId);
+                logger.info("{}Code Cache - {}:{} {}{}/{} MB ({}%){}", ColorCodes.BLUE, heap.segment, ColorCodes.RESET,
+                    ColorCodes.getColorForPercentage(percent), FormatUtils.formatMB(snapshot.getLong(heap.usedId)),
+                    FormatUtils.formatMB(snapshot.getLong(heap.maxId)), String.format("%.2f", percent),
+                    ColorCodes.RESET);
+            } else {
+                logger.info("{}Code Cache - {}:{} {} MB", ColorCodes.BLUE, heap.segment, ColorCodes.RESET,
+                    FormatUtils.formatMB(snapshot.getLong(heap.usedId)));
+            }
+        }
+
+        StringBuilder classes = new StringBuilder()
+            .append(snapshot.getLong(classCountId)).append(" loaded");
+        if (snapshot.isPresent(classLoadRateId)) {
+            classes.append(", ").append(String.format("%.2f", snapshot.getDouble(classLoadRateId))).append("/s loading, ")
+                .append(String.format("%.2f", snapshot.getDouble(classUnloadRateId))).append("/s unloading");
+        }
+        if (classLoadTimeId >= 0) {
+            classes.append(", ").append(FormatUtils.formatNanosToMillis(snapshot.getLong(classLoadTimeId) * 1_000))
+                .append("ms loading");
+        }
+        logger.info("{}Classes:{} {}", ColorCodes.BLUE, ColorCodes.RESET, classes);
+
+        if (safepointCountId >= 0) {
+            long safepoints = snapshot.getLong(safepointCountId);
+            logger.info("{}Safepoints:{} {}{}{} (total {}ms, reaching safepoint {}ms)",
+                ColorCodes.BLUE, ColorCodes.RESET, safepoints > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN,
+                safepoints, ColorCodes.RESET,
+                safepointTimeId >= 0 ? FormatUtils.formatNanosToMillis(snapshot.getLong(safepointTimeId) * 1_000) : "n/a",
+                safepointSyncTimeId >= 0
+                    ? FormatUtils.formatNanosToMillis(snapshot.getLong(safepointSyncTimeId) * 1_000) : "n/a");
+        }
+    }
+
+    /** Metric ids of one code cache segment. */
+    private static final class CodeHeapIds {
+        final MemoryPoolMXBean bean;
+        final String segment;
+        final int usedId;
+        final int maxId;
+        final int usagePercentId;
+
+        CodeHeapIds(MemoryPoolMXBean bean, MetricRegistry registry) {
+            this.bean = bean;
+            this.segment = segmentName(bean.getName());
+            this.usedId = registry.longGauge("codecache.used", "bytes", "segment", segment);
+            this.maxId = registry.longGauge("codecache.max", "bytes", "segment", segment);
+            this.usagePercentId = registry.doubleGauge("codecache.usage", "percent", "segment", segment);
+        }
+
+        /**
+         * Turns {@code CodeHeap 'non-profiled nmethods'} into {@code non-profiled-nmethods} and
+         * {@code Code Cache} into {@code code-cache}.
+         */
+        static String segmentName(String pool) {
+            String name = pool.startsWith("CodeHeap '") && pool.endsWith("'")
+                ? pool.substring("CodeHeap '".length(), pool.length() - 1)
+                : pool;
+            return name.toLowerCase(Locale.ROOT).replace(' ', '-');
+        }
+
+        void collect(MetricsSnapshot snapshot) {
+            if (!bean.isValid()) {
+                return;
+            }
+            MemoryUsage usage = bean.getUsage();
+            snapshot.set(usedId, usage.getUsed());
+            if (usage.getMax() > 0) {
+                snapshot.set(maxId, usage.getMax());
+                snapshot.set(usagePercentId, (double) usage.getUsed() / usage.getMax() * 100);
+            }
+        }
+    }
+
+    /**
+     * Provides the runtime collector when {@code runtime-enabled} is set.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "runtime";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isRuntimeEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getRuntimeIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            return new RuntimeMetricsCollector(context.getRegistry());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.LongLongMap;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Per-thread CPU time accounting used by {@link ThreadMetricsCollector}.
+ *
+ * Each cycle reads {@code getThreadCpuTime} and {@code getThreadUserTime} for every live thread,
+ * computes the delta against the previous cycle and keeps the top-N hottest threads as well as
+ * CPU time per thread-name group (the name with its trailing digits removed, e.g.
+ * {@code http-nio-8080-exec-*}).
+ *
+ * Previous values are kept in two pairs of {@link LongLongMap}s that are swapped every cycle,
+ * so threads that died are dropped automatically and nothing is allocated per thread. The cost
+ * of a cycle is linear in the number of threads.
+ */
+final class ThreadCpuAccounting {
+    static final int MAX_GROUPS = 64;
+    private static final String OTHER_GROUP = "other";
+
+    private final ThreadMXBean threadMXBean;
+    private final MetricRegistry registry;
+    private final int topN;
+
+    private LongLongMap previousCpu = new LongLongMap(256);
+    private LongLongMap previousUser = new LongLongMap(256);
+    private LongLongMap currentCpu = new LongLongMap(256);
+    private LongLongMap currentUser = new LongLongMap(256);
+    private long previousWallNanos;
+
+    private final long[] topCpu;
+    private final long[] topUser;
+    private final String[] topNames;
+    private int topCount;
+
+    /** Maps the hash of a group prefix to its index in the group arrays */
+    private final LongLongMap groupIndex = new LongLongMap(MAX_GROUPS);
+    private final String[] groupNames = new String[MAX_GROUPS + 1];
+    private final int[] groupIds = new int[MAX_GROUPS + 1];
+    private final long[] groupCpu = new long[MAX_GROUPS + 1];
+    private int groupCount;
+
+    private final int totalCpuId;
+    private final int totalUserId;
+    private final int cpuUsageId;
+    private final int[] topCpuIds;
+
+    ThreadCpuAccounting(ThreadMXBean threadMXBean, MetricRegistry registry, int topN) {
+        this.threadMXBean = threadMXBean;
+        this.registry = registry;
+        this.topN = topN;
+        this.topCpu = new long[topN];
+        this.topUser = new long[topN];
+        this.topNames = new String[topN];
+        this.totalCpuId = registry.counter("threads.cpu.time", "ns", "mode", "total");
+        this.totalUserId = registry.counter("threads.cpu.time", "ns", "mode", "user");
+        this.cpuUsageId = registry.doubleGauge("threads.cpu.usage", "percent");
+        this.topCpuIds = new int[topN];
+        for (int i = 0; i < topN; i++) {
+            topCpuIds[i] = registry.doubleGauge("threads.cpu.top", "percent", "rank", Integer.toString(i + 1));
+        }
+        if (threadMXBean.isThreadCpuTimeSupported() && !threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * @return true if the JVM can measure per-thread CPU time
+     */
+    boolean isSupported() {
+        return threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Accounts CPU time for the threads of the current cycle's cheap dump.
+     *
+     * @param threadInfos Live threads of this cycle
+     * @param snapshot The snapshot of the current cycle
+     */
+    void collect(ThreadInfo[] threadInfos, MetricsSnapshot snapshot) {
+        long wallNanos = System.nanoTime();
+        long wallDelta = previousWallNanos == 0 ? 0 : wallNanos - previousWallNanos;
+        previousWallNanos = wallNanos;
+
+        topCount = 0;
+        Arrays.fill(groupCpu, 0L);
+        long totalCpu = 0;
+        long totalUser = 0;
+
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null) {
+                continue;
+            }
+            long threadId = threadInfo.getThreadId();
+            long cpu = threadMXBean.getThreadCpuTime(threadId);
+            long user = threadMXBean.getThreadUserTime(threadId);
+            if (cpu < 0) {
+                // Thread died between the dump and this call
+                continue;
+            }
+            currentCpu.put(threadId, cpu);
+            currentUser.put(threadId, user);
+
+            // Threads that appeared since the last cycle have no baseline yet
+            long cpuDelta = cpu - previousCpu.get(threadId, cpu);
+            long userDelta = user - previousUser.get(threadId, user);
+            totalCpu += cpuDelta;
+            totalUser += userDelta;
+            if (cpuDelta > 0) {
+                offerTop(threadInfo.getThreadName(), cpuDelta, userDelta);
+                groupCpu[groupOf(threadInfo.getThreadName())] += cpuDelta;
+            }
+        }
+
+        // Swap maps; threads missing from this cycle are evicted with the cleared map
+        LongLongMap swap = previousCpu;
+        previousCpu = currentCpu;
+        currentCpu = swap;
+        currentCpu.clear();
+        swap = previousUser;
+        previousUser = currentUser;
+        currentUser = swap;
+        currentUser.clear();
+
+        if (wallDelta <= 0) {
+            return;
+        }
+        snapshot.set(totalCpuId, totalCpu);
+        snapshot.set(totalUserId, totalUser);
+        snapshot.set(cpuUsageId, totalCpu * 100.0 / wallDelta);
+        for (int i = 0; i < topCount; i++) {
+            snapshot.set(topCpuIds[i], topCpu[i] * 100.0 / wallDelta);
+        }
+        for (int i = 0; i < getGroupCount(); i++) {
+            snapshot.set(groupIds[i], groupCpu[i] * 100.0 / wallDelta);
+        }
+    }
+
+    /**
+     * Inserts a thread into the sorted top-N arrays if it is hot enough.
+     */
+    private void offerTop(String name, long cpuDelta, long userDelta) {
+        if (topN == 0 || (topCount == topN && cpuDelta <= topCpu[topN - 1])) {
+            return;
+        }
+        int position = topCount < topN ? topCount++ : topN - 1;
+        while (position > 0 && topCpu[position - 1] < cpuDelta) {
+            topCpu[position] = topCpu[position - 1];
+            topUser[position] = topUser[position - 1];
+            topNames[position] = topNames[position - 1];
+            position--;
+        }
+        topCpu[position] = cpuDelta;
+        topUser[position] = userDelta;
+        topNames[position] = name;
+    }
+
+    /**
+     * Resolves the group of a thread name without allocating for groups seen before.
+     * The group is the name with trailing digits stripped.
+     */
+    private int groupOf(String name) {
+        int end = name.length();
+        while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        long hash = 1125899906842597L;
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + name.charAt(i);
+        }
+        long index = groupIndex.get(hash, -1);
+        if (index >= 0) {
+            return (int) index;
+        }
+        if (groupCount == MAX_GROUPS) {
+            if (groupNames[MAX_GROUPS] == null) {
+                groupNames[MAX_GROUPS] = OTHER_GROUP;
+                groupIds[MAX_GROUPS] = registry.doubleGauge("threads.cpu.group", "percent", "group", OTHER_GROUP);
+            }
+            return MAX_GROUPS;
+        }
+        String group = end < name.length() ? name.substring(0, end) + "*" : name;
+        groupNames[groupCount] = group;
+        groupIds[groupCount] = registry.doubleGauge("threads.cpu.group", "percent", "group", group);
+        groupIndex.put(hash, groupCount);
+        return groupCount++;
+    }
+
+    int getTopCount() {
+        return topCount;
+    }
+
+    String getTopName(int rank) {
+        return topNames[rank];
+    }
+
+    long getTopCpuNanos(int rank) {
+        return topCpu[rank];
+    }
+
+    long getTopUserNanos(int rank) {
+        return topUser[rank];
+    }
+
+    int getTopCpuId(int rank) {
+        return topCpuIds[rank];
+    }
+
+    /**
+     * @return Number of group slots in use, including the overflow group
+     */
+    int getGroupCount() {
+        // The overflow group only exists once all regular slots are taken, so slots stay contiguous
+        return groupNames[MAX_GROUPS] != null ? MAX_GROUPS + 1 : groupCount;
+    }
+
+    String getGroupName(int index) {
+        return groupNames[index];
+    }
+
+    int getGroupId(int index) {
+        return groupIds[index];
+    }
+
+    int getCpuUsageId() {
+        return cpuUsageId;
+    }
+}
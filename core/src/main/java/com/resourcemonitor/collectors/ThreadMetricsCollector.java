@@ -0,0 +1,521 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.ResourceMonitorProperties;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.management.LockInfo;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects and logs thread-related metrics including thread states, blocked threads,
+ * and thread pool statistics.
+ *
+ * Thread pools are the executors passed in at construction, normally all executor beans of the
+ * application context (see {@link ExecutorPoolMetrics}).
+ *
+ * Thread dumps are tiered to keep safepoint pauses short:
+ * 1. Every cycle takes one cheap dump without stack traces or lock info, which is shared by the
+ *    state counts and the blocked threads section.
+ * 2. Only when that pass finds BLOCKED threads, and the full-dump budget for the current minute
+ *    is not yet spent, are the blocked threads and their lock owners dumped again with locked
+ *    monitors, ownable synchronizers and stack traces.
+ *
+ * The wall time of each tier is reported; the dumping thread waits for the safepoint to
+ * complete, so this is a close approximation of the pause each tier causes.
+ *
+ * The cheap dump also drives per-thread CPU accounting (see {@link ThreadCpuAccounting}),
+ * which reports the hottest threads and thread-name groups of each cycle, and, when enabled,
+ * lock contention profiling (see {@link LockContentionProfiler}), which ranks the monitors
+ * threads were blocked on longest over a sliding window.
+ *
+ * Every cycle also runs {@link ThreadMXBean#findDeadlockedThreads()}. It only walks the lock
+ * owner graph, so it is cheap; the involved threads are dumped with full stacks only when a
+ * deadlock is actually found, once per distinct set of threads.
+ */
+public class ThreadMetricsCollector implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadMetricsCollector.class);
+    private static final Thread.State[] STATES = Thread.State.values();
+    private static final ThreadInfo[] NO_THREADS = new ThreadInfo[0];
+    private static final long[] NO_IDS = new long[0];
+    private static final long BUDGET_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_LOGGED_FRAMES = 5;
+
+    private final ThreadMXBean threadMXBean;
+    private final ThreadCpuAccounting cpuAccounting;
+    private final LockContentionProfiler contentionProfiler;
+    private final ExecutorPoolMetrics executorMetrics;
+    private final long fullDumpBudgetNanos;
+
+    private final int threadCountId;
+    private final int daemonThreadCountId;
+    private final int peakThreadCountId;
+    private final int[] stateIds = new int[STATES.length];
+    private final long[] stateCounts = new long[STATES.length];
+    private final int cheapDumpTimeId;
+    private final int fullDumpTimeId;
+    private final int fullDumpCountId;
+    private final int fullDumpSkippedId;
+    private final int deadlockedId;
+
+    private long fullDumpCount;
+    private long fullDumpSkipped;
+    private long budgetWindowStart = System.nanoTime();
+    private long budgetSpentNanos;
+    private volatile boolean degraded;
+    private long[] blockedIds = new long[16];
+    /** Sorted ids of the last deadlock that was dumped, so that a persisting deadlock is dumped once */
+    private long[] lastDeadlock = NO_IDS;
+
+    /** Cheap thread dump of the last cycle, kept for the blocked threads section of the log */
+    private ThreadInfo[] lastThreadInfos = NO_THREADS;
+    /** Lock-info dump of the blocked threads and their owners, empty when the full tier did not run */
+    private ThreadInfo[] lastLockInfos = NO_THREADS;
+
+    /**
+     * Creates a new ThreadMetricsCollector with the default {@link Options}.
+     *
+     * @param registry Registry in which the thread metric slots are registered
+     */
+    public ThreadMetricsCollector(MetricRegistry registry) {
+        this(registry, new Options());
+    }
+
+    /**
+     * Creates a new ThreadMetricsCollector.
+     *
+     * @param registry Registry in which the thread metric slots are registered
+     * @param options Dump budget, CPU accounting, contention profiling and executors to report
+     */
+    public ThreadMetricsCollector(MetricRegistry registry, Options options) {
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        this.cpuAccounting = options.cpuTopThreads > 0 && threadMXBean.isThreadCpuTimeSupported()
+            ? new ThreadCpuAccounting(threadMXBean, registry, options.cpuTopThreads)
+            : null;
+        boolean profileContention = options.contentionTopMonitors > 0 && LockContentionProfiler.isSupported(threadMXBean);
+        this.contentionProfiler = profileContention
+            ? new LockContentionProfiler(threadMXBean, registry, options.contentionTopMonitors,
+                TimeUnit.SECONDS.toMillis(options.contentionWindowSeconds))
+            : null;
+        this.executorMetrics = new ExecutorPoolMetrics(options.executors, registry, options.countRejections);
+        this.fullDumpBudgetNanos = TimeUnit.MILLISECONDS.toNanos(options.fullDumpBudgetMillis);
+        this.threadCountId = registry.longGauge("threads.live", "count");
+        this.daemonThreadCountId = registry.longGauge("threads.daemon", "count");
+        this.peakThreadCountId = registry.longGauge("threads.peak", "count");
+        for (Thread.State state : STATES) {
+            stateIds[state.ordinal()] = registry.longGauge("threads.state", "count", "state", state.name());
+        }
+        this.cheapDumpTimeId = registry.longGauge("threads.dump.time", "us", "tier", "cheap");
+        this.fullDumpTimeId = registry.longGauge("threads.dump.time", "us", "tier", "full");
+        this.fullDumpCountId = registry.counter("threads.dump.full", "count");
+        this.fullDumpSkippedId = registry.counter("threads.dump.full.skipped", "count");
+        this.deadlockedId = registry.longGauge("threads.deadlocked", "count");
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        snapshot.set(threadCountId, threadMXBean.getThreadCount());
+        snapshot.set(daemonThreadCountId, threadMXBean.getDaemonThreadCount());
+        snapshot.set(peakThreadCountId, threadMXBean.getPeakThreadCount());
+        int blocked = collectThreadStates(snapshot);
+        collectLockInfo(blocked, snapshot);
+        if (cpuAccounting != null && cpuAccounting.isSupported() && !degraded) {
+            cpuAccounting.collect(lastThreadInfos, snapshot);
+        }
+        if (contentionProfiler != null && !degraded) {
+            contentionProfiler.collect(lastThreadInfos, snapshot);
+        }
+        checkDeadlocks(snapshot);
+        executorMetrics.collect(snapshot);
+        snapshot.set(fullDumpCountId, fullDumpCount);
+        snapshot.set(fullDumpSkippedId, fullDumpSkipped);
+    }
+
+    /**
+     * Cheap tier: one dump without stack traces or lock info.
+     *
+     * @return Number of BLOCKED threads found
+     */
+    private int collectThreadStates(MetricsSnapshot snapshot) {
+        long start = System.nanoTime();
+        ThreadInfo[] threadInfos = threadMXBean.dumpAllThreads(false, false, 0);
+        snapshot.set(cheapDumpTimeId, (System.nanoTime() - start) / 1_000);
+
+        Arrays.fill(stateCounts, 0L);
+        int blocked = 0;
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null) {
+                continue;
+            }
+            Thread.State state = threadInfo.getThreadState();
+            stateCounts[state.ordinal()]++;
+            if (state == Thread.State.BLOCKED) {
+                blocked = addBlockedId(blocked, threadInfo.getThreadId());
+                if (threadInfo.getLockOwnerId() >= 0) {
+                    blocked = addBlockedId(blocked, threadInfo.getLockOwnerId());
+                }
+            }
+        }
+        for (int i = 0; i < STATES.length; i++) {
+            snapshot.set(stateIds[i], stateCounts[i]);
+        }
+        lastThreadInfos = threadInfos;
+        return blocked;
+    }
+
+    private int addBlockedId(int count, long threadId) {
+        if (count == blockedIds.length) {
+            blockedIds = Arrays.copyOf(blockedIds, count * 2);
+        }
+        blockedIds[count] = threadId;
+        return count + 1;
+    }
+
+    /**
+     * Full tier: lock info and stacks for the blocked threads and their lock owners,
+     * only while the per-minute budget allows it.
+     */
+    private void collectLockInfo(int blockedIdCount, MetricsSnapshot snapshot) {
+        lastLockInfos = NO_THREADS;
+        if (blockedIdCount == 0 || fullDumpBudgetNanos <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - budgetWindowStart >= BUDGET_WINDOW_NANOS) {
+            budgetWindowStart = now;
+            budgetSpentNanos = 0;
+        }
+        if (degraded || budgetSpentNanos >= fullDumpBudgetNanos) {
+            fullDumpSkipped++;
+            return;
+        }
+
+        long[] ids = Arrays.copyOf(blockedIds, blockedIdCount);
+        long start = System.nanoTime();
+        lastLockInfos = threadMXBean.getThreadInfo(ids,
+            threadMXBean.isObjectMonitorUsageSupported(),
+            threadMXBean.isSynchronizerUsageSupported());
+        long elapsed = System.nanoTime() - start;
+        budgetSpentNanos += elapsed;
+        fullDumpCount++;
+        snapshot.set(fullDumpTimeId, elapsed / 1_000);
+    }
+
+    /**
+     * Deadlock fast path: the check itself runs every cycle, even when degraded, and the
+     * involved threads are dumped with locks and full stacks only when the set of
+     * deadlocked threads changes.
+     */
+    private void checkDeadlocks(MetricsSnapshot snapshot) {
+        long[] deadlocked = threadMXBean.isSynchronizerUsageSupported()
+            ? threadMXBean.findDeadlockedThreads()
+            : threadMXBean.findMonitorDeadlockedThreads();
+        if (deadlocked == null) {
+            snapshot.set(deadlockedId, 0);
+            lastDeadlock = NO_IDS;
+            return;
+        }
+        snapshot.set(deadlockedId, deadlocked.length);
+        Arrays.sort(deadlocked);
+        if (Arrays.equals(deadlocked, lastDeadlock)) {
+            return;
+        }
+        lastDeadlock = deadlocked;
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(deadlocked,
+            threadMXBean.isObjectMonitorUsageSupported(), threadMXBean.isSynchronizerUsageSupported());
+        logger.error("{}Deadlock detected between {} threads{}", ColorCodes.BOLD + ColorCodes.RED,
+            deadlocked.length, ColorCodes.RESET);
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null) {
+                continue;
+            }
+            logger.error("{}Thread:{} {}{}{} waiting on {} held by {}", ColorCodes.BLUE, ColorCodes.RESET,
+                ColorCodes.RED, threadInfo.getThreadName(), ColorCodes.RESET,
+                threadInfo.getLockName(), threadInfo.getLockOwnerName());
+            StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+            for (int depth = 0; depth < stackTrace.length; depth++) {
+                logger.error("{}    at {}{}", ColorCodes.CYAN, stackTrace[depth], ColorCodes.RESET);
+                for (MonitorInfo monitor : threadInfo.getLockedMonitors()) {
+                    if (monitor.getLockedStackDepth() == depth) {
+                        logger.error("{}    - locked {}{}", ColorCodes.YELLOW, monitor, ColorCodes.RESET);
+                    }
+                }
+            }
+            for (LockInfo synchronizer : threadInfo.getLockedSynchronizers()) {
+                logger.error("{}    - holds {}{}", ColorCodes.YELLOW, synchronizer, ColorCodes.RESET);
+            }
+        }
+    }
+
+    /**
+     * The degraded tier keeps the cheap state dump and the deadlock check, and skips lock
+     * details, per-thread CPU and contention profiling.
+     */
+    @Override
+    public boolean supportsDegradedMode() {
+        return true;
+    }
+
+    @Override
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        logThreadStates(snapshot);
+        logBlockedThreads();
+        logThreadCpu(snapshot);
+        logHotMonitors();
+        logDeadlocks(snapshot);
+        logThreadPoolMetrics(snapshot);
+        logDumpCost(snapshot);
+    }
+
+    private void logThreadStates(MetricsSnapshot snapshot) {
+        logger.info("{}=== Thread States ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        for (Thread.State state : STATES) {
+            long count = snapshot.getLong(stateIds[state.ordinal()]);
+            if (count > 0) {
+                String color = ColorCodes.getColorForThreadState(state);
+                logger.info("{}Threads in {} state:{} {}{}{}", 
+                    ColorCodes.BLUE, state, ColorCodes.RESET, color, count, ColorCodes.RESET);
+            }
+        }
+    }
+
+    private void logBlockedThreads() {
+        boolean hasBlockedThreads = false;
+
+        for (ThreadInfo threadInfo : lastThreadInfos) {
+            if (threadInfo != null && threadInfo.getThreadState() == Thread.State.BLOCKED) {
+                if (!hasBlockedThreads) {
+                    logger.info("{}=== Blocked Threads ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+                    hasBlockedThreads = true;
+                }
+
+                long blockedTime = threadInfo.getBlockedTime();
+                String blockedTimeStr = blockedTime > 0 ? 
+                    FormatUtils.formatNanosToMillis(blockedTime * 1_000_000) + "ms" : "N/A";
+
+                logger.info("{}Thread:{} {}{}{}", 
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.RED, threadInfo.getThreadName(), ColorCodes.RESET);
+                logger.info("{}  Blocked Time:{} {}{}{}", 
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.RED, blockedTimeStr, ColorCodes.RESET);
+                logger.info("{}  Blocked by:{} {}{}{}", 
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.YELLOW, threadInfo.getLockOwnerName(), ColorCodes.RESET);
+                logLockDetails(threadInfo.getThreadId());
+            }
+        }
+    }
+
+    /**
+     * Logs the lock and top stack frames of a blocked thread when the full tier ran this cycle.
+     */
+    private void logLockDetails(long threadId) {
+        for (ThreadInfo lockInfo : lastLockInfos) {
+            if (lockInfo != null && lockInfo.getThreadId() == threadId) {
+                logger.info("{}  Waiting on:{} {}{}{}", 
+                    ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.YELLOW, lockInfo.getLockName(), ColorCodes.RESET);
+                StackTraceElement[] stackTrace = lockInfo.getStackTrace();
+                for (int i = 0; i < Math.min(stackTrace.length, MAX_LOGGED_FRAMES); i++) {
+                    logger.info("{}    at {}{}", ColorCodes.CYAN, stackTrace[i], ColorCodes.RESET);
+                }
+                return;
+            }
+        }
+    }
+
+    private void logThreadCpu(MetricsSnapshot snapshot) {
+        if (cpuAccounting == null || !snapshot.isPresent(cpuAccounting.getCpuUsageId())) {
+            return;
+        }
+        logger.info("{}=== Thread CPU ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        logger.info("{}All Threads:{} {}{}% of one core{}", 
+            ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN,
+            String.format("%.2f", snapshot.getDouble(cpuAccounting.getCpuUsageId())), ColorCodes.RESET);
+
+        for (int rank = 0; rank < cpuAccounting.getTopCount(); rank++) {
+            double usage = snapshot.getDouble(cpuAccounting.getTopCpuId(rank));
+            logger.info("{}  #{} {}:{} {}{}% (user {}ms, total {}ms){}", 
+                ColorCodes.BLUE, rank + 1, cpuAccounting.getTopName(rank), ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(usage), String.format("%.2f", usage),
+                FormatUtils.formatNanosToMillis(cpuAccounting.getTopUserNanos(rank)),
+                FormatUtils.formatNanosToMillis(cpuAccounting.getTopCpuNanos(rank)),
+                ColorCodes.RESET);
+        }
+
+        // Hottest thread groups, sorted at log time only
+        List<Integer> groups = new ArrayList<>();
+        for (int i = 0; i < cpuAccounting.getGroupCount(); i++) {
+            if (snapshot.getDouble(cpuAccounting.getGroupId(i)) > 0) {
+                groups.add(i);
+            }
+        }
+        groups.sort((a, b) -> Double.compare(
+            snapshot.getDouble(cpuAccounting.getGroupId(b)), snapshot.getDouble(cpuAccounting.getGroupId(a))));
+        for (int i = 0; i < Math.min(groups.size(), cpuAccounting.getTopCount()); i++) {
+            int group = groups.get(i);
+            logger.info("{}  Group {}:{} {}{}%{}", 
+                ColorCodes.BLUE, cpuAccounting.getGroupName(group), ColorCodes.RESET, ColorCodes.CYAN,
+                String.format("%.2f", snapshot.getDouble(cpuAccounting.getGroupId(group))), ColorCodes.RESET);
+        }
+    }
+
+    private void logHotMonitors() {
+        if (contentionProfiler == null) {
+            return;
+        }
+        List<LockContentionProfiler.HotMonitor> top = contentionProfiler.getTop();
+        if (top.isEmpty()) {
+            return;
+        }
+        logger.info("{}=== Hottest Monitors (last {}s) ==={}", ColorCodes.BOLD + ColorCodes.PURPLE,
+            contentionProfiler.getWindowMillis() / 1000, ColorCodes.RESET);
+        for (int rank = 0; rank < top.size(); rank++) {
+            LockContentionProfiler.HotMonitor monitor = top.get(rank);
+            logger.info("{}  #{} {}:{} {}{}ms blocked, {} times{}", 
+                ColorCodes.BLUE, rank + 1, monitor.lockName, ColorCodes.RESET, ColorCodes.RED,
+                monitor.windowBlockedMillis(), monitor.windowBlockedCount(), ColorCodes.RESET);
+            logger.info("{}    at {}{}", ColorCodes.CYAN, monitor.frame, ColorCodes.RESET);
+        }
+    }
+
+    private void logDeadlocks(MetricsSnapshot snapshot) {
+        long deadlocked = snapshot.getLong(deadlockedId);
+        if (deadlocked > 0) {
+            logger.error("{}Deadlocked Threads:{} {}{} (stacks logged when first detected){}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.RED, deadlocked, ColorCodes.RESET);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (contentionProfiler != null) {
+            contentionProfiler.close();
+        }
+        executorMetrics.close();
+    }
+
+    private void logThreadPoolMetrics(MetricsSnapshot snapshot) {
+        if (executorMetrics.isEmpty()) {
+            return;
+        }
+        logger.info("{}=== Thread Pool Metrics ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        executorMetrics.log(logger, snapshot);
+    }
+
+    private void logDumpCost(MetricsSnapshot snapshot) {
+        logger.info("{}Thread Dump Cost:{} {}cheap {}us{}", 
+            ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, snapshot.getLong(cheapDumpTimeId), ColorCodes.RESET);
+        if (snapshot.isPresent(fullDumpTimeId)) {
+            logger.info("{}  Full Lock-Info Dump:{} {}{}us{}", 
+                ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.YELLOW, snapshot.getLong(fullDumpTimeId), ColorCodes.RESET);
+        }
+    }
+
+    /**
+     * Provides the thread collector when {@code thread-enabled} is set. Executors are only
+     * looked up when {@code executor-enabled} is set as well.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "thread";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isThreadEnabled();
+        }
+
+        @Override
+        public long getIntervalMillis(CollectorContext context) {
+            return context.getProperties().getThreadIntervalMillis();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            ResourceMonitorProperties properties = context.getProperties();
+            Options options = new Options()
+                .fullDumpBudgetMillis(properties.getThreadFullDumpBudgetMillis())
+                .cpuTopThreads(properties.getThreadCpuTopThreads())
+                .contention(properties.getThreadContentionTopMonitors(),
+                    properties.getThreadContentionWindowSeconds());
+            if (properties.isExecutorEnabled()) {
+                options.executors(context.getExecutors(), properties.isExecutorRejectionCountingEnabled());
+            }
+            return new ThreadMetricsCollector(context.getRegistry(), options);
+        }
+    }
+
+    /**
+     * Settings of a {@link ThreadMetricsCollector}. The defaults match those of
+     * {@link ResourceMonitorProperties}; no executors are reported unless set.
+     */
+    public static final class Options {
+        private long fullDumpBudgetMillis = 50;
+        private int cpuTopThreads = 5;
+        private int contentionTopMonitors;
+        private long contentionWindowSeconds = 300;
+        private Map<String, ? extends Executor> executors = Collections.emptyMap();
+        private boolean countRejections;
+
+        /**
+         * @param fullDumpBudgetMillis Maximum time per minute spent in full lock-info dumps;
+         *                             0 disables the full tier
+         * @return These options
+         */
+        public Options fullDumpBudgetMillis(long fullDumpBudgetMillis) {
+            this.fullDumpBudgetMillis = fullDumpBudgetMillis;
+            return this;
+        }
+
+        /**
+         * @param cpuTopThreads Number of hottest threads reported per cycle; 0 disables
+         *                      per-thread CPU accounting
+         * @return These options
+         */
+        public Options cpuTopThreads(int cpuTopThreads) {
+            this.cpuTopThreads = cpuTopThreads;
+            return this;
+        }
+
+        /**
+         * @param topMonitors Number of hottest monitors reported; 0 disables lock contention profiling
+         * @param windowSeconds Sliding window over which monitors are ranked
+         * @return These options
+         */
+        public Options contention(int topMonitors, long windowSeconds) {
+            this.contentionTopMonitors = topMonitors;
+            this.contentionWindowSeconds = windowSeconds;
+            return this;
+        }
+
+        /**
+         * @param executors Executors to report by name; executors without a pool are skipped
+         * @param countRejections true to count rejected tasks by wrapping the rejection handler of
+         *                        the executors' ThreadPoolExecutors
+         * @return These options
+         */
+        public Options executors(Map<String, ? extends Executor> executors, boolean countRejections) {
+            this.executors = executors;
+            this.countRejections = countRejections;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Adapter for c3p0 {@code ComboPooledDataSource} and its subclasses.
+ * Connection counts are those of the default user; c3p0 reports its timeouts in seconds
+ * except for the checkout timeout, and they are converted to milliseconds here.
+ */
+public class C3p0PoolAdapter implements PoolAdapter {
+    static final String DATA_SOURCE_CLASS = "com.mchange.v2.c3p0.AbstractComboPooledDataSource";
+
+    private final String poolName;
+    private final MethodHandle busy;
+    private final MethodHandle idle;
+    private final MethodHandle total;
+    private final MethodHandle awaiting;
+    private final MethodHandle maxPoolSize;
+    private final MethodHandle checkoutTimeout;
+    private final MethodHandle maxIdleTime;
+    private final MethodHandle maxConnectionAge;
+
+    C3p0PoolAdapter(DataSource dataSource, String defaultName) throws ReflectiveOperationException {
+        this.poolName = defaultName;
+        this.busy = PoolAccessors.longGetter(dataSource, "getNumBusyConnectionsDefaultUser");
+        this.idle = PoolAccessors.longGetter(dataSource, "getNumIdleConnectionsDefaultUser");
+        this.total = PoolAccessors.longGetter(dataSource, "getNumConnectionsDefaultUser");
+        this.awaiting = PoolAccessors.longGetter(dataSource, "getNumThreadsAwaitingCheckoutDefaultUser");
+        this.maxPoolSize = PoolAccessors.longGetter(dataSource, "getMaxPoolSize");
+        this.checkoutTimeout = PoolAccessors.longGetter(dataSource, "getCheckoutTimeout");
+        this.maxIdleTime = PoolAccessors.longGetter(dataSource, "getMaxIdleTime");
+        this.maxConnectionAge = PoolAccessors.longGetter(dataSource, "getMaxConnectionAge");
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public String getPoolType() {
+        return "c3p0";
+    }
+
+    @Override
+    public boolean read(PoolStats stats) throws Exception {
+        stats.active = PoolAccessors.invoke(busy);
+        stats.idle = PoolAccessors.invoke(idle);
+        stats.total = PoolAccessors.invoke(total);
+        stats.pending = PoolAccessors.invoke(awaiting);
+        stats.max = PoolAccessors.invoke(maxPoolSize);
+        stats.connectionTimeoutMillis = PoolAccessors.invoke(checkoutTimeout);
+        stats.idleTimeoutMillis = PoolAccessors.invoke(maxIdleTime) * 1_000;
+        stats.maxLifetimeMillis = PoolAccessors.invoke(maxConnectionAge) * 1_000;
+        return true;
+    }
+
+    /**
+     * Factory for {@link C3p0PoolAdapter}.
+     */
+    public static class Factory implements PoolAdapterFactory {
+        @Override
+        public boolean supports(DataSource dataSource) {
+            return PoolAccessors.isInstanceOf(dataSource, DATA_SOURCE_CLASS);
+        }
+
+        @Override
+        public PoolAdapter create(DataSource dataSource, String defaultName) throws Exception {
+            return new C3p0PoolAdapter(dataSource, defaultName);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.resourcemonitor.database;
+
+import com.resourcemonitor.util.LogHistogram;
+import com.resourcemonitor.util.StripedHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection acquire and hold latencies of one {@link InstrumentedDataSource}.
+ *
+ * Application threads record into striped, lock-free histograms (in nanoseconds); the collector
+ * drains them into per-interval histograms once per cycle.
+ */
+public final class ConnectionMetrics {
+    private final StripedHistogram acquire = new StripedHistogram();
+    private final StripedHistogram hold = new StripedHistogram();
+    private final LongAdder acquireFailures = new LongAdder();
+
+    void recordAcquire(long nanos) {
+        acquire.record(nanos);
+    }
+
+    void recordHold(long nanos) {
+        hold.record(nanos);
+    }
+
+    void recordAcquireFailure() {
+        acquireFailures.increment();
+    }
+
+    /**
+     * Moves the acquire latencies recorded since the last call into the target.
+     * @param target Histogram receiving the latencies in nanoseconds
+     */
+    public void drainAcquire(LogHistogram target) {
+        acquire.drainInto(target);
+    }
+
+    /**
+     * Moves the hold durations recorded since the last call into the target.
+     * @param target Histogram receiving the durations in nanoseconds
+     */
+    public void drainHold(LogHistogram target) {
+        hold.drainInto(target);
+    }
+
+    /**
+     * @return Number of failed getConnection calls since startup
+     */
+    public long getAcquireFailures() {
+        return acquireFailures.sum();
+    }
+}
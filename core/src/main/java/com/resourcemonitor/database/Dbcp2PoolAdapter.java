@@ -0,0 +1,66 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Adapter for Apache Commons DBCP2 {@code BasicDataSource}.
+ */
+public class Dbcp2PoolAdapter implements PoolAdapter {
+    static final String DATA_SOURCE_CLASS = "org.apache.commons.dbcp2.BasicDataSource";
+
+    private final String poolName;
+    private final MethodHandle numActive;
+    private final MethodHandle numIdle;
+    private final MethodHandle maxTotal;
+    private final MethodHandle maxWait;
+    private final MethodHandle minEvictableIdleTime;
+    private final MethodHandle maxConnLifetime;
+
+    Dbcp2PoolAdapter(DataSource dataSource, String defaultName) throws ReflectiveOperationException {
+        this.poolName = defaultName;
+        this.numActive = PoolAccessors.longGetter(dataSource, "getNumActive");
+        this.numIdle = PoolAccessors.longGetter(dataSource, "getNumIdle");
+        this.maxTotal = PoolAccessors.longGetter(dataSource, "getMaxTotal");
+        this.maxWait = PoolAccessors.longGetter(dataSource, "getMaxWaitMillis");
+        this.minEvictableIdleTime = PoolAccessors.longGetter(dataSource, "getMinEvictableIdleTimeMillis");
+        this.maxConnLifetime = PoolAccessors.longGetter(dataSource, "getMaxConnLifetimeMillis");
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public String getPoolType() {
+        return "DBCP2";
+    }
+
+    @Override
+    public boolean read(PoolStats stats) throws Exception {
+        stats.active = PoolAccessors.invoke(numActive);
+        stats.idle = PoolAccessors.invoke(numIdle);
+        stats.total = stats.active + stats.idle;
+        stats.max = PoolAccessors.invoke(maxTotal);
+        stats.connectionTimeoutMillis = PoolAccessors.invoke(maxWait);
+        stats.idleTimeoutMillis = PoolAccessors.invoke(minEvictableIdleTime);
+        stats.maxLifetimeMillis = PoolAccessors.invoke(maxConnLifetime);
+        return true;
+    }
+
+    /**
+     * Factory for {@link Dbcp2PoolAdapter}.
+     */
+    public static class Factory implements PoolAdapterFactory {
+        @Override
+        public boolean supports(DataSource dataSource) {
+            return PoolAccessors.isInstanceOf(dataSource, DATA_SOURCE_CLASS);
+        }
+
+        @Override
+        public PoolAdapter create(DataSource dataSource, String defaultName) throws Exception {
+            return new Dbcp2PoolAdapter(dataSource, defaultName);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+
+/**
+ * Fallback adapter for DataSources without a dedicated adapter.
+ * It only reports the DataSource type; no pool values are read.
+ */
+public class GenericPoolAdapter implements PoolAdapter {
+    private final String poolName;
+    private final String type;
+
+    public GenericPoolAdapter(DataSource dataSource, String defaultName) {
+        this.poolName = defaultName;
+        this.type = dataSource.getClass().getName();
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public String getPoolType() {
+        return type;
+    }
+
+    @Override
+    public boolean read(PoolStats stats) {
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Adapter for HikariCP.
+ *
+ * Runtime values come from {@code HikariPoolMXBean} (active, idle, total and threads awaiting a
+ * connection) and configuration from {@code HikariConfigMXBean}, including the real maximum pool
+ * size. The pool MXBean only exists once the pool has started, so it is resolved on the first
+ * cycle where it is available and cached from then on.
+ *
+ * HikariCP generates a name such as {@code HikariPool-1} only when the pool starts, usually on
+ * the first {@code getConnection()}; until then {@code getPoolName()} returns null and the
+ * default name is reported. Once a name has been read it is kept, so it is read at most until
+ * the first success.
+ */
+public class HikariPoolAdapter implements PoolAdapter {
+    static final String DATA_SOURCE_CLASS = "com.zaxxer.hikari.HikariDataSource";
+    private static final String POOL_MXBEAN = "com.zaxxer.hikari.HikariPoolMXBean";
+    private static final String CONFIG_MXBEAN = "com.zaxxer.hikari.HikariConfigMXBean";
+
+    private final DataSource dataSource;
+    private final String defaultName;
+    private final MethodHandle poolNameGetter;
+    private final MethodHandle poolBeanGetter;
+    private final MethodHandle activeConnections;
+    private final MethodHandle idleConnections;
+    private final MethodHandle totalConnections;
+    private final MethodHandle threadsAwaiting;
+    private final MethodHandle maximumPoolSize;
+    private final MethodHandle connectionTimeout;
+    private final MethodHandle idleTimeout;
+    private final MethodHandle maxLifetime;
+    private Object poolBean;
+    private volatile String poolName;
+
+    HikariPoolAdapter(DataSource dataSource, String defaultName) throws Exception {
+        this.dataSource = dataSource;
+        this.defaultName = defaultName;
+        ClassLoader loader = dataSource.getClass().getClassLoader();
+        Class<?> poolMXBean = Class.forName(POOL_MXBEAN, false, loader);
+        Class<?> configMXBean = Class.forName(CONFIG_MXBEAN, false, loader);
+
+        this.poolNameGetter = PoolAccessors.objectGetter(dataSource, "getPoolName");
+        this.poolBeanGetter = PoolAccessors.objectGetter(dataSource, "getHikariPoolMXBean");
+        this.activeConnections = PoolAccessors.interfaceLongGetter(poolMXBean, "getActiveConnections");
+        this.idleConnections = PoolAccessors.interfaceLongGetter(poolMXBean, "getIdleConnections");
+        this.totalConnections = PoolAccessors.interfaceLongGetter(poolMXBean, "getTotalConnections");
+        this.threadsAwaiting = PoolAccessors.interfaceLongGetter(poolMXBean, "getThreadsAwaitingConnection");
+
+        Object configBean = PoolAccessors.invokeObject(PoolAccessors.objectGetter(dataSource, "getHikariConfigMXBean"));
+        this.maximumPoolSize = PoolAccessors.interfaceLongGetter(configMXBean, "getMaximumPoolSize").bindTo(configBean);
+        this.connectionTimeout = PoolAccessors.interfaceLongGetter(configMXBean, "getConnectionTimeout").bindTo(configBean);
+        this.idleTimeout = PoolAccessors.interfaceLongGetter(configMXBean, "getIdleTimeout").bindTo(configBean);
+        this.maxLifetime = PoolAccessors.interfaceLongGetter(configMXBean, "getMaxLifetime").bindTo(configBean);
+    }
+
+    @Override
+    public String getPoolName() {
+        String name = poolName;
+        if (name != null) {
+            return name;
+        }
+        try {
+            Object value = PoolAccessors.invokeObject(poolNameGetter);
+            if (value == null) {
+                return defaultName;
+            }
+            name = value.toString();
+            poolName = name;
+            return name;
+        } catch (Exception e) {
+            return defaultName;
+        }
+    }
+
+    @Override
+    public String getPoolType() {
+        return "HikariCP";
+    }
+
+    @Override
+    public boolean read(PoolStats stats) throws Exception {
+        stats.max = PoolAccessors.invoke(maximumPoolSize);
+        stats.connectionTimeoutMillis = PoolAccessors.invoke(connectionTimeout);
+        stats.idleTimeoutMillis = PoolAccessors.invoke(idleTimeout);
+        stats.maxLifetimeMillis = PoolAccessors.invoke(maxLifetime);
+
+        Object pool = poolBean;
+        if (pool == null) {
+            pool = PoolAccessors.invokeObject(poolBeanGetter);
+            if (pool == null) {
+                return false;
+            }
+            poolBean = pool;
+        }
+        stats.active = PoolAccessors.invoke(activeConnections, pool);
+        stats.idle = PoolAccessors.invoke(idleConnections, pool);
+        stats.total = PoolAccessors.invoke(totalConnections, pool);
+        stats.pending = PoolAccessors.invoke(threadsAwaiting, pool);
+        return true;
+    }
+
+    /**
+     * Factory for {@link HikariPoolAdapter}.
+     */
+    public static class Factory implements PoolAdapterFactory {
+        @Override
+        public boolean supports(DataSource dataSource) {
+            return PoolAccessors.isInstanceOf(dataSource, DATA_SOURCE_CLASS);
+        }
+
+        @Override
+        public PoolAdapter create(DataSource dataSource, String defaultName) throws Exception {
+            return new HikariPoolAdapter(dataSource, defaultName);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * DataSource wrapper that times every {@code getConnection()} call and, optionally, how long
+ * each connection is held until it is closed.
+ *
+ * Pool gauges sampled once per interval miss pool-starvation spikes that last milliseconds;
+ * recording every acquisition catches them. The hot path adds two {@code System.nanoTime()}
+ * calls and one atomic increment, and returns the pool's own connection. Hold times need a
+ * connection wrapper per {@code getConnection()} call, which defeats the pools' escape-analysed
+ * proxies and costs about as much again, so they are only tracked on request.
+ */
+public class InstrumentedDataSource implements DataSource {
+    private final DataSource target;
+    private final boolean trackHold;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /**
+     * Creates a wrapper that times acquisitions only.
+     * @param target The DataSource to wrap
+     */
+    public InstrumentedDataSource(DataSource target) {
+        this(target, false);
+    }
+
+    /**
+     * @param target The DataSource to wrap
+     * @param trackHold true to also time how long each connection is held, at the cost of a
+     *                  wrapper object per {@code getConnection()} call
+     */
+    public InstrumentedDataSource(DataSource target, boolean trackHold) {
+        this.target = target;
+        this.trackHold = trackHold;
+    }
+
+    /**
+     * @return The wrapped DataSource
+     */
+    public DataSource getTarget() {
+        return target;
+    }
+
+    /**
+     * @return true if hold times are recorded
+     */
+    public boolean isHoldTracked() {
+        return trackHold;
+    }
+
+    /**
+     * @return Latencies recorded by this wrapper
+     */
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = target.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordAcquireFailure();
+            throw e;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquire(acquired - start);
+        return trackHold ? new InstrumentedConnection(connection, metrics, acquired) : connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = target.getConnection(username, password);
+        } catch (SQLException | RuntimeException e) {
+            metrics.recordAcquireFailure();
+            throw e;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquire(acquired - start);
+        return trackHold ? new InstrumentedConnection(connection, metrics, acquired) : connection;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return iface.isInstance(target) ? iface.cast(target) : target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || iface.isInstance(target) || target.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,35 @@
+package com.resourcemonitor.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in an {@link InstrumentedDataSource}.
+ *
+ * The wrapper only implements {@link DataSource}, so beans that are injected by their concrete
+ * pool type (e.g. {@code HikariDataSource}) must use {@code unwrap} instead; this is why the
+ * instrumentation is opt-in.
+ */
+public class InstrumentingDataSourcePostProcessor implements BeanPostProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentingDataSourcePostProcessor.class);
+
+    private final boolean trackHold;
+
+    /**
+     * @param trackHold true to also time how long connections are held
+     */
+    public InstrumentingDataSourcePostProcessor(boolean trackHold) {
+        this.trackHold = trackHold;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+            logger.debug("Instrumenting DataSource bean '{}'", beanName);
+            return new InstrumentedDataSource((DataSource) bean, trackHold);
+        }
+        return bean;
+    }
+}
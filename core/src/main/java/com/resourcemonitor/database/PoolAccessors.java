@@ -0,0 +1,107 @@
+package com.resourcemonitor.database;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Helpers for resolving pool accessors as {@link MethodHandle}s.
+ *
+ * Every accessor is adapted to return a {@code long}, so adapters can call
+ * {@code invokeExact} without boxing regardless of whether the pool returns an int or a long.
+ */
+final class PoolAccessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final MethodType LONG_GETTER = MethodType.methodType(long.class);
+    private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class);
+
+    private PoolAccessors() {} // Prevent instantiation
+
+    /**
+     * Checks whether an object's class or any superclass has the given name.
+     * Uses class names so that no pool library is needed on the classpath.
+     */
+    static boolean isInstanceOf(Object object, String className) {
+        for (Class<?> type = object.getClass(); type != null; type = type.getSuperclass()) {
+            if (type.getName().equals(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Binds a public no-argument numeric getter of the target as a {@code ()long} handle.
+     */
+    static MethodHandle longGetter(Object target, String methodName) throws ReflectiveOperationException {
+        return LOOKUP.unreflect(publicMethod(target.getClass(), methodName)).bindTo(target).asType(LONG_GETTER);
+    }
+
+    /**
+     * Binds a public no-argument getter of the target as a {@code ()Object} handle.
+     */
+    static MethodHandle objectGetter(Object target, String methodName) throws ReflectiveOperationException {
+        return LOOKUP.unreflect(publicMethod(target.getClass(), methodName)).bindTo(target).asType(OBJECT_GETTER);
+    }
+
+    /**
+     * Resolves a numeric getter declared by an interface as an unbound {@code (Object)long} handle.
+     */
+    static MethodHandle interfaceLongGetter(Class<?> type, String methodName) throws ReflectiveOperationException {
+        return LOOKUP.unreflect(type.getMethod(methodName))
+            .asType(MethodType.methodType(long.class, Object.class));
+    }
+
+    /**
+     * Finds a public method on the most specific public class or interface that declares it,
+     * since handles to methods of non-public classes cannot be created with the public lookup.
+     */
+    private static Method publicMethod(Class<?> type, String methodName) throws NoSuchMethodException {
+        Method method = type.getMethod(methodName);
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> iface : current.getInterfaces()) {
+                try {
+                    return iface.getMethod(methodName);
+                } catch (NoSuchMethodException e) {
+                    // Try the next interface
+                }
+            }
+        }
+        return method;
+    }
+
+    static long invoke(MethodHandle getter) throws Exception {
+        try {
+            return (long) getter.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static long invoke(MethodHandle getter, Object target) throws Exception {
+        try {
+            return (long) getter.invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static Object invokeObject(MethodHandle getter) throws Exception {
+        try {
+            return (Object) getter.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
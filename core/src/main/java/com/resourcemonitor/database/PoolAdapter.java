@@ -0,0 +1,29 @@
+package com.resourcemonitor.database;
+
+/**
+ * Reads the runtime state of one connection pool.
+ *
+ * An adapter is created once per DataSource when the collector starts, so any lookup of pool
+ * specific accessors happens at that point; {@link #read(PoolStats)} is called every cycle and
+ * should only invoke already resolved accessors.
+ */
+public interface PoolAdapter {
+    /**
+     * @return Name used as the "pool" tag of this pool's metrics
+     */
+    String getPoolName();
+
+    /**
+     * @return Human readable pool implementation, e.g. "HikariCP"
+     */
+    String getPoolType();
+
+    /**
+     * Reads the current pool values.
+     *
+     * @param stats Holder to fill; already cleared by the caller
+     * @return false if the pool is not started yet and no values were read
+     * @throws Exception if the pool could not be read
+     */
+    boolean read(PoolStats stats) throws Exception;
+}
@@ -0,0 +1,28 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates {@link PoolAdapter}s for one connection pool implementation.
+ *
+ * Factories are looked up by {@link PoolAdapterRegistry}. Support for a new pool can be added
+ * without touching the collector, either by registering a factory programmatically or by listing
+ * it in {@code META-INF/services/com.resourcemonitor.database.PoolAdapterFactory}.
+ */
+public interface PoolAdapterFactory {
+    /**
+     * @param dataSource The DataSource to check
+     * @return true if this factory can adapt the DataSource
+     */
+    boolean supports(DataSource dataSource);
+
+    /**
+     * Creates an adapter, resolving all accessors up front.
+     *
+     * @param dataSource The DataSource to adapt
+     * @param defaultName Pool name to use when the pool does not expose one
+     * @return The adapter
+     * @throws Exception if the pool's accessors could not be resolved
+     */
+    PoolAdapter create(DataSource dataSource, String defaultName) throws Exception;
+}
@@ -0,0 +1,63 @@
+package com.resourcemonitor.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Resolves a {@link PoolAdapter} for each DataSource.
+ *
+ * Factories registered with {@link #register(PoolAdapterFactory)} or discovered through
+ * {@link ServiceLoader} are consulted first, followed by the built-in HikariCP, Tomcat JDBC,
+ * DBCP2 and c3p0 factories. DataSources nobody supports get a {@link GenericPoolAdapter}.
+ * An {@link InstrumentedDataSource} is adapted through the pool it wraps.
+ */
+public class PoolAdapterRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(PoolAdapterRegistry.class);
+    private final List<PoolAdapterFactory> factories = new CopyOnWriteArrayList<>();
+
+    public PoolAdapterRegistry() {
+        for (PoolAdapterFactory factory : ServiceLoader.load(PoolAdapterFactory.class)) {
+            factories.add(factory);
+        }
+        factories.add(new HikariPoolAdapter.Factory());
+        factories.add(new TomcatPoolAdapter.Factory());
+        factories.add(new Dbcp2PoolAdapter.Factory());
+        factories.add(new C3p0PoolAdapter.Factory());
+    }
+
+    /**
+     * Registers a factory that takes precedence over all factories registered before it.
+     * @param factory The factory to add
+     */
+    public void register(PoolAdapterFactory factory) {
+        factories.add(0, factory);
+    }
+
+    /**
+     * Creates the adapter for a DataSource.
+     *
+     * @param dataSource The DataSource to adapt
+     * @param defaultName Pool name to use when the pool does not expose one
+     * @return The adapter; never null
+     */
+    public PoolAdapter adapt(DataSource dataSource, String defaultName) {
+        while (dataSource instanceof InstrumentedDataSource) {
+            dataSource = ((InstrumentedDataSource) dataSource).getTarget();
+        }
+        for (PoolAdapterFactory factory : factories) {
+            if (factory.supports(dataSource)) {
+                try {
+                    return factory.create(dataSource, defaultName);
+                } catch (Exception e) {
+                    logger.warn("Failed to create pool adapter for {}: {}",
+                        dataSource.getClass().getName(), e.getMessage());
+                }
+            }
+        }
+        return new GenericPoolAdapter(dataSource, defaultName);
+    }
+}
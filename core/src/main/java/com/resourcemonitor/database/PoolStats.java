@@ -0,0 +1,34 @@
+package com.resourcemonitor.database;
+
+/**
+ * Mutable holder for the values read from a connection pool in one cycle.
+ * Values a pool does not expose stay at {@link #UNKNOWN}. A single instance is reused
+ * across pools and cycles, so reading a pool does not allocate.
+ */
+public final class PoolStats {
+    public static final long UNKNOWN = -1;
+
+    public long active;
+    public long idle;
+    public long total;
+    public long max;
+    /** Threads currently waiting for a connection */
+    public long pending;
+    public long connectionTimeoutMillis;
+    public long idleTimeoutMillis;
+    public long maxLifetimeMillis;
+
+    /**
+     * Resets all values to {@link #UNKNOWN}.
+     */
+    public void clear() {
+        active = UNKNOWN;
+        idle = UNKNOWN;
+        total = UNKNOWN;
+        max = UNKNOWN;
+        pending = UNKNOWN;
+        connectionTimeoutMillis = UNKNOWN;
+        idleTimeoutMillis = UNKNOWN;
+        maxLifetimeMillis = UNKNOWN;
+    }
+}
@@ -0,0 +1,81 @@
+package com.resourcemonitor.database;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Adapter for the Tomcat JDBC connection pool.
+ *
+ * Tomcat's {@code getWaitCount()} is the number of threads currently waiting for a connection,
+ * so it is reported as pending; the pool does not expose cumulative wait times.
+ *
+ * Most pool getters of {@code DataSourceProxy} create the pool as a side effect, so they are only
+ * called once {@code getPoolSize()}, which does not, shows that the pool holds connections.
+ */
+public class TomcatPoolAdapter implements PoolAdapter {
+    static final String DATA_SOURCE_CLASS = "org.apache.tomcat.jdbc.pool.DataSourceProxy";
+
+    private final String poolName;
+    private final MethodHandle active;
+    private final MethodHandle idle;
+    private final MethodHandle poolSize;
+    private final MethodHandle maxActive;
+    private final MethodHandle waitCount;
+    private final MethodHandle maxWait;
+    private final MethodHandle minEvictableIdleTime;
+
+    TomcatPoolAdapter(DataSource dataSource, String defaultName) throws ReflectiveOperationException {
+        this.poolName = defaultName;
+        this.active = PoolAccessors.longGetter(dataSource, "getActive");
+        this.idle = PoolAccessors.longGetter(dataSource, "getIdle");
+        this.poolSize = PoolAccessors.longGetter(dataSource, "getPoolSize");
+        this.maxActive = PoolAccessors.longGetter(dataSource, "getMaxActive");
+        this.waitCount = PoolAccessors.longGetter(dataSource, "getWaitCount");
+        this.maxWait = PoolAccessors.longGetter(dataSource, "getMaxWait");
+        this.minEvictableIdleTime = PoolAccessors.longGetter(dataSource, "getMinEvictableIdleTimeMillis");
+    }
+
+    @Override
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public String getPoolType() {
+        return "Tomcat JDBC";
+    }
+
+    @Override
+    public boolean read(PoolStats stats) throws Exception {
+        stats.max = PoolAccessors.invoke(maxActive);
+        stats.connectionTimeoutMillis = PoolAccessors.invoke(maxWait);
+        stats.idleTimeoutMillis = PoolAccessors.invoke(minEvictableIdleTime);
+        stats.total = PoolAccessors.invoke(poolSize);
+        if (stats.total == 0) {
+            // Pool not created yet, or empty; do not trigger its creation
+            stats.active = 0;
+            stats.idle = 0;
+            stats.pending = 0;
+            return true;
+        }
+        stats.active = PoolAccessors.invoke(active);
+        stats.idle = PoolAccessors.invoke(idle);
+        stats.pending = PoolAccessors.invoke(waitCount);
+        return true;
+    }
+
+    /**
+     * Factory for {@link TomcatPoolAdapter}.
+     */
+    public static class Factory implements PoolAdapterFactory {
+        @Override
+        public boolean supports(DataSource dataSource) {
+            return PoolAccessors.isInstanceOf(dataSource, DATA_SOURCE_CLASS);
+        }
+
+        @Override
+        public PoolAdapter create(DataSource dataSource, String defaultName) throws Exception {
+            return new TomcatPoolAdapter(dataSource, defaultName);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.resourcemonitor.executor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts rejections and then applies the executor's original policy, so installing it does
+ * not change how rejected tasks are handled.
+ */
+final class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+    private final RejectedExecutionHandler delegate;
+    private final LongAdder rejected = new LongAdder();
+
+    CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    RejectedExecutionHandler getDelegate() {
+        return delegate;
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        rejected.increment();
+        delegate.rejectedExecution(task, executor);
+    }
+}
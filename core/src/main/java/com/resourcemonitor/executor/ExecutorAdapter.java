@@ -0,0 +1,41 @@
+package com.resourcemonitor.executor;
+
+/**
+ * Reads the runtime state of one executor.
+ *
+ * An adapter is created once per executor bean when the collector starts;
+ * {@link #read(ExecutorStats)} is called every cycle and must not allocate.
+ */
+public interface ExecutorAdapter {
+    /**
+     * @return Name used as the "executor" tag of this executor's metrics, normally the bean name
+     */
+    String getName();
+
+    /**
+     * @return Human readable executor implementation, e.g. "ThreadPoolExecutor"
+     */
+    String getType();
+
+    /**
+     * Reads the current executor values.
+     *
+     * @param stats Holder to fill; already cleared by the caller
+     * @return false if the executor is not initialized yet and no values were read
+     */
+    boolean read(ExecutorStats stats);
+
+    /**
+     * @return Task timings recorded by a {@link TimingTaskDecorator}, or null if the executor's
+     *         tasks are not instrumented
+     */
+    default TaskMetrics getTaskMetrics() {
+        return null;
+    }
+
+    /**
+     * Undoes any change made to the executor, such as the rejection counting handler.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,87 @@
+package com.resourcemonitor.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Resolves an {@link ExecutorAdapter} for each executor bean.
+ *
+ * Supported are plain {@link ThreadPoolExecutor}s (including scheduled executors),
+ * {@link ForkJoinPool}s, and Spring's {@link ThreadPoolTaskExecutor},
+ * {@link ThreadPoolTaskScheduler} and {@link ConcurrentTaskExecutor} wrappers around them.
+ * Executors without a pool, such as {@code SimpleAsyncTaskExecutor}, have nothing to report
+ * and are skipped.
+ *
+ * Rejections are only counted on request, because counting replaces the pool's rejection handler
+ * with a wrapper: code that later reads the handler back sees the wrapper, not its own policy.
+ */
+public final class ExecutorAdapters {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorAdapters.class);
+    // Task timings of the executors instrumented by InstrumentingExecutorPostProcessor
+    private static final Map<ThreadPoolTaskExecutor, TaskMetrics> TIMED =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ExecutorAdapters() {} // Prevent instantiation
+
+    /**
+     * Creates the adapter for an executor, without counting rejections.
+     *
+     * @param name Name used as the "executor" tag, normally the bean name
+     * @param executor The executor to adapt
+     * @return The adapter, or null if the executor has no pool to report on
+     */
+    public static ExecutorAdapter adapt(String name, Executor executor) {
+        return adapt(name, executor, false);
+    }
+
+    /**
+     * Creates the adapter for an executor.
+     *
+     * @param name Name used as the "executor" tag, normally the bean name
+     * @param executor The executor to adapt
+     * @param countRejections true to wrap the rejection handler of ThreadPoolExecutors in a
+     *                        counting handler
+     * @return The adapter, or null if the executor has no pool to report on
+     */
+    public static ExecutorAdapter adapt(String name, Executor executor, boolean countRejections) {
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) executor;
+            return new ThreadPoolExecutorAdapter(name, "ThreadPoolTaskExecutor", taskExecutor::getThreadPoolExecutor,
+                TIMED.get(taskExecutor), countRejections);
+        }
+        if (executor instanceof ThreadPoolTaskScheduler) {
+            ThreadPoolTaskScheduler scheduler = (ThreadPoolTaskScheduler) executor;
+            return new ThreadPoolExecutorAdapter(name, "ThreadPoolTaskScheduler",
+                scheduler::getScheduledThreadPoolExecutor, null, countRejections);
+        }
+        if (executor instanceof ConcurrentTaskExecutor) {
+            return adapt(name, ((ConcurrentTaskExecutor) executor).getConcurrentExecutor(), countRejections);
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            return new ThreadPoolExecutorAdapter(name, pool.getClass().getSimpleName(), () -> pool, null,
+                countRejections);
+        }
+        if (executor instanceof ForkJoinPool) {
+            return new ForkJoinPoolAdapter(name, (ForkJoinPool) executor);
+        }
+        logger.debug("Executor '{}' of type {} has no pool to monitor", name, executor.getClass().getName());
+        return null;
+    }
+
+    /**
+     * Remembers the task timings of an instrumented executor, so that its adapter reports them.
+     */
+    static void registerTiming(ThreadPoolTaskExecutor executor, TaskMetrics metrics) {
+        TIMED.put(executor, metrics);
+    }
+}
@@ -0,0 +1,43 @@
+package com.resourcemonitor.executor;
+
+/**
+ * Mutable holder for the values read from an executor in one cycle.
+ * Values an executor does not expose stay at {@link #UNKNOWN}. A single instance is reused
+ * across executors and cycles, so reading an executor does not allocate.
+ */
+public final class ExecutorStats {
+    public static final long UNKNOWN = -1;
+
+    /** Current number of worker threads */
+    public long poolSize;
+    public long corePoolSize;
+    /** Maximum number of worker threads, or the parallelism of a ForkJoinPool */
+    public long maxPoolSize;
+    /** Threads currently running a task */
+    public long active;
+    /** Tasks waiting in the queue */
+    public long queued;
+    /** Free capacity left in a bounded queue */
+    public long queueRemaining;
+    /** Tasks completed since the executor started */
+    public long completed;
+    /** Tasks rejected since monitoring started */
+    public long rejected;
+    /** Tasks stolen between ForkJoinPool workers */
+    public long steals;
+
+    /**
+     * Resets all values to {@link #UNKNOWN}.
+     */
+    public void clear() {
+        poolSize = UNKNOWN;
+        corePoolSize = UNKNOWN;
+        maxPoolSize = UNKNOWN;
+        active = UNKNOWN;
+        queued = UNKNOWN;
+        queueRemaining = UNKNOWN;
+        completed = UNKNOWN;
+        rejected = UNKNOWN;
+        steals = UNKNOWN;
+    }
+}
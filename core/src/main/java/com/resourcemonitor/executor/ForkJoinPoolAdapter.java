@@ -0,0 +1,37 @@
+package com.resourcemonitor.executor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Adapter for {@link ForkJoinPool}s. A ForkJoinPool has no rejection policy and does not count
+ * completed tasks, so those values stay unknown; it reports work stealing instead.
+ */
+final class ForkJoinPoolAdapter implements ExecutorAdapter {
+    private final String name;
+    private final ForkJoinPool pool;
+
+    ForkJoinPoolAdapter(String name, ForkJoinPool pool) {
+        this.name = name;
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getType() {
+        return "ForkJoinPool";
+    }
+
+    @Override
+    public boolean read(ExecutorStats stats) {
+        stats.poolSize = pool.getPoolSize();
+        stats.maxPoolSize = pool.getParallelism();
+        stats.active = pool.getActiveThreadCount();
+        stats.queued = pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+        stats.steals = pool.getStealCount();
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package com.resourcemonitor.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Installs a {@link TimingTaskDecorator} on every {@link ThreadPoolTaskExecutor} bean that has
+ * no task decorator of its own.
+ *
+ * The decorator is set before initialization, so Spring creates the pool with it and no pool is
+ * replaced. {@code ThreadPoolTaskExecutor} has no getter for its decorator, and replacing one the
+ * application configured (e.g. for context propagation) would silently break it, so a bean is
+ * skipped when its definition sets a {@code taskDecorator} property or the context has a
+ * {@link TaskDecorator} bean, which Spring Boot applies to the executors it builds. A decorator
+ * set in code inside a {@code @Bean} method cannot be seen and would be replaced, so
+ * applications doing that should leave {@code executor-instrumentation-enabled} off. Plain
+ * {@code ThreadPoolExecutor} and {@code ForkJoinPool} beans offer no hook for wrapping tasks
+ * without replacing the bean and only get pool gauges.
+ */
+public class InstrumentingExecutorPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentingExecutorPostProcessor.class);
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (beanFactory instanceof ConfigurableListableBeanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof ThreadPoolTaskExecutor) {
+            instrument((ThreadPoolTaskExecutor) bean, beanName);
+        }
+        return bean;
+    }
+
+    private void instrument(ThreadPoolTaskExecutor executor, String beanName) {
+        if (hasTaskDecorator(beanName)) {
+            logger.debug("Executor bean '{}' may have its own task decorator, not timing its tasks", beanName);
+            return;
+        }
+        logger.debug("Instrumenting executor bean '{}'", beanName);
+        TimingTaskDecorator decorator = new TimingTaskDecorator(null);
+        executor.setTaskDecorator(decorator);
+        ExecutorAdapters.registerTiming(executor, decorator.getMetrics());
+    }
+
+    private boolean hasTaskDecorator(String beanName) {
+        if (beanFactory == null) {
+            return false;
+        }
+        if (beanFactory.getBeanNamesForType(TaskDecorator.class, true, false).length > 0) {
+            return true;
+        }
+        return beanFactory.containsBeanDefinition(beanName)
+            && beanFactory.getMergedBeanDefinition(beanName).getPropertyValues().contains("taskDecorator");
+    }
+}
@@ -0,0 +1,39 @@
+package com.resourcemonitor.executor;
+
+import com.resourcemonitor.util.LogHistogram;
+import com.resourcemonitor.util.StripedHistogram;
+
+/**
+ * Queue wait and run times of the tasks of one instrumented executor.
+ *
+ * Worker threads record into striped, lock-free histograms (in nanoseconds); the collector
+ * drains them into per-interval histograms once per cycle.
+ */
+public final class TaskMetrics {
+    private final StripedHistogram queueWait = new StripedHistogram();
+    private final StripedHistogram run = new StripedHistogram();
+
+    void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    void recordRun(long nanos) {
+        run.record(nanos);
+    }
+
+    /**
+     * Moves the queue wait times recorded since the last call into the target.
+     * @param target Histogram receiving the times in nanoseconds
+     */
+    public void drainQueueWait(LogHistogram target) {
+        queueWait.drainInto(target);
+    }
+
+    /**
+     * Moves the run times recorded since the last call into the target.
+     * @param target Histogram receiving the times in nanoseconds
+     */
+    public void drainRun(LogHistogram target) {
+        run.drainInto(target);
+    }
+}
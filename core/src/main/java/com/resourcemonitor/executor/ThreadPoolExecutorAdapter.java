@@ -0,0 +1,106 @@
+package com.resourcemonitor.executor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Adapter for {@link ThreadPoolExecutor}s, including scheduled executors and the pools behind
+ * Spring's {@code ThreadPoolTaskExecutor} and {@code ThreadPoolTaskScheduler}.
+ *
+ * The pool is resolved when the adapter is created, or lazily if Spring has not initialized the
+ * bean yet. If rejections are counted, on resolution the rejection handler is wrapped in a counting
+ * handler that delegates to the original policy; {@link #close()} puts the original back.
+ */
+final class ThreadPoolExecutorAdapter implements ExecutorAdapter {
+    private final String name;
+    private final String type;
+    private final Supplier<ThreadPoolExecutor> resolver;
+    private final TaskMetrics taskMetrics;
+    private final boolean countRejections;
+    private ThreadPoolExecutor executor;
+    private CountingRejectedExecutionHandler rejections;
+
+    /**
+     * @param name The executor name
+     * @param type Human readable executor type
+     * @param resolver Returns the pool, or throws IllegalStateException while it is not initialized
+     * @param taskMetrics Task timings of the executor, or null
+     * @param countRejections true to wrap the rejection handler in a counting handler
+     */
+    ThreadPoolExecutorAdapter(String name, String type, Supplier<ThreadPoolExecutor> resolver, TaskMetrics taskMetrics,
+                              boolean countRejections) {
+        this.name = name;
+        this.type = type;
+        this.resolver = resolver;
+        this.taskMetrics = taskMetrics;
+        this.countRejections = countRejections;
+        resolve();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public boolean read(ExecutorStats stats) {
+        ThreadPoolExecutor pool = resolve();
+        if (pool == null) {
+            return false;
+        }
+        stats.poolSize = pool.getPoolSize();
+        stats.corePoolSize = pool.getCorePoolSize();
+        // A scheduled pool never grows beyond its core size, whatever its maximum says
+        stats.maxPoolSize = pool instanceof ScheduledThreadPoolExecutor ? pool.getCorePoolSize() : pool.getMaximumPoolSize();
+        stats.active = pool.getActiveCount();
+        stats.queued = pool.getQueue().size();
+        int remaining = pool.getQueue().remainingCapacity();
+        if (remaining != Integer.MAX_VALUE) {
+            stats.queueRemaining = remaining;
+        }
+        stats.completed = pool.getCompletedTaskCount();
+        if (rejections != null) {
+            stats.rejected = rejections.getRejected();
+        }
+        return true;
+    }
+
+    private ThreadPoolExecutor resolve() {
+        if (executor == null) {
+            ThreadPoolExecutor pool;
+            try {
+                pool = resolver.get();
+            } catch (IllegalStateException e) {
+                return null;
+            }
+            if (countRejections) {
+                RejectedExecutionHandler handler = pool.getRejectedExecutionHandler();
+                rejections = handler instanceof CountingRejectedExecutionHandler
+                    ? (CountingRejectedExecutionHandler) handler
+                    : new CountingRejectedExecutionHandler(handler);
+                pool.setRejectedExecutionHandler(rejections);
+            }
+            executor = pool;
+        }
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null && rejections != null && executor.getRejectedExecutionHandler() == rejections) {
+            executor.setRejectedExecutionHandler(rejections.getDelegate());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.resourcemonitor.fleet;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Binary protocol between a {@link FleetSink} and a fleet aggregator.
+ *
+ * A node opens one TCP connection and sends length-prefixed frames, all big-endian:
+ *
+ * <pre>
+ * frame:    int length (of type and payload), byte type, payload
+ * HELLO:    int version, str service, str node
+ * SCHEMA:   int firstId, int count, per slot { byte kind, byte type, str name, str unit,
+ *           byte tagCount, per tag { str key, str value } }
+ * SNAPSHOT: long timestampMillis, int slotCount, long[(slotCount + 63) / 64] presence bitmap,
+ *           one long per present slot (doubles as raw bits)
+ * str:      unsigned short length, UTF-8 bytes
+ * </pre>
+ *
+ * HELLO is the first frame of a connection. Slots are described once per connection by SCHEMA
+ * frames in id order, and a SCHEMA frame always precedes the first SNAPSHOT that uses its slots,
+ * so a snapshot only carries a bitmap and raw values: a few hundred metrics fit in about 2 KB.
+ */
+public final class FleetProtocol {
+    public static final int VERSION = 1;
+    public static final byte HELLO = 1;
+    public static final byte SCHEMA = 2;
+    public static final byte SNAPSHOT = 3;
+    /** Frames larger than this are rejected by the aggregator as corrupt */
+    public static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    /** Length and type prefix of every frame */
+    public static final int FRAME_HEADER_BYTES = Integer.BYTES + 1;
+
+    private FleetProtocol() {} // Prevent instantiation
+
+    /**
+     * @return Encoded size of a HELLO frame
+     */
+    static int helloSize(byte[] service, byte[] node) {
+        return FRAME_HEADER_BYTES + Integer.BYTES + 2 + service.length + 2 + node.length;
+    }
+
+    static void writeHello(ByteBuffer buffer, byte[] service, byte[] node) {
+        buffer.putInt(helloSize(service, node) - Integer.BYTES);
+        buffer.put(HELLO);
+        buffer.putInt(VERSION);
+        putString(buffer, service);
+        putString(buffer, node);
+    }
+
+    /**
+     * @return Encoded size of a SCHEMA frame describing descriptors[from, to)
+     */
+    static int schemaSize(MetricDescriptor[] descriptors, int from, int to) {
+        int size = FRAME_HEADER_BYTES + 2 * Integer.BYTES;
+        for (int i = from; i < to; i++) {
+            MetricDescriptor descriptor = descriptors[i];
+            size += 2 + 2 + utf8Length(descriptor.getName()) + 2 + utf8Length(descriptor.getUnit()) + 1;
+            for (Map.Entry<String, String> tag : descriptor.getTags().entrySet()) {
+                size += 2 + utf8Length(tag.getKey()) + 2 + utf8Length(tag.getValue());
+            }
+        }
+        return size;
+    }
+
+    static void writeSchema(ByteBuffer buffer, MetricDescriptor[] descriptors, int from, int to) {
+        buffer.putInt(schemaSize(descriptors, from, to) - Integer.BYTES);
+        buffer.put(SCHEMA);
+        buffer.putInt(from);
+        buffer.putInt(to - from);
+        for (int i = from; i < to; i++) {
+            MetricDescriptor descriptor = descriptors[i];
+            buffer.put((byte) descriptor.getKind().ordinal());
+            buffer.put((byte) descriptor.getType().ordinal());
+            putString(buffer, descriptor.getName().getBytes(StandardCharsets.UTF_8));
+            putString(buffer, descriptor.getUnit().getBytes(StandardCharsets.UTF_8));
+            buffer.put((byte) descriptor.getTags().size());
+            for (Map.Entry<String, String> tag : descriptor.getTags().entrySet()) {
+                putString(buffer, tag.getKey().getBytes(StandardCharsets.UTF_8));
+                putString(buffer, tag.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * @return Encoded size of a SNAPSHOT frame with the given number of slots and present values
+     */
+    static int snapshotSize(int slotCount, int presentCount) {
+        return FRAME_HEADER_BYTES + Long.BYTES + Integer.BYTES
+            + (bitmapWords(slotCount) + presentCount) * Long.BYTES;
+    }
+
+    /**
+     * Writes the first slotCount slots of a snapshot. The caller has checked that
+     * {@link #snapshotSize(int, int)} bytes are free.
+     */
+    static void writeSnapshot(ByteBuffer buffer, MetricsSnapshot snapshot, MetricDescriptor[] descriptors,
+                              int slotCount, int presentCount) {
+        buffer.putInt(snapshotSize(slotCount, presentCount) - Integer.BYTES);
+        buffer.put(SNAPSHOT);
+        buffer.putLong(snapshot.getTimestampMillis());
+        buffer.putInt(slotCount);
+        for (int word = 0; word < bitmapWords(slotCount); word++) {
+            long bits = 0;
+            int base = word << 6;
+            for (int bit = 0; bit < 64 && base + bit < slotCount; bit++) {
+                if (snapshot.isPresent(base + bit)) {
+                    bits |= 1L << bit;
+                }
+            }
+            buffer.putLong(bits);
+        }
+        for (int id = 0; id < slotCount; id++) {
+            if (!snapshot.isPresent(id)) {
+                continue;
+            }
+            if (descriptors[id].getKind() == MetricDescriptor.Kind.LONG) {
+                buffer.putLong(snapshot.getLong(id));
+            } else {
+                buffer.putLong(Double.doubleToRawLongBits(snapshot.getDouble(id)));
+            }
+        }
+    }
+
+    public static int bitmapWords(int slotCount) {
+        return (slotCount + 63) >>> 6;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a string written by the protocol.
+     * @param buffer Buffer positioned at the string
+     * @return The decoded string
+     */
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,180 @@
+package com.resourcemonitor.fleet;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.output.MetricsSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends every snapshot to a fleet aggregator over TCP using the compact {@link FleetProtocol}.
+ *
+ * The channel is non-blocking and frames are staged in a preallocated direct buffer, so a slow
+ * or unreachable aggregator never stalls the sampling thread: while the buffer has no room for
+ * the next snapshot, snapshots are dropped whole and counted in {@code monitor.fleet.dropped}.
+ * Connecting is non-blocking as well and is retried every {@value #RECONNECT_SECONDS} seconds
+ * after a failure. Every new connection starts with a HELLO frame and describes the metric
+ * slots again, so the aggregator can restart at any time.
+ */
+public class FleetSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(FleetSink.class);
+    private static final int RECONNECT_SECONDS = 5;
+
+    private final String host;
+    private final int port;
+    private final byte[] service;
+    private final byte[] node;
+    private final ByteBuffer out;
+    private final int droppedId;
+
+    private SocketChannel channel;
+    private boolean connected;
+    private long nextConnectNanos;
+    /** Number of slots described to the aggregator on the current connection */
+    private int describedSlots;
+    private long droppedSnapshots;
+    private boolean failureLogged;
+
+    /**
+     * @param registry Registry of the snapshots
+     * @param host Host of the aggregator
+     * @param port Ingest port of the aggregator
+     * @param service Name of the service this node belongs to; rollups are per service
+     * @param node Name of this node, e.g. the pod name
+     * @param bufferBytes Size of the send buffer; at least one schema and one snapshot must fit
+     */
+    public FleetSink(MetricRegistry registry, String host, int port, String service, String node, int bufferBytes) {
+        this.host = host;
+        this.port = port;
+        this.service = service.getBytes(StandardCharsets.UTF_8);
+        this.node = node.getBytes(StandardCharsets.UTF_8);
+        this.out = ByteBuffer.allocateDirect(Math.max(bufferBytes, 64 * 1024));
+        this.droppedId = registry.counter("monitor.fleet.dropped", "count");
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        snapshot.set(droppedId, droppedSnapshots);
+        if (!ensureConnected()) {
+            droppedSnapshots++;
+            return;
+        }
+        try {
+            flush();
+            MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+            if (describedSlots < descriptors.length
+                    && FleetProtocol.schemaSize(descriptors, describedSlots, descriptors.length) <= out.remaining()) {
+                FleetProtocol.writeSchema(out, descriptors, describedSlots, descriptors.length);
+                describedSlots = descriptors.length;
+            }
+            // Slots the aggregator does not know about yet are left out until their schema is sent
+            int slotCount = Math.min(describedSlots, snapshot.capacity());
+            int presentCount = 0;
+            for (int id = 0; id < slotCount; id++) {
+                if (snapshot.isPresent(id)) {
+                    presentCount++;
+                }
+            }
+            if (FleetProtocol.snapshotSize(slotCount, presentCount) <= out.remaining()) {
+                FleetProtocol.writeSnapshot(out, snapshot, descriptors, slotCount, presentCount);
+            } else {
+                droppedSnapshots++;
+            }
+            flush();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    /**
+     * Starts or completes a non-blocking connect.
+     *
+     * @return true once the connection is established
+     */
+    private boolean ensureConnected() {
+        if (connected) {
+            return true;
+        }
+        try {
+            if (channel == null) {
+                if (System.nanoTime() - nextConnectNanos < 0) {
+                    return false;
+                }
+                // Resolved on every attempt, so an aggregator that moved is found again
+                InetSocketAddress address = new InetSocketAddress(host, port);
+                if (address.isUnresolved()) {
+                    throw new IOException("Cannot resolve " + host);
+                }
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.connect(address);
+            }
+            if (!channel.finishConnect()) {
+                return false;
+            }
+        } catch (IOException e) {
+            disconnect(e);
+            return false;
+        }
+        connected = true;
+        describedSlots = 0;
+        out.clear();
+        FleetProtocol.writeHello(out, service, node);
+        if (failureLogged) {
+            logger.info("Reconnected to fleet aggregator at {}:{}", host, port);
+            failureLogged = false;
+        }
+        return true;
+    }
+
+    private void flush() throws IOException {
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    private void disconnect(IOException cause) {
+        if (!failureLogged) {
+            logger.warn("Cannot send metrics to fleet aggregator at {}:{}: {}; retrying every {}s",
+                host, port, cause.getMessage(), RECONNECT_SECONDS);
+            failureLogged = true;
+        }
+        closeChannel();
+        nextConnectNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(RECONNECT_SECONDS);
+    }
+
+    private void closeChannel() {
+        connected = false;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connected) {
+            try {
+                flush();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+        closeChannel();
+    }
+}
@@ -0,0 +1,80 @@
+package com.resourcemonitor.heap;
+
+/**
+ * Growth of one class between the oldest and the newest retained class histogram.
+ */
+public final class ClassGrowth {
+    private final String className;
+    private final long instances;
+    private final long bytes;
+    private final long instanceGrowth;
+    private final long byteGrowth;
+    private final int growingIntervals;
+    private final int intervals;
+
+    ClassGrowth(String className, long instances, long bytes, long instanceGrowth, long byteGrowth,
+                int growingIntervals, int intervals) {
+        this.className = className;
+        this.instances = instances;
+        this.bytes = bytes;
+        this.instanceGrowth = instanceGrowth;
+        this.byteGrowth = byteGrowth;
+        this.growingIntervals = growingIntervals;
+        this.intervals = intervals;
+    }
+
+    /**
+     * @return Class name as printed by the JVM, e.g. {@code [B} for byte arrays
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return Instances in the newest histogram
+     */
+    public long getInstances() {
+        return instances;
+    }
+
+    /**
+     * @return Bytes in the newest histogram
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Change in instances since the oldest histogram
+     */
+    public long getInstanceGrowth() {
+        return instanceGrowth;
+    }
+
+    /**
+     * @return Change in bytes since the oldest histogram
+     */
+    public long getByteGrowth() {
+        return byteGrowth;
+    }
+
+    /**
+     * @return Number of intervals between consecutive histograms in which the instance count grew
+     */
+    public int getGrowingIntervals() {
+        return growingIntervals;
+    }
+
+    /**
+     * @return Number of intervals between the retained histograms
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+
+    @Override
+    public String toString() {
+        return className + " +" + instanceGrowth + " instances, +" + byteGrowth + " bytes, grew in "
+            + growingIntervals + " of " + intervals + " intervals";
+    }
+}
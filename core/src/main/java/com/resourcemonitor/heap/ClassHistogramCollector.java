@@ -0,0 +1,302 @@
+package com.resourcemonitor.heap;
+
+import com.resourcemonitor.ResourceMonitorProperties;
+import com.resourcemonitor.collectors.CollectorContext;
+import com.resourcemonitor.collectors.CollectorProvider;
+import com.resourcemonitor.collectors.MetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.DiagnosticCommands;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in leak detection from class histograms.
+ *
+ * A growing heap after GC shows that something leaks; the class histogram shows what. The
+ * collector takes a histogram through the {@code GC.class_histogram} diagnostic command at a low
+ * rate, and earlier when the heap used after the last GC has grown by a configured percentage
+ * since the previous histogram, but never more often than a minimum interval. Without
+ * {@code -all} the JVM runs a full GC first so only live objects are counted, so histograms run on
+ * their own daemon thread and never delay the sampling cycle.
+ *
+ * The last few histograms are kept in a {@link ClassHistogramTable}. Each cycle reports the
+ * classes that grew the most between the oldest and the newest of them, by bytes and by
+ * instances, with the number of intervals in which they grew: a class that grows in every
+ * interval is a better leak suspect than one that grew once.
+ */
+public class ClassHistogramCollector implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(ClassHistogramCollector.class);
+
+    private final ClassHistogramTable table;
+    private final long intervalNanos;
+    private final long minIntervalNanos;
+    private final double heapGrowthPercent;
+    private final boolean all;
+    private final int topClasses;
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private ThreadPoolExecutor executor;
+    private volatile boolean running;
+    private boolean taken;
+    private long lastStartNanos;
+    private volatile long heapAfterLastHistogram;
+
+    // Written by the histogram thread, published through the volatile report
+    private volatile Report report;
+
+    private final int histogramsId;
+    private final int histogramTimeId;
+    private final int parseTimeId;
+    private final int classesId;
+    private final int suspectsId;
+
+    /**
+     * @param registry Registry for the metric slots
+     * @param intervalSeconds Time between two histograms
+     * @param minIntervalSeconds Minimum time between two histograms triggered by heap growth
+     * @param heapGrowthPercent Growth of the heap used after GC since the last histogram that
+     *                          triggers the next one early; 0 takes histograms only by interval
+     * @param generations Number of histograms kept for comparison
+     * @param topClasses Number of growing classes reported
+     * @param all true to count unreachable objects too and skip the full GC
+     */
+    public ClassHistogramCollector(MetricRegistry registry, long intervalSeconds, long minIntervalSeconds,
+                                   double heapGrowthPercent, int generations, int topClasses, boolean all) {
+        this.table = new ClassHistogramTable(generations);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(Math.min(minIntervalSeconds, intervalSeconds));
+        this.heapGrowthPercent = heapGrowthPercent;
+        this.topClasses = topClasses;
+        this.all = all;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                heapPools.add(pool);
+            }
+        }
+        this.histogramsId = registry.counter("heap.histogram.count", "count");
+        this.histogramTimeId = registry.longGauge("heap.histogram.time", "ms");
+        this.parseTimeId = registry.longGauge("heap.histogram.parse.time", "us");
+        this.classesId = registry.longGauge("heap.histogram.classes", "count");
+        this.suspectsId = registry.longGauge("heap.histogram.suspects", "count");
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        if (isDue()) {
+            submit();
+        }
+        Report current = report;
+        if (current != null) {
+            snapshot.set(histogramsId, current.histograms);
+            snapshot.set(histogramTimeId, current.histogramMillis);
+            snapshot.set(parseTimeId, current.parseMicros);
+            snapshot.set(classesId, current.rows);
+            snapshot.set(suspectsId, current.suspects);
+        }
+    }
+
+    private boolean isDue() {
+        if (running) {
+            return false;
+        }
+        if (!taken) {
+            // The first histogram is the baseline the later ones are compared with
+            return true;
+        }
+        long elapsed = System.nanoTime() - lastStartNanos;
+        if (elapsed >= intervalNanos) {
+            return true;
+        }
+        return heapGrowthPercent > 0 && elapsed >= minIntervalNanos
+            && heapAfterGc() > heapAfterLastHistogram * (1 + heapGrowthPercent / 100);
+    }
+
+    /**
+     * @return Heap used after the last GC, summed over the collected heap pools
+     */
+    private long heapAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    private void submit() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), task -> {
+                Thread thread = new Thread(task, "resource-monitor-class-histogram");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        taken = true;
+        running = true;
+        lastStartNanos = System.nanoTime();
+        try {
+            executor.execute(this::takeHistogram);
+        } catch (RejectedExecutionException e) {
+            // The collector is closing
+            running = false;
+        }
+    }
+
+    private void takeHistogram() {
+        try {
+            long start = System.nanoTime();
+            String histogram = all
+                ? DiagnosticCommands.invoke("gcClassHistogram", "-all")
+                : DiagnosticCommands.invoke("gcClassHistogram");
+            long parseStart = System.nanoTime();
+            int rows = table.parse(histogram, System.currentTimeMillis());
+            long parseNanos = System.nanoTime() - parseStart;
+            Report previous = report;
+            report = new Report(previous == null ? 1 : previous.histograms + 1,
+                TimeUnit.NANOSECONDS.toMillis(parseStart - start), TimeUnit.NANOSECONDS.toMicros(parseNanos),
+                rows, table.histogramCount(), table.spanMillis(), table.steadilyGrowingCount(),
+                table.topGrowing(topClasses, true), table.topGrowing(topClasses, false));
+            heapAfterLastHistogram = heapAfterGc();
+        } catch (IOException e) {
+            logger.warn("Class histogram failed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Class histogram failed: {}", e.getMessage(), e);
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        Report current = report;
+        if (current == null) {
+            return;
+        }
+        logger.info("{}=== Class Histogram Growth ({} histograms over {}m) ==={}", ColorCodes.BOLD + ColorCodes.PURPLE,
+            current.retained, TimeUnit.MILLISECONDS.toMinutes(current.spanMillis), ColorCodes.RESET);
+        logger.info("{}Histogram:{} {} classes, taken in {}ms, parsed in {}ms, {}{} steadily growing{}",
+            ColorCodes.BLUE, ColorCodes.RESET, current.rows, current.histogramMillis,
+            FormatUtils.formatNanosToMillis(current.parseMicros * 1_000),
+            current.suspects > 0 ? ColorCodes.YELLOW : ColorCodes.GREEN, current.suspects, ColorCodes.RESET);
+        logRanking("By bytes", current.byBytes);
+        logRanking("By instances", current.byInstances);
+    }
+
+    private static void logRanking(String title, List<ClassGrowth> ranking) {
+        if (ranking.isEmpty()) {
+            return;
+        }
+        logger.info("{}{}:{}", ColorCodes.BLUE, title, ColorCodes.RESET);
+        for (int i = 0; i < ranking.size(); i++) {
+            ClassGrowth growth = ranking.get(i);
+            boolean steady = growth.getGrowingIntervals() == growth.getIntervals();
+            logger.info("{}  #{} {}:{} {}{} MB ({} instances){}, now {} MB in {} instances, grew in {} of {} intervals",
+                ColorCodes.BLUE, i + 1, growth.getClassName(), ColorCodes.RESET,
+                steady ? ColorCodes.RED : ColorCodes.YELLOW, signed(FormatUtils.formatMB(growth.getByteGrowth())),
+                signed(String.valueOf(growth.getInstanceGrowth())), ColorCodes.RESET, FormatUtils.formatMB(growth.getBytes()),
+                growth.getInstances(), growth.getGrowingIntervals(), growth.getIntervals());
+        }
+    }
+
+    private static String signed(String value) {
+        return value.startsWith("-") ? value : "+" + value;
+    }
+
+    /**
+     * @return Classes with the largest byte growth across the retained histograms, largest first
+     */
+    public List<ClassGrowth> getTopGrowingByBytes() {
+        Report current = report;
+        return current == null ? Collections.emptyList() : current.byBytes;
+    }
+
+    /**
+     * @return Classes with the largest instance growth across the retained histograms, largest first
+     */
+    public List<ClassGrowth> getTopGrowingByInstances() {
+        Report current = report;
+        return current == null ? Collections.emptyList() : current.byInstances;
+    }
+
+    /**
+     * Stops the histogram thread; a histogram in progress is allowed to finish.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /** Result of the latest histogram, replaced as a whole. */
+    private static final class Report {
+        final long histograms;
+        final long histogramMillis;
+        final long parseMicros;
+        final int rows;
+        final int retained;
+        final long spanMillis;
+        final int suspects;
+        final List<ClassGrowth> byBytes;
+        final List<ClassGrowth> byInstances;
+
+        Report(long histograms, long histogramMillis, long parseMicros, int rows, int retained, long spanMillis,
+               int suspects, List<ClassGrowth> byBytes, List<ClassGrowth> byInstances) {
+            this.histograms = histograms;
+            this.histogramMillis = histogramMillis;
+            this.parseMicros = parseMicros;
+            this.rows = rows;
+            this.retained = retained;
+            this.spanMillis = spanMillis;
+            this.suspects = suspects;
+            this.byBytes = Collections.unmodifiableList(byBytes);
+            this.byInstances = Collections.unmodifiableList(byInstances);
+        }
+    }
+
+    /**
+     * Provides the collector when {@code class-histogram-enabled} is set and the JVM has the
+     * diagnostic command MBean.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "class-histogram";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return DiagnosticCommands.isAvailable();
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isClassHistogramEnabled();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            ResourceMonitorProperties properties = context.getProperties();
+            return new ClassHistogramCollector(context.getRegistry(), properties.getClassHistogramIntervalSeconds(),
+                properties.getClassHistogramMinIntervalSeconds(), properties.getClassHistogramHeapGrowthPercent(),
+                properties.getClassHistogramGenerations(), properties.getClassHistogramTopClasses(),
+                properties.isClassHistogramAll());
+        }
+    }
+}
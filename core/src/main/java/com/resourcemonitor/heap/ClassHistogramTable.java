@@ -0,0 +1,335 @@
+package com.resourcemonitor.heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The last few class histograms, stored as primitive columns indexed by interned class name.
+ *
+ * {@link #parse(String, long)} reads the text of {@code GC.class_histogram} in a single pass
+ * without splitting it into lines or tokens. Class names are interned by hashing the characters
+ * in place and comparing them with the stored names, so a String is only created for a class
+ * that was never seen before; parsing a histogram of known classes allocates nothing. Each
+ * histogram is one generation in a ring: instances and bytes are {@code long} arrays indexed by
+ * class id, one pair per generation. Names that are absent from every retained generation, e.g.
+ * generated classes that were unloaded, are dropped when they make up half of the table.
+ *
+ * Not thread-safe.
+ */
+public final class ClassHistogramTable {
+    private final int generations;
+    private final long[][] instances;
+    private final long[][] bytes;
+    private final long[] timestamps;
+    private int newest = -1;
+    private int filled;
+
+    private String[] names;
+    private int[] hashes;
+    private int[] slots;
+    private int slotMask;
+    private int classCount;
+    private int lastParsed;
+
+    /**
+     * @param generations Number of histograms kept, at least 2
+     */
+    public ClassHistogramTable(int generations) {
+        this.generations = Math.max(generations, 2);
+        int capacity = 1024;
+        this.instances = new long[this.generations][capacity];
+        this.bytes = new long[this.generations][capacity];
+        this.timestamps = new long[this.generations];
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.slots = new int[capacity * 2];
+        this.slotMask = slots.length - 1;
+    }
+
+    /**
+     * Adds a histogram as the newest generation, replacing the oldest one when all are in use.
+     * Lines that are not histogram rows (header, separator, total) are skipped. A class loaded
+     * by several class loaders has one row per loader; the rows are summed.
+     *
+     * @param histogram Output of {@code GC.class_histogram}
+     * @param timestampMillis Time the histogram was taken
+     * @return Number of rows read
+     */
+    public int parse(String histogram, long timestampMillis) {
+        newest = (newest + 1) % generations;
+        filled = Math.min(filled + 1, generations);
+        timestamps[newest] = timestampMillis;
+        Arrays.fill(instances[newest], 0, classCount, 0);
+        Arrays.fill(bytes[newest], 0, classCount, 0);
+
+        int rows = 0;
+        int length = histogram.length();
+        int pos = 0;
+        while (pos < length) {
+            int lineEnd = histogram.indexOf('\n', pos);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            if (parseRow(histogram, pos, lineEnd)) {
+                rows++;
+            }
+            pos = lineEnd + 1;
+        }
+        lastParsed = rows;
+        if (classCount - rows > Math.max(rows, 1024)) {
+            compact();
+        }
+        return rows;
+    }
+
+    /**
+     * Parses one row, e.g. {@code "   1:   120340   9627200  [B (java.base@17.0.8)"}; the module
+     * in parentheses is ignored.
+     *
+     * @return true if the line was a row
+     */
+    private boolean parseRow(String text, int pos, int end) {
+        pos = skipSpaces(text, pos, end);
+        int digits = pos;
+        while (pos < end && isDigit(text.charAt(pos))) {
+            pos++;
+        }
+        if (pos == digits || pos == end || text.charAt(pos) != ':') {
+            return false;
+        }
+        pos = skipSpaces(text, pos + 1, end);
+        long instanceCount = 0;
+        int start = pos;
+        for (char c; pos < end && isDigit(c = text.charAt(pos)); pos++) {
+            instanceCount = instanceCount * 10 + (c - '0');
+        }
+        if (pos == start) {
+            return false;
+        }
+        pos = skipSpaces(text, pos, end);
+        long byteCount = 0;
+        start = pos;
+        for (char c; pos < end && isDigit(c = text.charAt(pos)); pos++) {
+            byteCount = byteCount * 10 + (c - '0');
+        }
+        if (pos == start) {
+            return false;
+        }
+        pos = skipSpaces(text, pos, end);
+        start = pos;
+        while (pos < end && text.charAt(pos) > ' ') {
+            pos++;
+        }
+        if (pos == start) {
+            return false;
+        }
+        int id = intern(text, start, pos);
+        instances[newest][id] += instanceCount;
+        bytes[newest][id] += byteCount;
+        return true;
+    }
+
+    private static int skipSpaces(String text, int pos, int end) {
+        while (pos < end && text.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return The id of the name between start and end, creating the String only for a new name
+     */
+    private int intern(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int length = end - start;
+        int slot = mix(hash) & slotMask;
+        for (int entry; (entry = slots[slot]) != 0; slot = (slot + 1) & slotMask) {
+            int id = entry - 1;
+            if (hashes[id] == hash && names[id].length() == length
+                    && names[id].regionMatches(0, text, start, length)) {
+                return id;
+            }
+        }
+        if (classCount == names.length) {
+            grow();
+            return intern(text, start, end);
+        }
+        int id = classCount++;
+        names[id] = text.substring(start, end);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        return id;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        for (int g = 0; g < generations; g++) {
+            instances[g] = Arrays.copyOf(instances[g], capacity);
+            bytes[g] = Arrays.copyOf(bytes[g], capacity);
+        }
+        rehash(capacity * 2);
+    }
+
+    private void rehash(int slotCount) {
+        slots = new int[slotCount];
+        slotMask = slotCount - 1;
+        for (int id = 0; id < classCount; id++) {
+            int slot = mix(hashes[id]) & slotMask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Drops the names that have no instances in any retained generation and renumbers the rest.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int id = 0; id < classCount; id++) {
+            if (!isRetained(id)) {
+                continue;
+            }
+            names[kept] = names[id];
+            hashes[kept] = hashes[id];
+            for (int g = 0; g < generations; g++) {
+                instances[g][kept] = instances[g][id];
+                bytes[g][kept] = bytes[g][id];
+            }
+            kept++;
+        }
+        Arrays.fill(names, kept, classCount, null);
+        classCount = kept;
+        rehash(slots.length);
+    }
+
+    private boolean isRetained(int id) {
+        for (int i = 0; i < filled; i++) {
+            if (instances[generation(i)][id] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param age 0 for the newest generation
+     */
+    private int generation(int age) {
+        return (newest - age + generations) % generations;
+    }
+
+    /**
+     * Ranks the classes that grew between the oldest and the newest retained histogram.
+     *
+     * @param limit Maximum number of classes returned
+     * @param byBytes true to rank by byte growth, false by instance growth
+     * @return The classes with the largest growth, largest first; empty with fewer than two histograms
+     */
+    public List<ClassGrowth> topGrowing(int limit, boolean byBytes) {
+        List<ClassGrowth> result = new ArrayList<>(limit);
+        if (filled < 2 || limit <= 0) {
+            return result;
+        }
+        long[] newestValues = byBytes ? bytes[newest] : instances[newest];
+        long[] oldestValues = byBytes ? bytes[generation(filled - 1)] : instances[generation(filled - 1)];
+        int[] topIds = new int[limit];
+        long[] topGrowth = new long[limit];
+        int count = 0;
+        for (int id = 0; id < classCount; id++) {
+            long growth = newestValues[id] - oldestValues[id];
+            if (growth <= 0 || (count == limit && growth <= topGrowth[count - 1])) {
+                continue;
+            }
+            int position = count < limit ? count++ : limit - 1;
+            while (position > 0 && topGrowth[position - 1] < growth) {
+                topIds[position] = topIds[position - 1];
+                topGrowth[position] = topGrowth[position - 1];
+                position--;
+            }
+            topIds[position] = id;
+            topGrowth[position] = growth;
+        }
+        int oldest = generation(filled - 1);
+        for (int i = 0; i < count; i++) {
+            int id = topIds[i];
+            result.add(new ClassGrowth(names[id], instances[newest][id], bytes[newest][id],
+                instances[newest][id] - instances[oldest][id], bytes[newest][id] - bytes[oldest][id],
+                growingIntervals(id), filled - 1));
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of consecutive histogram pairs in which the instance count of a class grew
+     */
+    private int growingIntervals(int id) {
+        int growing = 0;
+        for (int age = filled - 1; age > 0; age--) {
+            if (instances[generation(age - 1)][id] > instances[generation(age)][id]) {
+                growing++;
+            }
+        }
+        return growing;
+    }
+
+    /**
+     * @return Number of classes whose instance count grew between every two consecutive retained
+     *         histograms; 0 with fewer than two histograms
+     */
+    public int steadilyGrowingCount() {
+        if (filled < 2) {
+            return 0;
+        }
+        int count = 0;
+        for (int id = 0; id < classCount; id++) {
+            if (growingIntervals(id) == filled - 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of histograms retained
+     */
+    public int histogramCount() {
+        return filled;
+    }
+
+    /**
+     * @return Number of rows in the newest histogram
+     */
+    public int lastRowCount() {
+        return lastParsed;
+    }
+
+    /**
+     * @return Number of interned class names
+     */
+    public int classCount() {
+        return classCount;
+    }
+
+    /**
+     * @return Time between the oldest and the newest retained histogram in milliseconds
+     */
+    public long spanMillis() {
+        return filled < 2 ? 0 : timestamps[newest] - timestamps[generation(filled - 1)];
+    }
+}
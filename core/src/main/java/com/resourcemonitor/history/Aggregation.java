@@ -0,0 +1,12 @@
+package com.resourcemonitor.history;
+
+/**
+ * Aggregations supported by {@link MetricHistory#aggregate(int, long, Aggregation)}.
+ * Each one can be computed exactly from both raw samples and min/max/avg rollups.
+ */
+public enum Aggregation {
+    MIN,
+    MAX,
+    AVG,
+    COUNT
+}
@@ -0,0 +1,260 @@
+package com.resourcemonitor.history;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size block of compressed rollups using Gorilla-style encoding.
+ *
+ * Timestamps are stored as delta-of-delta with variable-width prefixes, so regularly spaced
+ * rollups cost a single bit each. The min, max, average and sample count of every rollup are
+ * each stored as the XOR against the previous value of the same stream, which collapses slowly
+ * changing values to a handful of bits.
+ *
+ * The backing {@code long[]} is allocated once; when the worst-case encoding of another point
+ * would not fit, the block reports itself as full and the owner moves on to the next block.
+ */
+final class CompressedBlock {
+    private static final int STREAMS = 4;
+    private static final int FIRST_POINT_BITS = 64 + STREAMS * 64;
+    private static final int WORST_POINT_BITS = (4 + 64) + STREAMS * (2 + 5 + 6 + 64);
+
+    private final long[] words;
+    private int bitCount;
+    private int pointCount;
+    private long firstTimestamp;
+    private long lastTimestamp;
+
+    // Encoder state
+    private long prevDelta;
+    private final long[] prevBits = new long[STREAMS];
+    private final int[] prevLeading = new int[STREAMS];
+    private final int[] prevTrailing = new int[STREAMS];
+
+    // Decoder state, reused across reads; callers hold the owning series' lock
+    private int readPos;
+    private final long[] previousValueBits = new long[STREAMS];
+    private final int[] readLeading = new int[STREAMS];
+    private final int[] readTrailing = new int[STREAMS];
+
+    CompressedBlock(int capacityWords) {
+        this.words = new long[capacityWords];
+    }
+
+    /**
+     * Clears the block so its storage can be reused for new rollups.
+     */
+    void reset() {
+        Arrays.fill(words, 0L);
+        bitCount = 0;
+        pointCount = 0;
+        prevDelta = 0;
+    }
+
+    /**
+     * @return true if another point is guaranteed to fit
+     */
+    boolean hasRoom() {
+        int needed = pointCount == 0 ? FIRST_POINT_BITS : WORST_POINT_BITS;
+        return bitCount + needed <= words.length * 64;
+    }
+
+    /**
+     * Appends a rollup. Callers must check {@link #hasRoom()} first.
+     */
+    void append(long timestamp, double min, double max, double avg, long count) {
+        if (pointCount == 0) {
+            writeBits(timestamp, 64);
+            firstTimestamp = timestamp;
+            prevDelta = 0;
+            initStream(0, Double.doubleToRawLongBits(min));
+            initStream(1, Double.doubleToRawLongBits(max));
+            initStream(2, Double.doubleToRawLongBits(avg));
+            initStream(3, count);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - prevDelta);
+            prevDelta = delta;
+            writeXor(0, Double.doubleToRawLongBits(min));
+            writeXor(1, Double.doubleToRawLongBits(max));
+            writeXor(2, Double.doubleToRawLongBits(avg));
+            writeXor(3, count);
+        }
+        lastTimestamp = timestamp;
+        pointCount++;
+    }
+
+    private void initStream(int stream, long bits) {
+        writeBits(bits, 64);
+        prevBits[stream] = bits;
+        prevLeading[stream] = -1;
+        prevTrailing[stream] = 0;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -64 && dod <= 63) {
+            writeBits(0b10, 2);
+            writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            writeBits(0b110, 3);
+            writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeXor(int stream, long bits) {
+        long xor = bits ^ prevBits[stream];
+        prevBits[stream] = bits;
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (prevLeading[stream] >= 0 && leading >= prevLeading[stream] && trailing >= prevTrailing[stream]) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> prevTrailing[stream], 64 - prevLeading[stream] - prevTrailing[stream]);
+        } else {
+            int meaningful = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(meaningful - 1, 6);
+            writeBits(xor >>> trailing, meaningful);
+            prevLeading[stream] = leading;
+            prevTrailing[stream] = trailing;
+        }
+    }
+
+    private void writeBits(long value, int n) {
+        int wordIndex = bitCount >>> 6;
+        int free = 64 - (bitCount & 63);
+        long v = n == 64 ? value : value & ((1L << n) - 1);
+        if (n <= free) {
+            words[wordIndex] |= v << (free - n);
+        } else {
+            int spill = n - free;
+            words[wordIndex] |= v >>> spill;
+            words[wordIndex + 1] |= v << (64 - spill);
+        }
+        bitCount += n;
+    }
+
+    private long readBits(int n) {
+        int wordIndex = readPos >>> 6;
+        int free = 64 - (readPos & 63);
+        long result;
+        if (n <= free) {
+            result = words[wordIndex] >>> (free - n);
+            if (n < 64) {
+                result &= (1L << n) - 1;
+            }
+        } else {
+            int spill = n - free;
+            long high = words[wordIndex] & ((1L << free) - 1);
+            result = (high << spill) | (words[wordIndex + 1] >>> (64 - spill));
+        }
+        readPos += n;
+        return result;
+    }
+
+    private long readSigned(int n) {
+        long value = readBits(n);
+        return n == 64 ? value : (value << (64 - n)) >> (64 - n);
+    }
+
+    /**
+     * Decodes every rollup in the block, oldest first.
+     * @param visitor Receives each decoded rollup
+     */
+    void decode(SeriesVisitor visitor) {
+        if (pointCount == 0) {
+            return;
+        }
+        readPos = 0;
+        long timestamp = readBits(64);
+        long delta = 0;
+        for (int s = 0; s < STREAMS; s++) {
+            previousValueBits[s] = readBits(64);
+            readLeading[s] = -1;
+            readTrailing[s] = 0;
+        }
+        emit(visitor, timestamp);
+
+        for (int i = 1; i < pointCount; i++) {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            for (int s = 0; s < STREAMS; s++) {
+                readXor(s);
+            }
+            emit(visitor, timestamp);
+        }
+    }
+
+    private void emit(SeriesVisitor visitor, long timestamp) {
+        visitor.rollup(timestamp,
+            Double.longBitsToDouble(previousValueBits[0]),
+            Double.longBitsToDouble(previousValueBits[1]),
+            Double.longBitsToDouble(previousValueBits[2]),
+            previousValueBits[3]);
+    }
+
+    private long readDeltaOfDelta() {
+        if (readBits(1) == 0) {
+            return 0;
+        }
+        if (readBits(1) == 0) {
+            return readSigned(7);
+        }
+        if (readBits(1) == 0) {
+            return readSigned(9);
+        }
+        if (readBits(1) == 0) {
+            return readSigned(12);
+        }
+        return readBits(64);
+    }
+
+    private void readXor(int stream) {
+        if (readBits(1) == 0) {
+            return;
+        }
+        long xor;
+        if (readBits(1) == 0) {
+            int meaningful = 64 - readLeading[stream] - readTrailing[stream];
+            xor = readBits(meaningful) << readTrailing[stream];
+        } else {
+            int leading = (int) readBits(5);
+            int meaningful = (int) readBits(6) + 1;
+            int trailing = 64 - leading - meaningful;
+            xor = readBits(meaningful) << trailing;
+            readLeading[stream] = leading;
+            readTrailing[stream] = trailing;
+        }
+        previousValueBits[stream] ^= xor;
+    }
+
+    int getPointCount() {
+        return pointCount;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * @return Number of bytes holding encoded data
+     */
+    int usedBytes() {
+        return (bitCount + 7) >>> 3;
+    }
+}
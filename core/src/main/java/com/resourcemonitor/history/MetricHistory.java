@@ -0,0 +1,294 @@
+package com.resourcemonitor.history;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import java.util.Arrays;
+
+/**
+ * In-process time-series history of every registered metric.
+ *
+ * Each cycle's {@link MetricsSnapshot} is appended to a bounded per-metric {@link SeriesBuffer}.
+ * Recent samples are kept raw; older ones are downsampled into min/max/avg rollups and stored
+ * with delta-of-delta and XOR compression. Queries can ask for the raw range, an aggregate or a
+ * percentile over a window ending now, e.g. "heap p95 over the last 10 minutes".
+ *
+ * Memory is fixed per metric: {@code rawCapacity * 16} bytes for raw samples plus
+ * {@code compressedBlocks * blockWords * 8} bytes for rollups.
+ */
+public class MetricHistory {
+    /** Size of every compressed block in 64-bit words */
+    static final int BLOCK_WORDS = 64;
+
+    private final MetricRegistry registry;
+    private final int rawCapacity;
+    private final int rollupSamples;
+    private final int compressedBlocks;
+    private volatile SeriesBuffer[] series = new SeriesBuffer[0];
+
+    /**
+     * Creates a new MetricHistory.
+     *
+     * @param registry Registry whose metrics are recorded
+     * @param rawCapacity Number of most recent raw samples kept per metric
+     * @param rollupSamples Number of raw samples folded into one rollup
+     * @param compressedBlocks Number of compressed rollup blocks kept per metric
+     */
+    public MetricHistory(MetricRegistry registry, int rawCapacity, int rollupSamples, int compressedBlocks) {
+        if (rawCapacity <= 0 || rollupSamples <= 0 || compressedBlocks < 0) {
+            throw new IllegalArgumentException("History capacities must be positive");
+        }
+        this.registry = registry;
+        this.rawCapacity = rawCapacity;
+        this.rollupSamples = rollupSamples;
+        this.compressedBlocks = compressedBlocks;
+    }
+
+    /**
+     * Appends every value present in the snapshot to its metric's history.
+     * Allocates only when a metric is recorded for the first time.
+     *
+     * @param snapshot The snapshot of the current cycle
+     */
+    public void record(MetricsSnapshot snapshot) {
+        long timestamp = snapshot.getTimestampMillis();
+        int size = Math.min(registry.size(), snapshot.capacity());
+        for (int id = 0; id < size; id++) {
+            if (snapshot.isPresent(id)) {
+                seriesFor(id, true).add(timestamp, snapshot.getAsDouble(id));
+            }
+        }
+    }
+
+    private SeriesBuffer seriesFor(int id, boolean create) {
+        SeriesBuffer[] current = series;
+        if (id < current.length && current[id] != null) {
+            return current[id];
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (this) {
+            current = series;
+            if (id >= current.length) {
+                current = Arrays.copyOf(current, Math.max(id + 1, registry.size()));
+            }
+            if (current[id] == null) {
+                current[id] = new SeriesBuffer(rawCapacity, rollupSamples, compressedBlocks, BLOCK_WORDS);
+            }
+            series = current;
+            return current[id];
+        }
+    }
+
+    /**
+     * Resolves a metric id by name and tags.
+     *
+     * @param name The metric name
+     * @param tags Alternating tag keys and values
+     * @return The metric id, or -1 if no such metric is registered
+     */
+    public int idOf(String name, String... tags) {
+        MetricDescriptor descriptor = registry.find(name, tags);
+        return descriptor == null ? -1 : descriptor.getId();
+    }
+
+    /**
+     * Visits all points of a metric with a timestamp in [from, to], oldest first.
+     * Downsampled data is reported through {@link SeriesVisitor#rollup}.
+     *
+     * @param id The metric id
+     * @param fromMillis Start of the range, inclusive
+     * @param toMillis End of the range, inclusive
+     * @param visitor Receives the points
+     */
+    public void range(int id, long fromMillis, long toMillis, SeriesVisitor visitor) {
+        SeriesBuffer buffer = id < 0 ? null : seriesFor(id, false);
+        if (buffer != null) {
+            buffer.visit(fromMillis, toMillis, visitor);
+        }
+    }
+
+    /**
+     * Aggregates a metric over a window ending now.
+     *
+     * @param id The metric id
+     * @param windowMillis Length of the window
+     * @param aggregation The aggregation to compute
+     * @return The aggregate, or NaN if the window holds no data (0 for COUNT)
+     */
+    public double aggregate(int id, long windowMillis, Aggregation aggregation) {
+        long now = System.currentTimeMillis();
+        AggregateVisitor visitor = new AggregateVisitor();
+        range(id, now - windowMillis, now, visitor);
+        return visitor.result(aggregation);
+    }
+
+    /**
+     * Computes a percentile of a metric over a window ending now using the nearest-rank method.
+     * Raw samples are exact; rolled up periods contribute their average once per rolled up sample.
+     *
+     * @param id The metric id
+     * @param windowMillis Length of the window
+     * @param percentile Percentile between 0 and 100
+     * @return The percentile, or NaN if the window holds no data
+     */
+    public double percentile(int id, long windowMillis, double percentile) {
+        SeriesBuffer buffer = id < 0 ? null : seriesFor(id, false);
+        if (buffer == null) {
+            return Double.NaN;
+        }
+        long now = System.currentTimeMillis();
+        PercentileVisitor visitor = new PercentileVisitor(buffer.maxPoints());
+        buffer.visit(now - windowMillis, now, visitor);
+        return visitor.result(percentile);
+    }
+
+    /**
+     * @return Bytes reserved by all series once fully populated
+     */
+    public long footprintBytes() {
+        long bytes = 0;
+        for (SeriesBuffer buffer : series) {
+            if (buffer != null) {
+                bytes += buffer.footprintBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Bytes currently used by compressed rollups across all series
+     */
+    public long compressedBytes() {
+        long bytes = 0;
+        for (SeriesBuffer buffer : series) {
+            if (buffer != null) {
+                bytes += buffer.compressedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static final class AggregateVisitor implements SeriesVisitor {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long count;
+
+        @Override
+        public void sample(long timestampMillis, double value) {
+            rollup(timestampMillis, value, value, value, 1);
+        }
+
+        @Override
+        public void rollup(long timestampMillis, double min, double max, double avg, long count) {
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += avg * count;
+            this.count += count;
+        }
+
+        double result(Aggregation aggregation) {
+            if (aggregation == Aggregation.COUNT) {
+                return count;
+            }
+            if (count == 0) {
+                return Double.NaN;
+            }
+            switch (aggregation) {
+                case MIN:
+                    return min;
+                case MAX:
+                    return max;
+                default:
+                    return sum / count;
+            }
+        }
+    }
+
+    private static final class PercentileVisitor implements SeriesVisitor {
+        private double[] values;
+        private long[] weights;
+        private long totalWeight;
+        private int size;
+
+        PercentileVisitor(int capacity) {
+            this.values = new double[Math.max(capacity, 1)];
+            this.weights = new long[values.length];
+        }
+
+        @Override
+        public void sample(long timestampMillis, double value) {
+            add(value, 1);
+        }
+
+        @Override
+        public void rollup(long timestampMillis, double min, double max, double avg, long count) {
+            add(avg, count);
+        }
+
+        private void add(double value, long weight) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            values[size] = value;
+            weights[size] = weight;
+            totalWeight += weight;
+            size++;
+        }
+
+        double result(double percentile) {
+            if (size == 0) {
+                return Double.NaN;
+            }
+            sort(0, size - 1);
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalWeight));
+            long seen = 0;
+            for (int i = 0; i < size; i++) {
+                seen += weights[i];
+                if (seen >= rank) {
+                    return values[i];
+                }
+            }
+            return values[size - 1];
+        }
+
+        /** Quicksort of the values, keeping each weight next to its value */
+        private void sort(int low, int high) {
+            while (low < high) {
+                double pivot = values[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (j - low < high - i) {
+                    sort(low, j);
+                    low = i;
+                } else {
+                    sort(i, high);
+                    high = j;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+            long weight = weights[a];
+            weights[a] = weights[b];
+            weights[b] = weight;
+        }
+    }
+}
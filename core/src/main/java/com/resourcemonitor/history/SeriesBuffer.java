@@ -0,0 +1,159 @@
+package com.resourcemonitor.history;
+
+/**
+ * Bounded history of a single metric.
+ *
+ * The most recent samples live in a ring of primitive timestamp and value arrays. Samples that
+ * fall out of the ring are folded into min/max/avg rollups of a fixed number of samples, and the
+ * rollups are appended to a ring of {@link CompressedBlock}s. Both rings are sized up front, so
+ * the memory used by a series never grows however long the service runs.
+ */
+final class SeriesBuffer {
+    private final long[] timestamps;
+    private final double[] values;
+    private int head;
+    private int size;
+
+    private final int rollupSamples;
+    private long rollupStart;
+    private double rollupMin;
+    private double rollupMax;
+    private double rollupSum;
+    private int rollupCount;
+
+    private final CompressedBlock[] blocks;
+    private final int blockWords;
+    private int currentBlock = -1;
+    private int blockCount;
+
+    SeriesBuffer(int rawCapacity, int rollupSamples, int blockCount, int blockWords) {
+        this.timestamps = new long[rawCapacity];
+        this.values = new double[rawCapacity];
+        this.rollupSamples = rollupSamples;
+        this.blocks = new CompressedBlock[blockCount];
+        this.blockWords = blockWords;
+    }
+
+    synchronized void add(long timestampMillis, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (size == timestamps.length) {
+            rollUp(timestamps[head], values[head]);
+        } else {
+            size++;
+        }
+        timestamps[head] = timestampMillis;
+        values[head] = value;
+        head = (head + 1) % timestamps.length;
+    }
+
+    private void rollUp(long timestampMillis, double value) {
+        if (blocks.length == 0) {
+            return;
+        }
+        if (rollupCount == 0) {
+            rollupStart = timestampMillis;
+            rollupMin = value;
+            rollupMax = value;
+            rollupSum = 0;
+        } else {
+            rollupMin = Math.min(rollupMin, value);
+            rollupMax = Math.max(rollupMax, value);
+        }
+        rollupSum += value;
+        rollupCount++;
+        if (rollupCount == rollupSamples) {
+            appendRollup(rollupStart, rollupMin, rollupMax, rollupSum / rollupCount, rollupCount);
+            rollupCount = 0;
+        }
+    }
+
+    private void appendRollup(long timestampMillis, double min, double max, double avg, long count) {
+        CompressedBlock block = currentBlock < 0 ? null : blocks[currentBlock];
+        if (block == null || !block.hasRoom()) {
+            currentBlock = (currentBlock + 1) % blocks.length;
+            block = blocks[currentBlock];
+            if (block == null) {
+                block = new CompressedBlock(blockWords);
+                blocks[currentBlock] = block;
+                blockCount++;
+            } else {
+                block.reset();
+            }
+        }
+        block.append(timestampMillis, min, max, avg, count);
+    }
+
+    /**
+     * Visits all rollups and raw samples with a timestamp in [from, to], oldest first. The rollup
+     * still being filled is visited after the compressed ones, so samples that left the ring are
+     * never missing from a query.
+     */
+    synchronized void visit(long fromMillis, long toMillis, SeriesVisitor visitor) {
+        if (blockCount > 0) {
+            int oldest = blockCount < blocks.length ? 0 : (currentBlock + 1) % blocks.length;
+            for (int i = 0; i < blockCount; i++) {
+                CompressedBlock block = blocks[(oldest + i) % blocks.length];
+                if (block.getPointCount() == 0 || block.getLastTimestamp() < fromMillis
+                        || block.getFirstTimestamp() > toMillis) {
+                    continue;
+                }
+                block.decode(new SeriesVisitor() {
+                    @Override
+                    public void sample(long timestampMillis, double value) {
+                        // Blocks only hold rollups
+                    }
+
+                    @Override
+                    public void rollup(long timestampMillis, double min, double max, double avg, long count) {
+                        if (timestampMillis >= fromMillis && timestampMillis <= toMillis) {
+                            visitor.rollup(timestampMillis, min, max, avg, count);
+                        }
+                    }
+                });
+            }
+        }
+        if (rollupCount > 0 && rollupStart >= fromMillis && rollupStart <= toMillis) {
+            visitor.rollup(rollupStart, rollupMin, rollupMax, rollupSum / rollupCount, rollupCount);
+        }
+
+        int start = (head - size + timestamps.length) % timestamps.length;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % timestamps.length;
+            long timestamp = timestamps[index];
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                visitor.sample(timestamp, values[index]);
+            }
+        }
+    }
+
+    /**
+     * @return Upper bound on the number of points a query can visit
+     */
+    synchronized int maxPoints() {
+        int points = rollupCount > 0 ? size + 1 : size;
+        for (int i = 0; i < blockCount; i++) {
+            points += blocks[i].getPointCount();
+        }
+        return points;
+    }
+
+    /**
+     * @return Bytes reserved by this series once all blocks are in use
+     */
+    long footprintBytes() {
+        return (long) timestamps.length * 16 + (long) blocks.length * blockWords * 8;
+    }
+
+    /**
+     * @return Bytes currently used by compressed rollups
+     */
+    synchronized long compressedBytes() {
+        long bytes = 0;
+        for (int i = 0; i < blockCount; i++) {
+            bytes += blocks[i].usedBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.resourcemonitor.history;
+
+/**
+ * Receives points read from a metric's history, oldest first.
+ * Raw samples are passed to {@link #sample(long, double)}; older, downsampled data is passed to
+ * {@link #rollup(long, double, double, double, long)}, which by default forwards the average.
+ */
+public interface SeriesVisitor {
+    /**
+     * Called for every raw sample in the requested range.
+     * @param timestampMillis Time of the sample
+     * @param value The sampled value
+     */
+    void sample(long timestampMillis, double value);
+
+    /**
+     * Called for every rollup in the requested range.
+     * @param timestampMillis Time of the first sample in the rollup
+     * @param min Minimum of the rolled up samples
+     * @param max Maximum of the rolled up samples
+     * @param avg Average of the rolled up samples
+     * @param count Number of rolled up samples
+     */
+    default void rollup(long timestampMillis, double min, double max, double avg, long count) {
+        sample(timestampMillis, avg);
+    }
+}
@@ -0,0 +1,181 @@
+package com.resourcemonitor.journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line tool that exports a time range of a metrics journal as CSV.
+ *
+ * <pre>
+ * java -cp resource-monitor.jar com.resourcemonitor.journal.JournalExport &lt;directory&gt;
+ *     [--from &lt;time&gt;] [--to &lt;time&gt;] [--metric &lt;prefix&gt;]... [--segments]
+ * </pre>
+ *
+ * Times are epoch milliseconds, ISO-8601 instants ({@code 2024-05-01T10:15:00Z}) or durations
+ * relative to now ({@code 2h}, {@code 30m}, {@code 90s}). {@code --metric} restricts the columns
+ * to metric keys starting with the given prefix; {@code --segments} lists the segments instead.
+ * The CSV has one row per sample and one column per metric, and is written to standard output.
+ */
+public final class JournalExport {
+    private JournalExport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: JournalExport <directory> [--from <time>] [--to <time>] "
+                + "[--metric <prefix>]... [--segments]");
+            System.exit(2);
+        }
+
+        Path directory = Paths.get(args[0]);
+        long from = 0;
+        long to = Long.MAX_VALUE;
+        List<String> prefixes = new ArrayList<>();
+        boolean listSegments = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from":
+                    from = parseTime(args[++i]);
+                    break;
+                case "--to":
+                    to = parseTime(args[++i]);
+                    break;
+                case "--metric":
+                    prefixes.add(args[++i]);
+                    break;
+                case "--segments":
+                    listSegments = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        JournalReader reader = new JournalReader(directory);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        if (listSegments) {
+            printSegments(reader, out);
+        } else {
+            exportCsv(reader, from, to, prefixes, out);
+        }
+        out.flush();
+        if (reader.getCorruptRecords() > 0) {
+            System.err.println("Skipped " + reader.getCorruptRecords() + " corrupt records");
+        }
+    }
+
+    /**
+     * Parses epoch milliseconds, an ISO-8601 instant or a duration before now.
+     */
+    static long parseTime(String value) {
+        if (value.matches("\\d+[smhd]")) {
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            Duration duration;
+            switch (value.charAt(value.length() - 1)) {
+                case 's':
+                    duration = Duration.ofSeconds(amount);
+                    break;
+                case 'm':
+                    duration = Duration.ofMinutes(amount);
+                    break;
+                case 'h':
+                    duration = Duration.ofHours(amount);
+                    break;
+                default:
+                    duration = Duration.ofDays(amount);
+            }
+            return System.currentTimeMillis() - duration.toMillis();
+        }
+        if (value.matches("\\d+")) {
+            return Long.parseLong(value);
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+
+    private static void printSegments(JournalReader reader, PrintWriter out) throws IOException {
+        for (Path segment : reader.segments()) {
+            long[] range = {Long.MAX_VALUE, Long.MIN_VALUE, 0};
+            reader.replaySegment(segment, 0, Long.MAX_VALUE, record -> {
+                range[0] = Math.min(range[0], record.getTimestampMillis());
+                range[1] = Math.max(range[1], record.getTimestampMillis());
+                range[2]++;
+            });
+            out.printf("%s\t%d bytes\t%d records", segment.getFileName(), Files.size(segment), range[2]);
+            if (range[2] > 0) {
+                out.printf("\t%s .. %s", Instant.ofEpochMilli(range[0]), Instant.ofEpochMilli(range[1]));
+            }
+            out.println();
+        }
+    }
+
+    private static void exportCsv(JournalReader reader, long from, long to, List<String> prefixes,
+                                  PrintWriter out) throws IOException {
+        // First pass: collect the columns, which may differ between segments
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        reader.replay(from, to, record -> {
+            for (int slot = 0; slot < record.slotCount(); slot++) {
+                String key = record.key(slot);
+                if (!columns.containsKey(key) && matches(key, prefixes)) {
+                    columns.put(key, columns.size());
+                }
+            }
+        });
+
+        out.print("timestamp");
+        for (String key : columns.keySet()) {
+            out.print(',');
+            out.print(csv(key));
+        }
+        out.println();
+
+        String[] row = new String[columns.size()];
+        reader.replay(from, to, record -> {
+            Arrays.fill(row, "");
+            for (int slot = 0; slot < record.slotCount(); slot++) {
+                Integer column = columns.get(record.key(slot));
+                if (column != null && record.isPresent(slot)) {
+                    row[column] = record.isDouble(slot)
+                        ? Double.toString(record.getAsDouble(slot))
+                        : Long.toString(record.getLong(slot));
+                }
+            }
+            out.print(Instant.ofEpochMilli(record.getTimestampMillis()));
+            for (String value : row) {
+                out.print(',');
+                out.print(value);
+            }
+            out.println();
+        });
+    }
+
+    private static boolean matches(String key, List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
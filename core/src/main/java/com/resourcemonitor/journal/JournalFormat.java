@@ -0,0 +1,83 @@
+package com.resourcemonitor.journal;
+
+import java.nio.file.Path;
+
+/**
+ * On-disk layout of a journal segment.
+ *
+ * A segment starts with a header that holds the schema of the metric slots, padded to a page
+ * boundary, followed by a fixed number of fixed-size records:
+ *
+ * <pre>
+ * header:  int magic, int version, int slotCount, int recordSize, int recordCapacity,
+ *          int headerSize, long createdMillis, int schemaLength, int slotCapacity,
+ *          schema: per slot { byte kind, byte type, short keyLength, key, short unitLength, unit }
+ * record:  long timestampMillis, int crc32c, int reserved,
+ *          long[bitmapWords] presence bitmap, long[slotCapacity] values (doubles as raw bits)
+ * </pre>
+ *
+ * Records and the header reserve room for more slots than exist when the segment is created.
+ * Metrics registered later are appended to the schema in place, which is safe because the
+ * schema only grows and older records simply do not have the new slots marked present.
+ *
+ * A record with timestamp 0 has never been written. The CRC covers the whole record except the
+ * CRC field itself, so records torn by a crash in the middle of a write are detected on replay.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x524D4A31; // "RMJ1"
+    static final int VERSION = 1;
+    static final int PAGE_SIZE = 4096;
+    static final int FIXED_HEADER_SIZE = 40;
+    static final int RECORD_HEADER_SIZE = 16;
+    static final int CRC_OFFSET = 8;
+    static final String FILE_PREFIX = "journal-";
+    static final String FILE_SUFFIX = ".rmj";
+
+    private JournalFormat() {}
+
+    static int bitmapWords(int slotCapacity) {
+        return (slotCapacity + 63) >>> 6;
+    }
+
+    static int recordSize(int slotCapacity) {
+        return RECORD_HEADER_SIZE + (bitmapWords(slotCapacity) + slotCapacity) * Long.BYTES;
+    }
+
+    /**
+     * @param slotCount Number of metrics registered now
+     * @return Number of slots to reserve in a new segment
+     */
+    static int slotCapacity(int slotCount) {
+        return Math.max(slotCount * 2, slotCount + 64);
+    }
+
+    static int headerSize(int schemaLength) {
+        int size = FIXED_HEADER_SIZE + schemaLength;
+        return (size + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    static String fileName(long sequence) {
+        return String.format("%s%010d%s", FILE_PREFIX, sequence, FILE_SUFFIX);
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * @param path A segment file
+     * @return The sequence number encoded in its name, or -1 if the name is not a segment name
+     */
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!isSegment(path)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.resourcemonitor.journal;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Replays the records of a journal directory written by {@link JournalWriter}.
+ *
+ * Segments are read in sequence order through read-only mappings. Records that were never
+ * written end a segment; records whose CRC does not match (torn by a crash during the write)
+ * are skipped and counted.
+ */
+public class JournalReader {
+    private final Path directory;
+    private long corruptRecords;
+
+    /**
+     * @param directory The journal directory
+     */
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return Segment files of the journal, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<Path> segments() throws IOException {
+        return JournalWriter.listSegments(directory);
+    }
+
+    /**
+     * Replays all valid records with a timestamp in {@code [fromMillis, toMillis]}.
+     *
+     * @param fromMillis Start of the range, inclusive
+     * @param toMillis End of the range, inclusive
+     * @param visitor Receives the records
+     * @throws IOException if a segment cannot be read or has an invalid header
+     */
+    public void replay(long fromMillis, long toMillis, JournalVisitor visitor) throws IOException {
+        corruptRecords = 0;
+        for (Path segment : segments()) {
+            replaySegment(segment, fromMillis, toMillis, visitor);
+        }
+    }
+
+    /**
+     * @return Number of records skipped because of a CRC mismatch during the last replay
+     */
+    public long getCorruptRecords() {
+        return corruptRecords;
+    }
+
+    /**
+     * Replays the valid records of a single segment with a timestamp in {@code [fromMillis, toMillis]}.
+     *
+     * @param segment The segment file
+     * @param fromMillis Start of the range, inclusive
+     * @param toMillis End of the range, inclusive
+     * @param visitor Receives the records
+     * @throws IOException if the segment cannot be read or has an invalid header
+     */
+    public void replaySegment(Path segment, long fromMillis, long toMillis, JournalVisitor visitor)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < JournalFormat.FIXED_HEADER_SIZE || buffer.getInt(0) != JournalFormat.MAGIC) {
+            throw new IOException("Not a journal segment: " + segment);
+        }
+        if (buffer.getInt(4) != JournalFormat.VERSION) {
+            throw new IOException("Unsupported journal version " + buffer.getInt(4) + " in " + segment);
+        }
+        int slotCount = buffer.getInt(8);
+        int recordSize = buffer.getInt(12);
+        int recordCapacity = buffer.getInt(16);
+        int headerSize = buffer.getInt(20);
+        int schemaLength = buffer.getInt(32);
+        int slotCapacity = buffer.getInt(36);
+
+        String[] keys = new String[slotCount];
+        String[] units = new String[slotCount];
+        boolean[] doubles = new boolean[slotCount];
+        boolean[] counters = new boolean[slotCount];
+        ByteBuffer schema = buffer.duplicate();
+        schema.position(JournalFormat.FIXED_HEADER_SIZE).limit(JournalFormat.FIXED_HEADER_SIZE + schemaLength);
+        try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(schema))) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                doubles[slot] = in.readByte() == 'D';
+                counters[slot] = in.readByte() == 'C';
+                keys[slot] = readString(in);
+                units[slot] = readString(in);
+            }
+        }
+
+        JournalRecord record = new JournalRecord(buffer, slotCapacity, keys, units, doubles, counters);
+        CRC32C crc = new CRC32C();
+        ByteBuffer crcView = buffer.duplicate();
+        int records = (int) Math.min(recordCapacity, (buffer.capacity() - (long) headerSize) / recordSize);
+        for (int i = 0; i < records; i++) {
+            int base = headerSize + i * recordSize;
+            long timestamp = buffer.getLong(base);
+            if (timestamp == 0) {
+                break;
+            }
+            if (JournalWriter.checksum(crc, crcView, base, recordSize) != buffer.getInt(base + JournalFormat.CRC_OFFSET)) {
+                corruptRecords++;
+                continue;
+            }
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                record.moveTo(base);
+                visitor.record(record);
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
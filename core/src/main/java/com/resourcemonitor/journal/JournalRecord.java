@@ -0,0 +1,110 @@
+package com.resourcemonitor.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of one journal record. The same instance is reused for every record of a
+ * replay, so visitors must copy whatever they want to keep.
+ */
+public final class JournalRecord {
+    private final ByteBuffer buffer;
+    private final String[] keys;
+    private final String[] units;
+    private final boolean[] doubles;
+    private final boolean[] counters;
+    private final int bitmapWords;
+    private int base;
+
+    JournalRecord(ByteBuffer buffer, int slotCapacity, String[] keys, String[] units, boolean[] doubles,
+                  boolean[] counters) {
+        this.buffer = buffer;
+        this.keys = keys;
+        this.units = units;
+        this.doubles = doubles;
+        this.counters = counters;
+        this.bitmapWords = JournalFormat.bitmapWords(slotCapacity);
+    }
+
+    void moveTo(int base) {
+        this.base = base;
+    }
+
+    /**
+     * @return Wall-clock time of the sample in milliseconds
+     */
+    public long getTimestampMillis() {
+        return buffer.getLong(base);
+    }
+
+    /**
+     * @return Number of metric slots in this record's segment
+     */
+    public int slotCount() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot The slot index
+     * @return Metric key of the slot, e.g. {@code db.connections.active{pool=main}}
+     */
+    public String key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @param slot The slot index
+     * @return Unit of the slot
+     */
+    public String unit(int slot) {
+        return units[slot];
+    }
+
+    /**
+     * @param slot The slot index
+     * @return true if the slot is stored as a double
+     */
+    public boolean isDouble(int slot) {
+        return doubles[slot];
+    }
+
+    /**
+     * @param slot The slot index
+     * @return true if the slot is a counter
+     */
+    public boolean isCounter(int slot) {
+        return counters[slot];
+    }
+
+    /**
+     * @param slot The slot index
+     * @return true if the metric was written in this sample
+     */
+    public boolean isPresent(int slot) {
+        long word = buffer.getLong(base + JournalFormat.RECORD_HEADER_SIZE + (slot >>> 6) * Long.BYTES);
+        return (word & (1L << (slot & 63))) != 0;
+    }
+
+    /**
+     * @param slot The slot index
+     * @return The raw long value, or 0 if not present
+     */
+    public long getLong(int slot) {
+        return isPresent(slot) ? rawBits(slot) : 0L;
+    }
+
+    /**
+     * @param slot The slot index
+     * @return The value as a double regardless of storage kind, or NaN if not present
+     */
+    public double getAsDouble(int slot) {
+        if (!isPresent(slot)) {
+            return Double.NaN;
+        }
+        long bits = rawBits(slot);
+        return doubles[slot] ? Double.longBitsToDouble(bits) : bits;
+    }
+
+    private long rawBits(int slot) {
+        return buffer.getLong(base + JournalFormat.RECORD_HEADER_SIZE + (bitmapWords + slot) * Long.BYTES);
+    }
+}
@@ -0,0 +1,13 @@
+package com.resourcemonitor.journal;
+
+/**
+ * Receives the records of a journal replay in write order.
+ */
+public interface JournalVisitor {
+    /**
+     * Called for every valid record in the requested range.
+     *
+     * @param record Reused view of the record
+     */
+    void record(JournalRecord record);
+}
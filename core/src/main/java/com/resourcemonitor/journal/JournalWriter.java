@@ -0,0 +1,283 @@
+package com.resourcemonitor.journal;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.output.MetricsSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Appends every snapshot to a memory-mapped, fixed-record journal on local disk.
+ *
+ * Records are written into a {@link MappedByteBuffer}, so they reach the page cache with a plain
+ * memory copy and survive the death of the JVM (OOM kill, crash, hang followed by SIGKILL)
+ * without an fsync per sample. Segments are only forced to disk when they are rotated.
+ *
+ * Each segment holds a fixed number of records and carries the schema of its metrics. Room
+ * for metrics registered later is reserved when a segment is created; the writer only rotates
+ * early when that room is exhausted. Only the newest {@code maxSegments} segments are kept, which bounds the journal to
+ * {@code maxSegments * segmentRecords} samples. Segment space is allocated up front so that a
+ * full disk surfaces as an error on rotation rather than as a fault while writing a record.
+ *
+ * Writing a record does not allocate; it is meant to run on the sampling thread.
+ */
+public class JournalWriter implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(JournalWriter.class);
+    private static final int ZERO_CHUNK = 64 * 1024;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final CRC32C crc = new CRC32C();
+
+    private long nextSequence;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private ByteBuffer crcView;
+    private int slotCount;
+    private int slotCapacity;
+    private int recordSize;
+    private int headerSize;
+    private int bitmapWords;
+    private int position;
+    private boolean failed;
+
+    /**
+     * @param directory Directory for the segment files, created if missing
+     * @param segmentRecords Number of records per segment
+     * @param maxSegments Number of segments to keep
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public JournalWriter(Path directory, int segmentRecords, int maxSegments) throws IOException {
+        if (segmentRecords <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("Segment records and max segments must be positive");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        long last = -1;
+        for (Path segment : listSegments(directory)) {
+            last = Math.max(last, JournalFormat.sequenceOf(segment));
+        }
+        this.nextSequence = last + 1;
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        if (failed) {
+            return;
+        }
+        try {
+            MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+            if (mapped == null || position == segmentRecords) {
+                rotate(descriptors, snapshot.getTimestampMillis());
+            } else if (descriptors.length > slotCount && !extendSchema(descriptors)) {
+                rotate(descriptors, snapshot.getTimestampMillis());
+            }
+            append(snapshot);
+        } catch (IOException e) {
+            failed = true;
+            logger.error("Disabling metrics journal in {}: {}", directory, e.getMessage(), e);
+            closeSegment();
+        }
+    }
+
+    private void append(MetricsSnapshot snapshot) {
+        int base = headerSize + position * recordSize;
+        int bitmapOffset = base + JournalFormat.RECORD_HEADER_SIZE;
+        int valueOffset = bitmapOffset + bitmapWords * Long.BYTES;
+        long word = 0;
+        for (int id = 0; id < slotCapacity; id++) {
+            long bits = 0;
+            if (id < slotCount && snapshot.isPresent(id)) {
+                word |= 1L << (id & 63);
+                bits = snapshot.getRegistry().get(id).getKind() == MetricDescriptor.Kind.LONG
+                    ? snapshot.getLong(id)
+                    : Double.doubleToRawLongBits(snapshot.getDouble(id));
+            }
+            mapped.putLong(valueOffset + id * Long.BYTES, bits);
+            if ((id & 63) == 63 || id == slotCapacity - 1) {
+                mapped.putLong(bitmapOffset + (id >>> 6) * Long.BYTES, word);
+                word = 0;
+            }
+        }
+        mapped.putInt(base + JournalFormat.CRC_OFFSET + Integer.BYTES, 0);
+        // The timestamp marks the record as written, so it is stored after the payload
+        mapped.putLong(base, snapshot.getTimestampMillis());
+        mapped.putInt(base + JournalFormat.CRC_OFFSET, checksum(crc, crcView, base, recordSize));
+        position++;
+    }
+
+    /**
+     * Computes the CRC of a record, skipping the CRC field itself.
+     */
+    static int checksum(CRC32C crc, ByteBuffer view, int base, int recordSize) {
+        crc.reset();
+        view.limit(base + JournalFormat.CRC_OFFSET).position(base);
+        crc.update(view);
+        view.limit(base + recordSize).position(base + JournalFormat.CRC_OFFSET + Integer.BYTES);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private void rotate(MetricDescriptor[] descriptors, long createdMillis) throws IOException {
+        closeSegment();
+
+        byte[] schema = encodeSchema(descriptors, 0);
+        slotCount = descriptors.length;
+        slotCapacity = JournalFormat.slotCapacity(slotCount);
+        bitmapWords = JournalFormat.bitmapWords(slotCapacity);
+        recordSize = JournalFormat.recordSize(slotCapacity);
+        // Reserve schema room in proportion to the reserved slots
+        headerSize = JournalFormat.headerSize(schema.length * slotCapacity / Math.max(slotCount, 1));
+        long fileSize = headerSize + (long) recordSize * segmentRecords;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Journal segment of " + fileSize + " bytes is too large, reduce the segment records");
+        }
+
+        Path file = directory.resolve(JournalFormat.fileName(nextSequence++));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        preallocate(channel, fileSize);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        crcView = mapped.duplicate();
+        position = 0;
+
+        mapped.putInt(0, JournalFormat.MAGIC);
+        mapped.putInt(4, JournalFormat.VERSION);
+        mapped.putInt(8, slotCount);
+        mapped.putInt(12, recordSize);
+        mapped.putInt(16, segmentRecords);
+        mapped.putInt(20, headerSize);
+        mapped.putLong(24, createdMillis);
+        mapped.putInt(32, schema.length);
+        mapped.putInt(36, slotCapacity);
+        ByteBuffer header = mapped.duplicate();
+        header.position(JournalFormat.FIXED_HEADER_SIZE);
+        header.put(schema);
+        logger.debug("Started journal segment {} with {} metrics", file, slotCount);
+
+        deleteOldSegments();
+    }
+
+    private static void preallocate(FileChannel channel, long size) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(ZERO_CHUNK);
+        long written = 0;
+        while (written < size) {
+            zeros.clear().limit((int) Math.min(ZERO_CHUNK, size - written));
+            written += channel.write(zeros, written);
+        }
+    }
+
+    /**
+     * Appends newly registered metrics to the schema of the current segment.
+     * @return false if the segment has no room left and must be rotated
+     */
+    private boolean extendSchema(MetricDescriptor[] descriptors) throws IOException {
+        if (descriptors.length > slotCapacity) {
+            return false;
+        }
+        byte[] added = encodeSchema(descriptors, slotCount);
+        int schemaLength = mapped.getInt(32);
+        if (JournalFormat.FIXED_HEADER_SIZE + schemaLength + added.length > headerSize) {
+            return false;
+        }
+        ByteBuffer header = mapped.duplicate();
+        header.position(JournalFormat.FIXED_HEADER_SIZE + schemaLength);
+        header.put(added);
+        // Publish the new entries only after they are complete
+        mapped.putInt(32, schemaLength + added.length);
+        mapped.putInt(8, descriptors.length);
+        slotCount = descriptors.length;
+        return true;
+    }
+
+    private static byte[] encodeSchema(MetricDescriptor[] descriptors, int from) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = from; i < descriptors.length; i++) {
+            MetricDescriptor descriptor = descriptors[i];
+            out.writeByte(descriptor.getKind() == MetricDescriptor.Kind.LONG ? 'L' : 'D');
+            out.writeByte(descriptor.getType() == MetricDescriptor.Type.COUNTER ? 'C' : 'G');
+            writeString(out, descriptor.toString());
+            writeString(out, descriptor.getUnit());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Lists the segment files of a journal directory, oldest first.
+     * @param directory The journal directory
+     * @return Segment files sorted by sequence number
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> JournalFormat.sequenceOf(path) >= 0).forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(JournalFormat.sequenceOf(a), JournalFormat.sequenceOf(b)));
+        return segments;
+    }
+
+    private void closeSegment() {
+        if (mapped != null) {
+            try {
+                mapped.force();
+            } catch (UncheckedIOException e) {
+                logger.warn("Could not flush journal segment: {}", e.getMessage());
+            }
+            mapped = null;
+            crcView = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close journal segment: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Flushes and closes the current segment.
+     */
+    @Override
+    public void close() {
+        closeSegment();
+    }
+}
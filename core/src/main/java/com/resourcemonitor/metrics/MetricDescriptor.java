@@ -0,0 +1,113 @@
+package com.resourcemonitor.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes a single metric slot in a {@link MetricsSnapshot}.
+ * Descriptors are created once at registration time and are immutable afterwards,
+ * so consumers can read names, units and tags without any per-cycle cost.
+ */
+public final class MetricDescriptor {
+
+    /** Storage kind of the slot inside a snapshot. */
+    public enum Kind {
+        LONG,
+        DOUBLE
+    }
+
+    /** Semantic type of the metric, used by exporters. */
+    public enum Type {
+        GAUGE,
+        COUNTER
+    }
+
+    private final int id;
+    private final String name;
+    private final String unit;
+    private final Kind kind;
+    private final Type type;
+    private final Map<String, String> tags;
+
+    MetricDescriptor(int id, String name, String unit, Kind kind, Type type, String... tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be key/value pairs: " + name);
+        }
+        Map<String, String> tagMap = new LinkedHashMap<>();
+        for (int i = 0; i < tags.length; i += 2) {
+            tagMap.put(tags[i], tags[i + 1]);
+        }
+        this.id = id;
+        this.name = name;
+        this.unit = unit;
+        this.kind = kind;
+        this.type = type;
+        this.tags = Collections.unmodifiableMap(tagMap);
+    }
+
+    /**
+     * Builds the registry key for a name and tag combination.
+     * @param name The metric name
+     * @param tags Alternating tag keys and values
+     * @return Key that uniquely identifies the metric
+     */
+    static String key(String name, String... tags) {
+        if (tags.length == 0) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name);
+        for (int i = 0; i < tags.length; i += 2) {
+            sb.append(i == 0 ? '{' : ',').append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return sb.append('}').toString();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the value of a tag, or null when the metric does not carry it.
+     * @param key The tag key
+     * @return Tag value or null
+     */
+    public String getTag(String key) {
+        return tags.get(key);
+    }
+
+    @Override
+    public String toString() {
+        return key(name, flattenTags());
+    }
+
+    private String[] flattenTags() {
+        String[] flat = new String[tags.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            flat[i++] = entry.getKey();
+            flat[i++] = entry.getValue();
+        }
+        return flat;
+    }
+}
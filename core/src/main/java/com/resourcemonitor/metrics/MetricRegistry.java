@@ -0,0 +1,123 @@
+package com.resourcemonitor.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of all metric slots known to the monitor.
+ *
+ * Collectors register their metrics once (normally in their constructor) and keep the
+ * returned integer ids. During a collection cycle they only write primitives into a
+ * {@link MetricsSnapshot} by id, so the hot path never touches names, maps or boxed values.
+ *
+ * Registration is thread-safe and idempotent: registering the same name and tags twice
+ * returns the existing id. Readers see a copy-on-write array of descriptors.
+ */
+public final class MetricRegistry {
+    private final Map<String, MetricDescriptor> byKey = new HashMap<>();
+    private volatile MetricDescriptor[] descriptors = new MetricDescriptor[0];
+
+    /**
+     * Registers a gauge stored as a long.
+     * @param name The metric name
+     * @param unit The unit of the value (e.g. "bytes", "ms")
+     * @param tags Alternating tag keys and values
+     * @return Id of the metric slot
+     */
+    public int longGauge(String name, String unit, String... tags) {
+        return register(name, unit, MetricDescriptor.Kind.LONG, MetricDescriptor.Type.GAUGE, tags);
+    }
+
+    /**
+     * Registers a gauge stored as a double.
+     * @param name The metric name
+     * @param unit The unit of the value
+     * @param tags Alternating tag keys and values
+     * @return Id of the metric slot
+     */
+    public int doubleGauge(String name, String unit, String... tags) {
+        return register(name, unit, MetricDescriptor.Kind.DOUBLE, MetricDescriptor.Type.GAUGE, tags);
+    }
+
+    /**
+     * Registers a monotonically increasing counter stored as a long.
+     * @param name The metric name
+     * @param unit The unit of the value
+     * @param tags Alternating tag keys and values
+     * @return Id of the metric slot
+     */
+    public int counter(String name, String unit, String... tags) {
+        return register(name, unit, MetricDescriptor.Kind.LONG, MetricDescriptor.Type.COUNTER, tags);
+    }
+
+    /**
+     * Registers a metric slot, or returns the id of an identical existing one.
+     * @param name The metric name
+     * @param unit The unit of the value
+     * @param kind Storage kind
+     * @param type Semantic type
+     * @param tags Alternating tag keys and values
+     * @return Id of the metric slot
+     */
+    public synchronized int register(String name, String unit, MetricDescriptor.Kind kind,
+                                     MetricDescriptor.Type type, String... tags) {
+        String key = MetricDescriptor.key(name, tags);
+        MetricDescriptor existing = byKey.get(key);
+        if (existing != null) {
+            if (existing.getKind() != kind) {
+                throw new IllegalArgumentException("Metric " + key + " already registered as " + existing.getKind());
+            }
+            return existing.getId();
+        }
+
+        MetricDescriptor[] current = descriptors;
+        MetricDescriptor descriptor = new MetricDescriptor(current.length, name, unit, kind, type, tags);
+        MetricDescriptor[] next = new MetricDescriptor[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = descriptor;
+        byKey.put(key, descriptor);
+        descriptors = next;
+        return descriptor.getId();
+    }
+
+    /**
+     * Looks up a registered metric by name and tags.
+     * @param name The metric name
+     * @param tags Alternating tag keys and values
+     * @return The descriptor, or null if not registered
+     */
+    public synchronized MetricDescriptor find(String name, String... tags) {
+        return byKey.get(MetricDescriptor.key(name, tags));
+    }
+
+    /**
+     * @param id The metric id
+     * @return Descriptor for the id
+     */
+    public MetricDescriptor get(int id) {
+        return descriptors[id];
+    }
+
+    /**
+     * @return Number of registered metrics
+     */
+    public int size() {
+        return descriptors.length;
+    }
+
+    /**
+     * Returns the current descriptors indexed by id. The array must not be modified.
+     * @return Array of descriptors
+     */
+    public MetricDescriptor[] descriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Creates a new snapshot sized for the metrics registered so far.
+     * @return A new, empty snapshot
+     */
+    public MetricsSnapshot newSnapshot() {
+        return new MetricsSnapshot(this);
+    }
+}
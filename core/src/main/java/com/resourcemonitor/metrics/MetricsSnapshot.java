@@ -0,0 +1,166 @@
+package com.resourcemonitor.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, preallocated container for the values of one collection cycle.
+ *
+ * Values are stored in primitive arrays indexed by metric id, so writing a value is a
+ * plain array store with no boxing. A snapshot is reused across cycles: {@link #begin(long)}
+ * clears the presence flags and only grows the arrays when new metrics were registered,
+ * which makes the steady-state cycle allocation-free.
+ *
+ * Snapshots are not thread-safe. Consumers on other threads should work on a copy made
+ * with {@link #copyFrom(MetricsSnapshot)}.
+ */
+public final class MetricsSnapshot {
+    private final MetricRegistry registry;
+    private long timestampMillis;
+    private long[] longValues;
+    private double[] doubleValues;
+    private boolean[] present;
+
+    MetricsSnapshot(MetricRegistry registry) {
+        this.registry = registry;
+        int size = registry.size();
+        this.longValues = new long[size];
+        this.doubleValues = new double[size];
+        this.present = new boolean[size];
+    }
+
+    /**
+     * Starts a new cycle: clears all values and records the cycle timestamp.
+     * @param timestampMillis Wall-clock time of the cycle
+     */
+    public void begin(long timestampMillis) {
+        ensureCapacity(registry.size());
+        Arrays.fill(present, false);
+        this.timestampMillis = timestampMillis;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > present.length) {
+            int capacity = Math.max(size, present.length + (present.length >> 1));
+            longValues = Arrays.copyOf(longValues, capacity);
+            doubleValues = Arrays.copyOf(doubleValues, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+    }
+
+    /**
+     * Writes a long value.
+     * @param id The metric id
+     * @param value The value
+     */
+    public void set(int id, long value) {
+        if (id >= present.length) {
+            ensureCapacity(registry.size());
+        }
+        longValues[id] = value;
+        present[id] = true;
+    }
+
+    /**
+     * Writes a double value.
+     * @param id The metric id
+     * @param value The value
+     */
+    public void set(int id, double value) {
+        if (id >= present.length) {
+            ensureCapacity(registry.size());
+        }
+        doubleValues[id] = value;
+        present[id] = true;
+    }
+
+    /**
+     * @param id The metric id
+     * @return true if the metric was written during this cycle
+     */
+    public boolean isPresent(int id) {
+        return id < present.length && present[id];
+    }
+
+    /**
+     * @param id The metric id
+     * @return The long value, or 0 if not present
+     */
+    public long getLong(int id) {
+        return isPresent(id) ? longValues[id] : 0L;
+    }
+
+    /**
+     * @param id The metric id
+     * @return The double value, or NaN if not present
+     */
+    public double getDouble(int id) {
+        return isPresent(id) ? doubleValues[id] : Double.NaN;
+    }
+
+    /**
+     * Reads a value as a double regardless of its storage kind.
+     * @param id The metric id
+     * @return The value, or NaN if not present
+     */
+    public double getAsDouble(int id) {
+        if (!isPresent(id)) {
+            return Double.NaN;
+        }
+        return registry.get(id).getKind() == MetricDescriptor.Kind.LONG ? longValues[id] : doubleValues[id];
+    }
+
+    /**
+     * @return Wall-clock time of the cycle in milliseconds
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * @return Number of slots available in this snapshot
+     */
+    public int capacity() {
+        return present.length;
+    }
+
+    /**
+     * @return The registry describing this snapshot's slots
+     */
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Copies all values of another snapshot into this one, reusing this snapshot's arrays.
+     * @param other The snapshot to copy
+     */
+    public void copyFrom(MetricsSnapshot other) {
+        ensureCapacity(other.present.length);
+        int length = other.present.length;
+        System.arraycopy(other.longValues, 0, longValues, 0, length);
+        System.arraycopy(other.doubleValues, 0, doubleValues, 0, length);
+        System.arraycopy(other.present, 0, present, 0, length);
+        if (present.length > length) {
+            Arrays.fill(present, length, present.length, false);
+        }
+        this.timestampMillis = other.timestampMillis;
+    }
+
+    /**
+     * Copies only the values present in another snapshot of the same registry into this one,
+     * leaving all other slots untouched. Used to combine the snapshots that collectors wrote on
+     * different threads.
+     * @param other The snapshot to merge
+     */
+    public void mergeFrom(MetricsSnapshot other) {
+        ensureCapacity(other.present.length);
+        boolean[] otherPresent = other.present;
+        for (int id = 0; id < otherPresent.length; id++) {
+            if (otherPresent[id]) {
+                longValues[id] = other.longValues[id];
+                doubleValues[id] = other.doubleValues[id];
+                present[id] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands snapshots to a background thread so that a slow sink never delays the sampling thread.
+ *
+ * A fixed pool of snapshot copies is preallocated. The sampling thread copies the cycle's
+ * values into a free copy and queues it; the writer thread passes it to the delegate and
+ * returns it to the pool. When the writer falls behind and no copy is free, the cycle is
+ * dropped rather than blocking, and counted in {@code monitor.output.dropped}.
+ */
+public class AsyncSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSink.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final MetricsSink delegate;
+    private final BlockingQueue<MetricsSnapshot> free;
+    private final BlockingQueue<MetricsSnapshot> pending;
+    private final AtomicLong dropped = new AtomicLong();
+    private final int droppedId;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param delegate The sink called on the writer thread
+     * @param registry Registry of the snapshots
+     * @param queueSize Number of cycles that may be pending before cycles are dropped
+     */
+    public AsyncSink(MetricsSink delegate, MetricRegistry registry, int queueSize) {
+        int size = Math.max(queueSize, 1);
+        this.delegate = delegate;
+        this.droppedId = registry.counter("monitor.output.dropped", "count");
+        this.free = new ArrayBlockingQueue<>(size);
+        this.pending = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            free.add(registry.newSnapshot());
+        }
+        this.writer = new Thread(this::drain, "resource-monitor-output");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        MetricsSnapshot copy = free.poll();
+        if (copy == null) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 100 == 0) {
+                logger.warn("Metrics output is falling behind, dropped {} cycles so far", count);
+            }
+            return;
+        }
+        copy.copyFrom(snapshot);
+        copy.set(droppedId, dropped.get());
+        pending.add(copy);
+    }
+
+    private void drain() {
+        while (running || !pending.isEmpty()) {
+            MetricsSnapshot snapshot;
+            try {
+                snapshot = pending.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (snapshot == null) {
+                continue;
+            }
+            try {
+                delegate.write(snapshot);
+            } catch (RuntimeException e) {
+                logger.error("Error writing metrics: {}", e.getMessage(), e);
+            } finally {
+                free.add(snapshot);
+            }
+        }
+    }
+
+    /**
+     * @return Number of cycles dropped because the writer fell behind
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the pending cycles, then closes the delegate.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        delegate.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.scheduling.ScheduledCollector;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+
+/**
+ * The human-readable, colored multi-line output: every collector that ran in the cycle logs
+ * its own section.
+ *
+ * Collectors may read their own state in addition to the snapshot when logging (e.g. the
+ * stack traces of blocked threads), so this sink must run on the sampling thread and cannot
+ * be made asynchronous.
+ */
+public class CollectorLogSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(CollectorLogSink.class);
+    private final List<ScheduledCollector> collectors;
+    private final int collectionTimeId;
+
+    /**
+     * @param collectors The collectors whose sections are logged, in order
+     * @param collectionTimeId Id of the collection time metric in microseconds
+     */
+    public CollectorLogSink(List<ScheduledCollector> collectors, int collectionTimeId) {
+        this.collectors = collectors;
+        this.collectionTimeId = collectionTimeId;
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        logger.info("{}=== Resource Monitor Check ==={}", ColorCodes.BOLD + ColorCodes.PURPLE, ColorCodes.RESET);
+        for (ScheduledCollector collector : collectors) {
+            if (collector.ranInLastCycle()) {
+                collector.getCollector().log(snapshot);
+            }
+        }
+        logger.info("{}Metrics collection completed in {}ms{}", 
+            ColorCodes.CYAN, 
+            FormatUtils.formatNanosToMillis(snapshot.getLong(collectionTimeId) * 1_000), 
+            ColorCodes.RESET);
+    }
+}
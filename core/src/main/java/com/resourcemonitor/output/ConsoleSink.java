@@ -0,0 +1,40 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import java.io.PrintStream;
+
+/**
+ * Writes each snapshot as one encoded line straight to standard output.
+ *
+ * The line is written from the reused byte buffer without going through a String or a
+ * logging appender, so this is the cheapest sink. It is also the only one where ANSI
+ * coloring makes sense.
+ */
+public class ConsoleSink implements MetricsSink {
+    private final SnapshotEncoder encoder;
+    private final PrintStream out;
+    private final ByteBuilder buffer = new ByteBuilder();
+
+    public ConsoleSink(SnapshotEncoder encoder) {
+        this(encoder, System.out);
+    }
+
+    /**
+     * @param encoder Encoder for the lines
+     * @param out Stream to write to
+     */
+    public ConsoleSink(SnapshotEncoder encoder, PrintStream out) {
+        this.encoder = encoder;
+        this.out = out;
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        buffer.reset();
+        encoder.encode(snapshot, buffer);
+        buffer.append('\n');
+        out.write(buffer.array(), 0, buffer.length());
+        out.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+
+/**
+ * Encodes a snapshot as one compact JSON object:
+ * {@code {"ts":1700000000000,"metrics":{"memory.heap.used":123,"threads.state{state=BLOCKED}":0}}}.
+ *
+ * Metric keys use the registry key ({@code name{tag=value,...}}). Metrics that were not
+ * written during the cycle are omitted; non-finite doubles are written as {@code null}.
+ */
+public class JsonSnapshotEncoder extends SnapshotEncoder {
+
+    public JsonSnapshotEncoder(boolean ansi) {
+        super(ansi);
+    }
+
+    @Override
+    public void encode(MetricsSnapshot snapshot, ByteBuilder out) {
+        out.append("{\"ts\":").append(snapshot.getTimestampMillis()).append(",\"metrics\":{");
+        MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+        boolean first = true;
+        for (MetricDescriptor descriptor : descriptors) {
+            if (!snapshot.isPresent(descriptor.getId())) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append(key(descriptor)).append(':');
+            if (!appendValue(snapshot, descriptor, out)) {
+                out.append("null");
+            }
+        }
+        out.append("}}");
+    }
+
+    @Override
+    protected String keyOf(MetricDescriptor descriptor) {
+        String key = descriptor.toString();
+        StringBuilder sb = new StringBuilder(key.length() + 2).append('"');
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
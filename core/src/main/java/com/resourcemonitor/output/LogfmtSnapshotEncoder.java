@@ -0,0 +1,63 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import java.util.Map;
+
+/**
+ * Encodes a snapshot as one logfmt line:
+ * {@code ts=1700000000000 memory.heap.used=123 threads.state{state:BLOCKED}=0}.
+ *
+ * logfmt keys may not contain {@code =}, quotes or whitespace, so tags are written as
+ * {@code tag:value} and offending characters in tag values are replaced by {@code _}.
+ * Metrics that were not written during the cycle and non-finite doubles are omitted.
+ */
+public class LogfmtSnapshotEncoder extends SnapshotEncoder {
+
+    public LogfmtSnapshotEncoder(boolean ansi) {
+        super(ansi);
+    }
+
+    @Override
+    public void encode(MetricsSnapshot snapshot, ByteBuilder out) {
+        out.append("ts=").append(snapshot.getTimestampMillis());
+        MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+        for (MetricDescriptor descriptor : descriptors) {
+            if (!snapshot.isPresent(descriptor.getId())) {
+                continue;
+            }
+            int mark = out.length();
+            out.append(' ').append(key(descriptor)).append('=');
+            if (!appendValue(snapshot, descriptor, out)) {
+                out.truncate(mark);
+            }
+        }
+    }
+
+    @Override
+    protected String keyOf(MetricDescriptor descriptor) {
+        StringBuilder sb = new StringBuilder();
+        appendSanitized(sb, descriptor.getName());
+        Map<String, String> tags = descriptor.getTags();
+        if (!tags.isEmpty()) {
+            char separator = '{';
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                sb.append(separator);
+                appendSanitized(sb, tag.getKey());
+                sb.append(':');
+                appendSanitized(sb, tag.getValue());
+                separator = ',';
+            }
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+    private static void appendSanitized(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c <= ' ' || c == '=' || c == '"' || c == ',' || c == '{' || c == '}' ? '_' : c);
+        }
+    }
+}
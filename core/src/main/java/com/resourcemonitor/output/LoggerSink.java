@@ -0,0 +1,32 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes each snapshot as one encoded line through SLF4J.
+ *
+ * Lines go to the {@code com.resourcemonitor.metrics} logger so that they can be routed to a
+ * dedicated (e.g. JSON) appender independently of the monitor's own diagnostic logging.
+ */
+public class LoggerSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger("com.resourcemonitor.metrics");
+    private final SnapshotEncoder encoder;
+    private final ByteBuilder buffer = new ByteBuilder();
+
+    public LoggerSink(SnapshotEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        buffer.reset();
+        encoder.encode(snapshot, buffer);
+        logger.info(buffer.toString());
+    }
+}
@@ -0,0 +1,25 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+
+/**
+ * Consumer of the complete snapshot of each collection cycle.
+ *
+ * Sinks are called on the sampling thread once all collectors have finished. The snapshot is
+ * reused for the next cycle, so a sink that hands it to another thread must copy it first
+ * (see {@link AsyncSink}).
+ */
+public interface MetricsSink {
+    /**
+     * Writes the snapshot of the current cycle.
+     *
+     * @param snapshot The completed snapshot
+     */
+    void write(MetricsSnapshot snapshot);
+
+    /**
+     * Flushes pending output and releases resources. Called once when the monitor stops.
+     */
+    default void close() {
+    }
+}
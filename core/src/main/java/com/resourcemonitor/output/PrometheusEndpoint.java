@@ -0,0 +1,92 @@
+package com.resourcemonitor.output;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the exposition of a {@link PrometheusSink} over HTTP using the JDK's built-in server,
+ * for applications that do not run a web stack of their own. Applications that do can call
+ * {@link PrometheusSink#writeTo(java.io.OutputStream)} from a controller instead.
+ *
+ * Scrapes are served by two daemon threads and only copy the rendered bytes, so a scrape never
+ * touches the collectors.
+ */
+public class PrometheusEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusEndpoint.class);
+    private static final int THREADS = 2;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts the server.
+     * @param sink The sink whose exposition is served
+     * @param host Address to bind to
+     * @param port Port to listen on; 0 picks a free port
+     * @param path Path of the metrics resource, e.g. "/metrics"
+     * @throws IOException if the port cannot be bound
+     */
+    public PrometheusEndpoint(PrometheusSink sink, String host, int port, String path) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newFixedThreadPool(THREADS, task -> {
+            Thread thread = new Thread(task, "resource-monitor-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(path, exchange -> handle(sink, exchange));
+        server.start();
+        logger.info("Serving metrics at http://{}:{}{}", host, getPort(), path);
+    }
+
+    private static void handle(PrometheusSink sink, HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", PrometheusSink.CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            sink.writeTo(new PrometheusSink.ExpositionTarget() {
+                @Override
+                public void begin(int length) throws IOException {
+                    exchange.sendResponseHeaders(200, length);
+                }
+
+                @Override
+                public OutputStream body() {
+                    return exchange.getResponseBody();
+                }
+            });
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return The port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, giving in-flight scrapes up to a second to complete.
+     */
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+}
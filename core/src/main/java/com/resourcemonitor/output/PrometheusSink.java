@@ -0,0 +1,236 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders every snapshot in the OpenMetrics text format, ready to be served to scrapers.
+ *
+ * Rendering happens once per collection cycle on the sampling thread. Scrapers only copy the
+ * finished bytes to their socket, so the cost of a scrape does not depend on the number of
+ * metrics or on how many scrapers there are. Buffers are reused: a new exposition is rendered
+ * into a buffer that no scraper is reading, and is then published with a single volatile write.
+ * A scraper that is slower than a cycle keeps its buffer and the next cycle picks another one.
+ *
+ * Metric names have dots replaced by underscores ({@code memory.heap.used} becomes
+ * {@code memory_heap_used}) and series of the same name are grouped into one family. Collectors
+ * with longer intervals keep their last value between runs instead of dropping out.
+ */
+public class PrometheusSink implements MetricsSink {
+    /** Content type of the OpenMetrics text format */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final byte[] EOF = "# EOF\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POSITIVE_INFINITY = "+Inf".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEGATIVE_INFINITY = "-Inf".getBytes(StandardCharsets.US_ASCII);
+
+    private final MetricsSnapshot latest;
+    private final List<Exposition> buffers = new ArrayList<>();
+    private volatile Exposition current;
+
+    private int layoutSize = -1;
+    private int[] order = new int[0];
+    private byte[][] familyHeaders = new byte[0][];
+    private byte[][] samplePrefixes = new byte[0][];
+
+    /**
+     * @param registry The registry of the snapshots to render
+     */
+    public PrometheusSink(MetricRegistry registry) {
+        this.latest = registry.newSnapshot();
+        Exposition empty = new Exposition();
+        empty.bytes.append(EOF);
+        buffers.add(empty);
+        current = empty;
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        latest.mergeFrom(snapshot);
+        MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+        if (descriptors.length != layoutSize) {
+            buildLayout(descriptors);
+        }
+
+        Exposition next = spareBuffer();
+        ByteBuilder out = next.bytes;
+        out.reset();
+        for (int i = 0; i < order.length; i++) {
+            int id = order[i];
+            if (familyHeaders[i] != null) {
+                out.append(familyHeaders[i]);
+            }
+            if (!latest.isPresent(id)) {
+                continue;
+            }
+            out.append(samplePrefixes[i]);
+            if (descriptors[id].getKind() == MetricDescriptor.Kind.LONG) {
+                out.append(latest.getLong(id));
+            } else {
+                appendDouble(latest.getDouble(id), out);
+            }
+            out.append('\n');
+        }
+        out.append(EOF);
+        current = next;
+    }
+
+    private static void appendDouble(double value, ByteBuilder out) {
+        if (Double.isNaN(value)) {
+            out.append(NAN);
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Returns a buffer that is neither published nor being read. Readers that pick up a buffer
+     * after this check see that it is no longer current and retry, see {@link #writeTo(OutputStream)}.
+     */
+    private Exposition spareBuffer() {
+        for (Exposition buffer : buffers) {
+            if (buffer != current && buffer.readers.get() == 0) {
+                return buffer;
+            }
+        }
+        Exposition buffer = new Exposition();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Writes the most recent exposition to a stream, e.g. an HTTP response body. Safe to call
+     * from any number of threads concurrently with rendering.
+     * @param out The stream
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        Exposition exposition = acquire();
+        try {
+            exposition.bytes.writeTo(out);
+        } finally {
+            exposition.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Acquires the current exposition and writes its length before the content, for servers that
+     * must send the content length first.
+     * @param target Receives the length and then the content
+     * @throws IOException if writing fails
+     */
+    public void writeTo(ExpositionTarget target) throws IOException {
+        Exposition exposition = acquire();
+        try {
+            target.begin(exposition.bytes.length());
+            exposition.bytes.writeTo(target.body());
+        } finally {
+            exposition.readers.decrementAndGet();
+        }
+    }
+
+    private Exposition acquire() {
+        while (true) {
+            Exposition exposition = current;
+            exposition.readers.incrementAndGet();
+            if (exposition == current) {
+                return exposition;
+            }
+            // Replaced before we registered as a reader; it may already be re-rendered
+            exposition.readers.decrementAndGet();
+        }
+    }
+
+    private void buildLayout(MetricDescriptor[] descriptors) {
+        Integer[] ids = new Integer[descriptors.length];
+        String[] families = new String[descriptors.length];
+        for (int id = 0; id < descriptors.length; id++) {
+            ids[id] = id;
+            families[id] = sanitizeName(descriptors[id].getName());
+        }
+        // Group the series of a family; registration order within it
+        Arrays.sort(ids, Comparator.<Integer, String>comparing(id -> families[id]).thenComparing(id -> id));
+
+        order = new int[ids.length];
+        familyHeaders = new byte[ids.length][];
+        samplePrefixes = new byte[ids.length][];
+        String previous = null;
+        for (int i = 0; i < ids.length; i++) {
+            MetricDescriptor descriptor = descriptors[ids[i]];
+            String family = families[ids[i]];
+            boolean counter = descriptor.getType() == MetricDescriptor.Type.COUNTER;
+            order[i] = ids[i];
+            if (!family.equals(previous)) {
+                familyHeaders[i] = ("# TYPE " + family + (counter ? " counter\n" : " gauge\n")
+                    + "# HELP " + family + " " + descriptor.getName() + " (" + descriptor.getUnit() + ")\n")
+                    .getBytes(StandardCharsets.UTF_8);
+                previous = family;
+            }
+            StringBuilder prefix = new StringBuilder(family);
+            if (counter) {
+                prefix.append("_total");
+            }
+            if (!descriptor.getTags().isEmpty()) {
+                char separator = '{';
+                for (Map.Entry<String, String> tag : descriptor.getTags().entrySet()) {
+                    prefix.append(separator).append(sanitizeName(tag.getKey())).append("=\"")
+                        .append(escapeLabelValue(tag.getValue())).append('"');
+                    separator = ',';
+                }
+                prefix.append('}');
+            }
+            samplePrefixes[i] = prefix.append(' ').toString().getBytes(StandardCharsets.UTF_8);
+        }
+        layoutSize = descriptors.length;
+    }
+
+    static String sanitizeName(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+                || (i > 0 && c >= '0' && c <= '9');
+            sb.append(valid ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /** Receives an exposition whose length must be known before the body is written. */
+    public interface ExpositionTarget {
+        /**
+         * @param length Number of bytes that follow
+         * @throws IOException if the target fails
+         */
+        void begin(int length) throws IOException;
+
+        /**
+         * @return Stream for the content
+         * @throws IOException if the target fails
+         */
+        OutputStream body() throws IOException;
+    }
+
+    /** A rendered exposition and the number of scrapers reading it. */
+    private static final class Exposition {
+        final ByteBuilder bytes = new ByteBuilder(16 * 1024);
+        final AtomicInteger readers = new AtomicInteger();
+    }
+}
@@ -0,0 +1,86 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import com.resourcemonitor.util.ColorCodes;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes a complete snapshot as a single line into a reused {@link ByteBuilder}.
+ *
+ * The encoded key of every metric is computed once per metric and cached as bytes, so
+ * encoding a cycle only copies key bytes and writes digits. When ANSI coloring is enabled
+ * the keys are wrapped in color codes; this is meant for console output only.
+ */
+public abstract class SnapshotEncoder {
+    private static final byte[] ANSI_KEY = ColorCodes.CYAN.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ANSI_RESET = ColorCodes.RESET.getBytes(StandardCharsets.US_ASCII);
+
+    private final boolean ansi;
+    private byte[][] keys = new byte[0][];
+
+    protected SnapshotEncoder(boolean ansi) {
+        this.ansi = ansi;
+    }
+
+    /**
+     * Appends one line for the snapshot, without the trailing newline.
+     * @param snapshot The snapshot to encode
+     * @param out The buffer to append to
+     */
+    public abstract void encode(MetricsSnapshot snapshot, ByteBuilder out);
+
+    /**
+     * Builds the plain (uncolored) key of a metric.
+     * @param descriptor The metric
+     * @return The key text
+     */
+    protected abstract String keyOf(MetricDescriptor descriptor);
+
+    /**
+     * Returns the cached, possibly colored key bytes of a metric.
+     * @param descriptor The metric
+     * @return Key bytes
+     */
+    protected final byte[] key(MetricDescriptor descriptor) {
+        int id = descriptor.getId();
+        if (id >= keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(id + 1, keys.length * 2));
+        }
+        byte[] key = keys[id];
+        if (key == null) {
+            key = keyOf(descriptor).getBytes(StandardCharsets.UTF_8);
+            if (ansi) {
+                byte[] colored = new byte[ANSI_KEY.length + key.length + ANSI_RESET.length];
+                System.arraycopy(ANSI_KEY, 0, colored, 0, ANSI_KEY.length);
+                System.arraycopy(key, 0, colored, ANSI_KEY.length, key.length);
+                System.arraycopy(ANSI_RESET, 0, colored, ANSI_KEY.length + key.length, ANSI_RESET.length);
+                key = colored;
+            }
+            keys[id] = key;
+        }
+        return key;
+    }
+
+    /**
+     * Appends the value of a present metric in its storage kind.
+     * @param snapshot The snapshot
+     * @param descriptor The metric
+     * @param out The buffer
+     * @return false if the value is a non-finite double and nothing was written
+     */
+    protected static boolean appendValue(MetricsSnapshot snapshot, MetricDescriptor descriptor, ByteBuilder out) {
+        if (descriptor.getKind() == MetricDescriptor.Kind.LONG) {
+            out.append(snapshot.getLong(descriptor.getId()));
+            return true;
+        }
+        double value = snapshot.getDouble(descriptor.getId());
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        out.append(value);
+        return true;
+    }
+}
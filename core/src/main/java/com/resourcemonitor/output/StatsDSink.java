@@ -0,0 +1,231 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricDescriptor;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ByteBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pushes every snapshot to a StatsD or DogStatsD agent over UDP.
+ *
+ * The values of a cycle are packed into as few datagrams as possible: lines are appended to a
+ * preallocated direct buffer of {@code maxPacketBytes} and the buffer is sent whenever the next
+ * line would not fit, so a cycle of a few hundred metrics costs a handful of packets instead of
+ * one per metric. The channel is non-blocking; when the socket buffer is full the datagram is
+ * dropped and counted in {@code monitor.statsd.dropped} instead of stalling the sampling thread.
+ *
+ * With the DogStatsD flavor tags are sent as DogStatsD tags ({@code |#pool:main}). Plain StatsD
+ * has no tags, so tag values are appended to the metric name ({@code db.connections.active.main}).
+ * Counters are sent as the increment since the previous cycle; gauges as their current value.
+ */
+public class StatsDSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(StatsDSink.class);
+    private static final byte[] ZERO = {'0'};
+
+    private final DatagramChannel channel;
+    private final ByteBuffer packet;
+    private final boolean dogStatsD;
+    private final String prefix;
+    private final String constantTags;
+    private final int droppedId;
+    private final ByteBuilder line = new ByteBuilder(256);
+
+    private byte[][] keys = new byte[0][];
+    private byte[][] suffixes = new byte[0][];
+    private long[] lastCounts = new long[0];
+    private boolean[] counted = new boolean[0];
+    private long droppedPackets;
+    private long sendErrors;
+
+    /**
+     * @param registry Registry of the snapshots
+     * @param host Host of the StatsD agent
+     * @param port UDP port of the StatsD agent
+     * @param dogStatsD true for the DogStatsD protocol with tags, false for plain StatsD
+     * @param maxPacketBytes Maximum datagram payload; keep below the path MTU (1432 for Ethernet)
+     * @param prefix Prefix for all metric names, e.g. "myservice."; may be empty
+     * @param constantTags Tags added to every metric with DogStatsD, e.g. "env:prod"
+     * @throws IOException if the channel cannot be opened
+     */
+    public StatsDSink(MetricRegistry registry, String host, int port, boolean dogStatsD, int maxPacketBytes,
+                      String prefix, List<String> constantTags) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            throw new IOException("Cannot resolve StatsD host " + host);
+        }
+        this.channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(address);
+        this.packet = ByteBuffer.allocateDirect(Math.max(maxPacketBytes, 64));
+        this.dogStatsD = dogStatsD;
+        this.prefix = prefix == null ? "" : prefix;
+        this.constantTags = String.join(",", constantTags);
+        this.droppedId = registry.counter("monitor.statsd.dropped", "count");
+    }
+
+    @Override
+    public void write(MetricsSnapshot snapshot) {
+        MetricDescriptor[] descriptors = snapshot.getRegistry().descriptors();
+        ensureCapacity(descriptors.length);
+        packet.clear();
+        for (MetricDescriptor descriptor : descriptors) {
+            int id = descriptor.getId();
+            if (id == droppedId) {
+                appendCounter(descriptor, droppedPackets);
+            } else if (snapshot.isPresent(id)) {
+                if (descriptor.getType() == MetricDescriptor.Type.COUNTER) {
+                    appendCounter(descriptor, snapshot.getLong(id));
+                } else if (descriptor.getKind() == MetricDescriptor.Kind.LONG) {
+                    appendGauge(descriptor, snapshot.getLong(id));
+                } else {
+                    appendGauge(descriptor, snapshot.getDouble(id));
+                }
+            }
+        }
+        flush();
+    }
+
+    private void appendCounter(MetricDescriptor descriptor, long count) {
+        int id = descriptor.getId();
+        long previous = lastCounts[id];
+        boolean first = !counted[id];
+        lastCounts[id] = count;
+        counted[id] = true;
+        // The first value only sets the baseline; a lower value means the counter was reset
+        if (first || count <= previous) {
+            return;
+        }
+        line.reset();
+        line.append(key(descriptor)).append(count - previous).append(suffixes[id]);
+        appendLine();
+    }
+
+    private void appendGauge(MetricDescriptor descriptor, long value) {
+        line.reset();
+        if (value < 0) {
+            appendZero(descriptor);
+        }
+        line.append(key(descriptor)).append(value).append(suffixes[descriptor.getId()]);
+        appendLine();
+    }
+
+    private void appendGauge(MetricDescriptor descriptor, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        line.reset();
+        if (value < 0) {
+            appendZero(descriptor);
+        }
+        line.append(key(descriptor)).append(value).append(suffixes[descriptor.getId()]);
+        appendLine();
+    }
+
+    /**
+     * StatsD reads a signed gauge value as a change, so a negative gauge is first set to zero.
+     */
+    private void appendZero(MetricDescriptor descriptor) {
+        line.append(key(descriptor)).append(ZERO).append(suffixes[descriptor.getId()]);
+    }
+
+    private void appendLine() {
+        if (line.length() > packet.remaining()) {
+            flush();
+            if (line.length() > packet.remaining()) {
+                logger.debug("Dropping StatsD line of {} bytes, larger than the packet size", line.length());
+                return;
+            }
+        }
+        packet.put(line.array(), 0, line.length());
+    }
+
+    private void flush() {
+        if (packet.position() == 0) {
+            return;
+        }
+        packet.flip();
+        try {
+            if (channel.write(packet) == 0) {
+                droppedPackets++;
+            }
+        } catch (IOException e) {
+            // E.g. ICMP port unreachable while the agent restarts
+            droppedPackets++;
+            if (sendErrors++ % 100 == 0) {
+                logger.warn("Cannot send metrics to StatsD agent: {}", e.getMessage());
+            }
+        }
+        packet.clear();
+    }
+
+    private byte[] key(MetricDescriptor descriptor) {
+        int id = descriptor.getId();
+        byte[] key = keys[id];
+        if (key == null) {
+            StringBuilder name = new StringBuilder(prefix);
+            appendSanitized(name, descriptor.getName());
+            StringBuilder suffix = new StringBuilder(
+                descriptor.getType() == MetricDescriptor.Type.COUNTER ? "|c" : "|g");
+            Map<String, String> tags = descriptor.getTags();
+            if (dogStatsD) {
+                StringBuilder tagText = new StringBuilder(constantTags);
+                for (Map.Entry<String, String> tag : tags.entrySet()) {
+                    if (tagText.length() > 0) {
+                        tagText.append(',');
+                    }
+                    appendSanitized(tagText, tag.getKey());
+                    tagText.append(':');
+                    appendSanitized(tagText, tag.getValue());
+                }
+                if (tagText.length() > 0) {
+                    suffix.append("|#").append(tagText);
+                }
+            } else {
+                for (String value : tags.values()) {
+                    name.append('.');
+                    appendSanitized(name, value);
+                }
+            }
+            key = name.append(':').toString().getBytes(StandardCharsets.UTF_8);
+            keys[id] = key;
+            suffixes[id] = suffix.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return key;
+    }
+
+    private static void appendSanitized(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c <= ' ' || c == ':' || c == '|' || c == '@' || c == '#' || c == ',' ? '_' : c);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > keys.length) {
+            int capacity = Math.max(size, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            suffixes = Arrays.copyOf(suffixes, capacity);
+            lastCounts = Arrays.copyOf(lastCounts, capacity);
+            counted = Arrays.copyOf(counted, capacity);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close StatsD channel: {}", e.getMessage());
+        }
+    }
+}
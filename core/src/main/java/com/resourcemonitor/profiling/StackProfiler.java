@@ -0,0 +1,357 @@
+package com.resourcemonitor.profiling;
+
+import com.resourcemonitor.ResourceMonitorProperties;
+import com.resourcemonitor.collectors.CollectorContext;
+import com.resourcemonitor.collectors.CollectorProvider;
+import com.resourcemonitor.collectors.MetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.resourcemonitor.util.ColorCodes;
+import com.resourcemonitor.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in continuous stack-sampling profiler.
+ *
+ * A daemon thread samples the stacks of the selected threads every few milliseconds: only
+ * RUNNABLE threads, only threads of the configured thread-name groups, or both. Thread states
+ * are read first without stacks, and stacks of bounded depth are then walked only for the
+ * threads that were selected, so idle pool threads cost next to nothing. Samples are merged into
+ * a {@link StackTrie} with a node limit, which keeps memory bounded however many distinct stacks
+ * the application produces. The interval between passes is randomized by 20% so the profiler
+ * does not run in lockstep with periodic work.
+ *
+ * The window can be exported in folded-stack format with {@link #writeFolded(Appendable)} and
+ * rendered with flamegraph.pl or speedscope. Sampling interval and depth can be changed at
+ * runtime. As a collector, the profiler reports its own cost and logs the hottest methods.
+ */
+public class StackProfiler implements MetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(StackProfiler.class);
+    private static final int MAX_GROUP_CACHE = 1024;
+    private static final ThreadInfo[] NO_THREADS = new ThreadInfo[0];
+
+    private final ThreadMXBean threadMXBean;
+    private final StackTrie trie;
+    private final int maxNodes;
+    private final boolean runnableOnly;
+    private final String[] threadGroups;
+    private final Map<String, String> groupCache = new HashMap<>();
+    private volatile long intervalMillis;
+    private volatile int maxDepth;
+    private ScheduledExecutorService sampler;
+    private volatile boolean running;
+    private long samplerThreadId;
+    private long[] selectedIds = new long[64];
+
+    // Written by the sampling thread only
+    private volatile long samples;
+    private volatile long passes;
+    private volatile long passNanos;
+    private long previousPasses;
+    private long previousPassNanos;
+
+    private final String[] topNames;
+    private final long[] topSamples;
+    private int topCount;
+    private long windowSamples;
+    private long passTimeMicros;
+
+    private final int samplesId;
+    private final int passTimeId;
+    private final int nodesId;
+    private final int evictedId;
+
+    /**
+     * @param registry Registry for the profiler's own metrics
+     * @param intervalMillis Pause between two sampling passes
+     * @param maxDepth Maximum number of frames sampled per stack
+     * @param runnableOnly true to sample only RUNNABLE threads
+     * @param threadGroups Thread-name groups to sample, e.g. {@code http-nio-8080-exec-*}; empty for all threads
+     * @param maxNodes Node limit of the call tree
+     * @param windowSeconds Length of the rolling window
+     * @param topFrames Number of methods in the logged ranking
+     */
+    public StackProfiler(MetricRegistry registry, long intervalMillis, int maxDepth, boolean runnableOnly,
+                         List<String> threadGroups, int maxNodes, long windowSeconds, int topFrames) {
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        // Room for at least four maximum-depth stacks, so one insertion always fits after eviction
+        this.maxNodes = Math.max(maxNodes, 1024);
+        this.trie = new StackTrie(this.maxNodes, TimeUnit.SECONDS.toMillis(windowSeconds));
+        this.runnableOnly = runnableOnly;
+        this.threadGroups = new String[threadGroups.size()];
+        for (int i = 0; i < threadGroups.size(); i++) {
+            String group = threadGroups.get(i);
+            // A group matches by prefix; the trailing '*' of a group name is optional
+            this.threadGroups[i] = group.endsWith("*") ? group.substring(0, group.length() - 1) : group;
+        }
+        setIntervalMillis(intervalMillis);
+        setMaxDepth(maxDepth);
+        this.topNames = new String[topFrames];
+        this.topSamples = new long[topFrames];
+        this.samplesId = registry.counter("profiler.samples", "count");
+        this.passTimeId = registry.longGauge("profiler.pass.time", "us");
+        this.nodesId = registry.longGauge("profiler.nodes", "count");
+        this.evictedId = registry.counter("profiler.nodes.evicted", "count");
+    }
+
+    /**
+     * Starts the sampling thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "resource-monitor-profiler");
+            thread.setDaemon(true);
+            samplerThreadId = thread.getId();
+            return thread;
+        });
+        scheduleNextPass();
+        logger.info("Stack profiler sampling every {}ms, {} frames deep", intervalMillis, maxDepth);
+    }
+
+    private void scheduleNextPass() {
+        if (!running) {
+            return;
+        }
+        long interval = intervalMillis;
+        long delay = interval - interval / 5 + ThreadLocalRandom.current().nextLong(interval * 2 / 5 + 1);
+        try {
+            sampler.schedule(this::samplePass, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The profiler is stopping
+        }
+    }
+
+    private void samplePass() {
+        long start = System.nanoTime();
+        try {
+            int depth = maxDepth;
+            int count = selectThreads();
+            ThreadInfo[] stacks = count > 0
+                ? threadMXBean.getThreadInfo(Arrays.copyOf(selectedIds, count), depth)
+                : NO_THREADS;
+            int sampled = 0;
+            synchronized (trie) {
+                trie.advance(start);
+                for (ThreadInfo threadInfo : stacks) {
+                    // A thread may have gone to sleep between the two reads
+                    if (threadInfo == null || (runnableOnly && threadInfo.getThreadState() != Thread.State.RUNNABLE)) {
+                        continue;
+                    }
+                    StackTraceElement[] stack = threadInfo.getStackTrace();
+                    trie.add(groupOf(threadInfo.getThreadName()), stack, stack.length >= depth);
+                    sampled++;
+                }
+            }
+            samples += sampled;
+        } catch (RuntimeException e) {
+            logger.warn("Stack sampling failed: {}", e.getMessage(), e);
+        } finally {
+            passNanos += System.nanoTime() - start;
+            passes++;
+            scheduleNextPass();
+        }
+    }
+
+    /**
+     * Reads the state of every thread without its stack and keeps the ids of the threads to sample.
+     *
+     * @return Number of selected thread ids
+     */
+    private int selectThreads() {
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds(), 0);
+        int count = 0;
+        for (ThreadInfo threadInfo : threadInfos) {
+            if (threadInfo == null || threadInfo.getThreadId() == samplerThreadId
+                    || (runnableOnly && threadInfo.getThreadState() != Thread.State.RUNNABLE)
+                    || !inSelectedGroup(threadInfo.getThreadName())) {
+                continue;
+            }
+            if (count == selectedIds.length) {
+                selectedIds = Arrays.copyOf(selectedIds, count * 2);
+            }
+            selectedIds[count++] = threadInfo.getThreadId();
+        }
+        return count;
+    }
+
+    private boolean inSelectedGroup(String name) {
+        if (threadGroups.length == 0) {
+            return true;
+        }
+        for (String group : threadGroups) {
+            if (name.startsWith(group)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the group of a thread name: the name with trailing digits replaced by '*', as in
+     * the thread CPU section.
+     */
+    private String groupOf(String name) {
+        String group = groupCache.get(name);
+        if (group == null) {
+            int end = name.length();
+            while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+                end--;
+            }
+            group = end < name.length() ? name.substring(0, end) + "*" : name;
+            if (groupCache.size() >= MAX_GROUP_CACHE) {
+                groupCache.clear();
+            }
+            groupCache.put(name, group);
+        }
+        return group;
+    }
+
+    @Override
+    public void collect(MetricsSnapshot snapshot) {
+        long currentPasses = passes;
+        long currentPassNanos = passNanos;
+        long passDelta = currentPasses - previousPasses;
+        passTimeMicros = passDelta > 0 ? (currentPassNanos - previousPassNanos) / passDelta / 1_000 : 0;
+        previousPasses = currentPasses;
+        previousPassNanos = currentPassNanos;
+
+        long nodes;
+        long evicted;
+        synchronized (trie) {
+            topCount = trie.hottestFrames(topNames, topSamples);
+            windowSamples = trie.windowSamples();
+            nodes = trie.nodeCount();
+            evicted = trie.evictedNodes();
+        }
+        snapshot.set(samplesId, samples);
+        snapshot.set(passTimeId, passTimeMicros);
+        snapshot.set(nodesId, nodes);
+        snapshot.set(evictedId, evicted);
+    }
+
+    @Override
+    public void log(MetricsSnapshot snapshot) {
+        logger.info("{}=== Hottest Methods (last {}s) ==={}", ColorCodes.BOLD + ColorCodes.PURPLE,
+            trie.getWindowMillis() / 1_000, ColorCodes.RESET);
+        logger.info("{}Samples:{} {}{} in window, pass {}ms, {} of {} nodes{}",
+            ColorCodes.BLUE, ColorCodes.RESET, ColorCodes.CYAN, windowSamples,
+            FormatUtils.formatNanosToMillis(passTimeMicros * 1_000), snapshot.getLong(nodesId), maxNodes,
+            ColorCodes.RESET);
+        for (int i = 0; i < topCount; i++) {
+            double share = windowSamples > 0 ? topSamples[i] * 100.0 / windowSamples : 0;
+            logger.info("{}  #{} {}:{} {}{}% ({} samples){}",
+                ColorCodes.BLUE, i + 1, topNames[i], ColorCodes.RESET,
+                ColorCodes.getColorForPercentage(share), String.format("%.2f", share),
+                topSamples[i], ColorCodes.RESET);
+        }
+    }
+
+    /**
+     * Writes the stacks sampled in the window in folded-stack format, one line per distinct
+     * stack: the thread group, then the frames from the outermost caller in, separated by ';',
+     * followed by a space and the number of samples. Stacks cut at the maximum depth start with
+     * {@value StackTrie#TRUNCATED_FRAME} after the group, and samples of evicted subtrees are
+     * counted in an {@value StackTrie#EVICTED_FRAME} frame.
+     *
+     * @param out Target, e.g. a writer on a file or an HTTP response
+     * @throws IOException if the target fails
+     */
+    public void writeFolded(Appendable out) throws IOException {
+        StringBuilder folded = new StringBuilder(8192);
+        synchronized (trie) {
+            trie.writeFolded(folded);
+        }
+        // Written outside the lock, so a slow client never holds up sampling
+        out.append(folded);
+    }
+
+    /**
+     * @return Pause between two sampling passes in milliseconds
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Changes the sampling interval; takes effect after the next pass.
+     *
+     * @param intervalMillis Pause between two sampling passes, at least 1
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = Math.max(intervalMillis, 1);
+    }
+
+    /**
+     * @return Maximum number of frames sampled per stack
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Changes the stack depth; takes effect with the next pass.
+     *
+     * @param maxDepth Maximum number of frames per stack, capped at a quarter of the node limit
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, maxNodes / 4 - 2));
+    }
+
+    /**
+     * @return Length of the rolling window in milliseconds
+     */
+    public long getWindowMillis() {
+        return trie.getWindowMillis();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * Provides the profiler when {@code profiler-enabled} is set.
+     */
+    public static class Provider implements CollectorProvider {
+        @Override
+        public String getName() {
+            return "profiler";
+        }
+
+        @Override
+        public boolean isEnabled(CollectorContext context) {
+            return context.getProperties().isProfilerEnabled();
+        }
+
+        @Override
+        public MetricsCollector create(CollectorContext context) {
+            ResourceMonitorProperties properties = context.getProperties();
+            return new StackProfiler(context.getRegistry(), properties.getProfilerIntervalMillis(),
+                properties.getProfilerMaxDepth(), properties.isProfilerRunnableOnly(),
+                properties.getProfilerThreadGroups(), properties.getProfilerMaxNodes(),
+                properties.getProfilerWindowSeconds(), properties.getProfilerTopMethods());
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.resourcemonitor.profiling;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded-memory call tree used by {@link StackProfiler}.
+ *
+ * Every node is a frame under its caller, identified by an interned frame id, and holds the
+ * number of samples whose stack ended in it (self samples) per time bucket. The window is split
+ * into {@link #BUCKETS} buckets; advancing the window clears the oldest bucket and prunes
+ * subtrees that no longer have any samples. Nodes live in parallel int arrays with child and
+ * sibling links and a free list, so a node costs {@code (4 + BUCKETS) * 4} bytes and inserting
+ * a stack seen before does not allocate.
+ *
+ * When the tree reaches its node limit, the least frequent subtrees are evicted until a quarter
+ * of the nodes are free. Their samples are kept in an {@code [evicted]} child of the parent, so
+ * the totals of the remaining frames stay correct. Not thread-safe on its own; the profiler
+ * synchronizes on the trie.
+ */
+final class StackTrie {
+    static final int BUCKETS = 6;
+    static final String EVICTED_FRAME = "[evicted]";
+    static final String TRUNCATED_FRAME = "[truncated]";
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int EVICTED = 0;
+    private static final int TRUNCATED = 1;
+
+    private final int maxNodes;
+    private final long bucketNanos;
+    private long bucketStart = System.nanoTime();
+    private int bucket;
+
+    private int[] frame;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    /** Self samples per bucket and node */
+    private final int[][] counts = new int[BUCKETS][];
+    /** Number of node slots ever handed out; slots below it are live or on the free list */
+    private int highWater;
+    private int freeList = NONE;
+    private int nodeCount;
+    private long evictedNodes;
+
+    private final Map<String, Integer> frameIds = new HashMap<>();
+    /** Caches frame ids by stack element, so a frame seen before is resolved without building its name */
+    private final Map<StackTraceElement, Integer> elementIds = new HashMap<>();
+    private String[] frameNames = new String[256];
+    private int frameCount;
+
+    private int[] path = new int[64];
+    private int[] order;
+    private int[] pending;
+    private long[] totals;
+    private long[] candidates;
+    private final long[] bucketSums = new long[BUCKETS];
+    private long[] frameSelf = new long[256];
+
+    /**
+     * @param maxNodes Node limit, including the root
+     * @param windowMillis Length of the rolling window
+     */
+    StackTrie(int maxNodes, long windowMillis) {
+        this.maxNodes = maxNodes;
+        this.bucketNanos = Math.max(windowMillis, BUCKETS) * 1_000_000 / BUCKETS;
+        int capacity = Math.min(maxNodes, 1024);
+        this.frame = new int[capacity];
+        this.parent = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = new int[capacity];
+        }
+        internFrame(EVICTED_FRAME);
+        internFrame(TRUNCATED_FRAME);
+        frame[ROOT] = NONE;
+        parent[ROOT] = NONE;
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+        highWater = 1;
+        nodeCount = 1;
+    }
+
+    /**
+     * Records one sampled stack.
+     *
+     * @param group Thread group of the sampled thread, recorded as the outermost frame
+     * @param stack Stack of the thread, innermost frame first
+     * @param truncated true if the stack was cut at the maximum depth
+     */
+    void add(String group, StackTraceElement[] stack, boolean truncated) {
+        if (frameCount > 2 * maxNodes) {
+            compactFrames();
+        }
+        int length = stack.length + 2;
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        length = 0;
+        path[length++] = internFrame(group);
+        if (truncated) {
+            path[length++] = TRUNCATED;
+        }
+        for (int i = stack.length - 1; i >= 0; i--) {
+            path[length++] = internFrame(stack[i]);
+        }
+        if (maxNodes - nodeCount < length) {
+            evict();
+        }
+
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            int child = findChild(node, path[i]);
+            if (child == NONE) {
+                child = allocate(node, path[i]);
+                if (child == NONE) {
+                    // Deeper than the free space even after eviction; keep the sample at the deepest frame
+                    break;
+                }
+            }
+            node = child;
+        }
+        counts[bucket][node]++;
+    }
+
+    /**
+     * Moves the window forward, dropping the buckets that fell out of it and the subtrees left
+     * without samples.
+     *
+     * @param now Current {@link System#nanoTime()}
+     */
+    void advance(long now) {
+        long elapsed = now - bucketStart;
+        if (elapsed < bucketNanos) {
+            return;
+        }
+        long steps = Math.min(elapsed / bucketNanos, BUCKETS);
+        bucketStart += (elapsed / bucketNanos) * bucketNanos;
+        for (int step = 0; step < steps; step++) {
+            bucket = (bucket + 1) % BUCKETS;
+            Arrays.fill(counts[bucket], 0, highWater, 0);
+        }
+        int live = computeTotals();
+        // Breadth-first order: a pruned parent frees its children before they are visited
+        for (int i = 1; i < live; i++) {
+            int node = order[i];
+            if (totals[node] == 0 && !isFree(node)) {
+                removeSubtree(node);
+            }
+        }
+    }
+
+    /**
+     * Evicts the least frequent subtrees until a quarter of the node limit is free.
+     */
+    private void evict() {
+        int live = computeTotals();
+        if (candidates == null || candidates.length < live) {
+            candidates = new long[order.length];
+        }
+        int count = 0;
+        for (int i = 1; i < live; i++) {
+            int node = order[i];
+            if (frame[node] != EVICTED) {
+                candidates[count++] = Math.min(totals[node], Integer.MAX_VALUE) << 32 | node;
+            }
+        }
+        // Ascending by window samples; a subtree never has more samples than its root
+        Arrays.sort(candidates, 0, count);
+        int target = maxNodes / 4;
+        int freed = 0;
+        for (int i = 0; i < count && freed < target; i++) {
+            int node = (int) candidates[i];
+            // Skips nodes that went with an evicted ancestor and slots reused for [evicted] nodes
+            if (isFree(node) || frame[node] == EVICTED) {
+                continue;
+            }
+            freed += removeSubtree(node);
+        }
+        evictedNodes += freed;
+    }
+
+    /**
+     * Unlinks and frees a subtree, keeping its samples in the [evicted] child of its parent.
+     *
+     * @return Net number of nodes freed
+     */
+    private int removeSubtree(int root) {
+        int owner = parent[root];
+        unlink(root);
+        Arrays.fill(bucketSums, 0);
+        boolean hasSamples = false;
+        int freed = 0;
+        int top = 0;
+        pending[top++] = root;
+        while (top > 0) {
+            int node = pending[--top];
+            for (int b = 0; b < BUCKETS; b++) {
+                bucketSums[b] += counts[b][node];
+                hasSamples |= counts[b][node] != 0;
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                pending[top++] = child;
+            }
+            free(node);
+            freed++;
+        }
+        if (hasSamples) {
+            int evicted = findChild(owner, EVICTED);
+            if (evicted == NONE) {
+                evicted = allocate(owner, EVICTED);
+                freed--;
+            }
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b][evicted] = (int) Math.min(counts[b][evicted] + bucketSums[b], Integer.MAX_VALUE);
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Fills {@link #totals} with the window samples of every subtree and {@link #order} with the
+     * live nodes in breadth-first order.
+     *
+     * @return Number of live nodes
+     */
+    private int computeTotals() {
+        if (order == null || order.length < frame.length) {
+            order = new int[frame.length];
+            pending = new int[frame.length];
+            totals = new long[frame.length];
+        }
+        int live = 0;
+        order[live++] = ROOT;
+        for (int i = 0; i < live; i++) {
+            int node = order[i];
+            long self = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                self += counts[b][node];
+            }
+            totals[node] = self;
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                order[live++] = child;
+            }
+        }
+        for (int i = live - 1; i > 0; i--) {
+            totals[parent[order[i]]] += totals[order[i]];
+        }
+        return live;
+    }
+
+    /**
+     * Finds a child by frame and moves it to the front of its siblings, so hot paths are found
+     * after a comparison or two.
+     */
+    private int findChild(int node, int frameId) {
+        int previous = NONE;
+        for (int child = firstChild[node]; child != NONE; previous = child, child = nextSibling[child]) {
+            if (frame[child] == frameId) {
+                if (previous != NONE) {
+                    nextSibling[previous] = nextSibling[child];
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int allocate(int owner, int frameId) {
+        int node;
+        if (freeList != NONE) {
+            node = freeList;
+            freeList = nextSibling[node];
+        } else if (highWater < maxNodes) {
+            if (highWater == frame.length) {
+                grow();
+            }
+            node = highWater++;
+        } else {
+            return NONE;
+        }
+        frame[node] = frameId;
+        parent[node] = owner;
+        firstChild[node] = NONE;
+        nextSibling[node] = firstChild[owner];
+        firstChild[owner] = node;
+        nodeCount++;
+        return node;
+    }
+
+    private void unlink(int node) {
+        int owner = parent[node];
+        if (firstChild[owner] == node) {
+            firstChild[owner] = nextSibling[node];
+            return;
+        }
+        for (int child = firstChild[owner]; child != NONE; child = nextSibling[child]) {
+            if (nextSibling[child] == node) {
+                nextSibling[child] = nextSibling[node];
+                return;
+            }
+        }
+    }
+
+    private void free(int node) {
+        frame[node] = NONE;
+        parent[node] = NONE;
+        firstChild[node] = NONE;
+        nextSibling[node] = freeList;
+        freeList = node;
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b][node] = 0;
+        }
+        nodeCount--;
+    }
+
+    private boolean isFree(int node) {
+        return node != ROOT && parent[node] == NONE;
+    }
+
+    private void grow() {
+        int capacity = Math.min(frame.length * 2, maxNodes);
+        frame = Arrays.copyOf(frame, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = Arrays.copyOf(counts[b], capacity);
+        }
+    }
+
+    private int internFrame(StackTraceElement element) {
+        Integer id = elementIds.get(element);
+        if (id == null) {
+            id = internFrame(element.getClassName() + '.' + element.getMethodName());
+            if (elementIds.size() < 4 * maxNodes) {
+                elementIds.put(element, id);
+            }
+        }
+        return id;
+    }
+
+    private int internFrame(String name) {
+        Integer id = frameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (frameCount == frameNames.length) {
+            frameNames = Arrays.copyOf(frameNames, frameCount * 2);
+        }
+        // Folded stacks separate frames with ';' and records with newlines
+        frameNames[frameCount] = name.replace(';', ':').replace('\n', ' ').replace('\r', ' ');
+        frameIds.put(name, frameCount);
+        return frameCount++;
+    }
+
+    /**
+     * Drops frames no longer referenced by any node, e.g. of lambdas and proxies that came and
+     * went. Runs only between insertions, so no pending path holds an old frame id.
+     */
+    private void compactFrames() {
+        int[] remap = new int[frameCount];
+        Arrays.fill(remap, NONE);
+        String[] names = new String[frameNames.length];
+        int count = 0;
+        remap[EVICTED] = count;
+        names[count++] = frameNames[EVICTED];
+        remap[TRUNCATED] = count;
+        names[count++] = frameNames[TRUNCATED];
+        for (int node = 1; node < highWater; node++) {
+            if (isFree(node)) {
+                continue;
+            }
+            int old = frame[node];
+            if (remap[old] == NONE) {
+                remap[old] = count;
+                names[count++] = frameNames[old];
+            }
+            frame[node] = remap[old];
+        }
+        Map<String, Integer> kept = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : frameIds.entrySet()) {
+            int id = remap[entry.getValue()];
+            if (id != NONE) {
+                kept.put(entry.getKey(), id);
+            }
+        }
+        frameIds.clear();
+        frameIds.putAll(kept);
+        elementIds.clear();
+        frameNames = names;
+        frameCount = count;
+    }
+
+    /**
+     * Writes the window in folded-stack format: one line per distinct stack, outermost frame
+     * first, frames separated by ';', followed by a space and the number of samples.
+     *
+     * @param out Target, e.g. a writer on a file or an HTTP response
+     * @throws IOException if the target fails
+     */
+    void writeFolded(Appendable out) throws IOException {
+        computeTotals();
+        int[] stack = new int[nodeCount];
+        int[] depths = new int[nodeCount];
+        int[] current = new int[16];
+        int top = 0;
+        for (int child = firstChild[ROOT]; child != NONE; child = nextSibling[child]) {
+            stack[top] = child;
+            depths[top++] = 0;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            int depth = depths[top];
+            if (depth == current.length) {
+                current = Arrays.copyOf(current, depth * 2);
+            }
+            current[depth] = node;
+            long self = totals[node];
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                self -= totals[child];
+                stack[top] = child;
+                depths[top++] = depth + 1;
+            }
+            if (self > 0) {
+                for (int i = 0; i <= depth; i++) {
+                    if (i > 0) {
+                        out.append(';');
+                    }
+                    out.append(frameNames[frame[current[i]]]);
+                }
+                out.append(' ').append(Long.toString(self)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Ranks frames by self samples in the window, summed over all stacks they end.
+     *
+     * @param names Receives the hottest frame names, hottest first
+     * @param samples Receives their self samples
+     * @return Number of ranked frames
+     */
+    int hottestFrames(String[] names, long[] samples) {
+        if (names.length == 0) {
+            return 0;
+        }
+        if (frameSelf.length < frameCount) {
+            frameSelf = new long[frameNames.length];
+        }
+        Arrays.fill(frameSelf, 0, frameCount, 0);
+        for (int node = 1; node < highWater; node++) {
+            if (isFree(node)) {
+                continue;
+            }
+            long self = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                self += counts[b][node];
+            }
+            frameSelf[frame[node]] += self;
+        }
+        int count = 0;
+        // [evicted] and [truncated] are not methods
+        for (int id = TRUNCATED + 1; id < frameCount; id++) {
+            long value = frameSelf[id];
+            if (value == 0 || (count == names.length && value <= samples[count - 1])) {
+                continue;
+            }
+            int position = count < names.length ? count++ : names.length - 1;
+            while (position > 0 && samples[position - 1] < value) {
+                names[position] = names[position - 1];
+                samples[position] = samples[position - 1];
+                position--;
+            }
+            names[position] = frameNames[id];
+            samples[position] = value;
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of samples in the window
+     */
+    long windowSamples() {
+        long sum = 0;
+        for (int node = 0; node < highWater; node++) {
+            for (int b = 0; b < BUCKETS; b++) {
+                sum += counts[b][node];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return Number of live nodes, including the root
+     */
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return Number of nodes evicted by the node limit so far
+     */
+    long evictedNodes() {
+        return evictedNodes;
+    }
+
+    /**
+     * @return Window length in milliseconds
+     */
+    long getWindowMillis() {
+        return bucketNanos * BUCKETS / 1_000_000;
+    }
+}
@@ -0,0 +1,59 @@
+package com.resourcemonitor.scheduling;
+
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Future;
+
+/**
+ * One partition of a collector, run as a task with its own snapshot.
+ *
+ * The sampling thread prepares the snapshot and submits the unit; the worker writes the
+ * results and timings; the sampling thread reads them after the future has completed.
+ * While {@link #future} is set, the unit is in flight and must not be submitted again.
+ */
+final class CollectionUnit implements Runnable {
+    final ScheduledCollector owner;
+    final int partition;
+    final MetricsSnapshot snapshot;
+    private final ThreadMXBean threadMXBean;
+    private final boolean cpuTimeSupported;
+
+    Future<?> future;
+    long wallNanos;
+    /** CPU time of the last run, or -1 if the worker thread does not report it */
+    long cpuNanos;
+    RuntimeException failure;
+
+    CollectionUnit(ScheduledCollector owner, int partition, MetricsSnapshot snapshot,
+                   ThreadMXBean threadMXBean, boolean cpuTimeSupported) {
+        this.owner = owner;
+        this.partition = partition;
+        this.snapshot = snapshot;
+        this.threadMXBean = threadMXBean;
+        this.cpuTimeSupported = cpuTimeSupported;
+    }
+
+    String label() {
+        return owner.getCollector().partitionCount() > 1
+            ? owner.getName() + "[" + owner.getCollector().partitionName(partition) + "]"
+            : owner.getName();
+    }
+
+    @Override
+    public void run() {
+        failure = null;
+        long cpuStart = cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : -1;
+        long start = System.nanoTime();
+        try {
+            owner.getCollector().collectPartition(partition, snapshot);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            wallNanos = System.nanoTime() - start;
+            long cpuEnd = cpuStart >= 0 ? threadMXBean.getCurrentThreadCpuTime() : -1;
+            // Virtual threads report -1; their CPU time is unknown, and the wall time would
+            // count time spent unmounted or waiting as CPU
+            cpuNanos = cpuStart >= 0 && cpuEnd >= 0 ? cpuEnd - cpuStart : -1;
+        }
+    }
+}
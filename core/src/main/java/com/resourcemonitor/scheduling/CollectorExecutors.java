@@ -0,0 +1,62 @@
+package com.resourcemonitor.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor that runs collection units: a pool of at most {@code parallelism} threads.
+ *
+ * On Java 21 and later the pool's threads are virtual, so a unit blocked in a hung JDBC or MXBean
+ * call costs no platform thread. Virtual threads do not report CPU time, though, so whenever the
+ * overhead budget needs it the pool uses daemon platform threads instead, as it always does on
+ * older runtimes. The library targets Java 11, so virtual threads are looked up reflectively.
+ */
+final class CollectorExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(CollectorExecutors.class);
+    private static final String THREAD_PREFIX = "resource-monitor-collector-";
+
+    private CollectorExecutors() {}
+
+    /**
+     * @param parallelism Maximum number of concurrently running units
+     * @param needsCpuTime true if the units must be able to measure their thread CPU time
+     * @return The executor
+     */
+    static ExecutorService create(int parallelism, boolean needsCpuTime) {
+        ThreadFactory factory = needsCpuTime ? null : virtualThreadFactory();
+        if (factory != null) {
+            logger.debug("Running collectors on up to {} virtual threads", parallelism);
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            factory = runnable -> {
+                Thread thread = new Thread(runnable, THREAD_PREFIX + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            logger.debug("Running collectors on {} threads", parallelism);
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads are not available before Java 21
+            return null;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.resourcemonitor.scheduling;
+
+import com.resourcemonitor.collectors.MetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs each collector at its own interval and measures what each run costs.
+ *
+ * The monitor calls {@link #runDue(MetricsSnapshot, long)} whenever the earliest collector is
+ * due, so cheap collectors can sample every few hundred milliseconds while expensive ones run
+ * every few seconds. With phase jitter each collector starts at a random offset within its
+ * interval, so a fleet of instances does not sample in lockstep.
+ *
+ * With a parallelism above zero, the due collectors and each of their partitions (e.g. every
+ * connection pool) run concurrently on an executor, each writing into its own snapshot. The
+ * cycle waits for them only until the deadline: units that are still running are reported as
+ * stale and are not submitted again until they finish, and a result that arrives late is merged
+ * into the next cycle and counted as stale there. A single hung call therefore delays only its
+ * own metrics, and cycle time no longer grows with the number of pools.
+ *
+ * The wall and CPU time of every run is written into the snapshot and fed to the
+ * {@link OverheadGovernor}, which stretches intervals or switches collectors to cheaper tiers
+ * while the monitor exceeds its CPU budget. {@link #boost(int, long, long)} temporarily shortens
+ * all intervals, e.g. while an alert is being investigated.
+ */
+public class CollectorScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(CollectorScheduler.class);
+    static final long MIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MetricRegistry registry;
+    private final List<ScheduledCollector> collectors = new ArrayList<>();
+    private final List<CollectionUnit> submitted = new ArrayList<>();
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported;
+    private final boolean phaseJitter;
+    private final ExecutorService executor;
+    private final long deadlineNanos;
+    private final OverheadGovernor governor;
+    private final int overheadId;
+    private long boostUntilNanos;
+    private boolean boosted;
+
+    /**
+     * Creates a scheduler that runs all collectors sequentially on the calling thread.
+     * @param registry Registry for the per-collector timing metrics
+     * @param overheadBudgetPercent CPU budget in percent of one core; 0 disables the governor
+     * @param phaseJitter true to start each collector at a random offset within its interval
+     */
+    public CollectorScheduler(MetricRegistry registry, double overheadBudgetPercent, boolean phaseJitter) {
+        this(registry, overheadBudgetPercent, phaseJitter, 0, 0);
+    }
+
+    /**
+     * @param registry Registry for the per-collector timing metrics
+     * @param overheadBudgetPercent CPU budget in percent of one core; 0 disables the governor
+     * @param phaseJitter true to start each collector at a random offset within its interval
+     * @param parallelism Threads for concurrent collection, virtual on Java 21 and later unless
+     *                    a budget is set; 0 runs everything sequentially on the calling thread
+     * @param deadlineMillis Time a cycle waits for its collectors before marking them stale
+     */
+    public CollectorScheduler(MetricRegistry registry, double overheadBudgetPercent, boolean phaseJitter,
+                              int parallelism, long deadlineMillis) {
+        this.registry = registry;
+        this.phaseJitter = phaseJitter;
+        this.cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        if (cpuTimeSupported && !threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+        // Virtual threads report no CPU time, which would leave the budget unenforced
+        this.executor = parallelism > 0
+            ? CollectorExecutors.create(parallelism, cpuTimeSupported && overheadBudgetPercent > 0) : null;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.governor = new OverheadGovernor(cpuTimeSupported ? overheadBudgetPercent : 0, System.nanoTime());
+        this.overheadId = registry.doubleGauge("monitor.overhead", "%");
+        if (!cpuTimeSupported && overheadBudgetPercent > 0) {
+            logger.warn("Thread CPU time is not supported, the monitor overhead budget is not enforced");
+        }
+    }
+
+    /**
+     * Adds a collector.
+     * @param name Short name used in tags and log messages, e.g. "memory"
+     * @param collector The collector
+     * @param intervalMillis Interval between runs
+     */
+    public void add(String name, MetricsCollector collector, long intervalMillis) {
+        long interval = Math.max(TimeUnit.MILLISECONDS.toNanos(intervalMillis), MIN_INTERVAL_NANOS);
+        ScheduledCollector scheduled = new ScheduledCollector(name, collector, interval, registry);
+        int partitions = Math.max(collector.partitionCount(), 1);
+        scheduled.units = new CollectionUnit[partitions];
+        for (int i = 0; i < partitions; i++) {
+            scheduled.units[i] = new CollectionUnit(scheduled, i, registry.newSnapshot(), threadMXBean, cpuTimeSupported);
+        }
+        collectors.add(scheduled);
+    }
+
+    /**
+     * @return The scheduled collectors in registration order
+     */
+    public List<ScheduledCollector> getCollectors() {
+        return Collections.unmodifiableList(collectors);
+    }
+
+    /**
+     * Sets the first due time of every collector.
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void start(long nowNanos) {
+        for (ScheduledCollector collector : collectors) {
+            long offset = phaseJitter ? ThreadLocalRandom.current().nextLong(collector.getIntervalNanos()) : 0;
+            collector.nextDueNanos = nowNanos + offset;
+        }
+    }
+
+    /**
+     * Runs every collector that is due and merges the results into the snapshot.
+     * @param snapshot The snapshot of this cycle
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return Number of collectors that delivered values or are stale in this cycle
+     */
+    public int runDue(MetricsSnapshot snapshot, long nowNanos) {
+        if (boosted && nowNanos - boostUntilNanos >= 0) {
+            endBoost();
+        }
+        for (ScheduledCollector collector : collectors) {
+            collector.ranInCycle = false;
+            collector.staleUnits = 0;
+            collector.lastWallNanos = 0;
+            collector.lastCpuNanos = 0;
+            collector.lastCpuUnknown = false;
+        }
+
+        collectLateResults(snapshot);
+        submitted.clear();
+        for (ScheduledCollector collector : collectors) {
+            if (nowNanos - collector.nextDueNanos < 0) {
+                continue;
+            }
+            for (CollectionUnit unit : collector.units) {
+                if (unit.future != null) {
+                    // Still running since an earlier cycle
+                    collector.staleUnits++;
+                    continue;
+                }
+                unit.snapshot.begin(snapshot.getTimestampMillis());
+                if (executor == null) {
+                    unit.run();
+                    complete(unit, snapshot);
+                } else {
+                    submit(unit, snapshot);
+                }
+            }
+            // Skip missed runs instead of catching up in a burst
+            collector.nextDueNanos = Math.max(collector.nextDueNanos + collector.getIntervalNanos(),
+                nowNanos + collector.getIntervalNanos() / 2);
+        }
+        awaitSubmitted(snapshot, nowNanos + deadlineNanos);
+
+        int reported = 0;
+        for (ScheduledCollector collector : collectors) {
+            if (collector.ranInCycle || collector.staleUnits > 0) {
+                report(collector, snapshot);
+                reported++;
+            }
+        }
+        return reported;
+    }
+
+    private void submit(CollectionUnit unit, MetricsSnapshot snapshot) {
+        try {
+            unit.future = executor.submit(unit);
+            submitted.add(unit);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down; fall back to the calling thread
+            unit.run();
+            complete(unit, snapshot);
+        }
+    }
+
+    private void awaitSubmitted(MetricsSnapshot snapshot, long deadline) {
+        for (CollectionUnit unit : submitted) {
+            try {
+                unit.future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                unit.future = null;
+                complete(unit, snapshot);
+            } catch (TimeoutException e) {
+                unit.owner.staleUnits++;
+                unit.owner.deadlinesMissed++;
+                logger.warn("Collector {} missed its deadline of {}ms, reporting it as stale",
+                    unit.label(), TimeUnit.NANOSECONDS.toMillis(deadlineNanos));
+            } catch (ExecutionException e) {
+                unit.future = null;
+                logger.error("Error in {} collector: {}", unit.label(), e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Merges units that missed an earlier deadline and have finished since.
+     */
+    private void collectLateResults(MetricsSnapshot snapshot) {
+        for (ScheduledCollector collector : collectors) {
+            for (CollectionUnit unit : collector.units) {
+                if (unit.future != null && unit.future.isDone()) {
+                    unit.future = null;
+                    collector.staleUnits++;
+                    complete(unit, snapshot);
+                }
+            }
+        }
+    }
+
+    private void complete(CollectionUnit unit, MetricsSnapshot snapshot) {
+        ScheduledCollector collector = unit.owner;
+        if (unit.failure != null) {
+            logger.error("Error in {} collector: {}", unit.label(), unit.failure.getMessage(), unit.failure);
+        }
+        snapshot.mergeFrom(unit.snapshot);
+        collector.ranInCycle = true;
+        collector.lastWallNanos = Math.max(collector.lastWallNanos, unit.wallNanos);
+        if (unit.cpuNanos >= 0) {
+            collector.lastCpuNanos += unit.cpuNanos;
+            collector.windowCpuNanos += unit.cpuNanos;
+        } else {
+            // Left out of the CPU budget rather than charged with a guess
+            collector.lastCpuUnknown = true;
+        }
+    }
+
+    private void report(ScheduledCollector collector, MetricsSnapshot snapshot) {
+        if (collector.ranInCycle) {
+            snapshot.set(collector.wallTimeId, collector.lastWallNanos / 1_000);
+            if (cpuTimeSupported && !collector.lastCpuUnknown) {
+                snapshot.set(collector.cpuTimeId, collector.lastCpuNanos / 1_000);
+            }
+        }
+        snapshot.set(collector.intervalId, TimeUnit.NANOSECONDS.toMillis(collector.getIntervalNanos()));
+        snapshot.set(collector.staleId, collector.staleUnits);
+        snapshot.set(collector.deadlineMissedId, collector.deadlinesMissed);
+    }
+
+    /**
+     * Divides the interval of every collector by a factor until the given time. Collectors are
+     * rescheduled at once, and boosting again extends the period. Must be called on the thread
+     * that runs the cycles.
+     * @param factor Factor to divide the intervals by
+     * @param untilNanos {@link System#nanoTime()} at which the intervals return to normal
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void boost(int factor, long untilNanos, long nowNanos) {
+        if (!boosted || untilNanos - boostUntilNanos > 0) {
+            boostUntilNanos = untilNanos;
+        }
+        boosted = true;
+        for (ScheduledCollector collector : collectors) {
+            collector.boost = factor;
+            collector.nextDueNanos = Math.min(collector.nextDueNanos, nowNanos + collector.getIntervalNanos());
+        }
+    }
+
+    private void endBoost() {
+        boosted = false;
+        for (ScheduledCollector collector : collectors) {
+            collector.boost = 1;
+        }
+        logger.info("Fast sampling period ended, collectors are back to their regular intervals");
+    }
+
+    /**
+     * @return CPU time of the calling thread, or 0 if unsupported
+     */
+    public long currentThreadCpuTime() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Accounts CPU time the monitor spent outside the collectors, e.g. on history and output.
+     * @param cpuNanos CPU time in nanoseconds
+     */
+    public void addOtherCpu(long cpuNanos) {
+        governor.addOtherCpu(cpuNanos);
+    }
+
+    /**
+     * Ends the collection part of a cycle: lets the governor adjust and reports the overhead.
+     * @param snapshot The snapshot of this cycle
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void endCycle(MetricsSnapshot snapshot, long nowNanos) {
+        governor.evaluate(collectors, nowNanos);
+        if (cpuTimeSupported) {
+            snapshot.set(overheadId, governor.getOverheadPercent());
+        }
+    }
+
+    /**
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return Nanoseconds until the next collector is due, never negative
+     */
+    public long nanosUntilNextDue(long nowNanos) {
+        long next = Long.MAX_VALUE;
+        for (ScheduledCollector collector : collectors) {
+            next = Math.min(next, collector.nextDueNanos - nowNanos);
+        }
+        return Math.max(next, 0);
+    }
+
+    /**
+     * Stops the collection executor. Units blocked in a hung call are interrupted.
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.resourcemonitor.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the monitor's own CPU usage within a budget, expressed in percent of one core.
+ *
+ * Every evaluation window the governor compares the CPU time spent collecting and writing
+ * output with the elapsed time. Over budget, it relieves the collector that cost the most:
+ * first by switching it to its cheaper tier if it has one, then by doubling its interval.
+ * Once usage falls below half the budget it undoes one step at a time, most stretched
+ * collector first. One step per window keeps the governor from oscillating.
+ */
+final class OverheadGovernor {
+    private static final Logger logger = LoggerFactory.getLogger(OverheadGovernor.class);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_STRETCH = 16;
+
+    private final double budgetPercent;
+    private long windowStart;
+    private long windowOtherCpuNanos;
+    private double overheadPercent;
+
+    /**
+     * @param budgetPercent CPU budget in percent of one core; 0 only measures
+     * @param nowNanos Start of the first window
+     */
+    OverheadGovernor(double budgetPercent, long nowNanos) {
+        this.budgetPercent = budgetPercent;
+        this.windowStart = nowNanos;
+    }
+
+    /**
+     * Adds CPU time spent outside the collectors, e.g. writing output.
+     */
+    void addOtherCpu(long cpuNanos) {
+        windowOtherCpuNanos += cpuNanos;
+    }
+
+    /**
+     * @return Overhead of the last completed window in percent of one core
+     */
+    double getOverheadPercent() {
+        return overheadPercent;
+    }
+
+    void evaluate(List<ScheduledCollector> collectors, long nowNanos) {
+        long elapsed = nowNanos - windowStart;
+        if (elapsed < WINDOW_NANOS) {
+            return;
+        }
+        long cpu = windowOtherCpuNanos;
+        ScheduledCollector mostExpensive = null;
+        for (ScheduledCollector collector : collectors) {
+            cpu += collector.windowCpuNanos;
+            if (canRelieve(collector)
+                    && (mostExpensive == null || collector.windowCpuNanos > mostExpensive.windowCpuNanos)) {
+                mostExpensive = collector;
+            }
+        }
+        overheadPercent = cpu * 100.0 / elapsed;
+        windowStart = nowNanos;
+        windowOtherCpuNanos = 0;
+        for (ScheduledCollector collector : collectors) {
+            collector.windowCpuNanos = 0;
+        }
+
+        if (budgetPercent <= 0) {
+            return;
+        }
+        if (overheadPercent > budgetPercent && mostExpensive != null) {
+            relieve(mostExpensive);
+        } else if (overheadPercent < budgetPercent / 2) {
+            restore(collectors);
+        }
+    }
+
+    private static boolean canRelieve(ScheduledCollector collector) {
+        return (collector.getCollector().supportsDegradedMode() && !collector.degraded)
+            || collector.stretch < MAX_STRETCH;
+    }
+
+    private void relieve(ScheduledCollector collector) {
+        if (collector.getCollector().supportsDegradedMode() && !collector.degraded) {
+            collector.degraded = true;
+            collector.getCollector().setDegraded(true);
+            logger.info("Monitor overhead {}% exceeds budget {}%, switching {} collector to its cheap tier",
+                String.format("%.2f", overheadPercent), budgetPercent, collector.getName());
+        } else {
+            collector.stretch *= 2;
+            logger.info("Monitor overhead {}% exceeds budget {}%, stretching {} interval to {}ms",
+                String.format("%.2f", overheadPercent), budgetPercent, collector.getName(),
+                TimeUnit.NANOSECONDS.toMillis(collector.getIntervalNanos()));
+        }
+    }
+
+    private void restore(List<ScheduledCollector> collectors) {
+        ScheduledCollector mostStretched = null;
+        for (ScheduledCollector collector : collectors) {
+            if (collector.stretch > 1 && (mostStretched == null || collector.stretch > mostStretched.stretch)) {
+                mostStretched = collector;
+            }
+        }
+        if (mostStretched != null) {
+            mostStretched.stretch /= 2;
+            logger.info("Monitor overhead back to {}%, restoring {} interval to {}ms",
+                String.format("%.2f", overheadPercent), mostStretched.getName(),
+                TimeUnit.NANOSECONDS.toMillis(mostStretched.getIntervalNanos()));
+            return;
+        }
+        for (ScheduledCollector collector : collectors) {
+            if (collector.degraded) {
+                collector.degraded = false;
+                collector.getCollector().setDegraded(false);
+                logger.info("Monitor overhead back to {}%, restoring full tier of {} collector",
+                    String.format("%.2f", overheadPercent), collector.getName());
+                return;
+            }
+        }
+    }
+}
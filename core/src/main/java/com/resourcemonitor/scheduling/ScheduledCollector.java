@@ -0,0 +1,105 @@
+package com.resourcemonitor.scheduling;
+
+import com.resourcemonitor.collectors.MetricsCollector;
+import com.resourcemonitor.metrics.MetricRegistry;
+
+/**
+ * A collector together with its schedule and the cost of its recent runs.
+ *
+ * The effective interval is the configured interval multiplied by a stretch factor that the
+ * {@link OverheadGovernor} raises while the monitor is over its CPU budget, divided by a boost
+ * factor while an alert asks for faster sampling. A collector is split into one
+ * {@link CollectionUnit} per partition.
+ */
+public final class ScheduledCollector {
+    private final String name;
+    private final MetricsCollector collector;
+    private final long baseIntervalNanos;
+    final int wallTimeId;
+    final int cpuTimeId;
+    final int intervalId;
+    final int staleId;
+    final int deadlineMissedId;
+    CollectionUnit[] units;
+
+    int stretch = 1;
+    int boost = 1;
+    boolean degraded;
+    long nextDueNanos;
+    boolean ranInCycle;
+    long lastWallNanos;
+    long lastCpuNanos;
+    boolean lastCpuUnknown;
+    long windowCpuNanos;
+    int staleUnits;
+    long deadlinesMissed;
+
+    ScheduledCollector(String name, MetricsCollector collector, long intervalNanos, MetricRegistry registry) {
+        this.name = name;
+        this.collector = collector;
+        this.baseIntervalNanos = intervalNanos;
+        this.wallTimeId = registry.longGauge("monitor.collector.time", "us", "collector", name);
+        this.cpuTimeId = registry.longGauge("monitor.collector.cpu", "us", "collector", name);
+        this.intervalId = registry.longGauge("monitor.collector.interval", "ms", "collector", name);
+        this.staleId = registry.longGauge("monitor.collector.stale", "count", "collector", name);
+        this.deadlineMissedId = registry.counter("monitor.collector.deadline.missed", "count", "collector", name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MetricsCollector getCollector() {
+        return collector;
+    }
+
+    /**
+     * @return Current interval in nanoseconds, including the governor's stretch and any boost
+     */
+    public long getIntervalNanos() {
+        return Math.max(baseIntervalNanos * stretch / boost, CollectorScheduler.MIN_INTERVAL_NANOS);
+    }
+
+    /**
+     * @return Configured interval in nanoseconds
+     */
+    public long getBaseIntervalNanos() {
+        return baseIntervalNanos;
+    }
+
+    /**
+     * @return true if the governor switched the collector to its cheaper tier
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return true if the collector ran in the most recent cycle
+     */
+    public boolean ranInLastCycle() {
+        return ranInCycle;
+    }
+
+    /**
+     * @return Number of partitions whose values in the last cycle are late or missing
+     */
+    public int getStaleUnits() {
+        return staleUnits;
+    }
+
+    /**
+     * @return Wall time of the last run in nanoseconds; the slowest partition for partitioned collectors
+     */
+    public long getLastWallNanos() {
+        return lastWallNanos;
+    }
+
+    /**
+     * @return CPU time of the last run in nanoseconds, summed over partitions, or -1 if a
+     *         partition ran on a thread that does not report CPU time (e.g. a virtual thread)
+     */
+    public long getLastCpuNanos() {
+        return lastCpuUnknown ? -1 : lastCpuNanos;
+    }
+}
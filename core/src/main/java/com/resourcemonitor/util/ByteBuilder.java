@@ -0,0 +1,166 @@
+package com.resourcemonitor.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for encoding output lines without intermediate Strings.
+ *
+ * Numbers are written digit by digit straight into the backing array, so encoding a snapshot
+ * into a reused builder does not allocate once the buffer has reached its working size.
+ * Not thread-safe.
+ */
+public final class ByteBuilder {
+    private static final long DOUBLE_SCALE = 1_000;
+    private static final double MAX_SCALED_DOUBLE = 9.0e15 / DOUBLE_SCALE;
+
+    private byte[] buffer;
+    private int length;
+
+    public ByteBuilder() {
+        this(1024);
+    }
+
+    /**
+     * @param initialCapacity Initial size of the backing array in bytes
+     */
+    public ByteBuilder(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length + extra, buffer.length * 2));
+        }
+    }
+
+    public ByteBuilder append(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+        return this;
+    }
+
+    public ByteBuilder append(char c) {
+        return append((byte) c);
+    }
+
+    public ByteBuilder append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    /**
+     * Appends a string as UTF-8. Intended for constant or precomputed text; hot paths should
+     * append precomputed byte arrays instead.
+     * @param text The text to append
+     * @return This builder
+     */
+    public ByteBuilder append(String text) {
+        return append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends the decimal representation of a long.
+     * @param value The value
+     * @return This builder
+     */
+    public ByteBuilder append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int pos = length + digits;
+        length = pos;
+        do {
+            buffer[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return this;
+    }
+
+    /**
+     * Appends a double with up to three decimals and no trailing zeros. Values too large for
+     * the fixed-point path fall back to {@link Double#toString(double)}.
+     * @param value A finite value
+     * @return This builder
+     */
+    public ByteBuilder append(double value) {
+        if (Math.abs(value) >= MAX_SCALED_DOUBLE) {
+            return append(Double.toString(value));
+        }
+        long scaled = Math.round(value * DOUBLE_SCALE);
+        if (scaled < 0) {
+            append('-');
+            scaled = -scaled;
+        }
+        append(scaled / DOUBLE_SCALE);
+        long fraction = scaled % DOUBLE_SCALE;
+        if (fraction != 0) {
+            append('.');
+            for (long divisor = DOUBLE_SCALE / 10; divisor > 0 && fraction != 0; divisor /= 10) {
+                append((byte) ('0' + fraction / divisor));
+                fraction %= divisor;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return Number of bytes written
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the backing array; only the first {@link #length()} bytes are valid.
+     * @return The backing array
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * Discards everything written after the given length.
+     * @param newLength Length to truncate to, as returned by {@link #length()} earlier
+     */
+    public void truncate(int newLength) {
+        if (newLength < 0 || newLength > length) {
+            throw new IllegalArgumentException("Invalid length " + newLength + " for " + length + " bytes");
+        }
+        length = newLength;
+    }
+
+    /**
+     * Clears the content and keeps the backing array.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Writes the content to a stream.
+     * @param out The target stream
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+}
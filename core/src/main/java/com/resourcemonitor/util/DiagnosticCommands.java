@@ -0,0 +1,46 @@
+package com.resourcemonitor.util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Invokes HotSpot diagnostic commands (the ones behind {@code jcmd}) in-process through the
+ * {@code com.sun.management:type=DiagnosticCommand} MBean, so no external tool or attach is needed.
+ */
+public final class DiagnosticCommands {
+    private static final String MBEAN_NAME = "com.sun.management:type=DiagnosticCommand";
+
+    private DiagnosticCommands() {}
+
+    /**
+     * @return true if the JVM provides the diagnostic command MBean, as HotSpot does
+     */
+    public static boolean isAvailable() {
+        try {
+            return ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(MBEAN_NAME));
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a diagnostic command.
+     * @param operation The MBean operation, e.g. "gcClassHistogram" for {@code GC.class_histogram}
+     * @param arguments Command arguments, e.g. "-all"
+     * @return The text output of the command
+     * @throws IOException if the JVM does not provide the command or it fails
+     */
+    public static String invoke(String operation, String... arguments) throws IOException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Object result = server.invoke(new ObjectName(MBEAN_NAME), operation,
+                new Object[] {arguments}, new String[] {String[].class.getName()});
+            return String.valueOf(result);
+        } catch (JMException e) {
+            throw new IOException("Diagnostic command " + operation + " failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.resourcemonitor.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free histogram with log-linear buckets.
+ *
+ * Values are grouped by power of two, and every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, which bounds the relative error of a reported
+ * percentile to about 6%. Values up to 2^{@value #MAX_EXPONENT} are tracked, so the whole
+ * histogram is a single preallocated {@link AtomicLongArray}; recording is a couple of atomic
+ * increments and never allocates.
+ *
+ * Typical use is one live histogram written by any number of threads and one interval histogram
+ * owned by the collector, filled by {@link #drainInto(LogHistogram)} once per cycle.
+ */
+public final class LogHistogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 48;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Maps a value to its bucket index.
+     * @param value A non-negative value
+     * @return The bucket index
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value that maps to a bucket.
+     * @param index The bucket index
+     * @return Upper bound of the bucket, inclusive
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index & (SUB_BUCKETS - 1);
+        long lower = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Returns the lowest value that maps to a bucket.
+     * @param index The bucket index
+     * @return Lower bound of the bucket, inclusive
+     */
+    static long bucketLowerBound(int index) {
+        return index == 0 ? 0 : bucketUpperBound(index - 1) + 1;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(v));
+        totalCount.incrementAndGet();
+        sum.addAndGet(v);
+        long currentMax = max.get();
+        while (v > currentMax && !max.compareAndSet(currentMax, v)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Adds values known only by their bucket, counting each as the bucket's midpoint in the sum.
+     * @param index The bucket index
+     * @param count Number of values to add
+     */
+    void addCount(int index, long count) {
+        counts.addAndGet(index, count);
+        totalCount.addAndGet(count);
+        sum.addAndGet(count * ((bucketLowerBound(index) + bucketUpperBound(index)) / 2));
+    }
+
+    /**
+     * Raises the maximum to a value if it is larger.
+     * @param value The value
+     */
+    void updateMax(long value) {
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Moves all recorded values into another histogram and resets this one.
+     * Values recorded concurrently end up in either histogram, never in both or neither.
+     *
+     * @param target The histogram to add the values to
+     */
+    public void drainInto(LogHistogram target) {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) != 0) {
+                long count = counts.getAndSet(i, 0);
+                target.counts.addAndGet(i, count);
+            }
+        }
+        target.totalCount.addAndGet(totalCount.getAndSet(0));
+        target.sum.addAndGet(sum.getAndSet(0));
+        long drainedMax = max.getAndSet(0);
+        long targetMax = target.max.get();
+        while (drainedMax > targetMax && !target.max.compareAndSet(targetMax, drainedMax)) {
+            targetMax = target.max.get();
+        }
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) != 0) {
+                counts.set(i, 0);
+            }
+        }
+        totalCount.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the value at a percentile. The result is the upper bound of the bucket holding the
+     * requested rank, capped at the recorded maximum.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return The value, or 0 if the histogram is empty
+     */
+    public long percentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long count() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return Sum of recorded values
+     */
+    public long sum() {
+        return sum.get();
+    }
+
+    /**
+     * @return Largest recorded value, or 0 if empty
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return Mean of recorded values, or 0 if empty
+     */
+    public double mean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * @return Number of buckets
+     */
+    public static int bucketCount() {
+        return BUCKETS;
+    }
+
+    /**
+     * @param index The bucket index
+     * @return Number of values in the bucket
+     */
+    public long bucketCount(int index) {
+        return counts.get(index);
+    }
+
+    /**
+     * Adds a count to a bucket; used when merging histograms received from elsewhere.
+     * @param index The bucket index
+     * @param count Number of values to add
+     * @param bucketSum Sum of the added values
+     */
+    public void addToBucket(int index, long count, long bucketSum) {
+        counts.addAndGet(index, count);
+        totalCount.addAndGet(count);
+        sum.addAndGet(bucketSum);
+        long upper = bucketUpperBound(index);
+        long currentMax = max.get();
+        while (upper > currentMax && !max.compareAndSet(currentMax, upper)) {
+            currentMax = max.get();
+        }
+    }
+}
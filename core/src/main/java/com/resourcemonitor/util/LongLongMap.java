@@ -0,0 +1,187 @@
+package com.resourcemonitor.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive long values.
+ *
+ * Used on collection paths where a {@code Map<Long, Long>} would box every key and value.
+ * The map only allocates when it grows; {@link #clear()} keeps the backing arrays so a map
+ * can be reused across cycles. Not thread-safe.
+ */
+public final class LongLongMap {
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize Number of entries the map should hold without resizing
+     */
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf(long key) {
+        int index = hash(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @param key The key
+     * @param defaultValue Value returned when the key is absent
+     * @return The mapped value, or defaultValue
+     */
+    public long get(long key, long defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * @param key The key
+     * @return true if the key is present
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     * @param key The key
+     * @param value The value
+     */
+    public void put(long key, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int index = hash(key) & mask;
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Adds a delta to the value of a key, treating an absent key as 0.
+     * @param key The key
+     * @param delta Amount to add
+     * @return The new value
+     */
+    public long addTo(long key, long delta) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] += delta;
+            return values[index];
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes a key, shifting later entries of its probe chain back.
+     * @param key The key
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the gap if its home slot is not between the gap and its position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+        return true;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries while keeping the allocated capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /**
+     * @return Number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every entry without allocating.
+     * @param visitor Receives each key and value
+     */
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Receives the entries of a {@link LongLongMap}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void accept(long key, long value);
+    }
+}
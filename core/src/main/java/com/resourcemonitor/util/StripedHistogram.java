@@ -0,0 +1,73 @@
+package com.resourcemonitor.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram for hot paths, striped across several bucket arrays with the layout of
+ * {@link LogHistogram}.
+ *
+ * Each recording thread is mapped to a stripe by its thread id, so threads on different cores
+ * rarely touch the same cache lines. Recording is a single atomic increment of one bucket, plus a
+ * compare-and-set in the rare case the value is a new maximum of its stripe; it takes no locks and
+ * never allocates. The count and the sum are not kept while recording but derived from the
+ * buckets when readers merge all stripes with {@link #drainInto(LogHistogram)} once per cycle, so
+ * the drained sum counts every value as the midpoint of its bucket (within about 3%).
+ */
+public final class StripedHistogram {
+    private static final int MAX_SLOT = LogHistogram.BUCKETS;
+
+    // Per stripe: the bucket counts followed by the largest value recorded since the last drain
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+    public StripedHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency Expected number of concurrently recording threads
+     */
+    public StripedHistogram(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 64)) * 2 - 1);
+        this.stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(LogHistogram.BUCKETS + 1);
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Records a value into the stripe of the current thread. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        long v = Math.max(value, 0);
+        stripe.getAndIncrement(LogHistogram.bucketIndex(v));
+        long currentMax = stripe.get(MAX_SLOT);
+        while (v > currentMax && !stripe.compareAndSet(MAX_SLOT, currentMax, v)) {
+            currentMax = stripe.get(MAX_SLOT);
+        }
+    }
+
+    /**
+     * Moves the values of all stripes into the target histogram and resets the stripes.
+     * @param target The histogram to add the values to
+     */
+    public void drainInto(LogHistogram target) {
+        for (AtomicLongArray stripe : stripes) {
+            int highest = -1;
+            for (int i = 0; i < LogHistogram.BUCKETS; i++) {
+                if (stripe.get(i) != 0) {
+                    target.addCount(i, stripe.getAndSet(i, 0));
+                    highest = i;
+                }
+            }
+            // A maximum still being published by a concurrent record lands in the next drain
+            target.updateMax(stripe.getAndSet(MAX_SLOT, 0));
+            if (highest >= 0) {
+                target.updateMax(LogHistogram.bucketLowerBound(highest));
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the steady-state allocation of {@code collect()}, measured with
+ * {@code ThreadMXBean.getCurrentThreadAllocatedBytes()}.
+ *
+ * Collectors that read only primitive JDK APIs must not allocate at all. The memory, runtime and
+ * thread collectors depend on JDK APIs that return a new object on every call (see
+ * {@link MetricsCollector#collect(MetricsSnapshot)}); for them the test first measures those calls
+ * alone and fails if the collector allocates more, so any allocation of its own is caught.
+ */
+class CollectorAllocationTest {
+    private static final int WARMUP = 10_000;
+    private static final int ITERATIONS = 1_000;
+    private static final int ROUNDS = 5;
+    /** Size of a {@code CopyOnWriteArrayList} iterator: an object header, a reference and an int */
+    private static final int COW_ITERATOR_BYTES = 24;
+
+    private static com.sun.management.ThreadMXBean threads;
+    // Consumes the results of the JDK calls measured as a baseline
+    private static volatile long sink;
+
+    @BeforeAll
+    static void enableAllocationAccounting() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "no HotSpot ThreadMXBean");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation accounting not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void cpuCollectorDoesNotAllocate() {
+        // Off Linux, or without a visible cgroup, it falls back to getSystemCpuLoad()
+        assumeTrue(System.getProperty("os.name").startsWith("Linux"), "not Linux");
+        MetricRegistry registry = new MetricRegistry();
+        assertAllocatesAtMost(registry, new CpuMetricsCollector(registry), 0);
+    }
+
+    @Test
+    void gcCollectorDoesNotAllocate() {
+        MetricRegistry registry = new MetricRegistry();
+        assertAllocatesAtMost(registry, new GcMetricsCollector(registry), 0);
+    }
+
+    @Test
+    void databaseCollectorAllocatesOnlyInsideHikari() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("alloc-hikari");
+        config.setJdbcUrl("jdbc:h2:mem:alloc-hikari;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(4);
+        PoolProperties properties = new PoolProperties();
+        properties.setName("alloc-tomcat");
+        properties.setUrl("jdbc:h2:mem:alloc-tomcat;DB_CLOSE_DELAY=-1");
+        properties.setDriverClassName("org.h2.Driver");
+        properties.setMaxActive(4);
+        properties.setInitialSize(4);
+
+        try (HikariDataSource hikari = new HikariDataSource(config)) {
+            org.apache.tomcat.jdbc.pool.DataSource tomcat = new org.apache.tomcat.jdbc.pool.DataSource(properties);
+            try {
+                start(hikari);
+                start(tomcat);
+                MetricRegistry registry = new MetricRegistry();
+                // HikariPool.getActiveConnections() and getIdleConnections() each iterate the pool's
+                // CopyOnWriteArrayList; the JIT removes the iterators only where it inlines the whole chain
+                assertAllocatesAtMost(registry,
+                    new DatabaseMetricsCollector(Arrays.<DataSource>asList(hikari, tomcat), registry),
+                    2 * COW_ITERATOR_BYTES);
+            } finally {
+                tomcat.close();
+            }
+        }
+    }
+
+    @Test
+    void memoryCollectorAllocatesOnlyPoolUsage() {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        long unavoidable = measure(() -> {
+            for (MemoryPoolMXBean pool : pools) {
+                sink += pool.getUsage().getUsed();
+                MemoryUsage afterGc = pool.getCollectionUsage();
+                if (afterGc != null) {
+                    sink += afterGc.getUsed();
+                }
+            }
+        });
+        MetricRegistry registry = new MetricRegistry();
+        assertAllocatesAtMost(registry, new MemoryMetricsCollector(registry), unavoidable);
+    }
+
+    @Test
+    void runtimeCollectorAllocatesOnlyCodeCacheUsage() {
+        List<MemoryPoolMXBean> codeHeaps = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.NON_HEAP && pool.getName().startsWith("Code")) {
+                codeHeaps.add(pool);
+            }
+        }
+        long unavoidable = measure(() -> {
+            for (MemoryPoolMXBean pool : codeHeaps) {
+                sink += pool.getUsage().getUsed();
+            }
+        });
+        MetricRegistry registry = new MetricRegistry();
+        assertAllocatesAtMost(registry, new RuntimeMetricsCollector(registry), unavoidable);
+    }
+
+    @Test
+    void threadCollectorAllocatesOnlyThreadDump() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        long unavoidable = measure(() -> sink += bean.dumpAllThreads(false, false, 0).length);
+        MetricRegistry registry = new MetricRegistry();
+        assertAllocatesAtMost(registry, new ThreadMetricsCollector(registry), unavoidable);
+    }
+
+    private static void start(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        }
+    }
+
+    /**
+     * @return The lowest number of bytes the action allocates per run over several rounds
+     */
+    private static long measure(Runnable action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+        long lowest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                action.run();
+            }
+            lowest = Math.min(lowest, (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS);
+        }
+        return lowest;
+    }
+
+    /**
+     * Fails if the lowest allocation per collect over several rounds exceeds the limit. Taking the
+     * lowest round keeps a JIT recompilation in one round from failing the test.
+     */
+    private static void assertAllocatesAtMost(MetricRegistry registry, MetricsCollector collector, long limit) {
+        try {
+            // The warm-up also registers lazily created metrics and grows the snapshot to fit them
+            MetricsSnapshot snapshot = registry.newSnapshot();
+            for (int i = 0; i < WARMUP; i++) {
+                snapshot.begin(i);
+                collector.collect(snapshot);
+            }
+
+            double lowest = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS && lowest > limit; round++) {
+                long before = threads.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    snapshot.begin(i);
+                    collector.collect(snapshot);
+                }
+                lowest = Math.min(lowest, (double) (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS);
+            }
+            // Below one byte per collect is the measurement itself, not the collector
+            assertTrue(lowest < limit + 1, collector.getClass().getSimpleName()
+                + " allocates " + lowest + " B per collect, expected at most " + limit);
+        } finally {
+            collector.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.resourcemonitor.collectors;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LockContentionProfilerTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void attributesBlockedTimeToTheMonitorAThreadWasLastBlockedOn() throws InterruptedException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        MetricRegistry registry = new MetricRegistry();
+        // Buckets of 10 ms, so every cycle rotates and the monitor only survives through its thread
+        LockContentionProfiler profiler = new LockContentionProfiler(threadMXBean, registry, 3, 100);
+        MetricsSnapshot snapshot = registry.newSnapshot();
+        Object lock = new Object();
+        Thread blocked = new Thread(() -> {
+            synchronized (lock) {
+                lock.hashCode();
+            }
+        }, "contended");
+        try {
+            synchronized (lock) {
+                blocked.start();
+                long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (blocked.getState() != Thread.State.BLOCKED) {
+                    assertTrue(System.currentTimeMillis() < deadline, "thread did not block");
+                    Thread.sleep(1);
+                }
+                // First sample: the thread is blocked, but has no baseline to diff against yet
+                collect(profiler, snapshot, threadMXBean);
+                Thread.sleep(50);
+                collect(profiler, snapshot, threadMXBean);
+                Thread.sleep(50);
+            }
+            blocked.join(TIMEOUT_MILLIS);
+
+            // The thread runs again; the time it blocked since the last sample goes to its last monitor
+            collect(profiler, snapshot, threadMXBean);
+            List<LockContentionProfiler.HotMonitor> top = profiler.getTop();
+            assertEquals(1, top.size());
+            LockContentionProfiler.HotMonitor monitor = top.get(0);
+            assertTrue(monitor.lockName.startsWith("java.lang.Object@"), monitor.lockName);
+            assertTrue(monitor.frame.contains(LockContentionProfilerTest.class.getName()), monitor.frame);
+            assertTrue(monitor.windowBlockedMillis() >= 50, monitor.windowBlockedMillis() + " ms");
+        } finally {
+            profiler.close();
+        }
+    }
+
+    private static void collect(LockContentionProfiler profiler, MetricsSnapshot snapshot, ThreadMXBean threadMXBean)
+            throws InterruptedException {
+        // Let the 10 ms bucket pass so that the window rotates on every sample
+        Thread.sleep(15);
+        snapshot.begin(System.currentTimeMillis());
+        profiler.collect(threadMXBean.dumpAllThreads(false, false, 0), snapshot);
+    }
+}
@@ -0,0 +1,72 @@
+package com.resourcemonitor.executor;
+
+import com.resourcemonitor.util.LogHistogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentingExecutorPostProcessorTest {
+
+    @Test
+    void timesTasksOfExecutorsWithoutDecorator() throws InterruptedException {
+        try (GenericApplicationContext context = context()) {
+            context.registerBean("executor", ThreadPoolTaskExecutor.class);
+            context.refresh();
+
+            ThreadPoolTaskExecutor executor = context.getBean("executor", ThreadPoolTaskExecutor.class);
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            executor.execute(() -> { });
+            // The run time is recorded after the task, so wait for the worker to finish
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            TaskMetrics metrics = ExecutorAdapters.adapt("executor", executor).getTaskMetrics();
+            assertNotNull(metrics);
+            LogHistogram run = new LogHistogram();
+            metrics.drainRun(run);
+            assertEquals(1, run.count());
+        }
+    }
+
+    @Test
+    void keepsDecoratorSetInTheBeanDefinition() {
+        try (GenericApplicationContext context = context()) {
+            TaskDecorator decorator = runnable -> runnable;
+            context.registerBeanDefinition("executor", BeanDefinitionBuilder
+                .genericBeanDefinition(ThreadPoolTaskExecutor.class)
+                .addPropertyValue("taskDecorator", decorator)
+                .getBeanDefinition());
+            context.refresh();
+
+            ThreadPoolTaskExecutor executor = context.getBean("executor", ThreadPoolTaskExecutor.class);
+            assertNull(ExecutorAdapters.adapt("executor", executor).getTaskMetrics());
+        }
+    }
+
+    @Test
+    void skipsExecutorsWhenTheContextHasTaskDecorators() {
+        try (GenericApplicationContext context = context()) {
+            context.registerBean("decorator", TaskDecorator.class, () -> runnable -> runnable);
+            context.registerBean("executor", ThreadPoolTaskExecutor.class);
+            context.refresh();
+
+            ThreadPoolTaskExecutor executor = context.getBean("executor", ThreadPoolTaskExecutor.class);
+            assertNull(ExecutorAdapters.adapt("executor", executor).getTaskMetrics());
+        }
+    }
+
+    private static GenericApplicationContext context() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(InstrumentingExecutorPostProcessor.class);
+        return context;
+    }
+}
@@ -0,0 +1,56 @@
+package com.resourcemonitor.history;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeriesBufferTest {
+
+    @Test
+    void visitsCompressedRollupsThenThePendingRollupThenRawSamples() {
+        // Four raw samples, rollups of three samples
+        SeriesBuffer buffer = new SeriesBuffer(4, 3, 2, 64);
+        for (int i = 1; i <= 9; i++) {
+            buffer.add(i * 1000L, i);
+        }
+
+        assertEquals(Arrays.asList(
+            "rollup 1000 min=1.0 max=3.0 avg=2.0 count=3",
+            "rollup 4000 min=4.0 max=5.0 avg=4.5 count=2",
+            "sample 6000 6.0", "sample 7000 7.0", "sample 8000 8.0", "sample 9000 9.0"),
+            visit(buffer, 0, Long.MAX_VALUE));
+        assertEquals(6, buffer.maxPoints());
+    }
+
+    @Test
+    void filtersThePendingRollupByItsStart() {
+        SeriesBuffer buffer = new SeriesBuffer(4, 3, 2, 64);
+        for (int i = 1; i <= 6; i++) {
+            buffer.add(i * 1000L, i);
+        }
+
+        assertEquals(Arrays.asList("rollup 1000 min=1.0 max=2.0 avg=1.5 count=2", "sample 3000 3.0"),
+            visit(buffer, 1000, 3000));
+        assertEquals(Arrays.asList("sample 3000 3.0", "sample 4000 4.0"), visit(buffer, 2000, 4000));
+    }
+
+    private static List<String> visit(SeriesBuffer buffer, long fromMillis, long toMillis) {
+        List<String> points = new ArrayList<>();
+        buffer.visit(fromMillis, toMillis, new SeriesVisitor() {
+            @Override
+            public void sample(long timestampMillis, double value) {
+                points.add("sample " + timestampMillis + " " + value);
+            }
+
+            @Override
+            public void rollup(long timestampMillis, double min, double max, double avg, long count) {
+                points.add("rollup " + timestampMillis + " min=" + min + " max=" + max + " avg=" + avg
+                    + " count=" + count);
+            }
+        });
+        return points;
+    }
+}
@@ -0,0 +1,242 @@
+package com.resourcemonitor.output;
+
+import com.resourcemonitor.metrics.MetricRegistry;
+import com.resourcemonitor.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends snapshots through {@link StatsDSink} to a UDP listener on localhost, standing in for the
+ * StatsD agent, and checks the datagrams it receives.
+ */
+class StatsDSinkTest {
+    private static final long RECEIVE_TIMEOUT_MILLIS = 2_000;
+
+    private DatagramChannel agent;
+    private int port;
+
+    @BeforeEach
+    void bindAgent() throws IOException {
+        agent = bind(0);
+        port = ((InetSocketAddress) agent.getLocalAddress()).getPort();
+    }
+
+    @AfterEach
+    void closeAgent() throws IOException {
+        agent.close();
+    }
+
+    @Test
+    void packsLinesIntoDatagramsOfAtMostMaxPacketBytes() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registry.longGauge("test.gauge." + i, "count");
+        }
+        MetricsSnapshot snapshot = registry.newSnapshot();
+        snapshot.begin(1);
+        for (int i = 0; i < ids.length; i++) {
+            snapshot.set(ids[i], 1_000 + i);
+        }
+
+        StatsDSink sink = sink(registry, false, 200, "", Collections.emptyList());
+        try {
+            sink.write(snapshot);
+        } finally {
+            sink.close();
+        }
+
+        List<String> packets = receiveAll();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < packets.size(); i++) {
+            String packet = packets.get(i);
+            assertTrue(packet.length() <= 200, "packet of " + packet.length() + " bytes");
+            assertTrue(packet.endsWith("\n"), "packet split inside a line: " + packet);
+            if (i + 1 < packets.size()) {
+                // A packet is only sent when the next line does not fit
+                int nextLine = packets.get(i + 1).indexOf('\n') + 1;
+                assertTrue(packet.length() + nextLine > 200, "packet of " + packet.length() + " bytes sent early");
+            }
+            lines.addAll(Arrays.asList(packet.split("\n")));
+        }
+        assertEquals(ids.length, lines.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertTrue(lines.contains("test.gauge." + i + ":" + (1_000 + i) + "|g"), "missing gauge " + i);
+        }
+    }
+
+    @Test
+    void sendsCounterIncrementsSinceThePreviousCycle() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int requests = registry.counter("test.requests", "count");
+        MetricsSnapshot snapshot = registry.newSnapshot();
+
+        StatsDSink sink = sink(registry, false, 1432, "", Collections.emptyList());
+        try {
+            for (long count : new long[] {5, 12, 12, 3, 10}) {
+                snapshot.begin(count);
+                snapshot.set(requests, count);
+                sink.write(snapshot);
+            }
+        } finally {
+            sink.close();
+        }
+
+        // 5 only sets the baseline, 12 again adds nothing, and the drop to 3 is a reset
+        assertEquals(Arrays.asList("test.requests:7|c", "test.requests:7|c"), linesOf("test.requests", receiveAll()));
+    }
+
+    @Test
+    void sendsTagsAsDogStatsDTags() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int active = registry.longGauge("db.connections.active", "count", "pool", "main");
+        MetricsSnapshot snapshot = registry.newSnapshot();
+        snapshot.begin(1);
+        snapshot.set(active, 3);
+
+        StatsDSink sink = sink(registry, true, 1432, "app.", Collections.singletonList("env:test"));
+        try {
+            sink.write(snapshot);
+        } finally {
+            sink.close();
+        }
+
+        assertEquals(Collections.singletonList("app.db.connections.active:3|g|#env:test,pool:main"),
+            linesOf("app.db.connections.active", receiveAll()));
+    }
+
+    @Test
+    void appendsTagValuesToTheNameForPlainStatsD() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int active = registry.longGauge("db.connections.active", "count", "pool", "main");
+        MetricsSnapshot snapshot = registry.newSnapshot();
+        snapshot.begin(1);
+        snapshot.set(active, 3);
+
+        StatsDSink sink = sink(registry, false, 1432, "app.", Collections.singletonList("env:test"));
+        try {
+            sink.write(snapshot);
+        } finally {
+            sink.close();
+        }
+
+        assertEquals(Collections.singletonList("app.db.connections.active.main:3|g"),
+            linesOf("app.db.connections.active", receiveAll()));
+    }
+
+    @Test
+    void setsNegativeGaugesToZeroFirst() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int delta = registry.longGauge("test.delta", "count");
+        int ratio = registry.doubleGauge("test.ratio", "percent");
+        MetricsSnapshot snapshot = registry.newSnapshot();
+        snapshot.begin(1);
+        snapshot.set(delta, -5);
+        snapshot.set(ratio, -0.5);
+
+        StatsDSink sink = sink(registry, false, 1432, "", Collections.emptyList());
+        try {
+            sink.write(snapshot);
+        } finally {
+            sink.close();
+        }
+
+        List<String> packets = receiveAll();
+        assertEquals(Arrays.asList("test.delta:0|g", "test.delta:-5|g"), linesOf("test.delta", packets));
+        assertEquals(Arrays.asList("test.ratio:0|g", "test.ratio:-0.5|g"), linesOf("test.ratio", packets));
+    }
+
+    @Test
+    void countsDatagramsThatCannotBeSent() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        int gauge = registry.longGauge("test.gauge", "count");
+        MetricsSnapshot snapshot = registry.newSnapshot();
+
+        StatsDSink sink = sink(registry, false, 1432, "", Collections.emptyList());
+        try {
+            snapshot.begin(1);
+            snapshot.set(gauge, 1);
+            sink.write(snapshot);
+            receiveAll();
+
+            // Without a listener the kernel answers with port unreachable, reported on the next send
+            agent.close();
+            sink.write(snapshot);
+            Thread.sleep(100);
+            sink.write(snapshot);
+            agent = bind(port);
+            sink.write(snapshot);
+        } finally {
+            sink.close();
+        }
+
+        assertEquals(Collections.singletonList("monitor.statsd.dropped:1|c"),
+            linesOf("monitor.statsd.dropped", receiveAll()));
+    }
+
+    private StatsDSink sink(MetricRegistry registry, boolean dogStatsD, int maxPacketBytes, String prefix,
+                            List<String> tags) throws IOException {
+        return new StatsDSink(registry, "127.0.0.1", port, dogStatsD, maxPacketBytes, prefix, tags);
+    }
+
+    private static DatagramChannel bind(int port) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress("127.0.0.1", port));
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    /**
+     * Receives datagrams until none arrives for a while.
+     * @return The payload of each datagram
+     */
+    private List<String> receiveAll() throws Exception {
+        List<String> packets = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(65_536);
+        long deadline = System.currentTimeMillis() + RECEIVE_TIMEOUT_MILLIS;
+        long quietSince = System.currentTimeMillis();
+        while (System.currentTimeMillis() < deadline) {
+            buffer.clear();
+            if (agent.receive(buffer) != null) {
+                buffer.flip();
+                packets.add(StandardCharsets.UTF_8.decode(buffer).toString());
+                quietSince = System.currentTimeMillis();
+            } else if (!packets.isEmpty() && System.currentTimeMillis() - quietSince > 100) {
+                break;
+            } else {
+                Thread.sleep(5);
+            }
+        }
+        return packets;
+    }
+
+    /**
+     * @return The lines of all packets that start with the metric name, in order
+     */
+    private static List<String> linesOf(String name, List<String> packets) {
+        List<String> lines = new ArrayList<>();
+        for (String packet : packets) {
+            for (String line : packet.split("\n")) {
+                if (line.startsWith(name + ":") || line.startsWith(name + ".")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}